@@ -0,0 +1,48 @@
+package com.hospital.ckd.bench;
+
+import com.hospital.ckd.data.Preprocessor;
+import com.hospital.ckd.ml.NeuralNetwork;
+import com.hospital.ckd.model.PatientData;
+
+import java.util.Random;
+
+/**
+ * Shared inputs for the benchmarks: reproducible synthetic patients and networks.
+ */
+final class BenchmarkData {
+    static final long SEED = 42L;
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Network with the default 10 -> width -> 1 sigmoid shape and random weights
+     */
+    static NeuralNetwork network(int hiddenWidth) {
+        return new NeuralNetwork(Preprocessor.FEATURE_COUNT, new int[]{hiddenWidth, 1},
+                new String[]{"sigmoid", "sigmoid"}, SEED);
+    }
+
+    /**
+     * Patients with every value inside the validation ranges
+     */
+    static PatientData[] patients(int count) {
+        Random random = new Random(SEED);
+        PatientData[] patients = new PatientData[count];
+        for (int i = 0; i < count; i++) {
+            patients[i] = new PatientData(
+                    20 + random.nextInt(70), 90 + random.nextInt(80), 70 + random.nextInt(200),
+                    0.6 + random.nextDouble() * 5, 8 + random.nextDouble() * 8, 2 + random.nextDouble() * 3,
+                    random.nextInt(5), 125 + random.nextInt(25), 3 + random.nextDouble() * 3, 25 + random.nextInt(25));
+        }
+        return patients;
+    }
+
+    static double[][] normalized(PatientData[] patients) {
+        double[][] inputs = new double[patients.length][];
+        for (int i = 0; i < patients.length; i++) {
+            inputs[i] = Preprocessor.normalize(patients[i]);
+        }
+        return inputs;
+    }
+}
@@ -0,0 +1,66 @@
+package com.hospital.ckd.bench;
+
+import com.hospital.ckd.ml.Layer;
+import com.hospital.ckd.ml.NeuralNetwork;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hidden layer forward pass: allocating, allocation-free and blocked batch variants.
+ * The batch benchmark scores BATCH rows per invocation and reports per-row figures.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LayerBenchmark {
+    static final int BATCH = 256;
+
+    @Param({"8", "64", "256"})
+    public int hiddenWidth;
+
+    private Layer layer;
+    private double[] input;
+    private double[] output;
+    private double[][] batch;
+
+    @Setup
+    public void setUp() {
+        NeuralNetwork network = BenchmarkData.network(hiddenWidth);
+        layer = network.getLayers().get(0);
+        batch = BenchmarkData.normalized(BenchmarkData.patients(BATCH));
+        input = batch[0];
+        output = new double[hiddenWidth];
+    }
+
+    @Benchmark
+    public double[] forward() {
+        return layer.forward(input);
+    }
+
+    @Benchmark
+    public double[] forwardInto() {
+        layer.forwardInto(input, output);
+        return output;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public double[][] forwardBatch() {
+        return layer.forwardBatch(batch);
+    }
+}
@@ -0,0 +1,107 @@
+package com.hospital.ckd.bench;
+
+import com.hospital.ckd.ml.CompiledNetwork;
+import com.hospital.ckd.ml.FloatNetwork;
+import com.hospital.ckd.ml.NeuralNetwork;
+import com.hospital.ckd.ml.Predictor;
+import com.hospital.ckd.ml.QuantizedNetwork;
+import com.hospital.ckd.ml.Workspace;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Whole-network scoring. Every benchmark scores BATCH rows per invocation, so scores are per patient
+ * and single-row and batched paths can be compared directly.
+ * The 256-wide network is too large for {@link CompiledNetwork}, so predictIntoCompiled measures the
+ * interpreter fallback there.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NetworkBenchmark {
+    static final int BATCH = 1024;
+
+    @Param({"8", "64", "256"})
+    public int hiddenWidth;
+
+    private NeuralNetwork network;
+    private Workspace workspace;
+    private QuantizedNetwork quantized;
+    private Workspace quantizedWorkspace;
+    private Predictor compiled;
+    private FloatNetwork float32;
+    private Workspace compiledWorkspace;
+    private double[][] inputs;
+
+    @Setup
+    public void setUp() {
+        network = BenchmarkData.network(hiddenWidth);
+        workspace = network.newWorkspace();
+        inputs = BenchmarkData.normalized(BenchmarkData.patients(BATCH));
+        quantized = QuantizedNetwork.quantize(network, inputs);
+        quantizedWorkspace = quantized.newWorkspace();
+        compiled = CompiledNetwork.compile(network);
+        compiledWorkspace = compiled.newWorkspace();
+        float32 = FloatNetwork.convert(network);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void predictSingle(Blackhole blackhole) {
+        for (double[] input : inputs) {
+            blackhole.consume(network.predict(input));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void predictInto(Blackhole blackhole) {
+        for (double[] input : inputs) {
+            blackhole.consume(network.predictInto(input, workspace));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public double[] predictBatch() {
+        return network.predictBatch(inputs);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void predictIntoInt8(Blackhole blackhole) {
+        for (double[] input : inputs) {
+            blackhole.consume(quantized.predictInto(input, quantizedWorkspace));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void predictIntoCompiled(Blackhole blackhole) {
+        for (double[] input : inputs) {
+            blackhole.consume(compiled.predictInto(input, compiledWorkspace));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public double[] predictBatchFloat32() {
+        return float32.predictBatch(inputs);
+    }
+}
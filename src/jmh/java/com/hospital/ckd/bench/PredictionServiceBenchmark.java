@@ -0,0 +1,69 @@
+package com.hospital.ckd.bench;
+
+import com.hospital.ckd.model.PatientData;
+import com.hospital.ckd.model.PredictionResult;
+import com.hospital.ckd.service.PredictionService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end service calls, including metrics recording and sampled prediction logging.
+ * System.out is redirected to a discarding stream so sampled log lines do not flood the JMH output.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PredictionServiceBenchmark {
+    static final int BATCH = 256;
+
+    private PredictionService service;
+    private PatientData patient;
+    private List<PatientData> batch;
+    private PrintStream originalOut;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        originalOut = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        service = PredictionService.getInstance();
+        PatientData[] patients = BenchmarkData.patients(BATCH);
+        patient = patients[0];
+        batch = Arrays.asList(patients);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.setOut(originalOut);
+    }
+
+    @Benchmark
+    public PredictionResult predictCKDRisk() {
+        return service.predictCKDRisk(patient);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public List<PredictionResult> predictBatch() {
+        return service.predictBatch(batch);
+    }
+}
@@ -0,0 +1,73 @@
+package com.hospital.ckd.bench;
+
+import com.hospital.ckd.data.FeatureSpec;
+import com.hospital.ckd.data.Preprocessor;
+import com.hospital.ckd.model.PatientData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validation and normalization of a single patient: the separate passes and the fused
+ * {@link FeatureSpec#prepare(PatientData, double[])} used on the scoring path.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PreprocessorBenchmark {
+    private PatientData patient;
+    private double[] buffer;
+    private FeatureSpec spec;
+
+    @Setup
+    public void setUp() {
+        patient = BenchmarkData.patients(1)[0];
+        buffer = new double[Preprocessor.FEATURE_COUNT];
+        spec = Preprocessor.getFeatureSpec();
+    }
+
+    @Benchmark
+    public String validateData() {
+        return Preprocessor.validateData(patient);
+    }
+
+    @Benchmark
+    public String validateDataInto() {
+        return Preprocessor.validateData(patient, buffer);
+    }
+
+    @Benchmark
+    public double[] normalize() {
+        return Preprocessor.normalize(patient);
+    }
+
+    @Benchmark
+    public double[] normalizeInto() {
+        return Preprocessor.normalizeInto(patient, buffer);
+    }
+
+    @Benchmark
+    public double[] validateThenNormalizeInto() {
+        if (Preprocessor.validateData(patient, buffer) != null) {
+            throw new IllegalStateException("Benchmark patient is invalid");
+        }
+        return Preprocessor.normalizeInto(patient, buffer);
+    }
+
+    @Benchmark
+    public int prepareFused() {
+        return spec.prepare(patient, buffer);
+    }
+}
@@ -0,0 +1,335 @@
+package com.hospital.ckd.audit;
+
+import com.hospital.ckd.data.Preprocessor;
+import com.hospital.ckd.model.PatientData;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+/**
+ * Durable, append-only audit trail of predictions.
+ *
+ * Scoring threads copy each prediction into a preallocated ring buffer: a slot is claimed
+ * with one atomic increment and published with an ordered store, so appends never take a
+ * lock. A single background writer drains the ring into memory-mapped segment files (see
+ * {@link AuditLogFormat}), adds a CRC per record, and forces the written range to disk
+ * every {@code forceIntervalMillis} (group commit). A segment that cannot hold the next
+ * record is forced and closed, and a new one is started.
+ *
+ * When the ring is full, appending threads wait for the writer rather than drop records.
+ */
+public class AuditLog implements AutoCloseable {
+    public static final int DEFAULT_SEGMENT_BYTES = 64 << 20;
+    public static final int DEFAULT_RING_CAPACITY = 1 << 14;
+    public static final long DEFAULT_FORCE_INTERVAL_MILLIS = 50;
+
+    private static final int MAX_VERSION_BYTES = 1024;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final long forceIntervalNanos;
+    private final int featureCount = Preprocessor.FEATURE_COUNT;
+
+    // Ring buffer: slot = sequence & mask; published[slot] holds the sequence stored in it
+    private final int mask;
+    private final AtomicLongArray published;
+    private final double[][] inputs;
+    private final long[] timestamps;
+    private final long[] generations;
+    private final double[] probabilities;
+    private final String[] versions;
+    private final AtomicLong claimed = new AtomicLong(-1);
+    private final AtomicLong consumed = new AtomicLong(-1);
+    // Appends between their open check and publishing; the writer only stops once this is zero
+    private final AtomicInteger activeAppends = new AtomicInteger();
+
+    private final Thread writer;
+    private volatile boolean closed;
+    private volatile Exception failure;
+    private final LongAdder records = new LongAdder();
+    private final LongAdder forces = new LongAdder();
+    private final LongAdder segments = new LongAdder();
+
+    // Writer-thread state
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private long segmentSequence;
+    private int writePosition;
+    private int forcedPosition;
+    private long lastForceNanos;
+    private String cachedVersion;
+    private byte[] cachedVersionBytes;
+
+    /**
+     * Open an audit log with default segment size, ring capacity and force interval
+     */
+    public static AuditLog open(Path directory) throws IOException {
+        return new AuditLog(directory, DEFAULT_SEGMENT_BYTES, DEFAULT_RING_CAPACITY, DEFAULT_FORCE_INTERVAL_MILLIS);
+    }
+
+    /**
+     * @param directory Directory holding the segment files; created if missing
+     * @param segmentBytes Size of each segment file
+     * @param ringCapacity Number of buffered records, rounded up to a power of two
+     * @param forceIntervalMillis Longest time written records stay unforced
+     */
+    public AuditLog(Path directory, int segmentBytes, int ringCapacity, long forceIntervalMillis) throws IOException {
+        int largestRecord = AuditLogFormat.recordSize(featureCount, MAX_VERSION_BYTES);
+        if (segmentBytes < AuditLogFormat.SEGMENT_HEADER_SIZE + largestRecord) {
+            throw new IllegalArgumentException("Segment size must be at least "
+                    + (AuditLogFormat.SEGMENT_HEADER_SIZE + largestRecord) + " bytes");
+        }
+        if (ringCapacity <= 0 || forceIntervalMillis < 0) {
+            throw new IllegalArgumentException("Ring capacity must be positive and force interval non-negative");
+        }
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.forceIntervalNanos = TimeUnit.MILLISECONDS.toNanos(forceIntervalMillis);
+
+        int capacity = Integer.highestOneBit(Math.max(1, ringCapacity - 1)) << 1;
+        this.mask = capacity - 1;
+        this.published = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            published.set(i, -1);
+        }
+        this.inputs = new double[capacity][featureCount];
+        this.timestamps = new long[capacity];
+        this.generations = new long[capacity];
+        this.probabilities = new double[capacity];
+        this.versions = new String[capacity];
+
+        Files.createDirectories(directory);
+        this.segmentSequence = lastSegmentSequence(directory);
+        openNextSegment();
+
+        this.writer = new Thread(this::writeLoop, "ckd-audit-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    private static long lastSegmentSequence(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(AuditLogFormat::isSegment).mapToLong(AuditLogFormat::sequenceOf).max().orElse(0);
+        }
+    }
+
+    /**
+     * Queue one prediction for the audit trail
+     * Returns as soon as the record is in the ring buffer; waits only if the ring is full.
+     *
+     * @throws IllegalStateException if the log is closed or the writer has failed
+     */
+    public void append(PatientData patient, String modelVersion, long modelGeneration, double riskProbability) {
+        append(patient, null, 0, modelVersion, modelGeneration, riskProbability);
+    }
+
+    /**
+     * Queue one prediction whose raw inputs sit in a primitive buffer, in PatientData.toArray() order
+     * Used by bulk scoring, which holds rows in flat arrays rather than PatientData objects.
+     *
+     * @throws IllegalStateException if the log is closed or the writer has failed
+     */
+    public void append(double[] values, int offset, String modelVersion, long modelGeneration, double riskProbability) {
+        if (offset < 0 || offset + featureCount > values.length) {
+            throw new IllegalArgumentException("No " + featureCount + " values at offset " + offset);
+        }
+        append(null, values, offset, modelVersion, modelGeneration, riskProbability);
+    }
+
+    private void append(PatientData patient, double[] values, int offset, String modelVersion,
+                        long modelGeneration, double riskProbability) {
+        if (modelVersion == null) {
+            throw new IllegalArgumentException("Model version is required for audit records");
+        }
+        // Registered before the open check, so a close() that this append does not see
+        // cannot let the writer stop before the record is published
+        activeAppends.incrementAndGet();
+        try {
+            checkOpen();
+            long sequence = claimed.incrementAndGet();
+            waitForSpace(sequence);
+
+            int slot = (int) sequence & mask;
+            if (patient != null) {
+                patient.toArray(inputs[slot]);
+            } else {
+                System.arraycopy(values, offset, inputs[slot], 0, featureCount);
+            }
+            timestamps[slot] = System.currentTimeMillis();
+            generations[slot] = modelGeneration;
+            probabilities[slot] = riskProbability;
+            versions[slot] = modelVersion;
+            published.lazySet(slot, sequence);
+        } finally {
+            activeAppends.decrementAndGet();
+        }
+    }
+
+    private void checkOpen() {
+        if (failure != null) {
+            throw new IllegalStateException("Audit log writer failed: " + failure.getMessage(), failure);
+        }
+        if (closed) {
+            throw new IllegalStateException("Audit log is closed");
+        }
+    }
+
+    private void waitForSpace(long sequence) {
+        long wrapPoint = sequence - mask - 1;
+        while (consumed.get() < wrapPoint) {
+            if (failure != null) {
+                throw new IllegalStateException("Audit log writer failed: " + failure.getMessage(), failure);
+            }
+            LockSupport.parkNanos(IDLE_PARK_NANOS);
+        }
+    }
+
+    private void writeLoop() {
+        try {
+            lastForceNanos = System.nanoTime();
+            while (true) {
+                int drained = drain();
+                long now = System.nanoTime();
+                if (forcedPosition < writePosition && now - lastForceNanos >= forceIntervalNanos) {
+                    force();
+                }
+                if (drained == 0) {
+                    // Read in this order: an append still in progress may not have claimed its sequence yet
+                    if (closed && activeAppends.get() == 0 && consumed.get() == claimed.get()) {
+                        break;
+                    }
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                }
+            }
+            force();
+            closeSegment();
+        } catch (IOException | RuntimeException e) {
+            failure = e;
+            System.err.println("Audit log writer stopped: " + e);
+        }
+    }
+
+    /**
+     * Copy every contiguously published record into the current segment
+     * @return Number of records written
+     */
+    private int drain() throws IOException {
+        int drained = 0;
+        long next = consumed.get() + 1;
+        while (published.get((int) next & mask) == next) {
+            writeRecord((int) next & mask);
+            versions[(int) next & mask] = null;
+            consumed.lazySet(next);
+            next++;
+            drained++;
+        }
+        records.add(drained);
+        return drained;
+    }
+
+    private void writeRecord(int slot) throws IOException {
+        byte[] version = versionBytes(versions[slot]);
+        int size = AuditLogFormat.recordSize(featureCount, version.length);
+        if (writePosition + size > segmentBytes) {
+            force();
+            closeSegment();
+            openNextSegment();
+        }
+
+        int start = writePosition;
+        segment.position(start + AuditLogFormat.RECORD_HEADER_SIZE);
+        segment.putLong(timestamps[slot]);
+        segment.putLong(generations[slot]);
+        segment.putDouble(probabilities[slot]);
+        segment.putInt(featureCount);
+        segment.putInt(version.length);
+        double[] values = inputs[slot];
+        for (int i = 0; i < featureCount; i++) {
+            segment.putDouble(values[i]);
+        }
+        // Segments are new, zero-filled files, so the padding is already zero
+        segment.put(version);
+        segment.putInt(start + 4, AuditLogFormat.checksum(segment, start, size));
+        // The length goes in last, so a reader never sees a record without its payload
+        segment.putInt(start, size);
+        writePosition = start + size;
+    }
+
+    private byte[] versionBytes(String version) {
+        if (version != cachedVersion) {
+            byte[] bytes = version.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > MAX_VERSION_BYTES) {
+                bytes = Arrays.copyOf(bytes, MAX_VERSION_BYTES);
+            }
+            cachedVersion = version;
+            cachedVersionBytes = bytes;
+        }
+        return cachedVersionBytes;
+    }
+
+    private void force() {
+        if (segment != null && forcedPosition < writePosition) {
+            segment.force(forcedPosition, writePosition - forcedPosition);
+            forcedPosition = writePosition;
+            forces.increment();
+        }
+        lastForceNanos = System.nanoTime();
+    }
+
+    private void openNextSegment() throws IOException {
+        segmentSequence++;
+        Path file = directory.resolve(AuditLogFormat.segmentName(segmentSequence));
+        channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        segment.order(ByteOrder.LITTLE_ENDIAN);
+        segment.putInt(AuditLogFormat.MAGIC);
+        segment.putInt(AuditLogFormat.FORMAT_VERSION);
+        segment.putLong(segmentSequence);
+        writePosition = AuditLogFormat.SEGMENT_HEADER_SIZE;
+        forcedPosition = 0;
+        segments.increment();
+    }
+
+    private void closeSegment() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+            segment = null;
+        }
+    }
+
+    /**
+     * Write and force every queued record, then stop the writer
+     */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Getters
+    public Path getDirectory() { return directory; }
+    public long getRecordsWritten() { return records.sum(); }
+    public long getForces() { return forces.sum(); }
+    public long getSegmentsOpened() { return segments.sum(); }
+    public long getPending() { return claimed.get() - consumed.get(); }
+}
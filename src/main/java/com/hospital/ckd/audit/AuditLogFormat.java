@@ -0,0 +1,75 @@
+package com.hospital.ckd.audit;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.zip.CRC32C;
+
+/**
+ * On-disk layout shared by {@link AuditLog} and {@link AuditLogReader}.
+ *
+ * A segment file is preallocated to its full size and starts with a 16-byte header:
+ * <pre>
+ *   int    magic "CKDA"
+ *   int    format version
+ *   long   segment sequence number
+ * </pre>
+ * followed by records, each 8-byte aligned (all values little-endian):
+ * <pre>
+ *   int    record length in bytes, including this header and the padding
+ *   int    CRC32C of the payload
+ *   long   timestamp (epoch millis)
+ *   long   model generation
+ *   double risk probability
+ *   int    feature count
+ *   int    model version length in bytes
+ *   double[feature count] raw patient values
+ *   byte[version length]  model version, UTF-8
+ *   padding to a multiple of 8
+ * </pre>
+ * The unused tail of a segment is zero, so a record length of 0 marks the end of the data.
+ */
+final class AuditLogFormat {
+    static final int MAGIC = 0x41444B43; // "CKDA" in little-endian byte order
+    static final int FORMAT_VERSION = 1;
+    static final int SEGMENT_HEADER_SIZE = 16;
+    static final int RECORD_HEADER_SIZE = 8;
+    static final int FIXED_PAYLOAD_SIZE = 32;
+    static final String SEGMENT_PREFIX = "audit-";
+    static final String SEGMENT_SUFFIX = ".ckda";
+
+    private AuditLogFormat() {
+    }
+
+    static int recordSize(int featureCount, int versionLength) {
+        int size = RECORD_HEADER_SIZE + FIXED_PAYLOAD_SIZE + 8 * featureCount + versionLength;
+        return (size + 7) & ~7;
+    }
+
+    static String segmentName(long sequence) {
+        return String.format("%s%016d%s", SEGMENT_PREFIX, sequence, SEGMENT_SUFFIX);
+    }
+
+    static boolean isSegment(Path file) {
+        String name = file.getFileName().toString();
+        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+    }
+
+    /**
+     * Sequence number encoded in a segment file name
+     */
+    static long sequenceOf(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    /**
+     * CRC32C of the payload of the record starting at {@code offset}
+     */
+    static int checksum(ByteBuffer segment, int offset, int length) {
+        CRC32C crc = new CRC32C();
+        ByteBuffer payload = segment.duplicate();
+        payload.limit(offset + length).position(offset + RECORD_HEADER_SIZE);
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+}
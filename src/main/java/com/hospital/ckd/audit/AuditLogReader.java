@@ -0,0 +1,195 @@
+package com.hospital.ckd.audit;
+
+import com.hospital.ckd.data.FeatureSpec;
+import com.hospital.ckd.data.Preprocessor;
+import com.hospital.ckd.ml.ModelFile;
+import com.hospital.ckd.ml.NeuralNetwork;
+import com.hospital.ckd.ml.Workspace;
+import com.hospital.ckd.model.PredictionResult;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Sequential reader for the segments written by {@link AuditLog}.
+ *
+ * Segments are memory-mapped read-only and records are visited in place through a reused
+ * {@link AuditRecord}, so a scan runs at roughly disk (or page cache) speed. Records whose
+ * CRC does not match, or whose feature count and version length do not add up to the record
+ * length, are counted and skipped; a record with an impossible length ends the segment,
+ * since nothing after it can be located reliably.
+ *
+ * Usage: AuditLogReader <auditDirectory> [model.ckdm]
+ * With a model file every record is re-scored and the differences are summarised.
+ */
+public class AuditLogReader {
+    private final Path directory;
+    private long corruptRecords;
+    private long segmentsRead;
+    private long bytesRead;
+
+    public AuditLogReader(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Segment files in write order
+     */
+    public List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(AuditLogFormat::isSegment)
+                    .sorted(Comparator.comparingLong(AuditLogFormat::sequenceOf))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Visit every valid record of every segment in write order
+     * @return Number of records visited
+     */
+    public long forEach(Consumer<AuditRecord> visitor) throws IOException {
+        long visited = 0;
+        for (Path segment : segments()) {
+            visited += scanSegment(segment, visitor);
+        }
+        return visited;
+    }
+
+    /**
+     * Visit every valid record of one segment
+     * @return Number of records visited
+     */
+    public long scanSegment(Path file, Consumer<AuditRecord> visitor) throws IOException {
+        MappedByteBuffer segment;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        segment.order(ByteOrder.LITTLE_ENDIAN);
+        if (segment.limit() < AuditLogFormat.SEGMENT_HEADER_SIZE || segment.getInt(0) != AuditLogFormat.MAGIC) {
+            throw new IOException("Not an audit log segment: " + file);
+        }
+        int version = segment.getInt(4);
+        if (version != AuditLogFormat.FORMAT_VERSION) {
+            throw new IOException("Unsupported audit log format version " + version + " in " + file);
+        }
+        long sequence = segment.getLong(8);
+
+        AuditRecord record = new AuditRecord();
+        int minimumSize = AuditLogFormat.recordSize(0, 0);
+        int position = AuditLogFormat.SEGMENT_HEADER_SIZE;
+        long visited = 0;
+        while (position + AuditLogFormat.RECORD_HEADER_SIZE <= segment.limit()) {
+            int length = segment.getInt(position);
+            if (length == 0) {
+                break;
+            }
+            if (length < minimumSize || (length & 7) != 0 || position + length > segment.limit()) {
+                System.err.println("Audit segment " + file.getFileName() + " has an invalid record at offset "
+                        + position + "; ignoring the rest of the segment");
+                corruptRecords++;
+                break;
+            }
+            if (!hasConsistentSize(segment, position, length)
+                    || segment.getInt(position + 4) != AuditLogFormat.checksum(segment, position, length)) {
+                corruptRecords++;
+            } else {
+                record.moveTo(segment, sequence, position);
+                visitor.accept(record);
+                visited++;
+            }
+            position += length;
+        }
+        segmentsRead++;
+        bytesRead += position;
+        return visited;
+    }
+
+    /**
+     * Check that the stored feature count and version length add up to the record length,
+     * so a record cannot be read past its own end
+     */
+    private static boolean hasConsistentSize(MappedByteBuffer segment, int position, int length) {
+        int featureCount = segment.getInt(position + AuditLogFormat.RECORD_HEADER_SIZE + 24);
+        int versionLength = segment.getInt(position + AuditLogFormat.RECORD_HEADER_SIZE + 28);
+        return featureCount >= 0 && featureCount <= length / 8 && versionLength >= 0 && versionLength <= length
+                && AuditLogFormat.recordSize(featureCount, versionLength) == length;
+    }
+
+    // Getters
+    public long getCorruptRecords() { return corruptRecords; }
+    public long getSegmentsRead() { return segmentsRead; }
+    public long getBytesRead() { return bytesRead; }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: AuditLogReader <auditDirectory> [model.ckdm]");
+            System.exit(1);
+        }
+        AuditLogReader reader = new AuditLogReader(Paths.get(args[0]));
+        NeuralNetwork network = args.length > 1 ? ModelFile.load(Paths.get(args[1])) : null;
+        Rescore rescore = network != null ? new Rescore(network) : null;
+
+        long start = System.nanoTime();
+        long count = reader.forEach(rescore != null ? rescore : record -> { });
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("Read %d records from %d segments in %.2f s (%.0f records/s, %.1f MB/s), %d corrupt%n",
+                count, reader.getSegmentsRead(), seconds, count / seconds,
+                reader.getBytesRead() / seconds / (1 << 20), reader.getCorruptRecords());
+        if (rescore != null) {
+            System.out.println(rescore.summary());
+        }
+    }
+
+    /**
+     * Re-scores audited inputs with another model and tracks how the results differ
+     */
+    private static class Rescore implements Consumer<AuditRecord> {
+        private final NeuralNetwork network;
+        private final FeatureSpec featureSpec;
+        private final Workspace workspace;
+        private final double[] raw = new double[Preprocessor.FEATURE_COUNT];
+        private final double[] normalized = new double[Preprocessor.FEATURE_COUNT];
+        private long count;
+        private double totalDelta;
+        private double maxDelta;
+        private long categoryChanges;
+
+        Rescore(NeuralNetwork network) {
+            this.network = network;
+            this.featureSpec = Preprocessor.featureSpecFor(network.getInputMins(), network.getInputMaxs());
+            this.workspace = network.newWorkspace();
+        }
+
+        @Override
+        public void accept(AuditRecord record) {
+            record.copyInputs(raw, 0);
+            featureSpec.normalize(raw, 0, normalized, 0);
+            double rescored = network.predictInto(normalized, workspace);
+            double original = record.getRiskProbability();
+            double delta = Math.abs(rescored - original);
+            totalDelta += delta;
+            maxDelta = Math.max(maxDelta, delta);
+            if (PredictionResult.categoryIndex(rescored) != PredictionResult.categoryIndex(original)) {
+                categoryChanges++;
+            }
+            count++;
+        }
+
+        String summary() {
+            return String.format("Re-scored %d records: mean |delta|=%.6f, max |delta|=%.6f, risk category changed for %d",
+                    count, count == 0 ? 0 : totalDelta / count, maxDelta, categoryChanges);
+        }
+    }
+}
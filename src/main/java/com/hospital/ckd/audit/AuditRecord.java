@@ -0,0 +1,84 @@
+package com.hospital.ckd.audit;
+
+import com.hospital.ckd.model.PatientData;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * One audit record, read in place from a mapped segment.
+ *
+ * The reader reuses a single instance for every record it visits (a flyweight), so values
+ * must be copied out if they are needed after the visitor returns.
+ */
+public class AuditRecord {
+    private ByteBuffer segment;
+    private int offset;
+    private long segmentSequence;
+    private String cachedVersion;
+    private byte[] cachedVersionBytes;
+
+    void moveTo(ByteBuffer segment, long segmentSequence, int offset) {
+        this.segment = segment;
+        this.segmentSequence = segmentSequence;
+        this.offset = offset;
+    }
+
+    private int payload(int field) {
+        return offset + AuditLogFormat.RECORD_HEADER_SIZE + field;
+    }
+
+    public long getTimestampMillis() { return segment.getLong(payload(0)); }
+    public long getModelGeneration() { return segment.getLong(payload(8)); }
+    public double getRiskProbability() { return segment.getDouble(payload(16)); }
+    public int getFeatureCount() { return segment.getInt(payload(24)); }
+    public long getSegmentSequence() { return segmentSequence; }
+
+    /**
+     * Raw (unnormalized) patient value at the given feature index
+     */
+    public double getInput(int feature) {
+        return segment.getDouble(payload(AuditLogFormat.FIXED_PAYLOAD_SIZE + 8 * feature));
+    }
+
+    /**
+     * Copy the raw patient values into dest starting at offset
+     */
+    public void copyInputs(double[] dest, int destOffset) {
+        int count = getFeatureCount();
+        for (int i = 0; i < count; i++) {
+            dest[destOffset + i] = getInput(i);
+        }
+    }
+
+    public PatientData toPatientData() {
+        return new PatientData(getInput(0), getInput(1), getInput(2), getInput(3), getInput(4),
+                getInput(5), getInput(6), getInput(7), getInput(8), getInput(9));
+    }
+
+    /**
+     * Model version; decoded once and reused while consecutive records carry the same bytes
+     */
+    public String getModelVersion() {
+        int length = segment.getInt(payload(28));
+        int start = payload(AuditLogFormat.FIXED_PAYLOAD_SIZE + 8 * getFeatureCount());
+        if (cachedVersion == null || !sameBytes(start, length)) {
+            cachedVersionBytes = new byte[length];
+            segment.get(start, cachedVersionBytes);
+            cachedVersion = new String(cachedVersionBytes, StandardCharsets.UTF_8);
+        }
+        return cachedVersion;
+    }
+
+    private boolean sameBytes(int start, int length) {
+        if (cachedVersionBytes.length != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (cachedVersionBytes[i] != segment.get(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
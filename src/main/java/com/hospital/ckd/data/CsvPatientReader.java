@@ -0,0 +1,287 @@
+package com.hospital.ckd.data;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Streaming reader for large CSV patient extracts.
+ *
+ * The file is memory-mapped one window at a time and each row's ten clinical values
+ * (in PatientData.toArray() order) are parsed straight from the mapped bytes into a
+ * {@link PatientChunk}, without creating a String per cell. Extra columns are ignored
+ * (unless labels are requested, see {@link #setReadLabels(boolean)}) and a first line
+ * in which no field is a number is treated as a header.
+ */
+public class CsvPatientReader implements Closeable {
+    private static final long DEFAULT_WINDOW_SIZE = 32L << 20;
+    private static final int MAX_FAST_DIGITS = 15;
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private final FileChannel channel;
+    private final long fileSize;
+    private final long windowSize;
+    private MappedByteBuffer window;
+    private long windowStart;
+    private int position;
+    private int limit;
+    private long lineNumber;
+    private boolean headerChecked;
+    private boolean readLabels;
+
+    public CsvPatientReader(Path file) throws IOException {
+        this(file, DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * @param file CSV file to read
+     * @param windowSize Size of each mapped window in bytes; must exceed the longest line
+     */
+    public CsvPatientReader(Path file, long windowSize) throws IOException {
+        if (windowSize <= 0 || windowSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Window size must be between 1 and " + Integer.MAX_VALUE + " bytes");
+        }
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.fileSize = channel.size();
+        this.windowSize = windowSize;
+    }
+
+    /**
+     * Fill the chunk with the next rows of the file
+     *
+     * @param chunk Chunk to fill; it is cleared first
+     * @return Number of rows read, or 0 at end of file
+     */
+    public int readChunk(PatientChunk chunk) throws IOException {
+        chunk.clear();
+        while (!chunk.isFull()) {
+            if (position >= limit && !nextWindow()) {
+                break;
+            }
+            readLine(chunk);
+        }
+        return chunk.getSize();
+    }
+
+    /**
+     * Map the window that starts right after the last complete line of the current one
+     */
+    private boolean nextWindow() throws IOException {
+        long start = window == null ? 0 : windowStart + limit;
+        if (start >= fileSize) {
+            return false;
+        }
+
+        int size = (int) Math.min(windowSize, fileSize - start);
+        window = channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+        windowStart = start;
+        position = 0;
+
+        if (start + size == fileSize) {
+            limit = size;
+            return true;
+        }
+        for (int i = size - 1; i >= 0; i--) {
+            if (window.get(i) == '\n') {
+                limit = i + 1;
+                return true;
+            }
+        }
+        throw new IOException("Line " + (lineNumber + 1) + " is longer than the " + windowSize + " byte read window");
+    }
+
+    /**
+     * Parse the line at the current position into the chunk (blank lines and the header are skipped)
+     */
+    private void readLine(PatientChunk chunk) {
+        lineNumber++;
+        int lineEnd = position;
+        while (lineEnd < limit && window.get(lineEnd) != '\n') {
+            lineEnd++;
+        }
+        int start = position;
+        int end = lineEnd;
+        position = lineEnd + 1;
+        if (end > start && window.get(end - 1) == '\r') {
+            end--;
+        }
+
+        if (isBlank(start, end)) {
+            return;
+        }
+        if (!headerChecked) {
+            headerChecked = true;
+            if (isHeader(start, end)) {
+                return;
+            }
+        }
+
+        int row = chunk.addRow(lineNumber);
+        double[] values = chunk.getValues();
+        int offset = chunk.offsetOf(row);
+        int fieldStart = start;
+        for (int column = 0; column < Preprocessor.FEATURE_COUNT; column++) {
+            if (fieldStart > end) {
+                chunk.setError(row, "Expected " + Preprocessor.FEATURE_COUNT + " values but found " + column);
+                return;
+            }
+            int fieldEnd = fieldStart;
+            while (fieldEnd < end && window.get(fieldEnd) != ',') {
+                fieldEnd++;
+            }
+            double value = parseNumber(fieldStart, fieldEnd);
+            if (Double.isNaN(value)) {
+                chunk.setError(row, "Malformed value in column " + (column + 1));
+                return;
+            }
+            values[offset + column] = value;
+            fieldStart = fieldEnd + 1;
+        }
+
+        if (readLabels) {
+            int fieldEnd = fieldStart;
+            while (fieldEnd < end && window.get(fieldEnd) != ',') {
+                fieldEnd++;
+            }
+            double label = fieldStart > end ? Double.NaN : parseNumber(fieldStart, fieldEnd);
+            if (Double.isNaN(label)) {
+                chunk.setError(row, "Missing or malformed label in column " + (Preprocessor.FEATURE_COUNT + 1));
+                return;
+            }
+            chunk.getLabels()[row] = label;
+        }
+    }
+
+    /**
+     * Parse a decimal number from the mapped bytes in [start, end)
+     * Plain decimals with up to 15 significant digits are parsed without allocating;
+     * anything else (exponents, very long values) falls back to Double.parseDouble.
+     *
+     * @return The parsed value, or NaN if the field is malformed
+     */
+    private double parseNumber(int start, int end) {
+        while (start < end && isSpace(window.get(start))) start++;
+        while (end > start && isSpace(window.get(end - 1))) end--;
+        if (start < end && window.get(start) == '"' && window.get(end - 1) == '"') {
+            start++;
+            end--;
+        }
+        if (start >= end) {
+            return Double.NaN;
+        }
+
+        int i = start;
+        boolean negative = false;
+        byte first = window.get(i);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        boolean anyDigit = false;
+        int digits = 0;
+        int fractionDigits = 0;
+        boolean seenPoint = false;
+        for (; i < end; i++) {
+            byte b = window.get(i);
+            if (b >= '0' && b <= '9') {
+                if (digits == MAX_FAST_DIGITS) {
+                    return parseSlow(start, end);
+                }
+                mantissa = mantissa * 10 + (b - '0');
+                anyDigit = true;
+                if (mantissa != 0) digits++;
+                if (seenPoint) fractionDigits++;
+            } else if (b == '.' && !seenPoint) {
+                seenPoint = true;
+            } else if (b == 'e' || b == 'E') {
+                return parseSlow(start, end);
+            } else {
+                return Double.NaN;
+            }
+        }
+        if (!anyDigit) {
+            return Double.NaN;
+        }
+        if (fractionDigits >= POWERS_OF_TEN.length) {
+            return parseSlow(start, end);
+        }
+
+        // Mantissa < 2^53 and 10^k (k <= 22) are exact doubles, so the division is correctly rounded
+        double value = mantissa / POWERS_OF_TEN[fractionDigits];
+        return negative ? -value : value;
+    }
+
+    private double parseSlow(int start, int end) {
+        byte[] bytes = new byte[end - start];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = window.get(start + i);
+        }
+        try {
+            return Double.parseDouble(new String(bytes, StandardCharsets.US_ASCII));
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    private boolean isBlank(int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (!isSpace(window.get(i))) return false;
+        }
+        return true;
+    }
+
+    /**
+     * A header has no numeric field; a data row with an exponent ("1e2") or a few malformed
+     * values still has numbers in it
+     */
+    private boolean isHeader(int start, int end) {
+        int fieldStart = start;
+        while (fieldStart <= end) {
+            int fieldEnd = fieldStart;
+            while (fieldEnd < end && window.get(fieldEnd) != ',') {
+                fieldEnd++;
+            }
+            if (!Double.isNaN(parseNumber(fieldStart, fieldEnd))) {
+                return false;
+            }
+            fieldStart = fieldEnd + 1;
+        }
+        return true;
+    }
+
+    private static boolean isSpace(byte b) {
+        return b == ' ' || b == '\t';
+    }
+
+    /**
+     * Number of lines consumed so far, including blank lines and the header
+     */
+    public long getLineNumber() { return lineNumber; }
+
+    public long getFileSize() { return fileSize; }
+
+    /**
+     * Number of bytes consumed so far, for progress reporting
+     */
+    public long getBytesRead() { return window == null ? 0 : windowStart + position; }
+
+    /**
+     * Also read a training label (0 or 1) from the column after the ten clinical values
+     */
+    public void setReadLabels(boolean readLabels) { this.readLabels = readLabels; }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+        channel.close();
+    }
+}
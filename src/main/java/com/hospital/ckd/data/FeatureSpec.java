@@ -0,0 +1,310 @@
+package com.hospital.ckd.data;
+
+import com.hospital.ckd.model.PatientData;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Properties;
+
+/**
+ * Compiled description of the model's input features: normalization ranges and validation bounds.
+ *
+ * {@link #prepare(double[], int, double[], int)} validates, normalizes and clamps a row in one
+ * pass and reports problems as a compact int code instead of building strings; only
+ * {@link #describe(int)} turns a code into a message.
+ *
+ * A feature is rejected when it is negative or outside [validMin, validMax] (by default half
+ * the normalization minimum and twice the maximum). Some features also have a hard
+ * plausibility limit (age, blood pressure) that is checked after all range checks pass.
+ * Specs are immutable; ranges can come from the defaults, a properties file
+ * ({@link #load(Path)}) or a model file ({@link #withRanges(double[], double[])}).
+ */
+public final class FeatureSpec {
+    // Error reasons, stored in the low byte of an error code; 0 means the row is valid
+    public static final int OK = 0;
+    public static final int NEGATIVE = 1;
+    public static final int OUT_OF_RANGE = 2;
+    public static final int IMPLAUSIBLE = 3;
+
+    private static final String[] KEYS = {
+        "age", "bloodPressure", "bloodGlucoseRandom", "serumCreatinine", "hemoglobin",
+        "albumin", "sugar", "sodium", "potassium", "packedCellVolume"
+    };
+    private static final String[] NAMES = {
+        "Age", "Blood Pressure", "Blood Glucose Random", "Serum Creatinine",
+        "Hemoglobin", "Albumin", "Sugar", "Sodium", "Potassium", "Packed Cell Volume"
+    };
+    private static final double[] DEFAULT_MINS = {0, 50, 50, 0.5, 3.1, 0.2, 0, 4.5, 2.5, 9};
+    private static final double[] DEFAULT_MAXS = {90, 200, 400, 15, 17.8, 5.8, 5, 150, 47, 54};
+
+    public static final int FEATURE_COUNT = KEYS.length;
+
+    private static final FeatureSpec DEFAULTS = createDefaults();
+
+    private final double[] mins;
+    private final double[] maxs;
+    private final double[] ranges;
+    private final double[] validMins;
+    private final double[] validMaxs;
+    // Hard plausibility limits, +Infinity when a feature has none
+    private final double[] hardMaxs;
+    private final String[] implausibleMessages;
+
+    private FeatureSpec(double[] mins, double[] maxs, double[] validMins, double[] validMaxs,
+                        double[] hardMaxs, String[] implausibleMessages) {
+        for (int i = 0; i < FEATURE_COUNT; i++) {
+            if (!(maxs[i] > mins[i])) {
+                throw new IllegalArgumentException("Normalization range of " + KEYS[i] + " is empty: ["
+                        + mins[i] + ", " + maxs[i] + "]");
+            }
+            if (!(validMaxs[i] >= validMins[i])) {
+                throw new IllegalArgumentException("Validation range of " + KEYS[i] + " is empty");
+            }
+        }
+        this.mins = mins;
+        this.maxs = maxs;
+        this.ranges = new double[FEATURE_COUNT];
+        for (int i = 0; i < FEATURE_COUNT; i++) {
+            ranges[i] = maxs[i] - mins[i];
+        }
+        this.validMins = validMins;
+        this.validMaxs = validMaxs;
+        this.hardMaxs = hardMaxs;
+        this.implausibleMessages = implausibleMessages;
+    }
+
+    private static FeatureSpec createDefaults() {
+        double[] hardMaxs = new double[FEATURE_COUNT];
+        String[] messages = new String[FEATURE_COUNT];
+        Arrays.fill(hardMaxs, Double.POSITIVE_INFINITY);
+        hardMaxs[0] = 120;
+        messages[0] = "Age seems unrealistic. Please verify.";
+        hardMaxs[1] = 250;
+        messages[1] = "Blood pressure reading seems extremely high. Please verify.";
+        return fromRanges(DEFAULT_MINS.clone(), DEFAULT_MAXS.clone(), hardMaxs, messages);
+    }
+
+    private static FeatureSpec fromRanges(double[] mins, double[] maxs, double[] hardMaxs, String[] messages) {
+        double[] validMins = new double[FEATURE_COUNT];
+        double[] validMaxs = new double[FEATURE_COUNT];
+        for (int i = 0; i < FEATURE_COUNT; i++) {
+            validMins[i] = mins[i] * 0.5;
+            validMaxs[i] = maxs[i] * 2;
+        }
+        return new FeatureSpec(mins, maxs, validMins, validMaxs, hardMaxs, messages);
+    }
+
+    /**
+     * Built-in ranges used by the pre-trained network
+     */
+    public static FeatureSpec defaults() {
+        return DEFAULTS;
+    }
+
+    /**
+     * Same validation limits, different normalization ranges (for example the ones stored in a model file)
+     * Which inputs are accepted stays the same; only how they map onto [0, 1] changes.
+     */
+    public FeatureSpec withRanges(double[] newMins, double[] newMaxs) {
+        if (newMins.length != FEATURE_COUNT || newMaxs.length != FEATURE_COUNT) {
+            throw new IllegalArgumentException("Expected " + FEATURE_COUNT + " feature ranges");
+        }
+        return new FeatureSpec(newMins.clone(), newMaxs.clone(), validMins, validMaxs, hardMaxs, implausibleMessages);
+    }
+
+    /**
+     * Load a spec from a properties file; missing keys keep their default values
+     * Keys per feature: {@code <name>.min}, {@code <name>.max}, {@code <name>.validMin},
+     * {@code <name>.validMax} and {@code <name>.hardMax}, where name is e.g. "serumCreatinine".
+     */
+    public static FeatureSpec load(Path file) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        return fromProperties(properties);
+    }
+
+    public static FeatureSpec fromProperties(Properties properties) {
+        double[] mins = new double[FEATURE_COUNT];
+        double[] maxs = new double[FEATURE_COUNT];
+        double[] validMins = new double[FEATURE_COUNT];
+        double[] validMaxs = new double[FEATURE_COUNT];
+        double[] hardMaxs = new double[FEATURE_COUNT];
+        String[] messages = DEFAULTS.implausibleMessages.clone();
+        for (int i = 0; i < FEATURE_COUNT; i++) {
+            mins[i] = number(properties, KEYS[i] + ".min", DEFAULTS.getMin(i));
+            maxs[i] = number(properties, KEYS[i] + ".max", DEFAULTS.getMax(i));
+            validMins[i] = number(properties, KEYS[i] + ".validMin", mins[i] * 0.5);
+            validMaxs[i] = number(properties, KEYS[i] + ".validMax", maxs[i] * 2);
+            hardMaxs[i] = number(properties, KEYS[i] + ".hardMax", DEFAULTS.hardMaxs[i]);
+        }
+        return new FeatureSpec(mins, maxs, validMins, validMaxs, hardMaxs, messages);
+    }
+
+    private static double number(Properties properties, String key, double defaultValue) {
+        String value = properties.getProperty(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number for " + key + ": " + value);
+        }
+    }
+
+    /**
+     * Properties that {@link #fromProperties(Properties)} turns back into this spec
+     */
+    public Properties toProperties() {
+        Properties properties = new Properties();
+        for (int i = 0; i < FEATURE_COUNT; i++) {
+            properties.setProperty(KEYS[i] + ".min", Double.toString(getMin(i)));
+            properties.setProperty(KEYS[i] + ".max", Double.toString(getMax(i)));
+            properties.setProperty(KEYS[i] + ".validMin", Double.toString(validMins[i]));
+            properties.setProperty(KEYS[i] + ".validMax", Double.toString(validMaxs[i]));
+            if (hardMaxs[i] != Double.POSITIVE_INFINITY) {
+                properties.setProperty(KEYS[i] + ".hardMax", Double.toString(hardMaxs[i]));
+            }
+        }
+        return properties;
+    }
+
+    /**
+     * Validate, normalize and clamp one row in a single pass
+     * Source and destination may be the same array. The destination is written even when
+     * the row is invalid, so callers must check the result before using it.
+     *
+     * @param raw Buffer holding FEATURE_COUNT raw values starting at rawOffset, in PatientData.toArray() order
+     * @param normalized Destination buffer
+     * @return {@link #OK}, or an error code for {@link #describe(int)}
+     */
+    public int prepare(double[] raw, int rawOffset, double[] normalized, int normalizedOffset) {
+        int rangeError = OK;
+        int hardError = OK;
+        for (int i = 0; i < FEATURE_COUNT; i++) {
+            double value = raw[rawOffset + i];
+            if (rangeError == OK) {
+                if (value < 0) {
+                    rangeError = errorCode(i, NEGATIVE);
+                } else if (!(value >= validMins[i] && value <= validMaxs[i])) {
+                    rangeError = errorCode(i, OUT_OF_RANGE);
+                } else if (hardError == OK && value > hardMaxs[i]) {
+                    hardError = errorCode(i, IMPLAUSIBLE);
+                }
+            }
+            // Min-max normalization clamped to [0, 1] in case of outliers
+            double scaled = (value - mins[i]) / ranges[i];
+            normalized[normalizedOffset + i] = Math.max(0.0, Math.min(1.0, scaled));
+        }
+        return rangeError != OK ? rangeError : hardError;
+    }
+
+    /**
+     * Fused validate and normalize of a patient into a buffer (values are copied once)
+     * @param normalized Destination buffer of length >= FEATURE_COUNT
+     * @return {@link #OK}, or an error code for {@link #describe(int)}
+     */
+    public int prepare(PatientData patient, double[] normalized) {
+        return prepare(patient.toArray(normalized), 0, normalized, 0);
+    }
+
+    /**
+     * Fused validate and normalize of a patient view (for example a column store cursor)
+     * @return {@link #OK}, or an error code for {@link #describe(int)}
+     */
+    public int prepare(PatientView patient, double[] normalized, int offset) {
+        for (int i = 0; i < FEATURE_COUNT; i++) {
+            normalized[offset + i] = patient.getFeature(i);
+        }
+        return prepare(normalized, offset, normalized, offset);
+    }
+
+    /**
+     * Validate one row of raw values without normalizing it
+     * @return {@link #OK}, or an error code for {@link #describe(int)}
+     */
+    public int validate(double[] raw, int offset) {
+        int hardError = OK;
+        for (int i = 0; i < FEATURE_COUNT; i++) {
+            double value = raw[offset + i];
+            if (value < 0) {
+                return errorCode(i, NEGATIVE);
+            }
+            if (!(value >= validMins[i] && value <= validMaxs[i])) {
+                return errorCode(i, OUT_OF_RANGE);
+            }
+            if (hardError == OK && value > hardMaxs[i]) {
+                hardError = errorCode(i, IMPLAUSIBLE);
+            }
+        }
+        return hardError;
+    }
+
+    /**
+     * Normalize and clamp one row without validating it
+     */
+    public void normalize(double[] raw, int rawOffset, double[] normalized, int normalizedOffset) {
+        for (int i = 0; i < FEATURE_COUNT; i++) {
+            double scaled = (raw[rawOffset + i] - mins[i]) / ranges[i];
+            normalized[normalizedOffset + i] = Math.max(0.0, Math.min(1.0, scaled));
+        }
+    }
+
+    /**
+     * True when both specs map raw values onto [0, 1] identically, so normalized rows can be shared
+     */
+    public boolean hasSameRanges(FeatureSpec other) {
+        return other == this || (Arrays.equals(mins, other.mins) && Arrays.equals(maxs, other.maxs));
+    }
+
+    private static int errorCode(int feature, int reason) {
+        return (feature << 8) | reason;
+    }
+
+    public static int errorFeature(int code) {
+        return code >>> 8;
+    }
+
+    public static int errorReason(int code) {
+        return code & 0xFF;
+    }
+
+    /**
+     * Human-readable message for an error code, or null for {@link #OK}
+     */
+    public String describe(int code) {
+        if (code == OK) {
+            return null;
+        }
+        int feature = errorFeature(code);
+        switch (errorReason(code)) {
+            case NEGATIVE:
+                return NAMES[feature] + " cannot be negative";
+            case OUT_OF_RANGE:
+                return NAMES[feature] + " value seems outside normal range. Please verify.";
+            case IMPLAUSIBLE:
+                return implausibleMessages[feature] != null
+                        ? implausibleMessages[feature]
+                        : NAMES[feature] + " seems unrealistic. Please verify.";
+            default:
+                throw new IllegalArgumentException("Unknown validation error code " + code);
+        }
+    }
+
+    // Getters
+    public double getMin(int feature) { return mins[feature]; }
+    public double getMax(int feature) { return maxs[feature]; }
+    public double[] getMins() { return mins.clone(); }
+    public double[] getMaxs() { return maxs.clone(); }
+    public double getValidMin(int feature) { return validMins[feature]; }
+    public double getValidMax(int feature) { return validMaxs[feature]; }
+    public static String getKey(int feature) { return KEYS[feature]; }
+    public static String getName(int feature) { return NAMES[feature]; }
+    public static String[] getNames() { return NAMES.clone(); }
+}
@@ -0,0 +1,288 @@
+package com.hospital.ckd.data;
+
+import com.hospital.ckd.ml.ParallelRows;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * One-pass statistics of the raw feature values: count, mean, variance, minimum and maximum.
+ *
+ * Values are accumulated with Welford's update, so the mean and variance stay accurate over
+ * billions of rows without keeping the data. Partial results from different threads or
+ * chunks are combined with {@link #merge(FeatureStatistics)} (Chan's parallel formula), which
+ * lets {@link #collect(Path, int)} and {@link #collect(PatientColumnStore)} scan a large
+ * dataset in parallel. {@link #toFeatureSpec(FeatureSpec, double)} turns the result into
+ * new normalization ranges.
+ *
+ * Usage: FeatureStatistics &lt;patients.csv&gt; [features.properties] [threads] [stdDevs]
+ */
+public class FeatureStatistics {
+    private static final int CHUNK_ROWS = 4096;
+    private static final int COLUMN_BLOCK_ROWS = 1 << 16;
+
+    private final long[] counts = new long[Preprocessor.FEATURE_COUNT];
+    private final double[] means = new double[Preprocessor.FEATURE_COUNT];
+    // Sum of squared differences from the running mean
+    private final double[] squaredDeviations = new double[Preprocessor.FEATURE_COUNT];
+    private final double[] mins = new double[Preprocessor.FEATURE_COUNT];
+    private final double[] maxs = new double[Preprocessor.FEATURE_COUNT];
+    private long rows;
+    private long skippedRows;
+
+    public FeatureStatistics() {
+        Arrays.fill(mins, Double.POSITIVE_INFINITY);
+        Arrays.fill(maxs, Double.NEGATIVE_INFINITY);
+    }
+
+    /**
+     * Add one row of raw values; non-finite values are ignored per feature
+     */
+    public void add(double[] values, int offset) {
+        rows++;
+        for (int i = 0; i < Preprocessor.FEATURE_COUNT; i++) {
+            double value = values[offset + i];
+            if (!Double.isFinite(value)) {
+                continue;
+            }
+            long count = ++counts[i];
+            double delta = value - means[i];
+            means[i] += delta / count;
+            squaredDeviations[i] += delta * (value - means[i]);
+            if (value < mins[i]) mins[i] = value;
+            if (value > maxs[i]) maxs[i] = value;
+        }
+    }
+
+    /**
+     * Add one patient exposed through a view
+     */
+    public void add(PatientView patient, double[] scratch) {
+        for (int i = 0; i < Preprocessor.FEATURE_COUNT; i++) {
+            scratch[i] = patient.getFeature(i);
+        }
+        add(scratch, 0);
+    }
+
+    /**
+     * Add every parsed row of a chunk; rows with a parse error are counted as skipped
+     */
+    public void addChunk(PatientChunk chunk) {
+        double[] values = chunk.getValues();
+        for (int row = 0; row < chunk.getSize(); row++) {
+            if (chunk.getError(row) != null) {
+                skippedRows++;
+            } else {
+                add(values, chunk.offsetOf(row));
+            }
+        }
+    }
+
+    /**
+     * Fold another partial result into this one
+     */
+    public void merge(FeatureStatistics other) {
+        rows += other.rows;
+        skippedRows += other.skippedRows;
+        for (int i = 0; i < Preprocessor.FEATURE_COUNT; i++) {
+            long otherCount = other.counts[i];
+            if (otherCount == 0) {
+                continue;
+            }
+            long count = counts[i] + otherCount;
+            double delta = other.means[i] - means[i];
+            means[i] += delta * otherCount / count;
+            squaredDeviations[i] += other.squaredDeviations[i]
+                    + delta * delta * ((double) counts[i] * otherCount / count);
+            counts[i] = count;
+            mins[i] = Math.min(mins[i], other.mins[i]);
+            maxs[i] = Math.max(maxs[i], other.maxs[i]);
+        }
+    }
+
+    /**
+     * Scan a CSV file with one reader thread and several accumulating workers
+     * Each worker keeps its own statistics; they are merged once the file is exhausted.
+     */
+    public static FeatureStatistics collect(Path csv, int workerCount) throws IOException, InterruptedException {
+        if (workerCount <= 0) {
+            throw new IllegalArgumentException("Worker count must be positive");
+        }
+        int poolSize = workerCount * 2 + 1;
+        BlockingQueue<PatientChunk> freeChunks = new ArrayBlockingQueue<>(poolSize);
+        BlockingQueue<PatientChunk> readQueue = new ArrayBlockingQueue<>(poolSize);
+        for (int i = 0; i < poolSize; i++) {
+            freeChunks.add(new PatientChunk(CHUNK_ROWS));
+        }
+        PatientChunk endOfInput = new PatientChunk(1);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        List<Thread> workers = new ArrayList<>(workerCount);
+        FeatureStatistics[] partials = new FeatureStatistics[workerCount];
+        for (int w = 0; w < workerCount; w++) {
+            FeatureStatistics partial = new FeatureStatistics();
+            partials[w] = partial;
+            Thread worker = new Thread(() -> {
+                try {
+                    PatientChunk chunk;
+                    while ((chunk = readQueue.take()) != endOfInput) {
+                        partial.addChunk(chunk);
+                        freeChunks.put(chunk);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (RuntimeException e) {
+                    failure.compareAndSet(null, e);
+                }
+            }, "feature-stats-" + w);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+
+        try (CsvPatientReader reader = new CsvPatientReader(csv)) {
+            while (failure.get() == null) {
+                PatientChunk chunk = freeChunks.take();
+                if (reader.readChunk(chunk) == 0) {
+                    break;
+                }
+                readQueue.put(chunk);
+            }
+        } finally {
+            for (int w = 0; w < workerCount; w++) {
+                if (failure.get() != null) {
+                    workers.get(w).interrupt();
+                } else {
+                    readQueue.put(endOfInput);
+                }
+            }
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        if (failure.get() != null) {
+            throw new RuntimeException("Statistics collection failed: " + failure.get().getMessage(), failure.get());
+        }
+
+        FeatureStatistics total = new FeatureStatistics();
+        for (FeatureStatistics partial : partials) {
+            total.merge(partial);
+        }
+        return total;
+    }
+
+    /**
+     * Scan every row of a column store on the common fork-join pool
+     */
+    public static FeatureStatistics collect(PatientColumnStore store) {
+        return ParallelRows.reduce(0, store.size(), COLUMN_BLOCK_ROWS, (from, to) -> {
+            FeatureStatistics statistics = new FeatureStatistics();
+            double[] scratch = new double[Preprocessor.FEATURE_COUNT];
+            PatientColumnStore.Cursor cursor = store.cursor();
+            for (int row = from; row < to; row++) {
+                statistics.add(cursor.moveTo(row), scratch);
+            }
+            return statistics;
+        }, (left, right) -> {
+            left.merge(right);
+            return left;
+        });
+    }
+
+    /**
+     * Normalization ranges derived from the observed data
+     * With stdDevs &gt; 0 each range is mean &plusmn; stdDevs standard deviations, cut to the observed
+     * minimum and maximum, so a few extreme outliers do not squash everyone else into a corner
+     * of [0, 1]. Otherwise the observed minimum and maximum are used. Features without usable
+     * data keep the base ranges.
+     *
+     * @param base Spec whose validation limits and fallback ranges are kept
+     */
+    public FeatureSpec toFeatureSpec(FeatureSpec base, double stdDevs) {
+        double[] newMins = base.getMins();
+        double[] newMaxs = base.getMaxs();
+        for (int i = 0; i < Preprocessor.FEATURE_COUNT; i++) {
+            if (counts[i] == 0) {
+                continue;
+            }
+            double min = mins[i];
+            double max = maxs[i];
+            if (stdDevs > 0) {
+                double spread = stdDevs * getStandardDeviation(i);
+                min = Math.max(min, means[i] - spread);
+                max = Math.min(max, means[i] + spread);
+            }
+            if (max > min) {
+                newMins[i] = min;
+                newMaxs[i] = max;
+            }
+        }
+        return base.withRanges(newMins, newMaxs);
+    }
+
+    /**
+     * Population variance of a feature
+     */
+    public double getVariance(int feature) {
+        return counts[feature] == 0 ? 0 : squaredDeviations[feature] / counts[feature];
+    }
+
+    public double getStandardDeviation(int feature) {
+        return Math.sqrt(getVariance(feature));
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder out = new StringBuilder(128 + Preprocessor.FEATURE_COUNT * 96);
+        out.append(String.format("rows=%d skipped=%d%n", rows, skippedRows));
+        out.append(String.format("%-22s %12s %12s %12s %12s %12s%n", "feature", "count", "mean", "stddev", "min", "max"));
+        for (int i = 0; i < Preprocessor.FEATURE_COUNT; i++) {
+            out.append(String.format("%-22s %12d %12.4f %12.4f %12.4f %12.4f%n", FeatureSpec.getKey(i),
+                    counts[i], means[i], getStandardDeviation(i), mins[i], maxs[i]));
+        }
+        return out.toString();
+    }
+
+    // Getters
+    public long getRows() { return rows; }
+    public long getSkippedRows() { return skippedRows; }
+    public long getCount(int feature) { return counts[feature]; }
+    public double getMean(int feature) { return means[feature]; }
+    public double getMin(int feature) { return mins[feature]; }
+    public double getMax(int feature) { return maxs[feature]; }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: FeatureStatistics <patients.csv> [features.properties] [threads] [stdDevs]");
+            System.exit(1);
+        }
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        double stdDevs = args.length > 3 ? Double.parseDouble(args[3]) : 0;
+
+        long start = System.nanoTime();
+        FeatureStatistics statistics = collect(Paths.get(args[0]), threads);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.print(statistics);
+        System.out.printf("Scanned %d rows in %.2f s (%.0f rows/s) with %d threads%n",
+                statistics.getRows() + statistics.getSkippedRows(), seconds,
+                (statistics.getRows() + statistics.getSkippedRows()) / seconds, threads);
+
+        if (args.length > 1) {
+            FeatureSpec spec = statistics.toFeatureSpec(Preprocessor.getFeatureSpec(), stdDevs);
+            try (Writer writer = Files.newBufferedWriter(Paths.get(args[1]), StandardCharsets.UTF_8)) {
+                spec.toProperties().store(writer, "Feature ranges recomputed from " + args[0]);
+            }
+            System.out.println("Feature ranges written to " + args[1] + " (use with -Dckd.features)");
+        }
+    }
+}
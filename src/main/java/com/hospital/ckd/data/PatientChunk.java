@@ -0,0 +1,90 @@
+package com.hospital.ckd.data;
+
+/**
+ * Fixed-capacity block of patient rows held in primitive buffers.
+ * Chunks are reused by the streaming pipeline, so they are filled and cleared in place
+ * instead of being reallocated for every block of the input file.
+ */
+public class PatientChunk {
+    private final int capacity;
+    private final double[] values;
+    private final double[] normalized;
+    private final double[] probabilities;
+    private final double[] labels;
+    private final long[] lineNumbers;
+    private final String[] errors;
+    private double[] attributions;
+    private int size;
+    private long sequence;
+
+    /**
+     * Create a chunk able to hold the given number of rows
+     */
+    public PatientChunk(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Chunk capacity must be positive but got " + capacity);
+        }
+        this.capacity = capacity;
+        this.values = new double[capacity * Preprocessor.FEATURE_COUNT];
+        this.normalized = new double[capacity * Preprocessor.FEATURE_COUNT];
+        this.probabilities = new double[capacity];
+        this.labels = new double[capacity];
+        this.lineNumbers = new long[capacity];
+        this.errors = new String[capacity];
+    }
+
+    /**
+     * Reset the chunk so it can be filled again
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            errors[i] = null;
+        }
+        size = 0;
+    }
+
+    /**
+     * Reserve the next row and return its index
+     */
+    int addRow(long lineNumber) {
+        int row = size++;
+        lineNumbers[row] = lineNumber;
+        errors[row] = null;
+        return row;
+    }
+
+    /**
+     * Offset of the first raw (and normalized) value of a row
+     */
+    public int offsetOf(int row) {
+        return row * Preprocessor.FEATURE_COUNT;
+    }
+
+    public boolean isFull() { return size == capacity; }
+
+    // Getters and setters
+    public int getCapacity() { return capacity; }
+    public int getSize() { return size; }
+    public double[] getValues() { return values; }
+    public double[] getNormalized() { return normalized; }
+    public double[] getProbabilities() { return probabilities; }
+    public double[] getLabels() { return labels; }
+
+    /**
+     * Per-feature attribution of each row, laid out like the values; allocated on first use
+     */
+    public double[] getAttributions() {
+        if (attributions == null) {
+            attributions = new double[capacity * Preprocessor.FEATURE_COUNT];
+        }
+        return attributions;
+    }
+
+    public long getLineNumber(int row) { return lineNumbers[row]; }
+
+    public String getError(int row) { return errors[row]; }
+    public void setError(int row, String error) { errors[row] = error; }
+
+    public long getSequence() { return sequence; }
+    public void setSequence(long sequence) { this.sequence = sequence; }
+}
@@ -0,0 +1,314 @@
+package com.hospital.ckd.data;
+
+import com.hospital.ckd.model.PatientData;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Off-heap, column-oriented store for large patient cohorts.
+ *
+ * Each of the ten clinical fields, the patient ID and the prediction are kept in their own
+ * column of primitive values outside the Java heap, so millions of patients cost no object
+ * headers and add nothing for the garbage collector to trace. A store is either held in
+ * direct memory ({@link #allocate(int)}) or backed by a memory-mapped file
+ * ({@link #create(Path, int)}, {@link #open(Path)}).
+ *
+ * File layout (little-endian): a 32-byte header (int magic "CKDC", int version, int capacity,
+ * int row count, 16 reserved bytes) followed by the columns, each {@code capacity * 8} bytes,
+ * in the order: patient ID, the ten features, prediction.
+ *
+ * Rows are appended by one thread; once appended, rows may be read and scored concurrently.
+ */
+public class PatientColumnStore implements Closeable {
+    private static final int MAGIC = 0x43444B43; // "CKDC" in little-endian byte order
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final int COLUMN_COUNT = Preprocessor.FEATURE_COUNT + 2;
+    // Largest capacity whose columns still fit in one ByteBuffer
+    public static final int MAX_CAPACITY = Integer.MAX_VALUE / 8;
+
+    private final int capacity;
+    private final LongBuffer patientIds;
+    private final DoubleBuffer[] features;
+    private final DoubleBuffer predictions;
+    private final FileChannel channel;
+    private final MappedByteBuffer header;
+    private final MappedByteBuffer[] mappedColumns;
+    private volatile int size;
+
+    private PatientColumnStore(int capacity, ByteBuffer[] columns, FileChannel channel, MappedByteBuffer header, int size) {
+        this.capacity = capacity;
+        this.patientIds = columns[0].order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+        this.features = new DoubleBuffer[Preprocessor.FEATURE_COUNT];
+        for (int i = 0; i < features.length; i++) {
+            features[i] = columns[i + 1].order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+        }
+        this.predictions = columns[COLUMN_COUNT - 1].order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+        this.channel = channel;
+        this.header = header;
+        this.mappedColumns = channel == null ? null : new MappedByteBuffer[COLUMN_COUNT];
+        if (channel != null) {
+            for (int i = 0; i < COLUMN_COUNT; i++) {
+                mappedColumns[i] = (MappedByteBuffer) columns[i];
+            }
+        }
+        this.size = size;
+    }
+
+    /**
+     * Create an empty store in direct (off-heap) memory
+     */
+    public static PatientColumnStore allocate(int capacity) {
+        checkCapacity(capacity);
+        ByteBuffer[] columns = new ByteBuffer[COLUMN_COUNT];
+        for (int i = 0; i < COLUMN_COUNT; i++) {
+            columns[i] = ByteBuffer.allocateDirect(capacity * 8);
+        }
+        return new PatientColumnStore(capacity, columns, null, null, 0);
+    }
+
+    /**
+     * Create an empty store backed by a new memory-mapped file
+     */
+    public static PatientColumnStore create(Path file, int capacity) throws IOException {
+        checkCapacity(capacity);
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(0, MAGIC);
+            header.putInt(4, FORMAT_VERSION);
+            header.putInt(8, capacity);
+            header.putInt(12, 0);
+            return new PatientColumnStore(capacity, mapColumns(channel, capacity), channel, header, 0);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Open an existing store file for reading, scoring and further appends
+     */
+    public static PatientColumnStore open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            if (channel.size() < HEADER_SIZE) {
+                throw new IOException("Not a patient column store: " + file);
+            }
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt(0) != MAGIC) {
+                throw new IOException("Not a patient column store: " + file);
+            }
+            if (header.getInt(4) != FORMAT_VERSION) {
+                throw new IOException("Unsupported column store version " + header.getInt(4) + " in " + file);
+            }
+            int capacity = header.getInt(8);
+            int size = header.getInt(12);
+            if (capacity <= 0 || capacity > MAX_CAPACITY || size < 0 || size > capacity
+                    || channel.size() < HEADER_SIZE + (long) COLUMN_COUNT * capacity * 8) {
+                throw new IOException("Corrupt column store header in " + file);
+            }
+            return new PatientColumnStore(capacity, mapColumns(channel, capacity), channel, header, size);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private static ByteBuffer[] mapColumns(FileChannel channel, int capacity) throws IOException {
+        ByteBuffer[] columns = new ByteBuffer[COLUMN_COUNT];
+        long columnBytes = capacity * 8L;
+        for (int i = 0; i < COLUMN_COUNT; i++) {
+            columns[i] = channel.map(FileChannel.MapMode.READ_WRITE, HEADER_SIZE + i * columnBytes, columnBytes);
+        }
+        return columns;
+    }
+
+    private static void checkCapacity(int capacity) {
+        if (capacity <= 0 || capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Capacity must be between 1 and " + MAX_CAPACITY + " but got " + capacity);
+        }
+    }
+
+    /**
+     * Append one patient
+     * @return Row index of the new patient
+     */
+    public int append(long patientId, PatientData patient) {
+        int row = reserveRow(patientId);
+        DoubleBuffer[] columns = features;
+        columns[0].put(row, patient.getAge());
+        columns[1].put(row, patient.getBloodPressure());
+        columns[2].put(row, patient.getBloodGlucoseRandom());
+        columns[3].put(row, patient.getSerumCreatinine());
+        columns[4].put(row, patient.getHemoglobin());
+        columns[5].put(row, patient.getAlbumin());
+        columns[6].put(row, patient.getSugar());
+        columns[7].put(row, patient.getSodium());
+        columns[8].put(row, patient.getPotassium());
+        columns[9].put(row, patient.getPackedCellVolume());
+        size = row + 1;
+        return row;
+    }
+
+    /**
+     * Append one patient whose raw values are stored in a primitive buffer
+     * @param values Buffer holding FEATURE_COUNT raw values starting at offset, in PatientData.toArray() order
+     * @return Row index of the new patient
+     */
+    public int append(long patientId, double[] values, int offset) {
+        int row = reserveRow(patientId);
+        for (int i = 0; i < features.length; i++) {
+            features[i].put(row, values[offset + i]);
+        }
+        size = row + 1;
+        return row;
+    }
+
+    /**
+     * Append every row of a parsed chunk that has no parse error, using the line number as patient ID
+     * @return Number of rows appended
+     */
+    public int appendChunk(PatientChunk chunk) {
+        int appended = 0;
+        double[] values = chunk.getValues();
+        for (int row = 0; row < chunk.getSize(); row++) {
+            if (chunk.getError(row) == null) {
+                append(chunk.getLineNumber(row), values, chunk.offsetOf(row));
+                appended++;
+            }
+        }
+        return appended;
+    }
+
+    private int reserveRow(long patientId) {
+        int row = size;
+        if (row == capacity) {
+            throw new IllegalStateException("Column store is full (" + capacity + " rows)");
+        }
+        patientIds.put(row, patientId);
+        predictions.put(row, Double.NaN);
+        return row;
+    }
+
+    /**
+     * Copy the raw values of one row into a buffer, in PatientData.toArray() order
+     */
+    public void copyRow(int row, double[] dest, int offset) {
+        for (int i = 0; i < features.length; i++) {
+            dest[offset + i] = features[i].get(row);
+        }
+    }
+
+    /**
+     * Flyweight positioned on row 0; move it with {@link Cursor#moveTo(int)} or {@link Cursor#next()}
+     * Each thread should use its own cursor.
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Write the row count to the header and force a file-backed store to disk
+     */
+    public void flush() {
+        if (channel != null) {
+            header.putInt(12, size);
+            for (MappedByteBuffer column : mappedColumns) {
+                column.force();
+            }
+            header.force();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            flush();
+            channel.close();
+        }
+    }
+
+    public double getFeature(int row, int feature) { return features[feature].get(row); }
+    public long getPatientId(int row) { return patientIds.get(row); }
+
+    /**
+     * Stored prediction, or NaN if the row has not been scored (or failed validation)
+     */
+    public double getPrediction(int row) { return predictions.get(row); }
+    public void setPrediction(int row, double probability) { predictions.put(row, probability); }
+
+    // Getters
+    public int size() { return size; }
+    public int getCapacity() { return capacity; }
+    public boolean isFileBacked() { return channel != null; }
+
+    /**
+     * Movable view of one row; reading through it allocates nothing
+     */
+    public class Cursor implements PatientView {
+        private int row;
+
+        /**
+         * Position the cursor on a row
+         */
+        public Cursor moveTo(int row) {
+            if (row < 0 || row >= size) {
+                throw new IndexOutOfBoundsException("Row " + row + " outside 0.." + (size - 1));
+            }
+            this.row = row;
+            return this;
+        }
+
+        /**
+         * Advance to the next row
+         * @return false when there are no more rows
+         */
+        public boolean next() {
+            if (row + 1 >= size) {
+                return false;
+            }
+            row++;
+            return true;
+        }
+
+        @Override
+        public double getFeature(int feature) { return features[feature].get(row); }
+
+        public int getRow() { return row; }
+        public long getPatientId() { return patientIds.get(row); }
+        public double getPrediction() { return predictions.get(row); }
+        public void setPrediction(double probability) { predictions.put(row, probability); }
+
+        public double getAge() { return getFeature(0); }
+        public double getBloodPressure() { return getFeature(1); }
+        public double getBloodGlucoseRandom() { return getFeature(2); }
+        public double getSerumCreatinine() { return getFeature(3); }
+        public double getHemoglobin() { return getFeature(4); }
+        public double getAlbumin() { return getFeature(5); }
+        public double getSugar() { return getFeature(6); }
+        public double getSodium() { return getFeature(7); }
+        public double getPotassium() { return getFeature(8); }
+        public double getPackedCellVolume() { return getFeature(9); }
+
+        /**
+         * Materialize the row as a PatientData object (allocates)
+         */
+        public PatientData toPatientData() {
+            return new PatientData(getFeature(0), getFeature(1), getFeature(2), getFeature(3), getFeature(4),
+                    getFeature(5), getFeature(6), getFeature(7), getFeature(8), getFeature(9));
+        }
+    }
+}
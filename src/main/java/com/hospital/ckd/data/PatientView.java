@@ -0,0 +1,13 @@
+package com.hospital.ckd.data;
+
+/**
+ * Read-only access to one patient's raw clinical values without requiring a PatientData object.
+ * Features are indexed in PatientData.toArray() order.
+ */
+public interface PatientView {
+
+    /**
+     * Raw value of the given feature
+     */
+    double getFeature(int feature);
+}
@@ -2,11 +2,65 @@ package com.hospital.ckd.data;
 
 import com.hospital.ckd.model.PatientData;
 
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * Static entry points for validating and normalizing patient data.
+ *
+ * All methods delegate to the active {@link FeatureSpec}: the built-in ranges, or the
+ * properties file named by the {@code ckd.features} system property when it is set.
+ */
 public class Preprocessor {
-    
-    // Normal ranges for medical parameters (for normalization)
-    private static final double[] MIN_VALUES = {0, 50, 50, 0.5, 3.1, 0.2, 0, 4.5, 2.5, 9};
-    private static final double[] MAX_VALUES = {90, 200, 400, 15, 17.8, 5.8, 5, 150, 47, 54};
+
+    /**
+     * Number of features produced for the neural network
+     */
+    public static final int FEATURE_COUNT = FeatureSpec.FEATURE_COUNT;
+
+    private static volatile FeatureSpec featureSpec = loadConfiguredSpec();
+
+    private static FeatureSpec loadConfiguredSpec() {
+        String file = System.getProperty("ckd.features");
+        if (file == null || file.isEmpty()) {
+            return FeatureSpec.defaults();
+        }
+        try {
+            FeatureSpec spec = FeatureSpec.load(Paths.get(file));
+            System.out.println("Loaded feature ranges from " + file);
+            return spec;
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Could not load feature ranges from " + file + ", using defaults: " + e.getMessage());
+            return FeatureSpec.defaults();
+        }
+    }
+
+    /**
+     * Spec used by the static methods of this class
+     */
+    public static FeatureSpec getFeatureSpec() {
+        return featureSpec;
+    }
+
+    public static void setFeatureSpec(FeatureSpec spec) {
+        if (spec == null) {
+            throw new IllegalArgumentException("Feature spec cannot be null");
+        }
+        featureSpec = spec;
+    }
+
+    /**
+     * Spec for a model: the active validation limits with the model's own normalization ranges
+     *
+     * @param inputMins Ranges stored with the model, or null to use the active spec unchanged
+     * @param inputMaxs Ranges stored with the model, or null to use the active spec unchanged
+     */
+    public static FeatureSpec featureSpecFor(double[] inputMins, double[] inputMaxs) {
+        if (inputMins == null || inputMaxs == null) {
+            return featureSpec;
+        }
+        return featureSpec.withRanges(inputMins, inputMaxs);
+    }
 
     /**
      * Normalize patient data for neural network input
@@ -16,20 +70,49 @@ public class Preprocessor {
      * @return Normalized data array ready for neural network
      */
     public static double[] normalize(PatientData patientData) {
-        double[] rawData = patientData.toArray();
-        double[] normalized = new double[rawData.length];
-
-        for (int i = 0; i < rawData.length; i++) {
-            // Min-max normalization: (value - min) / (max - min)
-            normalized[i] = (rawData[i] - MIN_VALUES[i]) / (MAX_VALUES[i] - MIN_VALUES[i]);
-            
-            // Clamp values to [0, 1] range in case of outliers
-            normalized[i] = Math.max(0.0, Math.min(1.0, normalized[i]));
-        }
+        return normalizeInto(patientData, new double[FEATURE_COUNT]);
+    }
 
+    /**
+     * Normalize patient data into a caller-provided buffer without allocating
+     *
+     * @param patientData Raw patient data
+     * @param normalized Destination buffer of length >= FEATURE_COUNT
+     * @return The destination buffer
+     */
+    public static double[] normalizeInto(PatientData patientData, double[] normalized) {
+        patientData.toArray(normalized);
+        normalizeInto(normalized, 0, normalized, 0);
         return normalized;
     }
 
+    /**
+     * Normalize one row of raw values stored in a primitive buffer
+     * Source and destination may be the same array.
+     *
+     * @param raw Buffer holding FEATURE_COUNT raw values starting at rawOffset
+     * @param rawOffset Offset of the first raw value
+     * @param normalized Destination buffer
+     * @param normalizedOffset Offset of the first normalized value
+     */
+    public static void normalizeInto(double[] raw, int rawOffset, double[] normalized, int normalizedOffset) {
+        featureSpec.normalize(raw, rawOffset, normalized, normalizedOffset);
+    }
+
+    /**
+     * Normalize a patient exposed through a view (for example a column store cursor)
+     *
+     * @param patient View over the raw values
+     * @param normalized Destination buffer
+     * @param offset Offset of the first normalized value
+     */
+    public static void normalizeInto(PatientView patient, double[] normalized, int offset) {
+        for (int i = 0; i < FEATURE_COUNT; i++) {
+            normalized[offset + i] = patient.getFeature(i);
+        }
+        normalizeInto(normalized, offset, normalized, offset);
+    }
+
     /**
      * Validate that all patient data values are within reasonable medical ranges
      * 
@@ -37,30 +120,59 @@ public class Preprocessor {
      * @return Validation error message, or null if valid
      */
     public static String validateData(PatientData patientData) {
-        double[] data = patientData.toArray();
-        String[] fieldNames = {
-            "Age", "Blood Pressure", "Blood Glucose Random", "Serum Creatinine",
-            "Hemoglobin", "Albumin", "Sugar", "Sodium", "Potassium", "Packed Cell Volume"
-        };
-
-        for (int i = 0; i < data.length; i++) {
-            if (data[i] < 0) {
-                return fieldNames[i] + " cannot be negative";
-            }
-            if (data[i] < MIN_VALUES[i] * 0.5 || data[i] > MAX_VALUES[i] * 2) {
-                return fieldNames[i] + " value seems outside normal range. Please verify.";
-            }
-        }
+        return validateData(patientData, new double[FEATURE_COUNT]);
+    }
 
-        // Additional specific validations
-        if (patientData.getAge() > 120) {
-            return "Age seems unrealistic. Please verify.";
-        }
-        if (patientData.getBloodPressure() > 250) {
-            return "Blood pressure reading seems extremely high. Please verify.";
+    /**
+     * Validate patient data using a caller-provided scratch buffer
+     * Allocates nothing unless validation fails.
+     *
+     * @param patientData Patient data to validate
+     * @param scratch Scratch buffer of length >= FEATURE_COUNT
+     * @return Validation error message, or null if valid
+     */
+    public static String validateData(PatientData patientData, double[] scratch) {
+        return validateValues(patientData.toArray(scratch), 0);
+    }
+
+    /**
+     * Validate a patient exposed through a view using a caller-provided scratch buffer
+     *
+     * @param patient View over the raw values
+     * @param scratch Scratch buffer of length >= FEATURE_COUNT
+     * @return Validation error message, or null if valid
+     */
+    public static String validateData(PatientView patient, double[] scratch) {
+        for (int i = 0; i < FEATURE_COUNT; i++) {
+            scratch[i] = patient.getFeature(i);
         }
+        return validateValues(scratch, 0);
+    }
+
+    /**
+     * Validate one row of raw values stored in a primitive buffer
+     *
+     * @param data Buffer holding FEATURE_COUNT raw values starting at offset, in PatientData.toArray() order
+     * @param offset Offset of the first value
+     * @return Validation error message, or null if valid
+     */
+    public static String validateValues(double[] data, int offset) {
+        FeatureSpec spec = featureSpec;
+        return spec.describe(spec.validate(data, offset));
+    }
 
-        return null; // All validations passed
+    /**
+     * Raw value that normalizes to 0 for the given feature
+     */
+    public static double getMinValue(int feature) {
+        return featureSpec.getMin(feature);
+    }
+
+    /**
+     * Raw value that normalizes to 1 for the given feature
+     */
+    public static double getMaxValue(int feature) {
+        return featureSpec.getMax(feature);
     }
 
     /**
@@ -0,0 +1,101 @@
+package com.hospital.ckd.history;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.zip.CRC32C;
+
+/**
+ * On-disk layout of the patient history store.
+ *
+ * History is kept in preallocated segment files that start with a 16-byte header:
+ * <pre>
+ *   int    magic "CKDH"
+ *   int    format version
+ *   long   segment sequence number
+ * </pre>
+ * followed by records, each 8-byte aligned (all values little-endian):
+ * <pre>
+ *   int    record length in bytes, including this header and the padding
+ *   int    CRC32C of the payload
+ *   long   timestamp (epoch millis)
+ *   double risk probability, NaN when the visit was not scored
+ *   int    feature count
+ *   int    patient ID length in bytes
+ *   double[feature count] raw patient values
+ *   byte[ID length]       patient ID, UTF-8
+ *   padding to a multiple of 8
+ * </pre>
+ * The unused tail of a segment is zero, so a record length of 0 marks the end of the data.
+ *
+ * The index file holds a checkpoint of the in-memory index (see {@link PatientHistoryStore}):
+ * <pre>
+ *   int    magic "CKDX"
+ *   int    format version
+ *   long   segment sequence and int position up to which the log is covered
+ *   int    patient count
+ *   per patient: UTF patient ID, trend accumulator, int entry count,
+ *                entry count &times; (long timestamp, long record location)
+ *   int    CRC32C of everything before it
+ * </pre>
+ * A record location is the segment sequence in the high 32 bits and the offset in the low 32.
+ */
+final class HistoryFormat {
+    static final int MAGIC = 0x48444B43; // "CKDH" in little-endian byte order
+    static final int INDEX_MAGIC = 0x58444B43; // "CKDX"
+    static final int FORMAT_VERSION = 1;
+    static final int SEGMENT_HEADER_SIZE = 16;
+    static final int RECORD_HEADER_SIZE = 8;
+    static final int FIXED_PAYLOAD_SIZE = 24;
+    static final int MAX_ID_BYTES = 256;
+    static final String SEGMENT_PREFIX = "history-";
+    static final String SEGMENT_SUFFIX = ".ckdh";
+    static final String INDEX_FILE = "history.idx";
+
+    private HistoryFormat() {
+    }
+
+    static int recordSize(int featureCount, int idLength) {
+        int size = RECORD_HEADER_SIZE + FIXED_PAYLOAD_SIZE + 8 * featureCount + idLength;
+        return (size + 7) & ~7;
+    }
+
+    static String segmentName(long sequence) {
+        return String.format("%s%016d%s", SEGMENT_PREFIX, sequence, SEGMENT_SUFFIX);
+    }
+
+    static boolean isSegment(Path file) {
+        String name = file.getFileName().toString();
+        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+    }
+
+    /**
+     * Sequence number encoded in a segment file name
+     */
+    static long sequenceOf(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    static long location(long segment, int offset) {
+        return (segment << 32) | (offset & 0xFFFFFFFFL);
+    }
+
+    static long segmentOf(long location) {
+        return location >>> 32;
+    }
+
+    static int offsetOf(long location) {
+        return (int) location;
+    }
+
+    /**
+     * CRC32C of the payload of the record starting at {@code offset}
+     */
+    static int checksum(ByteBuffer segment, int offset, int length) {
+        CRC32C crc = new CRC32C();
+        ByteBuffer payload = segment.duplicate();
+        payload.limit(offset + length).position(offset + RECORD_HEADER_SIZE);
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,47 @@
+package com.hospital.ckd.history;
+
+import com.hospital.ckd.model.PatientData;
+
+import java.time.Instant;
+
+/**
+ * One visit of a patient: the lab values and, if the visit was scored, the predicted risk.
+ */
+public class HistoryRecord {
+    private final String patientId;
+    private final long timestamp;
+    private final double[] values;
+    private final double riskProbability;
+
+    HistoryRecord(String patientId, long timestamp, double[] values, double riskProbability) {
+        this.patientId = patientId;
+        this.timestamp = timestamp;
+        this.values = values;
+        this.riskProbability = riskProbability;
+    }
+
+    /**
+     * Lab values as a PatientData, in the order of PatientData.toArray()
+     */
+    public PatientData toPatientData() {
+        return new PatientData(values[0], values[1], values[2], values[3], values[4],
+                values[5], values[6], values[7], values[8], values[9]);
+    }
+
+    public boolean isScored() {
+        return !Double.isNaN(riskProbability);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s @ %s risk=%s", patientId, Instant.ofEpochMilli(timestamp),
+                isScored() ? String.format("%.1f%%", riskProbability * 100) : "-");
+    }
+
+    // Getters
+    public String getPatientId() { return patientId; }
+    public long getTimestamp() { return timestamp; }
+    public double getValue(int feature) { return values[feature]; }
+    public double[] getValues() { return values.clone(); }
+    public double getRiskProbability() { return riskProbability; }
+}
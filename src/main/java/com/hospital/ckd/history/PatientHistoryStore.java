@@ -0,0 +1,539 @@
+package com.hospital.ckd.history;
+
+import com.hospital.ckd.data.Preprocessor;
+import com.hospital.ckd.model.PatientData;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Embedded, append-only store of per-patient visits (lab values and predicted risk).
+ *
+ * Visits are appended to memory-mapped segment files (see {@link HistoryFormat}) and indexed
+ * in memory by patient ID and timestamp, so a point lookup or range scan is a hash lookup,
+ * a binary search and a read from the mapped segment. Each patient also carries running trend
+ * sums, so {@link #trends(String)} (creatinine slope, risk change since the last visit, ...)
+ * costs the same after ten visits as after ten thousand.
+ *
+ * The index is checkpointed to {@code history.idx} whenever a segment fills up and on close.
+ * Opening a store loads the checkpoint and replays only the records written after it; a missing
+ * or damaged checkpoint falls back to replaying every segment. Replay checks each record's
+ * length and CRC: a torn record at the end of the last segment (a crash mid-append) is zeroed
+ * and writing resumes in its place, and a damaged record in an older segment ends that
+ * segment with a warning.
+ *
+ * Appended records survive a process crash as soon as append returns; {@link #force()} makes
+ * them survive a power loss too.
+ */
+public class PatientHistoryStore implements AutoCloseable {
+    public static final int DEFAULT_SEGMENT_BYTES = 64 << 20;
+
+    private static final int FEATURES = Preprocessor.FEATURE_COUNT;
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final Map<String, PatientTimeline> timelines = new ConcurrentHashMap<>();
+    private final Map<Long, MappedByteBuffer> segments = new ConcurrentHashMap<>();
+    private volatile boolean closed;
+    private long records;
+    private long recoveredRecords;
+    private long discardedBytes;
+
+    // Writer state, guarded by this
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private long segmentSequence;
+    private int writePosition;
+    private int forcedPosition;
+
+    /**
+     * Open (or create) a store with the default segment size
+     */
+    public static PatientHistoryStore open(Path directory) throws IOException {
+        return new PatientHistoryStore(directory, DEFAULT_SEGMENT_BYTES);
+    }
+
+    /**
+     * @param directory Directory holding the segment and index files; created if missing
+     * @param segmentBytes Size of each new segment file
+     */
+    public PatientHistoryStore(Path directory, int segmentBytes) throws IOException {
+        int largestRecord = HistoryFormat.recordSize(FEATURES, HistoryFormat.MAX_ID_BYTES);
+        if (segmentBytes < HistoryFormat.SEGMENT_HEADER_SIZE + largestRecord) {
+            throw new IllegalArgumentException("Segment size must be at least "
+                    + (HistoryFormat.SEGMENT_HEADER_SIZE + largestRecord) + " bytes");
+        }
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        Files.createDirectories(directory);
+        recover();
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(HistoryFormat::isSegment)
+                    .sorted(Comparator.comparingLong(HistoryFormat::sequenceOf))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private void recover() throws IOException {
+        List<Path> files = segmentFiles();
+        long lastSequence = files.isEmpty() ? 0 : HistoryFormat.sequenceOf(files.get(files.size() - 1));
+
+        long coveredSegment = 0;
+        int coveredPosition = 0;
+        long[] covered = loadIndex(lastSequence);
+        if (covered != null) {
+            coveredSegment = covered[0];
+            coveredPosition = (int) covered[1];
+        } else {
+            timelines.clear();
+        }
+
+        for (Path file : files) {
+            long sequence = HistoryFormat.sequenceOf(file);
+            boolean last = sequence == lastSequence;
+            try (FileChannel segmentChannel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                // A crash right after creating the last segment can leave it empty; map it full size
+                long size = last && segmentChannel.size() < HistoryFormat.SEGMENT_HEADER_SIZE
+                        ? segmentBytes : segmentChannel.size();
+                MappedByteBuffer buffer = segmentChannel.map(
+                        last ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY, 0, size);
+                buffer.order(ByteOrder.LITTLE_ENDIAN);
+                segments.put(sequence, buffer);
+
+                int start = HistoryFormat.SEGMENT_HEADER_SIZE;
+                if (sequence < coveredSegment) {
+                    continue;
+                } else if (sequence == coveredSegment) {
+                    start = coveredPosition;
+                }
+                if (!hasValidHeader(buffer, sequence)) {
+                    if (!last) {
+                        System.err.println("Skipping history segment with a bad header: " + file);
+                        continue;
+                    }
+                    System.err.println("Reinitialising history segment with a bad header: " + file);
+                    zero(buffer, 0);
+                    writeHeader(buffer, sequence);
+                    start = HistoryFormat.SEGMENT_HEADER_SIZE;
+                }
+                int end = replay(buffer, sequence, start);
+                if (end < buffer.limit() && buffer.getInt(end) != 0) {
+                    if (last) {
+                        System.err.printf("Discarding torn history record at %s offset %d%n", file.getFileName(), end);
+                        discardedBytes += zero(buffer, end);
+                        buffer.force();
+                    } else {
+                        System.err.printf("Damaged history record at %s offset %d; skipping rest of segment%n",
+                                file.getFileName(), end);
+                    }
+                }
+                if (last) {
+                    segment = buffer;
+                    segmentSequence = sequence;
+                    writePosition = end;
+                    forcedPosition = end;
+                }
+            }
+        }
+        if (segment == null) {
+            segmentSequence = lastSequence;
+            openNextSegment();
+        }
+    }
+
+    private static boolean hasValidHeader(MappedByteBuffer buffer, long sequence) {
+        return buffer.limit() >= HistoryFormat.SEGMENT_HEADER_SIZE
+                && buffer.getInt(0) == HistoryFormat.MAGIC
+                && buffer.getInt(4) == HistoryFormat.FORMAT_VERSION
+                && buffer.getLong(8) == sequence;
+    }
+
+    private static void writeHeader(MappedByteBuffer buffer, long sequence) {
+        buffer.putInt(0, HistoryFormat.MAGIC);
+        buffer.putInt(4, HistoryFormat.FORMAT_VERSION);
+        buffer.putLong(8, sequence);
+    }
+
+    /**
+     * Zero a segment from {@code start} to its end
+     * @return Number of bytes that were not already zero
+     */
+    private static long zero(MappedByteBuffer buffer, int start) {
+        long cleared = 0;
+        int position = start;
+        for (; position + 8 <= buffer.limit(); position += 8) {
+            if (buffer.getLong(position) != 0) {
+                buffer.putLong(position, 0);
+                cleared += 8;
+            }
+        }
+        for (; position < buffer.limit(); position++) {
+            if (buffer.get(position) != 0) {
+                buffer.put(position, (byte) 0);
+                cleared++;
+            }
+        }
+        return cleared;
+    }
+
+    /**
+     * Index every valid record of a segment from {@code start}
+     * @return Offset just past the last valid record
+     */
+    private int replay(MappedByteBuffer buffer, long sequence, int start) {
+        int position = start;
+        double[] values = new double[FEATURES];
+        while (position + HistoryFormat.RECORD_HEADER_SIZE <= buffer.limit()) {
+            int length = recordLength(buffer, position);
+            if (length <= 0) {
+                break;
+            }
+            for (int i = 0; i < FEATURES; i++) {
+                values[i] = buffer.getDouble(position + 32 + 8 * i);
+            }
+            index(readId(buffer, position), buffer.getLong(position + 8), HistoryFormat.location(sequence, position),
+                    values, buffer.getDouble(position + 16));
+            recoveredRecords++;
+            position += length;
+        }
+        return position;
+    }
+
+    /**
+     * Length of a complete, intact record at {@code position}, or 0 at the end of data or damage
+     */
+    private static int recordLength(MappedByteBuffer buffer, int position) {
+        int length = buffer.getInt(position);
+        if (length < HistoryFormat.recordSize(FEATURES, 0) || (length & 7) != 0
+                || length > buffer.limit() - position) {
+            return 0;
+        }
+        int featureCount = buffer.getInt(position + 24);
+        int idLength = buffer.getInt(position + 28);
+        if (featureCount != FEATURES || idLength <= 0 || idLength > HistoryFormat.MAX_ID_BYTES
+                || HistoryFormat.recordSize(featureCount, idLength) != length) {
+            return 0;
+        }
+        return HistoryFormat.checksum(buffer, position, length) == buffer.getInt(position + 4) ? length : 0;
+    }
+
+    private static String readId(MappedByteBuffer buffer, int position) {
+        byte[] id = new byte[buffer.getInt(position + 28)];
+        buffer.get(position + 32 + 8 * FEATURES, id);
+        return new String(id, StandardCharsets.UTF_8);
+    }
+
+    private void index(String patientId, long timestamp, long location, double[] values, double riskProbability) {
+        timelines.computeIfAbsent(patientId, id -> new PatientTimeline())
+                .add(timestamp, location, values, riskProbability);
+        records++;
+    }
+
+    /**
+     * Load the index checkpoint
+     * @return Covered segment and position, or null if the checkpoint is missing or unusable
+     */
+    private long[] loadIndex(long lastSequence) {
+        Path file = directory.resolve(HistoryFormat.INDEX_FILE);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try {
+            byte[] bytes = Files.readAllBytes(file);
+            CRC32C crc = new CRC32C();
+            crc.update(bytes, 0, Math.max(0, bytes.length - 4));
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+            if (bytes.length < 28 || in.readInt() != HistoryFormat.INDEX_MAGIC
+                    || in.readInt() != HistoryFormat.FORMAT_VERSION) {
+                throw new IOException("not a history index");
+            }
+            int storedCrc = ((bytes[bytes.length - 4] & 0xFF) << 24) | ((bytes[bytes.length - 3] & 0xFF) << 16)
+                    | ((bytes[bytes.length - 2] & 0xFF) << 8) | (bytes[bytes.length - 1] & 0xFF);
+            if (storedCrc != (int) crc.getValue()) {
+                throw new IOException("checksum mismatch");
+            }
+            long coveredSegment = in.readLong();
+            int coveredPosition = in.readInt();
+            if (coveredSegment > lastSequence || coveredPosition < HistoryFormat.SEGMENT_HEADER_SIZE
+                    || !Files.exists(directory.resolve(HistoryFormat.segmentName(coveredSegment)))) {
+                throw new IOException("checkpoint is ahead of the log");
+            }
+            int patients = in.readInt();
+            long indexed = 0;
+            for (int i = 0; i < patients; i++) {
+                String patientId = in.readUTF();
+                PatientTimeline timeline = PatientTimeline.read(in);
+                timelines.put(patientId, timeline);
+                indexed += timeline.size();
+            }
+            records = indexed;
+            return new long[] {coveredSegment, coveredPosition};
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Ignoring history index " + file + " (" + e.getMessage() + "); replaying the full log");
+            timelines.clear();
+            records = 0;
+            return null;
+        }
+    }
+
+    /**
+     * Record one visit
+     *
+     * @param riskProbability Predicted risk for the visit, or NaN if it was not scored
+     * @throws IllegalArgumentException if the patient ID is empty or longer than 256 UTF-8 bytes
+     * @throws IllegalStateException if the store is closed or the segment cannot be written
+     */
+    public synchronized HistoryRecord append(String patientId, long timestamp, PatientData patient, double riskProbability) {
+        if (closed) {
+            throw new IllegalStateException("Patient history store is closed");
+        }
+        if (patientId == null || patientId.isEmpty()) {
+            throw new IllegalArgumentException("Patient ID is required for history records");
+        }
+        byte[] id = patientId.getBytes(StandardCharsets.UTF_8);
+        if (id.length > HistoryFormat.MAX_ID_BYTES) {
+            throw new IllegalArgumentException("Patient ID longer than " + HistoryFormat.MAX_ID_BYTES + " bytes: " + patientId);
+        }
+        double[] values = patient.toArray();
+        int size = HistoryFormat.recordSize(FEATURES, id.length);
+        if (writePosition + size > segment.limit()) {
+            try {
+                force();
+                if (channel != null) {
+                    channel.close();
+                }
+                openNextSegment();
+                checkpoint();
+            } catch (IOException e) {
+                throw new IllegalStateException("Failed to roll patient history segment: " + e.getMessage(), e);
+            }
+        }
+
+        int start = writePosition;
+        segment.putLong(start + 8, timestamp);
+        segment.putDouble(start + 16, riskProbability);
+        segment.putInt(start + 24, FEATURES);
+        segment.putInt(start + 28, id.length);
+        for (int i = 0; i < FEATURES; i++) {
+            segment.putDouble(start + 32 + 8 * i, values[i]);
+        }
+        // Segments are zero-filled past the write position, so the padding is already zero
+        segment.put(start + 32 + 8 * FEATURES, id);
+        segment.putInt(start + 4, HistoryFormat.checksum(segment, start, size));
+        // The length goes in last, so replay never sees a record without its payload
+        segment.putInt(start, size);
+        writePosition = start + size;
+
+        index(patientId, timestamp, HistoryFormat.location(segmentSequence, start), values, riskProbability);
+        return new HistoryRecord(patientId, timestamp, values, riskProbability);
+    }
+
+    /**
+     * Record one visit at the current time
+     */
+    public HistoryRecord append(String patientId, PatientData patient, double riskProbability) {
+        return append(patientId, System.currentTimeMillis(), patient, riskProbability);
+    }
+
+    private void openNextSegment() throws IOException {
+        segmentSequence++;
+        Path file = directory.resolve(HistoryFormat.segmentName(segmentSequence));
+        channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        segment.order(ByteOrder.LITTLE_ENDIAN);
+        writeHeader(segment, segmentSequence);
+        segments.put(segmentSequence, segment);
+        writePosition = HistoryFormat.SEGMENT_HEADER_SIZE;
+        forcedPosition = 0;
+    }
+
+    private HistoryRecord read(String patientId, long location) {
+        MappedByteBuffer buffer = segments.get(HistoryFormat.segmentOf(location));
+        int position = HistoryFormat.offsetOf(location);
+        double[] values = new double[FEATURES];
+        for (int i = 0; i < FEATURES; i++) {
+            values[i] = buffer.getDouble(position + 32 + 8 * i);
+        }
+        return new HistoryRecord(patientId, buffer.getLong(position + 8), values, buffer.getDouble(position + 16));
+    }
+
+    /**
+     * Visit of a patient at exactly this timestamp (the latest one if several), or null
+     */
+    public HistoryRecord get(String patientId, long timestamp) {
+        PatientTimeline timeline = timelines.get(patientId);
+        long location = timeline == null ? -1 : timeline.find(timestamp);
+        return location < 0 ? null : read(patientId, location);
+    }
+
+    /**
+     * Most recent visit of a patient, or null for an unknown patient
+     */
+    public HistoryRecord latest(String patientId) {
+        PatientTimeline timeline = timelines.get(patientId);
+        long location = timeline == null ? -1 : timeline.latest();
+        return location < 0 ? null : read(patientId, location);
+    }
+
+    /**
+     * Visits of a patient with timestamps in [from, toExclusive), oldest first
+     */
+    public List<HistoryRecord> range(String patientId, long from, long toExclusive) {
+        PatientTimeline timeline = timelines.get(patientId);
+        if (timeline == null) {
+            return new ArrayList<>();
+        }
+        long[] locations = timeline.range(from, toExclusive);
+        List<HistoryRecord> visits = new ArrayList<>(locations.length);
+        for (long location : locations) {
+            visits.add(read(patientId, location));
+        }
+        return visits;
+    }
+
+    /**
+     * Every visit of a patient, oldest first
+     */
+    public List<HistoryRecord> history(String patientId) {
+        return range(patientId, Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * Trend features of a patient as of the latest visit, or null for an unknown patient
+     */
+    public TrendFeatures trends(String patientId) {
+        PatientTimeline timeline = timelines.get(patientId);
+        return timeline == null ? null : timeline.trend();
+    }
+
+    public int visitCount(String patientId) {
+        PatientTimeline timeline = timelines.get(patientId);
+        return timeline == null ? 0 : timeline.size();
+    }
+
+    /**
+     * Force every appended record to disk
+     */
+    public synchronized void force() {
+        if (segment != null && forcedPosition < writePosition) {
+            segment.force(forcedPosition, writePosition - forcedPosition);
+            forcedPosition = writePosition;
+        }
+    }
+
+    /**
+     * Force the log and write the in-memory index to the index file, so the next open only
+     * replays records appended after this point. The file is replaced atomically.
+     */
+    public synchronized void checkpoint() throws IOException {
+        force();
+        Path file = directory.resolve(HistoryFormat.INDEX_FILE);
+        Path temporary = directory.resolve(HistoryFormat.INDEX_FILE + ".tmp");
+        CRC32C crc = new CRC32C();
+        try (OutputStream stream = Files.newOutputStream(temporary)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new CheckedOutputStream(stream, crc), 1 << 16));
+            out.writeInt(HistoryFormat.INDEX_MAGIC);
+            out.writeInt(HistoryFormat.FORMAT_VERSION);
+            out.writeLong(segmentSequence);
+            out.writeInt(writePosition);
+            out.writeInt(timelines.size());
+            for (Map.Entry<String, PatientTimeline> entry : timelines.entrySet()) {
+                out.writeUTF(entry.getKey());
+                entry.getValue().write(out);
+            }
+            out.flush();
+            new DataOutputStream(stream).writeInt((int) crc.getValue());
+        }
+        try (FileChannel index = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+            index.force(true);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Force the log, checkpoint the index and release the current segment
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        try {
+            checkpoint();
+        } catch (IOException e) {
+            System.err.println("Failed to checkpoint patient history index: " + e.getMessage());
+        }
+        closed = true;
+        try {
+            if (channel != null) {
+                channel.close();
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to close patient history segment: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Usage: PatientHistoryStore <historyDirectory> [patientId]
+     * Prints the store size, and with a patient ID that patient's visits and trends.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: PatientHistoryStore <historyDirectory> [patientId]");
+            System.exit(1);
+        }
+        long start = System.nanoTime();
+        try (PatientHistoryStore store = new PatientHistoryStore(Paths.get(args[0]), DEFAULT_SEGMENT_BYTES)) {
+            System.out.printf("Opened in %.1f ms: %d patients, %d records in %d segments%n",
+                    (System.nanoTime() - start) / 1e6, store.getPatientCount(), store.getRecordCount(),
+                    store.getSegmentCount());
+            if (args.length > 1) {
+                String patientId = args[1];
+                TrendFeatures trend = store.trends(patientId);
+                if (trend == null) {
+                    System.out.println("No history for patient " + patientId);
+                    return;
+                }
+                for (HistoryRecord visit : store.history(patientId)) {
+                    System.out.printf("  %s  risk %s%n", Instant.ofEpochMilli(visit.getTimestamp()),
+                            visit.isScored() ? String.format("%.1f%%", visit.getRiskProbability() * 100) : "-");
+                }
+                System.out.print(trend);
+            }
+        }
+    }
+
+    // Getters
+    public Path getDirectory() { return directory; }
+    public int getPatientCount() { return timelines.size(); }
+    public synchronized long getRecordCount() { return records; }
+    public int getSegmentCount() { return segments.size(); }
+    public long getRecoveredRecords() { return recoveredRecords; }
+    public long getDiscardedBytes() { return discardedBytes; }
+}
@@ -0,0 +1,125 @@
+package com.hospital.ckd.history;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * In-memory index of one patient: record locations sorted by visit time, plus the running trend.
+ *
+ * Visits normally arrive in time order and are appended at the end; a back-filled visit is
+ * placed by binary search. Visits with the same timestamp keep their arrival order.
+ */
+final class PatientTimeline {
+    private long[] timestamps = new long[4];
+    private long[] locations = new long[4];
+    private int size;
+    private final TrendAccumulator trend;
+
+    PatientTimeline() {
+        this(new TrendAccumulator());
+    }
+
+    private PatientTimeline(TrendAccumulator trend) {
+        this.trend = trend;
+    }
+
+    synchronized void add(long timestamp, long location, double[] values, double riskProbability) {
+        if (size == timestamps.length) {
+            timestamps = Arrays.copyOf(timestamps, size * 2);
+            locations = Arrays.copyOf(locations, size * 2);
+        }
+        int index = size;
+        if (size > 0 && timestamps[size - 1] > timestamp) {
+            index = upperBound(timestamp);
+            System.arraycopy(timestamps, index, timestamps, index + 1, size - index);
+            System.arraycopy(locations, index, locations, index + 1, size - index);
+        }
+        timestamps[index] = timestamp;
+        locations[index] = location;
+        size++;
+        trend.add(timestamp, values, riskProbability);
+    }
+
+    /**
+     * First index whose timestamp is at least {@code timestamp}
+     */
+    private int lowerBound(long timestamp) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (timestamps[mid] < timestamp) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * First index whose timestamp is greater than {@code timestamp}
+     */
+    private int upperBound(long timestamp) {
+        return timestamp == Long.MAX_VALUE ? size : lowerBound(timestamp + 1);
+    }
+
+    /**
+     * Location of the latest record at exactly {@code timestamp}, or -1
+     */
+    synchronized long find(long timestamp) {
+        int index = upperBound(timestamp) - 1;
+        return index >= 0 && timestamps[index] == timestamp ? locations[index] : -1;
+    }
+
+    /**
+     * Locations of the records in [from, toExclusive), in time order
+     */
+    synchronized long[] range(long from, long toExclusive) {
+        if (from >= toExclusive) {
+            return new long[0];
+        }
+        int start = lowerBound(from);
+        int end = lowerBound(toExclusive);
+        return Arrays.copyOfRange(locations, start, end);
+    }
+
+    synchronized long latest() {
+        return size == 0 ? -1 : locations[size - 1];
+    }
+
+    synchronized TrendFeatures trend() {
+        return trend.toFeatures();
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    synchronized void write(DataOutput out) throws IOException {
+        trend.write(out);
+        out.writeInt(size);
+        for (int i = 0; i < size; i++) {
+            out.writeLong(timestamps[i]);
+            out.writeLong(locations[i]);
+        }
+    }
+
+    static PatientTimeline read(DataInput in) throws IOException {
+        PatientTimeline timeline = new PatientTimeline(TrendAccumulator.read(in));
+        int count = in.readInt();
+        if (count < 0) {
+            throw new IOException("Negative entry count in history index");
+        }
+        timeline.timestamps = new long[Math.max(4, count)];
+        timeline.locations = new long[Math.max(4, count)];
+        for (int i = 0; i < count; i++) {
+            timeline.timestamps[i] = in.readLong();
+            timeline.locations[i] = in.readLong();
+        }
+        timeline.size = count;
+        return timeline;
+    }
+}
@@ -0,0 +1,157 @@
+package com.hospital.ckd.history;
+
+import com.hospital.ckd.data.Preprocessor;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Running state behind a patient's {@link TrendFeatures}, updated in O(1) per visit.
+ *
+ * Slopes come from an online least-squares fit: only the sums of x, x&sup2;, y and x&middot;y are kept,
+ * with x in days since the first visit the store saw, so adding a visit never rescans history.
+ * The sums do not depend on arrival order, so back-filled visits are handled too; the
+ * "since last visit" deltas only look at the two most recent visits.
+ */
+final class TrendAccumulator {
+    private static final int FEATURES = Preprocessor.FEATURE_COUNT;
+    private static final double MILLIS_PER_DAY = 86_400_000.0;
+
+    private long visits;
+    private long origin;
+    private double sumX;
+    private double sumXX;
+    private final double[] sumY = new double[FEATURES];
+    private final double[] sumXY = new double[FEATURES];
+
+    // Risk regression over scored visits only
+    private long scoredVisits;
+    private double riskSumX;
+    private double riskSumXX;
+    private double riskSumY;
+    private double riskSumXY;
+
+    private long firstTimestamp = Long.MAX_VALUE;
+    private long latestTimestamp = Long.MIN_VALUE;
+    private long previousTimestamp = Long.MIN_VALUE;
+    private final double[] latestValues = new double[FEATURES];
+    private final double[] previousValues = new double[FEATURES];
+    private double latestRisk = Double.NaN;
+    private double previousRisk = Double.NaN;
+
+    /**
+     * Fold one visit into the trend
+     */
+    void add(long timestamp, double[] values, double riskProbability) {
+        if (visits == 0) {
+            origin = timestamp;
+        }
+        visits++;
+        double x = (timestamp - origin) / MILLIS_PER_DAY;
+        sumX += x;
+        sumXX += x * x;
+        for (int i = 0; i < FEATURES; i++) {
+            sumY[i] += values[i];
+            sumXY[i] += x * values[i];
+        }
+        if (!Double.isNaN(riskProbability)) {
+            scoredVisits++;
+            riskSumX += x;
+            riskSumXX += x * x;
+            riskSumY += riskProbability;
+            riskSumXY += x * riskProbability;
+        }
+
+        firstTimestamp = Math.min(firstTimestamp, timestamp);
+        if (timestamp >= latestTimestamp) {
+            previousTimestamp = latestTimestamp;
+            System.arraycopy(latestValues, 0, previousValues, 0, FEATURES);
+            previousRisk = latestRisk;
+            latestTimestamp = timestamp;
+            System.arraycopy(values, 0, latestValues, 0, FEATURES);
+            latestRisk = riskProbability;
+        } else if (timestamp >= previousTimestamp) {
+            previousTimestamp = timestamp;
+            System.arraycopy(values, 0, previousValues, 0, FEATURES);
+            previousRisk = riskProbability;
+        }
+    }
+
+    /**
+     * Least-squares slope per year, or NaN with fewer than two distinct visit times
+     */
+    private static double slopePerYear(long n, double sumX, double sumXX, double sumY, double sumXY) {
+        double denominator = n * sumXX - sumX * sumX;
+        if (n < 2 || denominator <= 1e-12 * Math.max(1, n * sumXX)) {
+            return Double.NaN;
+        }
+        return (n * sumXY - sumX * sumY) / denominator * 365.25;
+    }
+
+    TrendFeatures toFeatures() {
+        double[] slopes = new double[FEATURES];
+        double[] deltas = new double[FEATURES];
+        boolean hasPrevious = visits > 1 && previousTimestamp != Long.MIN_VALUE;
+        for (int i = 0; i < FEATURES; i++) {
+            slopes[i] = slopePerYear(visits, sumX, sumXX, sumY[i], sumXY[i]);
+            deltas[i] = hasPrevious ? latestValues[i] - previousValues[i] : Double.NaN;
+        }
+        return new TrendFeatures(visits, firstTimestamp, latestTimestamp,
+                hasPrevious ? previousTimestamp : Long.MIN_VALUE, latestValues.clone(), latestRisk,
+                hasPrevious ? latestRisk - previousRisk : Double.NaN, slopes, deltas,
+                slopePerYear(scoredVisits, riskSumX, riskSumXX, riskSumY, riskSumXY));
+    }
+
+    void write(DataOutput out) throws IOException {
+        out.writeLong(visits);
+        out.writeLong(origin);
+        out.writeDouble(sumX);
+        out.writeDouble(sumXX);
+        for (int i = 0; i < FEATURES; i++) {
+            out.writeDouble(sumY[i]);
+            out.writeDouble(sumXY[i]);
+        }
+        out.writeLong(scoredVisits);
+        out.writeDouble(riskSumX);
+        out.writeDouble(riskSumXX);
+        out.writeDouble(riskSumY);
+        out.writeDouble(riskSumXY);
+        out.writeLong(firstTimestamp);
+        out.writeLong(latestTimestamp);
+        out.writeLong(previousTimestamp);
+        for (int i = 0; i < FEATURES; i++) {
+            out.writeDouble(latestValues[i]);
+            out.writeDouble(previousValues[i]);
+        }
+        out.writeDouble(latestRisk);
+        out.writeDouble(previousRisk);
+    }
+
+    static TrendAccumulator read(DataInput in) throws IOException {
+        TrendAccumulator trend = new TrendAccumulator();
+        trend.visits = in.readLong();
+        trend.origin = in.readLong();
+        trend.sumX = in.readDouble();
+        trend.sumXX = in.readDouble();
+        for (int i = 0; i < FEATURES; i++) {
+            trend.sumY[i] = in.readDouble();
+            trend.sumXY[i] = in.readDouble();
+        }
+        trend.scoredVisits = in.readLong();
+        trend.riskSumX = in.readDouble();
+        trend.riskSumXX = in.readDouble();
+        trend.riskSumY = in.readDouble();
+        trend.riskSumXY = in.readDouble();
+        trend.firstTimestamp = in.readLong();
+        trend.latestTimestamp = in.readLong();
+        trend.previousTimestamp = in.readLong();
+        for (int i = 0; i < FEATURES; i++) {
+            trend.latestValues[i] = in.readDouble();
+            trend.previousValues[i] = in.readDouble();
+        }
+        trend.latestRisk = in.readDouble();
+        trend.previousRisk = in.readDouble();
+        return trend;
+    }
+}
@@ -0,0 +1,79 @@
+package com.hospital.ckd.history;
+
+import com.hospital.ckd.data.FeatureSpec;
+import com.hospital.ckd.data.Preprocessor;
+
+/**
+ * Longitudinal features of one patient, as of the latest recorded visit.
+ *
+ * Slopes are least-squares fits over all visits, in units per year; deltas compare the latest
+ * visit with the one before it. Values that need two visits are NaN until there are two.
+ */
+public class TrendFeatures {
+    private static final int SERUM_CREATININE = 3;
+    private static final int HEMOGLOBIN = 4;
+
+    private final long visits;
+    private final long firstVisit;
+    private final long lastVisit;
+    private final long previousVisit;
+    private final double[] latestValues;
+    private final double latestRisk;
+    private final double riskDelta;
+    private final double[] slopesPerYear;
+    private final double[] deltas;
+    private final double riskSlopePerYear;
+
+    TrendFeatures(long visits, long firstVisit, long lastVisit, long previousVisit, double[] latestValues,
+                  double latestRisk, double riskDelta, double[] slopesPerYear, double[] deltas,
+                  double riskSlopePerYear) {
+        this.visits = visits;
+        this.firstVisit = firstVisit;
+        this.lastVisit = lastVisit;
+        this.previousVisit = previousVisit;
+        this.latestValues = latestValues;
+        this.latestRisk = latestRisk;
+        this.riskDelta = riskDelta;
+        this.slopesPerYear = slopesPerYear;
+        this.deltas = deltas;
+        this.riskSlopePerYear = riskSlopePerYear;
+    }
+
+    /**
+     * Days between the previous and the latest visit, or NaN after a single visit
+     */
+    public double getDaysSincePreviousVisit() {
+        return previousVisit == Long.MIN_VALUE ? Double.NaN : (lastVisit - previousVisit) / 86_400_000.0;
+    }
+
+    public double getCreatinineSlopePerYear() {
+        return slopesPerYear[SERUM_CREATININE];
+    }
+
+    public double getHemoglobinSlopePerYear() {
+        return slopesPerYear[HEMOGLOBIN];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("visits=%d latestRisk=%.1f%% riskDelta=%+.1f points riskSlope=%+.1f points/year%n",
+                visits, latestRisk * 100, riskDelta * 100, riskSlopePerYear * 100));
+        for (int i = 0; i < Preprocessor.FEATURE_COUNT; i++) {
+            out.append(String.format("  %-22s latest %8.2f  delta %+8.2f  slope %+8.2f/year%n",
+                    FeatureSpec.getName(i), latestValues[i], deltas[i], slopesPerYear[i]));
+        }
+        return out.toString();
+    }
+
+    // Getters
+    public long getVisits() { return visits; }
+    public long getFirstVisit() { return firstVisit; }
+    public long getLastVisit() { return lastVisit; }
+    public double getLatestValue(int feature) { return latestValues[feature]; }
+    public double getLatestRisk() { return latestRisk; }
+    public double getRiskDelta() { return riskDelta; }
+    public double getRiskSlopePerYear() { return riskSlopePerYear; }
+    public double getSlopePerYear(int feature) { return slopesPerYear[feature]; }
+    public double getDelta(int feature) { return deltas[feature]; }
+}
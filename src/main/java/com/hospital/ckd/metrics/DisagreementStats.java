@@ -0,0 +1,115 @@
+package com.hospital.ckd.metrics;
+
+import com.hospital.ckd.model.PredictionResult;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-memory comparison of a candidate model's probabilities against the primary model's.
+ *
+ * Tracks the signed and absolute probability differences and a matrix of risk categories
+ * (rows: primary, columns: candidate) as reported by {@link PredictionResult}. Absolute
+ * differences are kept in a {@link LatencyHistogram} in units of 1e-9, so percentiles are
+ * available without storing individual samples. All counters are lock-free.
+ */
+public class DisagreementStats {
+    // |delta| is recorded as a long count of these units
+    private static final double DELTA_UNIT = 1e-9;
+
+    private final LatencyHistogram absDeltas;
+    private final DoubleAdder signedDeltaSum = new DoubleAdder();
+    private final LongAdder comparisons = new LongAdder();
+    private final int categoryCount = PredictionResult.getCategoryCount();
+    private final AtomicLongArray categoryMatrix = new AtomicLongArray(categoryCount * categoryCount);
+
+    public DisagreementStats(String name) {
+        this.absDeltas = new LatencyHistogram(name);
+    }
+
+    /**
+     * Record one pair of probabilities for the same input
+     */
+    public void record(double primaryProbability, double candidateProbability) {
+        double delta = candidateProbability - primaryProbability;
+        signedDeltaSum.add(delta);
+        absDeltas.record(Math.round(Math.abs(delta) / DELTA_UNIT));
+        int row = PredictionResult.categoryIndex(primaryProbability);
+        int column = PredictionResult.categoryIndex(candidateProbability);
+        categoryMatrix.getAndIncrement(row * categoryCount + column);
+        comparisons.increment();
+    }
+
+    public long getComparisons() {
+        return comparisons.sum();
+    }
+
+    /**
+     * Mean of (candidate - primary); a value far from zero means the candidate is biased
+     */
+    public double getMeanDelta() {
+        long count = getComparisons();
+        return count == 0 ? 0 : signedDeltaSum.sum() / count;
+    }
+
+    public double getMeanAbsDelta() {
+        return absDeltas.snapshot().getMeanNanos() * DELTA_UNIT;
+    }
+
+    /**
+     * Absolute difference at the given quantile, within 6.25% of the true value
+     */
+    public double getAbsDeltaPercentile(double quantile) {
+        return absDeltas.percentileNanos(quantile) * DELTA_UNIT;
+    }
+
+    public double getMaxAbsDelta() {
+        return absDeltas.snapshot().getMaxNanos() * DELTA_UNIT;
+    }
+
+    /**
+     * Number of inputs the primary put in one category and the candidate in another
+     */
+    public long getCategoryFlips() {
+        long flips = 0;
+        for (int i = 0; i < categoryCount; i++) {
+            for (int j = 0; j < categoryCount; j++) {
+                if (i != j) flips += categoryMatrix.get(i * categoryCount + j);
+            }
+        }
+        return flips;
+    }
+
+    /**
+     * Copy of the category matrix, indexed [primary][candidate]
+     */
+    public long[][] getCategoryMatrix() {
+        long[][] matrix = new long[categoryCount][categoryCount];
+        for (int i = 0; i < categoryCount; i++) {
+            for (int j = 0; j < categoryCount; j++) {
+                matrix[i][j] = categoryMatrix.get(i * categoryCount + j);
+            }
+        }
+        return matrix;
+    }
+
+    public void reset() {
+        absDeltas.reset();
+        signedDeltaSum.reset();
+        comparisons.reset();
+        for (int i = 0; i < categoryMatrix.length(); i++) {
+            categoryMatrix.set(i, 0);
+        }
+    }
+
+    @Override
+    public String toString() {
+        long count = getComparisons();
+        LatencyHistogram.Snapshot snapshot = absDeltas.snapshot();
+        return String.format("compared=%d meanDelta=%+.2e |delta| mean=%.2e p50=%.2e p99=%.2e max=%.2e categoryFlips=%d (%.3f%%)",
+                count, getMeanDelta(), snapshot.getMeanNanos() * DELTA_UNIT, snapshot.getP50Nanos() * DELTA_UNIT,
+                snapshot.getP99Nanos() * DELTA_UNIT, snapshot.getMaxNanos() * DELTA_UNIT, getCategoryFlips(),
+                count == 0 ? 0 : getCategoryFlips() * 100.0 / count);
+    }
+}
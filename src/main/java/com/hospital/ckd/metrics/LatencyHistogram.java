@@ -0,0 +1,175 @@
+package com.hospital.ckd.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-memory, lock-free latency histogram with log-linear buckets.
+ *
+ * Every power of two is split into 16 equal sub-buckets, so a reported percentile is at most
+ * 1/16 (6.25%) above the true value. Values below 16 ns are exact and values above ~9 minutes
+ * share the last bucket. Bucket counters are striped by thread so concurrent recorders rarely
+ * write the same cache line.
+ */
+public class LatencyHistogram implements LatencyHistogramMBean {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 39;
+    static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+    private static final int MAX_STRIPES = 8;
+
+    private final String name;
+    private final int stripeMask;
+    private final AtomicLongArray buckets;
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    public LatencyHistogram(String name) {
+        this.name = name;
+        int processors = Runtime.getRuntime().availableProcessors();
+        int stripes = processors <= 1 ? 1 : Math.min(MAX_STRIPES, Integer.highestOneBit(processors - 1) << 1);
+        this.stripeMask = stripes - 1;
+        this.buckets = new AtomicLongArray(stripes * BUCKET_COUNT);
+    }
+
+    /**
+     * Record one latency sample in nanoseconds
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        int stripe = (int) Thread.currentThread().getId() & stripeMask;
+        buckets.getAndIncrement(stripe * BUCKET_COUNT + bucketIndex(value));
+        count.increment();
+        totalNanos.add(value);
+        maxNanos.accumulate(value);
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = Math.min(MAX_EXPONENT, 63 - Long.numberOfLeadingZeros(value));
+        if (exponent == MAX_EXPONENT && value >= (2L << MAX_EXPONENT)) {
+            return BUCKET_COUNT - 1;
+        }
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * Largest value that falls into the given bucket
+     */
+    static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long subBucket = index % SUB_BUCKETS;
+        int shift = exponent - SUB_BUCKET_BITS;
+        return ((SUB_BUCKETS + subBucket + 1) << shift) - 1;
+    }
+
+    /**
+     * Merge the stripes into one count per bucket
+     */
+    private long[] mergedBuckets() {
+        long[] merged = new long[BUCKET_COUNT];
+        for (int i = 0; i < buckets.length(); i++) {
+            merged[i % BUCKET_COUNT] += buckets.get(i);
+        }
+        return merged;
+    }
+
+    /**
+     * Latency at the given quantile in nanoseconds, or 0 when nothing has been recorded
+     * @param quantile Value between 0 and 1, e.g. 0.99
+     */
+    public long percentileNanos(double quantile) {
+        return percentile(mergedBuckets(), quantile);
+    }
+
+    private long percentile(long[] merged, double quantile) {
+        long total = 0;
+        for (long bucketCount : merged) {
+            total += bucketCount;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < merged.length; i++) {
+            seen += merged[i];
+            if (seen >= rank) {
+                return Math.min(bucketUpperBound(i), maxNanos.get());
+            }
+        }
+        return maxNanos.get();
+    }
+
+    /**
+     * Consistent-enough view of count, mean and percentiles for reporting
+     */
+    public Snapshot snapshot() {
+        long[] merged = mergedBuckets();
+        long samples = count.sum();
+        double mean = samples == 0 ? 0 : totalNanos.sum() / (double) samples;
+        return new Snapshot(name, samples, mean, percentile(merged, 0.50), percentile(merged, 0.99),
+                percentile(merged, 0.999), maxNanos.get());
+    }
+
+    /**
+     * Clear all samples; samples recorded concurrently with a reset may be partly kept
+     */
+    public void reset() {
+        for (int i = 0; i < buckets.length(); i++) {
+            buckets.set(i, 0);
+        }
+        count.reset();
+        totalNanos.reset();
+        maxNanos.reset();
+    }
+
+    // JMX attributes
+    @Override public long getCount() { return count.sum(); }
+    @Override public double getMeanMicros() { return snapshot().getMeanNanos() / 1e3; }
+    @Override public double getP50Micros() { return percentileNanos(0.50) / 1e3; }
+    @Override public double getP99Micros() { return percentileNanos(0.99) / 1e3; }
+    @Override public double getP999Micros() { return percentileNanos(0.999) / 1e3; }
+    @Override public double getMaxMicros() { return maxNanos.get() / 1e3; }
+
+    public String getName() { return name; }
+
+    /**
+     * Point-in-time summary of a histogram
+     */
+    public static class Snapshot {
+        private final String name;
+        private final long count;
+        private final double meanNanos;
+        private final long p50Nanos;
+        private final long p99Nanos;
+        private final long p999Nanos;
+        private final long maxNanos;
+
+        Snapshot(String name, long count, double meanNanos, long p50Nanos, long p99Nanos, long p999Nanos, long maxNanos) {
+            this.name = name;
+            this.count = count;
+            this.meanNanos = meanNanos;
+            this.p50Nanos = p50Nanos;
+            this.p99Nanos = p99Nanos;
+            this.p999Nanos = p999Nanos;
+            this.maxNanos = maxNanos;
+        }
+
+        public String getName() { return name; }
+        public long getCount() { return count; }
+        public double getMeanNanos() { return meanNanos; }
+        public long getP50Nanos() { return p50Nanos; }
+        public long getP99Nanos() { return p99Nanos; }
+        public long getP999Nanos() { return p999Nanos; }
+        public long getMaxNanos() { return maxNanos; }
+    }
+}
@@ -0,0 +1,13 @@
+package com.hospital.ckd.metrics;
+
+/**
+ * JMX view of one {@link LatencyHistogram}; latencies are reported in microseconds
+ */
+public interface LatencyHistogramMBean {
+    long getCount();
+    double getMeanMicros();
+    double getP50Micros();
+    double getP99Micros();
+    double getP999Micros();
+    double getMaxMicros();
+}
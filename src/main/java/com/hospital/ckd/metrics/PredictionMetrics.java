@@ -0,0 +1,172 @@
+package com.hospital.ckd.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Throughput counters and per-stage latency histograms for the prediction path.
+ *
+ * Recording is lock-free (striped adders and histogram buckets) and allocation-free, so it
+ * can stay enabled in production. Results are available as a text snapshot and over JMX
+ * under the domain {@value #JMX_DOMAIN}.
+ */
+public class PredictionMetrics implements PredictionMetricsMBean {
+    public static final String JMX_DOMAIN = "com.hospital.ckd";
+
+    /**
+     * Timed sections of a prediction
+     */
+    public enum Stage {
+        PREPARE("prepare"),
+        FORWARD("forward"),
+        RESULT("result"),
+        TOTAL("total"),
+        BATCH("batch");
+
+        private final String label;
+
+        Stage(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    private final LatencyHistogram[] histograms;
+    private final LongAdder predictions = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder batchPredictions = new LongAdder();
+    private volatile long startNanos = System.nanoTime();
+    private volatile SampledPredictionLogger logger;
+
+    public PredictionMetrics() {
+        Stage[] stages = Stage.values();
+        histograms = new LatencyHistogram[stages.length];
+        for (Stage stage : stages) {
+            histograms[stage.ordinal()] = new LatencyHistogram(stage.getLabel());
+        }
+    }
+
+    /**
+     * Record the time spent in one stage
+     */
+    public void record(Stage stage, long nanos) {
+        histograms[stage.ordinal()].record(nanos);
+    }
+
+    /**
+     * Count one completed single-patient prediction and its end-to-end latency
+     */
+    public void recordPrediction(long totalNanos) {
+        predictions.increment();
+        histograms[Stage.TOTAL.ordinal()].record(totalNanos);
+    }
+
+    /**
+     * Count one completed batch call and its latency
+     */
+    public void recordBatch(long size, long totalNanos) {
+        batchPredictions.add(size);
+        histograms[Stage.BATCH.ordinal()].record(totalNanos);
+    }
+
+    public void recordFailure() {
+        failures.increment();
+    }
+
+    /**
+     * Report the drop count of this logger alongside the metrics
+     */
+    public void attachLogger(SampledPredictionLogger logger) {
+        this.logger = logger;
+    }
+
+    public LatencyHistogram getHistogram(Stage stage) {
+        return histograms[stage.ordinal()];
+    }
+
+    /**
+     * Register this object and one histogram per stage with the platform MBean server
+     * Registration problems are reported but never stop the service.
+     */
+    public void registerMBeans() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.registerMBean(this, new ObjectName(JMX_DOMAIN + ":type=PredictionMetrics"));
+            for (LatencyHistogram histogram : histograms) {
+                server.registerMBean(histogram,
+                        new ObjectName(JMX_DOMAIN + ":type=PredictionMetrics,stage=" + histogram.getName()));
+            }
+        } catch (InstanceAlreadyExistsException e) {
+            System.err.println("Prediction metrics already registered with JMX: " + e.getMessage());
+        } catch (JMException e) {
+            System.err.println("Failed to register prediction metrics with JMX: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public long getPredictions() { return predictions.sum(); }
+
+    @Override
+    public long getFailures() { return failures.sum(); }
+
+    @Override
+    public long getBatchPredictions() { return batchPredictions.sum(); }
+
+    /**
+     * Average single and batch predictions per second since start or the last reset
+     */
+    @Override
+    public double getPredictionsPerSecond() {
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        return seconds <= 0 ? 0 : (predictions.sum() + batchPredictions.sum()) / seconds;
+    }
+
+    @Override
+    public long getLogEntriesDropped() {
+        SampledPredictionLogger current = logger;
+        return current == null ? 0 : current.getDropped();
+    }
+
+    /**
+     * Human-readable table of counters and stage latencies in microseconds
+     */
+    @Override
+    public String getSnapshot() {
+        StringBuilder out = new StringBuilder(512);
+        out.append(String.format(Locale.ROOT, "predictions=%d batchPredictions=%d failures=%d rate=%.1f/s logDropped=%d%n",
+                getPredictions(), getBatchPredictions(), getFailures(), getPredictionsPerSecond(), getLogEntriesDropped()));
+        out.append(String.format(Locale.ROOT, "%-10s %10s %10s %10s %10s %10s %10s%n",
+                "stage", "count", "mean_us", "p50_us", "p99_us", "p999_us", "max_us"));
+        for (LatencyHistogram histogram : histograms) {
+            LatencyHistogram.Snapshot s = histogram.snapshot();
+            out.append(String.format(Locale.ROOT, "%-10s %10d %10.2f %10.2f %10.2f %10.2f %10.2f%n",
+                    s.getName(), s.getCount(), s.getMeanNanos() / 1e3, s.getP50Nanos() / 1e3,
+                    s.getP99Nanos() / 1e3, s.getP999Nanos() / 1e3, s.getMaxNanos() / 1e3));
+        }
+        return out.toString();
+    }
+
+    @Override
+    public void reset() {
+        for (LatencyHistogram histogram : histograms) {
+            histogram.reset();
+        }
+        predictions.reset();
+        failures.reset();
+        batchPredictions.reset();
+        startNanos = System.nanoTime();
+    }
+
+    @Override
+    public String toString() {
+        return getSnapshot();
+    }
+}
@@ -0,0 +1,15 @@
+package com.hospital.ckd.metrics;
+
+/**
+ * JMX view of the prediction counters; per-stage latencies are registered as separate
+ * {@link LatencyHistogramMBean}s under the same domain
+ */
+public interface PredictionMetricsMBean {
+    long getPredictions();
+    long getFailures();
+    long getBatchPredictions();
+    double getPredictionsPerSecond();
+    long getLogEntriesDropped();
+    String getSnapshot();
+    void reset();
+}
@@ -0,0 +1,97 @@
+package com.hospital.ckd.metrics;
+
+import com.hospital.ckd.model.PredictionResult;
+
+import java.io.PrintStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Asynchronous, sampled log of individual predictions.
+ *
+ * Callers only pay for a random draw and, for sampled predictions, one non-blocking queue
+ * offer; formatting and console output happen on a background daemon thread. When the
+ * queue is full the entry is dropped and counted instead of slowing down scoring.
+ */
+public class SampledPredictionLogger implements AutoCloseable {
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    private final int sampleRate;
+    private final BlockingQueue<Entry> queue;
+    private final PrintStream out;
+    private final LongAdder dropped = new LongAdder();
+    private final Thread writer;
+
+    /**
+     * @param sampleRate Log one in this many predictions on average; 1 logs all, 0 disables logging
+     */
+    public SampledPredictionLogger(int sampleRate) {
+        this(sampleRate, DEFAULT_CAPACITY, System.out);
+    }
+
+    public SampledPredictionLogger(int sampleRate, int capacity, PrintStream out) {
+        if (sampleRate < 0 || capacity <= 0) {
+            throw new IllegalArgumentException("Sample rate must be non-negative and capacity positive");
+        }
+        this.sampleRate = sampleRate;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.out = out;
+        this.writer = new Thread(this::writeLoop, "ckd-prediction-log");
+        this.writer.setDaemon(true);
+        if (sampleRate > 0) {
+            this.writer.start();
+        }
+    }
+
+    /**
+     * Offer one prediction for logging; returns immediately
+     */
+    public void log(double patientAge, PredictionResult result) {
+        if (sampleRate == 0 || (sampleRate > 1 && ThreadLocalRandom.current().nextInt(sampleRate) != 0)) {
+            return;
+        }
+        if (!queue.offer(new Entry(patientAge, result))) {
+            dropped.increment();
+        }
+    }
+
+    private void writeLoop() {
+        StringBuilder text = new StringBuilder(256);
+        try {
+            while (true) {
+                Entry entry = queue.take();
+                text.setLength(0);
+                text.append("=== CKD Risk Prediction ===").append(System.lineSeparator())
+                    .append(String.format("Patient Age: %.1f years%n", entry.patientAge))
+                    .append(String.format("Risk Probability: %.3f%n", entry.result.getRiskProbability()))
+                    .append(String.format("Risk Percentage: %d%%%n", entry.result.getRiskPercentage()))
+                    .append(String.format("Risk Category: %s%n", entry.result.getRiskCategory()))
+                    .append("============================").append(System.lineSeparator());
+                out.print(text);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void close() {
+        writer.interrupt();
+    }
+
+    // Getters
+    public int getSampleRate() { return sampleRate; }
+    public long getDropped() { return dropped.sum(); }
+
+    private static class Entry {
+        final double patientAge;
+        final PredictionResult result;
+
+        Entry(double patientAge, PredictionResult result) {
+            this.patientAge = patientAge;
+            this.result = result;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.hospital.ckd.ml;
+
+/**
+ * Activation functions resolved once when a layer is built.
+ * The FAST_ variants use table-based approximations from {@link ActivationFunction}
+ * and trade a small, bounded error for throughput in bulk screening.
+ */
+public enum Activation {
+    SIGMOID("sigmoid"),
+    RELU("relu"),
+    TANH("tanh"),
+    LINEAR("linear"),
+    FAST_SIGMOID("sigmoid"),
+    FAST_TANH("tanh");
+
+    private final String typeName;
+
+    Activation(String typeName) {
+        this.typeName = typeName;
+    }
+
+    /**
+     * Resolve an activation from its configuration name ("sigmoid", "relu", "tanh")
+     * Unknown names fall back to linear activation.
+     */
+    public static Activation fromName(String name) {
+        switch (name.toLowerCase()) {
+            case "sigmoid":
+                return SIGMOID;
+            case "relu":
+                return RELU;
+            case "tanh":
+                return TANH;
+            default:
+                return LINEAR;
+        }
+    }
+
+    /**
+     * Apply this activation function
+     */
+    public double apply(double value) {
+        switch (this) {
+            case SIGMOID:
+                return ActivationFunction.sigmoid(value);
+            case RELU:
+                return ActivationFunction.relu(value);
+            case TANH:
+                return ActivationFunction.tanh(value);
+            case FAST_SIGMOID:
+                return ActivationFunction.fastSigmoid(value);
+            case FAST_TANH:
+                return ActivationFunction.fastTanh(value);
+            default:
+                return value; // Linear activation
+        }
+    }
+
+    /**
+     * Derivative of this activation expressed through its output y = f(x)
+     * Used by backpropagation, which only keeps the layer outputs.
+     */
+    public double derivativeFromOutput(double output) {
+        switch (this) {
+            case SIGMOID:
+            case FAST_SIGMOID:
+                return output * (1.0 - output);
+            case RELU:
+                return output > 0 ? 1.0 : 0.0;
+            case TANH:
+            case FAST_TANH:
+                return 1.0 - output * output;
+            default:
+                return 1.0; // Linear activation
+        }
+    }
+
+    /**
+     * Approximate variant of this activation, or itself if there is none
+     */
+    public Activation fast() {
+        switch (this) {
+            case SIGMOID:
+                return FAST_SIGMOID;
+            case TANH:
+                return FAST_TANH;
+            default:
+                return this;
+        }
+    }
+
+    /**
+     * Exact variant of this activation
+     */
+    public Activation precise() {
+        switch (this) {
+            case FAST_SIGMOID:
+                return SIGMOID;
+            case FAST_TANH:
+                return TANH;
+            default:
+                return this;
+        }
+    }
+
+    public boolean isFast() {
+        return this == FAST_SIGMOID || this == FAST_TANH;
+    }
+
+    /**
+     * Configuration name of the underlying function
+     */
+    public String getTypeName() {
+        return typeName;
+    }
+}
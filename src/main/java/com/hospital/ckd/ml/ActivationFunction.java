@@ -1,7 +1,19 @@
 package com.hospital.ckd.ml;
 
 public class ActivationFunction {
-    
+
+    // Lookup table for the fast sigmoid: SIGMOID_TABLE_SIZE intervals over [-SIGMOID_TABLE_RANGE, SIGMOID_TABLE_RANGE]
+    private static final double SIGMOID_TABLE_RANGE = 16.0;
+    private static final int SIGMOID_TABLE_SIZE = 4096;
+    private static final double SIGMOID_TABLE_SCALE = SIGMOID_TABLE_SIZE / (2 * SIGMOID_TABLE_RANGE);
+    private static final double[] SIGMOID_TABLE = new double[SIGMOID_TABLE_SIZE + 1];
+
+    static {
+        for (int i = 0; i <= SIGMOID_TABLE_SIZE; i++) {
+            SIGMOID_TABLE[i] = sigmoid(-SIGMOID_TABLE_RANGE + i / SIGMOID_TABLE_SCALE);
+        }
+    }
+
     /**
      * Sigmoid activation function
      * Formula: 1 / (1 + e^(-x))
@@ -28,4 +40,27 @@ public class ActivationFunction {
     public static double tanh(double x) {
         return Math.tanh(x);
     }
+
+    /**
+     * Fast sigmoid using a lookup table with linear interpolation
+     * Maximum absolute error against {@link #sigmoid(double)}: below 7.4e-7
+     * (interpolation error h^2/8 * max|sigmoid''| with h = 1/128, and below 1.2e-7 outside [-16, 16]).
+     */
+    public static double fastSigmoid(double x) {
+        if (x <= -SIGMOID_TABLE_RANGE) return 0.0;
+        if (x >= SIGMOID_TABLE_RANGE) return 1.0;
+        double position = (x + SIGMOID_TABLE_RANGE) * SIGMOID_TABLE_SCALE;
+        int index = (int) position;
+        if (index >= SIGMOID_TABLE_SIZE) return SIGMOID_TABLE[SIGMOID_TABLE_SIZE];
+        double fraction = position - index;
+        return SIGMOID_TABLE[index] + (SIGMOID_TABLE[index + 1] - SIGMOID_TABLE[index]) * fraction;
+    }
+
+    /**
+     * Fast tanh derived from the sigmoid table: tanh(x) = 2 * sigmoid(2x) - 1
+     * Maximum absolute error against {@link #tanh(double)}: below 1.5e-6.
+     */
+    public static double fastTanh(double x) {
+        return 2.0 * fastSigmoid(2.0 * x) - 1.0;
+    }
 }
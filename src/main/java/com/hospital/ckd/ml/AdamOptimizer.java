@@ -0,0 +1,69 @@
+package com.hospital.ckd.ml;
+
+import java.util.List;
+
+/**
+ * Adam optimizer (adaptive moment estimation) with bias-corrected moments.
+ */
+public class AdamOptimizer implements Optimizer {
+    private final double learningRate;
+    private final double beta1;
+    private final double beta2;
+    private final double epsilon;
+    private double[][] firstMoments;
+    private double[][] secondMoments;
+    private int stepCount;
+
+    public AdamOptimizer(double learningRate) {
+        this(learningRate, 0.9, 0.999, 1e-8);
+    }
+
+    public AdamOptimizer(double learningRate, double beta1, double beta2, double epsilon) {
+        if (learningRate <= 0 || beta1 < 0 || beta1 >= 1 || beta2 < 0 || beta2 >= 1 || epsilon <= 0) {
+            throw new IllegalArgumentException("Invalid Adam hyperparameters");
+        }
+        this.learningRate = learningRate;
+        this.beta1 = beta1;
+        this.beta2 = beta2;
+        this.epsilon = epsilon;
+    }
+
+    @Override
+    public void step(NeuralNetwork network, Gradients gradients, int batchSize) {
+        List<Layer> layers = network.getLayers();
+        if (firstMoments == null) {
+            // Weights and biases of each layer get their own moment arrays: [2 * l] and [2 * l + 1]
+            firstMoments = new double[layers.size() * 2][];
+            secondMoments = new double[layers.size() * 2][];
+            for (int l = 0; l < layers.size(); l++) {
+                firstMoments[2 * l] = new double[layers.get(l).getWeights().length];
+                secondMoments[2 * l] = new double[layers.get(l).getWeights().length];
+                firstMoments[2 * l + 1] = new double[layers.get(l).getBiases().length];
+                secondMoments[2 * l + 1] = new double[layers.get(l).getBiases().length];
+            }
+        }
+
+        stepCount++;
+        double correction1 = 1.0 - Math.pow(beta1, stepCount);
+        double correction2 = 1.0 - Math.pow(beta2, stepCount);
+        double stepSize = learningRate * Math.sqrt(correction2) / correction1;
+        double gradientScale = 1.0 / batchSize;
+
+        for (int l = 0; l < layers.size(); l++) {
+            update(layers.get(l).getWeights(), gradients.getWeightGradients(l),
+                   firstMoments[2 * l], secondMoments[2 * l], stepSize, gradientScale);
+            update(layers.get(l).getBiases(), gradients.getBiasGradients(l),
+                   firstMoments[2 * l + 1], secondMoments[2 * l + 1], stepSize, gradientScale);
+        }
+    }
+
+    private void update(double[] parameters, double[] gradients, double[] m, double[] v,
+                        double stepSize, double gradientScale) {
+        for (int i = 0; i < parameters.length; i++) {
+            double g = gradients[i] * gradientScale;
+            m[i] = beta1 * m[i] + (1.0 - beta1) * g;
+            v[i] = beta2 * v[i] + (1.0 - beta2) * g * g;
+            parameters[i] -= stepSize * m[i] / (Math.sqrt(v[i]) + epsilon);
+        }
+    }
+}
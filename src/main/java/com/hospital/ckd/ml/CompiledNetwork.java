@@ -0,0 +1,117 @@
+package com.hospital.ckd.ml;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * A {@link NeuralNetwork} compiled to bytecode specialized for its shape and weights.
+ *
+ * Built by {@link #compile(NeuralNetwork)}: {@link KernelCompiler} emits a class whose predict
+ * method is the fully unrolled forward pass with the weights as constants, and the class is
+ * loaded as a hidden class, so it is unloaded together with this predictor. Results are
+ * bit-identical to {@link NeuralNetwork#predictInto(double[], Workspace)}.
+ *
+ * The weights and activations are captured at compile time; later changes to the source
+ * network (training, setFastActivations) are not seen until it is compiled again.
+ */
+public class CompiledNetwork implements Predictor {
+    // Largest generated method the JIT will still compile (HotSpot's HugeMethodLimit)
+    public static final int MAX_CODE_BYTES = 8000;
+
+    /**
+     * Implemented by the generated class
+     */
+    interface Kernel {
+        double predict(double[] inputs);
+    }
+
+    private final NeuralNetwork network;
+    private final Kernel kernel;
+    private final int inputSize;
+    private final int codeSize;
+
+    private CompiledNetwork(NeuralNetwork network, Kernel kernel, int codeSize) {
+        this.network = network;
+        this.kernel = kernel;
+        this.inputSize = network.getInputSize();
+        this.codeSize = codeSize;
+    }
+
+    /**
+     * Compile a network, or return the network itself when the unrolled code would be too
+     * large for the JIT; the interpreter is then the faster choice anyway
+     */
+    public static Predictor compile(NeuralNetwork network) {
+        int codeSize = KernelCompiler.codeSize(network.getLayers());
+        if (codeSize > MAX_CODE_BYTES) {
+            return network;
+        }
+        try {
+            byte[] bytes = KernelCompiler.compile(network.getLayers());
+            MethodHandles.Lookup kernelClass = MethodHandles.lookup().defineHiddenClass(bytes, true);
+            Kernel kernel = (Kernel) kernelClass.findConstructor(kernelClass.lookupClass(),
+                    MethodType.methodType(void.class)).invoke();
+            return new CompiledNetwork(network, kernel, codeSize);
+        } catch (Throwable e) {
+            throw new IllegalStateException("Failed to compile network: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public double predictInto(double[] inputs, Workspace workspace) {
+        if (inputs.length != inputSize) {
+            throw new IllegalArgumentException("Input size must be " + inputSize + " but got " + inputs.length);
+        }
+        return kernel.predict(inputs);
+    }
+
+    /**
+     * Predict one row; the compiled kernel needs no scratch buffers
+     */
+    public double predict(double[] inputs) {
+        return predictInto(inputs, null);
+    }
+
+    /**
+     * Workspace of the source network; only its input buffer is used
+     */
+    @Override
+    public Workspace newWorkspace() {
+        return network.newWorkspace();
+    }
+
+    /**
+     * Predict a batch; large batches are split across cores with fork-join
+     */
+    @Override
+    public double[] predictBatch(double[][] inputs) {
+        for (int i = 0; i < inputs.length; i++) {
+            if (inputs[i].length != inputSize) {
+                throw new IllegalArgumentException("Input size must be " + inputSize + " but got " + inputs[i].length + " at row " + i);
+            }
+        }
+        double[] results = new double[inputs.length];
+        ParallelRows.forEach(0, inputs.length, ParallelRows.BATCH_THRESHOLD,
+                (from, to) -> predictRange(inputs, from, to, results));
+        return results;
+    }
+
+    private void predictRange(double[][] inputs, int from, int to, double[] results) {
+        for (int i = from; i < to; i++) {
+            results[i] = kernel.predict(inputs[i]);
+        }
+    }
+
+    /**
+     * Get network summary information
+     */
+    public String getNetworkSummary() {
+        return "Compiled (" + codeSize + " bytes of bytecode) " + network.getNetworkSummary();
+    }
+
+    // Getters
+    @Override
+    public int getInputSize() { return inputSize; }
+    public NeuralNetwork getNetwork() { return network; }
+    public int getCodeSize() { return codeSize; }
+}
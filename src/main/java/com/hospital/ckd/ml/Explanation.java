@@ -0,0 +1,83 @@
+package com.hospital.ckd.ml;
+
+import java.util.Arrays;
+
+/**
+ * Per-feature attribution of one prediction, produced by {@link FeatureAttribution}.
+ *
+ * All arrays are indexed like the network input. Positive values mean the feature pushed
+ * the risk up compared to the baseline input.
+ */
+public class Explanation {
+    private final double probability;
+    private final double baselineProbability;
+    private final double[] shapley;
+    private final double[] occlusion;
+    private final double[] gradient;
+    private final double[] gradientTimesInput;
+
+    Explanation(double probability, double baselineProbability, double[] shapley, double[] occlusion,
+                double[] gradient, double[] gradientTimesInput) {
+        this.probability = probability;
+        this.baselineProbability = baselineProbability;
+        this.shapley = shapley;
+        this.occlusion = occlusion;
+        this.gradient = gradient;
+        this.gradientTimesInput = gradientTimesInput;
+    }
+
+    /**
+     * Feature indexes ordered by the size of their Shapley value, largest first
+     */
+    public int[] ranking() {
+        Integer[] order = new Integer[shapley.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(Math.abs(shapley[b]), Math.abs(shapley[a])));
+        int[] ranking = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            ranking[i] = order[i];
+        }
+        return ranking;
+    }
+
+    /**
+     * Readable summary of the strongest features
+     * @param featureNames Display name per input
+     * @param top Number of features to list
+     */
+    public String format(String[] featureNames, int top) {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("Risk %.1f%% vs %.1f%% for the baseline patient%n", probability * 100, baselineProbability * 100));
+        int[] ranking = ranking();
+        for (int i = 0; i < Math.min(top, ranking.length); i++) {
+            int feature = ranking[i];
+            out.append(String.format("  %-22s %+6.1f points (occlusion %+6.1f, gradient x input %+6.1f)%n",
+                    featureNames[feature], shapley[feature] * 100, occlusion[feature] * 100,
+                    gradientTimesInput[feature] * 100));
+        }
+        return out.toString();
+    }
+
+    // Getters
+    public double getProbability() { return probability; }
+    public double getBaselineProbability() { return baselineProbability; }
+    /**
+     * Shapley values; they sum to probability - baselineProbability
+     */
+    public double[] getShapley() { return shapley.clone(); }
+    /**
+     * Prediction minus the prediction with only this feature reset to the baseline
+     */
+    public double[] getOcclusion() { return occlusion.clone(); }
+    /**
+     * Derivative of the prediction with respect to each normalized input
+     */
+    public double[] getGradient() { return gradient.clone(); }
+    /**
+     * Gradient times (input - baseline), a first-order estimate of each feature's contribution
+     */
+    public double[] getGradientTimesInput() { return gradientTimesInput.clone(); }
+    public double getShapley(int feature) { return shapley[feature]; }
+}
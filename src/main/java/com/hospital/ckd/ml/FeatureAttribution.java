@@ -0,0 +1,334 @@
+package com.hospital.ckd.ml;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Explains a network's prediction in terms of its inputs, relative to a baseline input.
+ *
+ * Three attributions are computed per input:
+ * <ul>
+ *   <li>Shapley values: each feature's average contribution over all orders in which the
+ *       features could be switched from the baseline to the patient's value. They add up
+ *       to prediction - baseline prediction.</li>
+ *   <li>Occlusion: how much the prediction drops when only that feature is reset to the baseline.</li>
+ *   <li>Gradient &times; input: the local gradient times (input - baseline).</li>
+ * </ul>
+ * Changing one input only changes the first layer's pre-activation sums by that feature's
+ * weight column times the change, so every perturbed prediction is a rank-1 update of the
+ * sums followed by the (small) remaining layers, never a full forward pass. Shapley values
+ * are exact for up to {@value #EXACT_SHAPLEY_MAX_FEATURES} features: all coalitions are
+ * visited in Gray-code order, so each one differs from the previous by a single feature.
+ * Larger inputs fall back to sampled permutations.
+ *
+ * Instances are immutable and thread-safe; per-thread buffers live in {@link Scratch}.
+ */
+public class FeatureAttribution {
+    public static final int EXACT_SHAPLEY_MAX_FEATURES = 14;
+    private static final int DEFAULT_PERMUTATIONS = 256;
+    // Batches larger than this are split across cores with fork-join
+    private static final int PARALLEL_BATCH_THRESHOLD = 64;
+
+    private final Layer firstLayer;
+    private final List<Layer> layers;
+    private final int inputSize;
+    private final int hiddenSize;
+    // First-layer weights transposed: the column of feature j is columns[j * hiddenSize ..)
+    private final double[] columns;
+    private final double[] baseline;
+    private final double[] baselineSums;
+    private final double baselineProbability;
+    // Shapley weight of a coalition with s other features: s! (n - s - 1)! / n!
+    private final double[] coalitionWeights;
+    private final int permutations;
+
+    /**
+     * @param network Double-precision network to explain (only read)
+     * @param baseline Normalized reference input the explanation is relative to
+     */
+    public FeatureAttribution(NeuralNetwork network, double[] baseline) {
+        this(network, baseline, DEFAULT_PERMUTATIONS);
+    }
+
+    /**
+     * @param permutations Sampled permutations per input when exact Shapley values are too expensive
+     */
+    public FeatureAttribution(NeuralNetwork network, double[] baseline, int permutations) {
+        if (baseline.length != network.getInputSize()) {
+            throw new IllegalArgumentException("Baseline must have " + network.getInputSize() + " values");
+        }
+        if (network.getOutputSize() != 1) {
+            throw new IllegalArgumentException("Only single-output networks can be explained");
+        }
+        if (permutations <= 0) {
+            throw new IllegalArgumentException("Permutation count must be positive");
+        }
+        this.layers = network.getLayers();
+        this.firstLayer = layers.get(0);
+        this.inputSize = network.getInputSize();
+        this.hiddenSize = firstLayer.getOutputSize();
+        this.baseline = baseline.clone();
+        this.permutations = permutations;
+
+        double[] weights = firstLayer.getWeights();
+        this.columns = new double[inputSize * hiddenSize];
+        for (int k = 0; k < hiddenSize; k++) {
+            for (int j = 0; j < inputSize; j++) {
+                columns[j * hiddenSize + k] = weights[k * inputSize + j];
+            }
+        }
+        this.baselineSums = preActivations(this.baseline, new double[hiddenSize]);
+
+        this.coalitionWeights = new double[inputSize];
+        double logNFactorial = logFactorial(inputSize);
+        for (int s = 0; s < inputSize; s++) {
+            coalitionWeights[s] = Math.exp(logFactorial(s) + logFactorial(inputSize - s - 1) - logNFactorial);
+        }
+
+        this.baselineProbability = finish(baselineSums, newScratch());
+    }
+
+    private static double logFactorial(int n) {
+        double sum = 0;
+        for (int i = 2; i <= n; i++) {
+            sum += Math.log(i);
+        }
+        return sum;
+    }
+
+    /**
+     * Per-thread buffers for {@link #explain(double[], Scratch)}
+     */
+    public Scratch newScratch() {
+        return new Scratch();
+    }
+
+    /**
+     * Explain one normalized input
+     */
+    public Explanation explain(double[] input) {
+        return explain(input, newScratch());
+    }
+
+    /**
+     * Explain one normalized input using the given buffers
+     * @param scratch Buffers created by {@link #newScratch()}, not shared between threads
+     */
+    public Explanation explain(double[] input, Scratch scratch) {
+        if (input.length != inputSize) {
+            throw new IllegalArgumentException("Input size must be " + inputSize + " but got " + input.length);
+        }
+        double[] sums = preActivations(input, scratch.sums);
+        double probability = finish(sums, scratch);
+
+        double[] gradient = gradient(scratch);
+        double[] gradientTimesInput = new double[inputSize];
+        for (int j = 0; j < inputSize; j++) {
+            gradientTimesInput[j] = gradient[j] * (input[j] - baseline[j]);
+        }
+
+        double[] occlusion = new double[inputSize];
+        double[] perturbed = scratch.perturbed;
+        for (int j = 0; j < inputSize; j++) {
+            System.arraycopy(sums, 0, perturbed, 0, hiddenSize);
+            addColumn(perturbed, j, baseline[j] - input[j]);
+            occlusion[j] = probability - finish(perturbed, scratch);
+        }
+
+        double[] shapley = inputSize <= EXACT_SHAPLEY_MAX_FEATURES
+                ? exactShapley(input, scratch)
+                : sampledShapley(input, scratch);
+
+        return new Explanation(probability, baselineProbability, shapley, occlusion, gradient, gradientTimesInput);
+    }
+
+    /**
+     * Explain many inputs, spread over the common fork-join pool
+     */
+    public Explanation[] explainBatch(double[][] inputs) {
+        Explanation[] results = new Explanation[inputs.length];
+        ParallelRows.forEach(0, inputs.length, PARALLEL_BATCH_THRESHOLD, (from, to) -> {
+            Scratch scratch = newScratch();
+            for (int i = from; i < to; i++) {
+                results[i] = explain(inputs[i], scratch);
+            }
+        });
+        return results;
+    }
+
+    /**
+     * Shapley values from the predictions of all 2^n coalitions
+     * Coalition bit j set means feature j takes the input's value, otherwise the baseline's.
+     */
+    private double[] exactShapley(double[] input, Scratch scratch) {
+        int coalitions = 1 << inputSize;
+        double[] values = scratch.coalitionValues();
+        double[] sums = scratch.perturbed;
+        System.arraycopy(baselineSums, 0, sums, 0, hiddenSize);
+        values[0] = baselineProbability;
+
+        // Gray code: step i flips exactly one feature, the lowest set bit of i
+        int mask = 0;
+        for (int i = 1; i < coalitions; i++) {
+            int feature = Integer.numberOfTrailingZeros(i);
+            int bit = 1 << feature;
+            double change = input[feature] - baseline[feature];
+            addColumn(sums, feature, (mask & bit) == 0 ? change : -change);
+            mask ^= bit;
+            values[mask] = finish(sums, scratch);
+        }
+
+        double[] shapley = new double[inputSize];
+        for (int coalition = 0; coalition < coalitions - 1; coalition++) {
+            double weight = coalitionWeights[Integer.bitCount(coalition)];
+            for (int j = 0; j < inputSize; j++) {
+                int bit = 1 << j;
+                if ((coalition & bit) == 0) {
+                    shapley[j] += weight * (values[coalition | bit] - values[coalition]);
+                }
+            }
+        }
+        return shapley;
+    }
+
+    /**
+     * Shapley values estimated from random feature orders (deterministic per input)
+     */
+    private double[] sampledShapley(double[] input, Scratch scratch) {
+        double[] shapley = new double[inputSize];
+        double[] sums = scratch.perturbed;
+        int[] order = scratch.order;
+        Random random = new Random(Arrays.hashCode(input));
+        for (int p = 0; p < permutations; p++) {
+            for (int j = 0; j < inputSize; j++) {
+                order[j] = j;
+            }
+            for (int j = inputSize - 1; j > 0; j--) {
+                int swap = random.nextInt(j + 1);
+                int tmp = order[j];
+                order[j] = order[swap];
+                order[swap] = tmp;
+            }
+            System.arraycopy(baselineSums, 0, sums, 0, hiddenSize);
+            double previous = baselineProbability;
+            for (int j = 0; j < inputSize; j++) {
+                int feature = order[j];
+                addColumn(sums, feature, input[feature] - baseline[feature]);
+                double value = finish(sums, scratch);
+                shapley[feature] += value - previous;
+                previous = value;
+            }
+        }
+        for (int j = 0; j < inputSize; j++) {
+            shapley[j] /= permutations;
+        }
+        return shapley;
+    }
+
+    /**
+     * Rank-1 update of the first layer's sums: sums += delta * column(feature)
+     */
+    private void addColumn(double[] sums, int feature, double delta) {
+        int base = feature * hiddenSize;
+        for (int k = 0; k < hiddenSize; k++) {
+            sums[k] += delta * columns[base + k];
+        }
+    }
+
+    private double[] preActivations(double[] input, double[] sums) {
+        double[] weights = firstLayer.getWeights();
+        double[] biases = firstLayer.getBiases();
+        for (int k = 0; k < hiddenSize; k++) {
+            double sum = 0;
+            int row = k * inputSize;
+            for (int j = 0; j < inputSize; j++) {
+                sum += weights[row + j] * input[j];
+            }
+            sums[k] = sum + biases[k];
+        }
+        return sums;
+    }
+
+    /**
+     * Activate the first layer's sums and run the remaining layers
+     * Layer outputs are left in the scratch buffers for {@link #gradient(Scratch)}.
+     */
+    private double finish(double[] sums, Scratch scratch) {
+        Activation activation = firstLayer.getActivation();
+        double[] hidden = scratch.outputs[0];
+        for (int k = 0; k < hiddenSize; k++) {
+            hidden[k] = activation.apply(sums[k]);
+        }
+        double[] current = hidden;
+        for (int i = 1; i < layers.size(); i++) {
+            layers.get(i).forwardInto(current, scratch.outputs[i]);
+            current = scratch.outputs[i];
+        }
+        return current[0];
+    }
+
+    /**
+     * Gradient of the output with respect to the input, by backpropagating through the
+     * layer outputs left by the last {@link #finish(double[], Scratch)} call
+     */
+    private double[] gradient(Scratch scratch) {
+        int last = layers.size() - 1;
+        double[] delta = new double[]{layers.get(last).getActivation().derivativeFromOutput(scratch.outputs[last][0])};
+        for (int i = last; i >= 1; i--) {
+            Layer layer = layers.get(i);
+            double[] weights = layer.getWeights();
+            double[] below = scratch.outputs[i - 1];
+            Activation belowActivation = layers.get(i - 1).getActivation();
+            double[] next = new double[layer.getInputSize()];
+            for (int k = 0; k < layer.getOutputSize(); k++) {
+                int row = k * layer.getInputSize();
+                for (int j = 0; j < layer.getInputSize(); j++) {
+                    next[j] += weights[row + j] * delta[k];
+                }
+            }
+            for (int j = 0; j < next.length; j++) {
+                next[j] *= belowActivation.derivativeFromOutput(below[j]);
+            }
+            delta = next;
+        }
+        double[] gradient = new double[inputSize];
+        for (int j = 0; j < inputSize; j++) {
+            int base = j * hiddenSize;
+            double sum = 0;
+            for (int k = 0; k < hiddenSize; k++) {
+                sum += columns[base + k] * delta[k];
+            }
+            gradient[j] = sum;
+        }
+        return gradient;
+    }
+
+    // Getters
+    public double getBaselineProbability() { return baselineProbability; }
+    public double[] getBaseline() { return baseline.clone(); }
+
+    /**
+     * Reusable per-thread buffers
+     */
+    public class Scratch {
+        private final double[] sums = new double[hiddenSize];
+        private final double[] perturbed = new double[hiddenSize];
+        private final double[][] outputs = new double[layers.size()][];
+        private final int[] order = new int[inputSize];
+        private double[] coalitionValues;
+
+        Scratch() {
+            for (int i = 0; i < outputs.length; i++) {
+                outputs[i] = new double[layers.get(i).getOutputSize()];
+            }
+        }
+
+        double[] coalitionValues() {
+            if (coalitionValues == null) {
+                coalitionValues = new double[1 << inputSize];
+            }
+            return coalitionValues;
+        }
+    }
+}
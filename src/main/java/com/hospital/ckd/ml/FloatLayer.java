@@ -0,0 +1,116 @@
+package com.hospital.ckd.ml;
+
+import java.util.Arrays;
+
+/**
+ * Float32 version of a {@link Layer}.
+ *
+ * Weights, biases, inputs and outputs are floats, so a layer takes half the memory and a
+ * SIMD register holds twice as many lanes. Weighted sums are accumulated in float. Activations
+ * are applied to a whole output vector (or column) at once with float SIMD exp/tanh when the
+ * Vector API is available; otherwise they are evaluated in double and rounded to float.
+ */
+public class FloatLayer {
+    private final int inputSize;
+    private final int outputSize;
+    // Row-major weights, same layout as Layer
+    private final float[] weights;
+    private final float[] biases;
+    private final Activation activation;
+    private final InferenceEngine engine;
+
+    /**
+     * Round a trained layer's parameters to float; its current activation is kept
+     */
+    FloatLayer(Layer layer) {
+        this.inputSize = layer.getInputSize();
+        this.outputSize = layer.getOutputSize();
+        this.activation = layer.getActivation();
+        this.engine = InferenceEngine.forFloatLayer(inputSize);
+        double[] sourceWeights = layer.getWeights();
+        double[] sourceBiases = layer.getBiases();
+        this.weights = new float[sourceWeights.length];
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = (float) sourceWeights[i];
+        }
+        this.biases = new float[outputSize];
+        for (int i = 0; i < outputSize; i++) {
+            biases[i] = (float) sourceBiases[i];
+        }
+    }
+
+    /**
+     * Length of an output buffer for size values, padded to whole SIMD vectors so activations
+     * never need a masked tail; the padding is scratch
+     */
+    static int paddedLength(int size) {
+        if (!InferenceEngine.isVectorAvailable()) {
+            return size;
+        }
+        int lanes = VectorKernels.floatLaneCount();
+        return (size + lanes - 1) / lanes * lanes;
+    }
+
+    /**
+     * Forward propagation of one row into a caller-provided output buffer
+     * Entries of outputs past outputSize may be overwritten; see {@link #paddedLength(int)}.
+     */
+    public void forwardInto(float[] inputs, float[] outputs) {
+        for (int i = 0; i < outputSize; i++) {
+            outputs[i] = weightedSum(i, inputs);
+        }
+        activate(outputs, outputSize);
+    }
+
+    private void activate(float[] values, int length) {
+        if (InferenceEngine.isVectorAvailable()) {
+            VectorKernels.activate(activation, values, length);
+            return;
+        }
+        for (int i = 0; i < length; i++) {
+            values[i] = (float) activation.apply(values[i]);
+        }
+    }
+
+    private float weightedSum(int neuron, float[] inputs) {
+        int rowOffset = neuron * inputSize;
+        if (engine == InferenceEngine.VECTOR) {
+            return VectorKernels.weightedSum(weights, rowOffset, inputs, inputSize, biases[neuron]);
+        }
+
+        float sum = biases[neuron];
+        for (int j = 0; j < inputSize; j++) {
+            sum += weights[rowOffset + j] * inputs[j];
+        }
+        return sum;
+    }
+
+    /**
+     * Forward propagation of a column-major block: {@code inputs[j][from + r]} is input j of row r
+     * Each neuron sweeps whole columns with one weight at a time, a loop the JIT vectorizes
+     * across rows. The per-row summation order is the same as the scalar row path.
+     *
+     * @param outputs Destination columns, {@code outputs[i][r]} for r in [0, rows)
+     */
+    public void forwardColumns(float[][] inputs, int from, int rows, float[][] outputs) {
+        for (int i = 0; i < outputSize; i++) {
+            float[] sums = outputs[i];
+            Arrays.fill(sums, 0, rows, biases[i]);
+            int rowOffset = i * inputSize;
+            for (int j = 0; j < inputSize; j++) {
+                float weight = weights[rowOffset + j];
+                float[] column = inputs[j];
+                for (int r = 0; r < rows; r++) {
+                    sums[r] += weight * column[from + r];
+                }
+            }
+            activate(sums, rows);
+        }
+    }
+
+    // Getters
+    public int getInputSize() { return inputSize; }
+    public int getOutputSize() { return outputSize; }
+    public Activation getActivation() { return activation; }
+    public InferenceEngine getEngine() { return engine; }
+}
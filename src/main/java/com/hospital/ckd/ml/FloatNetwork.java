@@ -0,0 +1,169 @@
+package com.hospital.ckd.ml;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Float32 copy of a {@link NeuralNetwork}, for bandwidth-bound batch scoring.
+ *
+ * Built by {@link #convert(NeuralNetwork)}, which rounds every weight and bias to float;
+ * the source network is not modified. Single rows go through {@link FloatLayer#forwardInto}
+ * with float workspace buffers. Batches are transposed into float columns of
+ * {@link #COLUMN_BLOCK_ROWS} rows and scored column-wise, so one block of inputs and
+ * hidden activations stays in the L1 cache.
+ */
+public class FloatNetwork implements Predictor {
+    // Rows per column block: 10 input and 8 hidden float columns of 256 rows fit in 32 KB
+    public static final int COLUMN_BLOCK_ROWS = 256;
+
+    private final List<FloatLayer> layers;
+    private final int inputSize;
+
+    private FloatNetwork(List<FloatLayer> layers) {
+        this.layers = layers;
+        this.inputSize = layers.get(0).getInputSize();
+    }
+
+    /**
+     * Round a trained network to float32
+     */
+    public static FloatNetwork convert(NeuralNetwork network) {
+        List<FloatLayer> converted = new ArrayList<>();
+        for (Layer layer : network.getLayers()) {
+            converted.add(new FloatLayer(layer));
+        }
+        return new FloatNetwork(Collections.unmodifiableList(converted));
+    }
+
+    @Override
+    public double predictInto(double[] inputs, Workspace workspace) {
+        if (inputs.length != inputSize) {
+            throw new IllegalArgumentException("Input size must be " + inputSize + " but got " + inputs.length);
+        }
+        float[] floatInputs = workspace.getFloatInput();
+        for (int j = 0; j < inputSize; j++) {
+            floatInputs[j] = (float) inputs[j];
+        }
+        return predictInto(floatInputs, workspace);
+    }
+
+    /**
+     * Predict one row of float inputs without allocating
+     */
+    public float predictInto(float[] inputs, Workspace workspace) {
+        if (inputs.length < inputSize) {
+            throw new IllegalArgumentException("Input size must be " + inputSize + " but got " + inputs.length);
+        }
+        float[] currentOutput = inputs;
+        for (int i = 0; i < layers.size(); i++) {
+            float[] layerOutput = workspace.getFloatLayerOutput(i);
+            layers.get(i).forwardInto(currentOutput, layerOutput);
+            currentOutput = layerOutput;
+        }
+        return currentOutput[0];
+    }
+
+    @Override
+    public Workspace newWorkspace() {
+        int[] layerSizes = new int[layers.size()];
+        for (int i = 0; i < layers.size(); i++) {
+            layerSizes[i] = layers.get(i).getOutputSize();
+        }
+        return new Workspace(inputSize, layerSizes, null, true);
+    }
+
+    /**
+     * Column scratch for {@link #predictColumns}: one block of every layer's outputs
+     * Not shared between threads.
+     */
+    public float[][][] newColumnBuffers() {
+        float[][][] buffers = new float[layers.size()][][];
+        for (int i = 0; i < layers.size(); i++) {
+            buffers[i] = new float[layers.get(i).getOutputSize()][COLUMN_BLOCK_ROWS];
+        }
+        return buffers;
+    }
+
+    /**
+     * Score rows [from, from + rows) of column-major float inputs
+     * @param columns {@code columns[j][row]} is normalized input j of a row
+     * @param buffers Scratch from {@link #newColumnBuffers()}
+     * @param results Destination, one probability per row starting at resultOffset
+     */
+    public void predictColumns(float[][] columns, int from, int rows, float[][][] buffers,
+                               double[] results, int resultOffset) {
+        if (columns.length != inputSize) {
+            throw new IllegalArgumentException("Expected " + inputSize + " input columns but got " + columns.length);
+        }
+        for (int start = 0; start < rows; start += COLUMN_BLOCK_ROWS) {
+            int blockRows = Math.min(COLUMN_BLOCK_ROWS, rows - start);
+            float[][] current = columns;
+            int offset = from + start;
+            for (int i = 0; i < layers.size(); i++) {
+                layers.get(i).forwardColumns(current, offset, blockRows, buffers[i]);
+                current = buffers[i];
+                offset = 0;
+            }
+            float[] probabilities = current[0];
+            for (int r = 0; r < blockRows; r++) {
+                results[resultOffset + start + r] = probabilities[r];
+            }
+        }
+    }
+
+    /**
+     * Predict a batch column-wise; large batches are split across cores with fork-join
+     */
+    @Override
+    public double[] predictBatch(double[][] inputs) {
+        for (int i = 0; i < inputs.length; i++) {
+            if (inputs[i].length != inputSize) {
+                throw new IllegalArgumentException("Input size must be " + inputSize + " but got " + inputs[i].length + " at row " + i);
+            }
+        }
+        double[] results = new double[inputs.length];
+        ParallelRows.forEach(0, inputs.length, ParallelRows.BATCH_THRESHOLD,
+                (from, to) -> predictRange(inputs, from, to, results));
+        return results;
+    }
+
+    /**
+     * Transpose rows [from, to) block by block into float columns and score them
+     */
+    private void predictRange(double[][] inputs, int from, int to, double[] results) {
+        float[][] columns = new float[inputSize][COLUMN_BLOCK_ROWS];
+        float[][][] buffers = newColumnBuffers();
+        for (int start = from; start < to; start += COLUMN_BLOCK_ROWS) {
+            int rows = Math.min(COLUMN_BLOCK_ROWS, to - start);
+            for (int r = 0; r < rows; r++) {
+                double[] row = inputs[start + r];
+                for (int j = 0; j < inputSize; j++) {
+                    columns[j][r] = (float) row[j];
+                }
+            }
+            predictColumns(columns, 0, rows, buffers, results, start);
+        }
+    }
+
+    /**
+     * Get network summary information
+     */
+    public String getNetworkSummary() {
+        StringBuilder summary = new StringBuilder();
+        summary.append("Float32 Network:\n");
+        for (int i = 0; i < layers.size(); i++) {
+            FloatLayer layer = layers.get(i);
+            summary.append("Layer ").append(i + 1).append(": ")
+                   .append(layer.getInputSize()).append(" -> ").append(layer.getOutputSize())
+                   .append(" (").append(layer.getActivation().getTypeName()).append(", ")
+                   .append(layer.getEngine().name().toLowerCase()).append(")\n");
+        }
+        return summary.toString().trim();
+    }
+
+    // Getters
+    @Override
+    public int getInputSize() { return inputSize; }
+    public List<FloatLayer> getLayers() { return layers; }
+}
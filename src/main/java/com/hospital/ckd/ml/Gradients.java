@@ -0,0 +1,55 @@
+package com.hospital.ckd.ml;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Gradient buffers with the same shape as a network's weights and biases.
+ * Buffers are allocated once and cleared between training steps.
+ */
+public class Gradients {
+    private final double[][] weightGradients;
+    private final double[][] biasGradients;
+
+    public Gradients(NeuralNetwork network) {
+        List<Layer> layers = network.getLayers();
+        this.weightGradients = new double[layers.size()][];
+        this.biasGradients = new double[layers.size()][];
+        for (int i = 0; i < layers.size(); i++) {
+            weightGradients[i] = new double[layers.get(i).getWeights().length];
+            biasGradients[i] = new double[layers.get(i).getBiases().length];
+        }
+    }
+
+    /**
+     * Reset every gradient to zero
+     */
+    public void clear() {
+        for (int i = 0; i < weightGradients.length; i++) {
+            Arrays.fill(weightGradients[i], 0.0);
+            Arrays.fill(biasGradients[i], 0.0);
+        }
+    }
+
+    /**
+     * Add another set of gradients into this one (gradient reduction)
+     */
+    public void add(Gradients other) {
+        for (int l = 0; l < weightGradients.length; l++) {
+            double[] target = weightGradients[l];
+            double[] source = other.weightGradients[l];
+            for (int i = 0; i < target.length; i++) {
+                target[i] += source[i];
+            }
+            double[] targetBias = biasGradients[l];
+            double[] sourceBias = other.biasGradients[l];
+            for (int i = 0; i < targetBias.length; i++) {
+                targetBias[i] += sourceBias[i];
+            }
+        }
+    }
+
+    double[] getWeightGradients(int layerIndex) { return weightGradients[layerIndex]; }
+    double[] getBiasGradients(int layerIndex) { return biasGradients[layerIndex]; }
+    int getLayerCount() { return weightGradients.length; }
+}
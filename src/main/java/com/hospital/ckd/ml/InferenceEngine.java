@@ -0,0 +1,56 @@
+package com.hospital.ckd.ml;
+
+/**
+ * Arithmetic engine used by {@link Layer} for its weighted sums.
+ *
+ * The engine is chosen at runtime with the {@code ckd.engine} system property:
+ * "scalar", "vector" or "auto" (default). The vector engine needs the
+ * jdk.incubator.vector module (run with {@code --add-modules jdk.incubator.vector});
+ * when it is missing every layer falls back to the scalar engine.
+ */
+public enum InferenceEngine {
+    SCALAR,
+    VECTOR;
+
+    private static final String ENGINE_PROPERTY = "ckd.engine";
+    private static final boolean VECTOR_AVAILABLE =
+            ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+
+    /**
+     * Check whether the SIMD engine can be used in this JVM
+     */
+    public static boolean isVectorAvailable() {
+        return VECTOR_AVAILABLE;
+    }
+
+    /**
+     * Select the engine for a layer with the given number of inputs
+     * In auto mode the vector engine is only used when a row spans at least two SIMD registers.
+     */
+    static InferenceEngine forLayer(int inputSize) {
+        String requested = System.getProperty(ENGINE_PROPERTY, "auto").toLowerCase();
+        switch (requested) {
+            case "scalar":
+                return SCALAR;
+            case "vector":
+                if (!VECTOR_AVAILABLE) {
+                    System.err.println("Vector engine requested but jdk.incubator.vector is not available, using scalar engine");
+                    return SCALAR;
+                }
+                return VECTOR;
+            default:
+                return VECTOR_AVAILABLE && inputSize >= 2 * VectorKernels.laneCount() ? VECTOR : SCALAR;
+        }
+    }
+
+    /**
+     * Select the engine for a float32 layer; a float register holds twice as many lanes
+     */
+    static InferenceEngine forFloatLayer(int inputSize) {
+        InferenceEngine engine = forLayer(inputSize);
+        if (engine == VECTOR && "auto".equalsIgnoreCase(System.getProperty(ENGINE_PROPERTY, "auto"))) {
+            return inputSize >= 2 * VectorKernels.floatLaneCount() ? VECTOR : SCALAR;
+        }
+        return engine;
+    }
+}
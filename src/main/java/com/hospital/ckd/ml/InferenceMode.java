@@ -0,0 +1,48 @@
+package com.hospital.ckd.ml;
+
+/**
+ * Arithmetic used to evaluate a trained network.
+ */
+public enum InferenceMode {
+    // Reference path: double weights and activations
+    DOUBLE,
+    // Post-training int8 quantization with an integer dot product per neuron
+    INT8,
+    // Double arithmetic, with the forward pass compiled to bytecode specialized for the model
+    COMPILED,
+    // Float32 weights, inputs and activations, with column-wise batch scoring
+    FLOAT32;
+
+    /**
+     * Build the predictor that evaluates a network in this mode
+     * @param network Trained double-precision network
+     * @param calibrationInputs Representative preprocessed inputs, used by quantized modes
+     */
+    public Predictor createPredictor(NeuralNetwork network, double[][] calibrationInputs) {
+        switch (this) {
+            case INT8:
+                return QuantizedNetwork.quantize(network, calibrationInputs);
+            case COMPILED:
+                return CompiledNetwork.compile(network);
+            case FLOAT32:
+                return FloatNetwork.convert(network);
+            default:
+                return network;
+        }
+    }
+
+    /**
+     * True when createPredictor needs calibration inputs
+     */
+    public boolean needsCalibration() {
+        return this == INT8;
+    }
+
+    public static InferenceMode fromName(String name) {
+        try {
+            return valueOf(name.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown inference mode: " + name);
+        }
+    }
+}
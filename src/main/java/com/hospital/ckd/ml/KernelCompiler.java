@@ -0,0 +1,364 @@
+package com.hospital.ckd.ml;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal class file emitter for {@link CompiledNetwork}.
+ *
+ * Generates one class implementing {@link CompiledNetwork.Kernel} whose {@code predict} method
+ * is the whole forward pass as straight-line bytecode: inputs are loaded into locals once,
+ * every weight and bias is a constant-pool double, every neuron's output lives in a local,
+ * and only output neuron 0 of the last layer is computed. There are no branches, so no
+ * stack map frames are needed.
+ *
+ * Each weighted sum is emitted in exactly the order the layer's {@link InferenceEngine}
+ * evaluates it, so results are bit-identical to the interpreter:
+ * <ul>
+ *   <li>SCALAR: bias, then {@code sum += w[j] * x[j]} for j in order</li>
+ *   <li>VECTOR: one {@code Math.fma} accumulator per SIMD lane, the lanes added in order
+ *       (as the ordered lane reduction does), then the bias and the scalar tail</li>
+ * </ul>
+ */
+final class KernelCompiler {
+    // Generated class lives in this package so the hidden class can implement the package-private Kernel
+    private static final String CLASS_NAME = "com/hospital/ckd/ml/CompiledKernel";
+    private static final String KERNEL_INTERFACE = "com/hospital/ckd/ml/CompiledNetwork$Kernel";
+    private static final int CLASS_FILE_VERSION = 61; // Java 17
+
+    // Opcodes
+    private static final int ICONST_0 = 0x03;
+    private static final int DCONST_0 = 0x0e;
+    private static final int BIPUSH = 0x10;
+    private static final int SIPUSH = 0x11;
+    private static final int LDC2_W = 0x14;
+    private static final int DLOAD = 0x18;
+    private static final int ALOAD_0 = 0x2a;
+    private static final int ALOAD_1 = 0x2b;
+    private static final int DALOAD = 0x31;
+    private static final int DSTORE = 0x39;
+    private static final int DADD = 0x63;
+    private static final int DMUL = 0x6b;
+    private static final int DRETURN = 0xaf;
+    private static final int RETURN = 0xb1;
+    private static final int INVOKESPECIAL = 0xb7;
+    private static final int INVOKESTATIC = 0xb8;
+    private static final int WIDE = 0xc4;
+
+    private final ByteArrayOutputStream constants = new ByteArrayOutputStream();
+    private final DataOutputStream pool = new DataOutputStream(constants);
+    private final Map<String, Integer> poolIndex = new HashMap<>();
+    private int poolSize = 1;
+
+    private final ByteArrayOutputStream codeBytes = new ByteArrayOutputStream();
+    private final DataOutputStream code = new DataOutputStream(codeBytes);
+    private int stack;
+    private int maxStack;
+    private int nextLocal = 2; // 0 = this, 1 = inputs
+
+    /**
+     * Bytecode of the kernel class for a network
+     */
+    static byte[] compile(List<Layer> layers) {
+        try {
+            return new KernelCompiler().emitClass(layers);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to generate kernel bytecode", e);
+        }
+    }
+
+    /**
+     * Size in bytes of the predict method generated for a network, without building the class
+     */
+    static int codeSize(List<Layer> layers) {
+        try {
+            KernelCompiler compiler = new KernelCompiler();
+            compiler.emitPredict(layers);
+            return compiler.codeBytes.size();
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to generate kernel bytecode", e);
+        }
+    }
+
+    private byte[] emitClass(List<Layer> layers) throws IOException {
+        emitPredict(layers);
+        byte[] predictCode = codeBytes.toByteArray();
+        int predictMaxStack = maxStack;
+        int predictMaxLocals = nextLocal;
+
+        int thisClass = classRef(CLASS_NAME);
+        int superClass = classRef("java/lang/Object");
+        int kernelInterface = classRef(KERNEL_INTERFACE);
+        int objectInit = methodRef("java/lang/Object", "<init>", "()V");
+        int initName = utf8("<init>");
+        int initType = utf8("()V");
+        int predictName = utf8("predict");
+        int predictType = utf8("([D)D");
+        int codeAttribute = utf8("Code");
+
+        ByteArrayOutputStream classBytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(classBytes);
+        out.writeInt(0xCAFEBABE);
+        out.writeShort(0);
+        out.writeShort(CLASS_FILE_VERSION);
+        out.writeShort(poolSize);
+        pool.flush();
+        constants.writeTo(out);
+        out.writeShort(0x0001 | 0x0010 | 0x0020); // public final super
+        out.writeShort(thisClass);
+        out.writeShort(superClass);
+        out.writeShort(1);
+        out.writeShort(kernelInterface);
+        out.writeShort(0); // fields
+
+        out.writeShort(2); // methods
+        byte[] initCode = {(byte) ALOAD_0, (byte) INVOKESPECIAL, (byte) (objectInit >> 8), (byte) objectInit, (byte) RETURN};
+        writeMethod(out, initName, initType, codeAttribute, 1, 1, initCode);
+        writeMethod(out, predictName, predictType, codeAttribute, predictMaxStack, predictMaxLocals, predictCode);
+        out.writeShort(0); // class attributes
+        out.flush();
+        return classBytes.toByteArray();
+    }
+
+    private static void writeMethod(DataOutputStream out, int name, int type, int codeAttribute,
+                                    int maxStack, int maxLocals, byte[] code) throws IOException {
+        out.writeShort(0x0001); // public
+        out.writeShort(name);
+        out.writeShort(type);
+        out.writeShort(1);
+        out.writeShort(codeAttribute);
+        out.writeInt(12 + code.length);
+        out.writeShort(maxStack);
+        out.writeShort(maxLocals);
+        out.writeInt(code.length);
+        out.write(code);
+        out.writeShort(0); // exception table
+        out.writeShort(0); // code attributes
+    }
+
+    /**
+     * Straight-line forward pass: locals hold the inputs and every layer's outputs
+     */
+    private void emitPredict(List<Layer> layers) throws IOException {
+        int inputSize = layers.get(0).getInputSize();
+        int[] values = new int[inputSize];
+        for (int j = 0; j < inputSize; j++) {
+            code.writeByte(ALOAD_1);
+            push(1);
+            pushInt(j);
+            code.writeByte(DALOAD);
+            pop(2);
+            push(2);
+            values[j] = storeLocal();
+        }
+
+        for (int l = 0; l < layers.size(); l++) {
+            Layer layer = layers.get(l);
+            boolean last = l == layers.size() - 1;
+            int neurons = last ? 1 : layer.getOutputSize();
+            int[] outputs = new int[neurons];
+            for (int i = 0; i < neurons; i++) {
+                emitWeightedSum(layer, i, values);
+                emitActivation(layer.getActivation());
+                if (!last) {
+                    outputs[i] = storeLocal();
+                }
+            }
+            values = outputs;
+        }
+        code.writeByte(DRETURN);
+        pop(2);
+    }
+
+    private void emitWeightedSum(Layer layer, int neuron, int[] inputs) throws IOException {
+        int inputSize = layer.getInputSize();
+        int rowOffset = neuron * inputSize;
+        double[] weights = layer.getWeights();
+        int j = 0;
+        if (layer.getEngine() == InferenceEngine.VECTOR) {
+            int lanes = VectorKernels.laneCount();
+            int upperBound = inputSize - inputSize % lanes;
+            // reduceLanes(ADD) starts from the identity and adds lanes 0..n-1 in order
+            loadConstant(0.0);
+            for (int lane = 0; lane < lanes; lane++) {
+                // fma(w, x, fma(w', x', ... fma(w0, x0, 0))): push all operands, then fold innermost first
+                for (int k = upperBound - lanes + lane; k >= lane; k -= lanes) {
+                    loadConstant(weights[rowOffset + k]);
+                    loadLocal(inputs[k]);
+                }
+                loadConstant(0.0);
+                for (int k = lane; k < upperBound; k += lanes) {
+                    invokeStatic("java/lang/Math", "fma", "(DDD)D", 6, 2);
+                }
+                binary(DADD);
+            }
+            loadConstant(layer.getBiases()[neuron]);
+            binary(DADD);
+            j = upperBound;
+        } else {
+            loadConstant(layer.getBiases()[neuron]);
+        }
+        for (; j < inputSize; j++) {
+            loadConstant(weights[rowOffset + j]);
+            loadLocal(inputs[j]);
+            binary(DMUL);
+            binary(DADD);
+        }
+    }
+
+    private void emitActivation(Activation activation) throws IOException {
+        String function;
+        switch (activation) {
+            case SIGMOID:
+                function = "sigmoid";
+                break;
+            case RELU:
+                function = "relu";
+                break;
+            case TANH:
+                function = "tanh";
+                break;
+            case FAST_SIGMOID:
+                function = "fastSigmoid";
+                break;
+            case FAST_TANH:
+                function = "fastTanh";
+                break;
+            default:
+                return; // Linear activation
+        }
+        invokeStatic("com/hospital/ckd/ml/ActivationFunction", function, "(D)D", 2, 2);
+    }
+
+    private void pushInt(int value) throws IOException {
+        push(1);
+        if (value <= 5) {
+            code.writeByte(ICONST_0 + value);
+        } else if (value <= Byte.MAX_VALUE) {
+            code.writeByte(BIPUSH);
+            code.writeByte(value);
+        } else {
+            code.writeByte(SIPUSH);
+            code.writeShort(value);
+        }
+    }
+
+    private void loadConstant(double value) throws IOException {
+        if (Double.doubleToRawLongBits(value) == 0L) {
+            code.writeByte(DCONST_0);
+        } else {
+            code.writeByte(LDC2_W);
+            code.writeShort(doubleConstant(value));
+        }
+        push(2);
+    }
+
+    private void loadLocal(int slot) throws IOException {
+        localInstruction(DLOAD, slot);
+        push(2);
+    }
+
+    private int storeLocal() throws IOException {
+        int slot = nextLocal;
+        nextLocal += 2;
+        localInstruction(DSTORE, slot);
+        pop(2);
+        return slot;
+    }
+
+    private void localInstruction(int opcode, int slot) throws IOException {
+        if (slot <= 0xFF) {
+            code.writeByte(opcode);
+            code.writeByte(slot);
+        } else {
+            code.writeByte(WIDE);
+            code.writeByte(opcode);
+            code.writeShort(slot);
+        }
+    }
+
+    private void binary(int opcode) throws IOException {
+        code.writeByte(opcode);
+        pop(2);
+    }
+
+    private void invokeStatic(String owner, String name, String descriptor, int argumentSlots, int resultSlots)
+            throws IOException {
+        code.writeByte(INVOKESTATIC);
+        code.writeShort(methodRef(owner, name, descriptor));
+        pop(argumentSlots);
+        push(resultSlots);
+    }
+
+    private void push(int slots) {
+        stack += slots;
+        maxStack = Math.max(maxStack, stack);
+    }
+
+    private void pop(int slots) {
+        stack -= slots;
+    }
+
+    // Constant pool, deduplicated by a key per entry
+
+    private int utf8(String value) throws IOException {
+        Integer index = poolIndex.get("U" + value);
+        if (index == null) {
+            index = poolSize++;
+            pool.writeByte(1);
+            pool.writeUTF(value);
+            poolIndex.put("U" + value, index);
+        }
+        return index;
+    }
+
+    private int classRef(String internalName) throws IOException {
+        Integer index = poolIndex.get("C" + internalName);
+        if (index == null) {
+            int name = utf8(internalName);
+            index = poolSize++;
+            pool.writeByte(7);
+            pool.writeShort(name);
+            poolIndex.put("C" + internalName, index);
+        }
+        return index;
+    }
+
+    private int methodRef(String owner, String name, String descriptor) throws IOException {
+        String key = "M" + owner + "." + name + descriptor;
+        Integer index = poolIndex.get(key);
+        if (index == null) {
+            int ownerClass = classRef(owner);
+            int methodName = utf8(name);
+            int methodType = utf8(descriptor);
+            int nameAndType = poolSize++;
+            pool.writeByte(12);
+            pool.writeShort(methodName);
+            pool.writeShort(methodType);
+            index = poolSize++;
+            pool.writeByte(10);
+            pool.writeShort(ownerClass);
+            pool.writeShort(nameAndType);
+            poolIndex.put(key, index);
+        }
+        return index;
+    }
+
+    private int doubleConstant(double value) throws IOException {
+        long bits = Double.doubleToRawLongBits(value);
+        String key = "D" + bits;
+        Integer index = poolIndex.get(key);
+        if (index == null) {
+            index = poolSize;
+            poolSize += 2; // doubles take two constant pool slots
+            pool.writeByte(6);
+            pool.writeLong(bits);
+            poolIndex.put(key, index);
+        }
+        return index;
+    }
+}
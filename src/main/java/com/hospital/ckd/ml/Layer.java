@@ -1,11 +1,19 @@
 package com.hospital.ckd.ml;
 
+import java.util.Random;
+
 public class Layer {
+    // Number of samples processed together while a weight row is hot in cache
+    static final int BATCH_BLOCK_SIZE = 64;
+
     private final int inputSize;
     private final int outputSize;
-    private final double[][] weights;
+    // Row-major weights: neuron i uses weights[i * inputSize .. (i + 1) * inputSize)
+    private final double[] weights;
     private final double[] biases;
     private final String activationType;
+    private final InferenceEngine engine;
+    private Activation activation;
 
     /**
      * Create a neural network layer
@@ -14,14 +22,47 @@ public class Layer {
      * @param activationType Type of activation function ("sigmoid", "relu", "tanh")
      */
     public Layer(int inputSize, int outputSize, String activationType) {
+        this(inputSize, outputSize, activationType, new double[outputSize * inputSize], new double[outputSize]);
+
+        // Initialize weights and biases with pre-trained values
+        initializeWeights();
+    }
+
+    /**
+     * Create a layer with randomly initialized weights, ready for training
+     * Uses He initialization for ReLU layers and Xavier initialization otherwise; biases start at zero.
+     * @param inputSize Number of input neurons
+     * @param outputSize Number of output neurons
+     * @param activationType Type of activation function ("sigmoid", "relu", "tanh")
+     * @param random Source of randomness for the initial weights
+     */
+    public Layer(int inputSize, int outputSize, String activationType, Random random) {
+        this(inputSize, outputSize, activationType, new double[outputSize * inputSize], new double[outputSize]);
+
+        double limit = activation == Activation.RELU
+                ? Math.sqrt(6.0 / inputSize)
+                : Math.sqrt(6.0 / (inputSize + outputSize));
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = (random.nextDouble() * 2 - 1) * limit;
+        }
+    }
+
+    /**
+     * Create a layer from existing parameters (used when loading a saved model)
+     * @param weights Row-major weights of length outputSize * inputSize (taken over, not copied)
+     * @param biases Biases of length outputSize (taken over, not copied)
+     */
+    Layer(int inputSize, int outputSize, String activationType, double[] weights, double[] biases) {
+        if (weights.length != outputSize * inputSize || biases.length != outputSize) {
+            throw new IllegalArgumentException("Parameter size mismatch for " + inputSize + " -> " + outputSize + " layer");
+        }
         this.inputSize = inputSize;
         this.outputSize = outputSize;
         this.activationType = activationType;
-        this.weights = new double[outputSize][inputSize];
-        this.biases = new double[outputSize];
-        
-        // Initialize weights and biases with pre-trained values
-        initializeWeights();
+        this.activation = Activation.fromName(activationType);
+        this.weights = weights;
+        this.biases = biases;
+        this.engine = InferenceEngine.forLayer(inputSize);
     }
 
     /**
@@ -46,7 +87,7 @@ public class Layer {
             
             System.arraycopy(hiddenBiases, 0, this.biases, 0, hiddenBiases.length);
             for (int i = 0; i < outputSize; i++) {
-                System.arraycopy(hiddenWeights[i], 0, this.weights[i], 0, inputSize);
+                System.arraycopy(hiddenWeights[i], 0, this.weights, i * inputSize, inputSize);
             }
         }
         // Output layer weights (8 hidden -> 1 output)
@@ -57,7 +98,7 @@ public class Layer {
             double[] outputBiases = {-0.15};
             
             System.arraycopy(outputBiases, 0, this.biases, 0, outputBiases.length);
-            System.arraycopy(outputWeights[0], 0, this.weights[0], 0, inputSize);
+            System.arraycopy(outputWeights[0], 0, this.weights, 0, inputSize);
         }
     }
 
@@ -75,36 +116,108 @@ public class Layer {
 
         // Calculate weighted sum + bias for each output neuron
         for (int i = 0; i < outputSize; i++) {
-            double sum = biases[i];
-            for (int j = 0; j < inputSize; j++) {
-                sum += weights[i][j] * inputs[j];
-            }
-            
             // Apply activation function
-            outputs[i] = applyActivation(sum);
+            outputs[i] = applyActivation(weightedSum(i, inputs));
         }
 
         return outputs;
     }
 
     /**
-     * Apply the specified activation function
+     * Forward propagation into a caller-provided output buffer without allocating
+     * @param inputs Input values
+     * @param outputs Destination buffer of length >= outputSize
      */
-    private double applyActivation(double value) {
-        switch (activationType.toLowerCase()) {
-            case "sigmoid":
-                return ActivationFunction.sigmoid(value);
-            case "relu":
-                return ActivationFunction.relu(value);
-            case "tanh":
-                return ActivationFunction.tanh(value);
-            default:
-                return value; // Linear activation
+    public void forwardInto(double[] inputs, double[] outputs) {
+        if (inputs.length < inputSize) {
+            throw new IllegalArgumentException("Input size mismatch. Expected: " + inputSize + ", Got: " + inputs.length);
+        }
+
+        for (int i = 0; i < outputSize; i++) {
+            outputs[i] = applyActivation(weightedSum(i, inputs));
+        }
+    }
+
+    /**
+     * Forward propagation for a batch of input vectors (matrix-matrix product).
+     * Samples are processed in blocks so that each neuron's weight row is reused
+     * across the whole block while it is still in cache. Every sample goes through
+     * the same summation order as {@link #forward(double[])}, so results are identical.
+     *
+     * @param inputs Input vectors, one row per sample
+     * @param from First row to process (inclusive)
+     * @param to Last row to process (exclusive)
+     * @return Output vectors for rows [from, to), one row per sample
+     */
+    public double[][] forwardBatch(double[][] inputs, int from, int to) {
+        if (from < 0 || to > inputs.length || from > to) {
+            throw new IllegalArgumentException("Invalid batch range [" + from + ", " + to + ") for " + inputs.length + " rows");
+        }
+        for (int s = from; s < to; s++) {
+            if (inputs[s].length != inputSize) {
+                throw new IllegalArgumentException("Input size mismatch at row " + s + ". Expected: " + inputSize + ", Got: " + inputs[s].length);
+            }
+        }
+
+        double[][] outputs = new double[to - from][outputSize];
+
+        for (int blockStart = from; blockStart < to; blockStart += BATCH_BLOCK_SIZE) {
+            int blockEnd = Math.min(blockStart + BATCH_BLOCK_SIZE, to);
+            for (int i = 0; i < outputSize; i++) {
+                for (int s = blockStart; s < blockEnd; s++) {
+                    outputs[s - from][i] = applyActivation(weightedSum(i, inputs[s]));
+                }
+            }
+        }
+
+        return outputs;
+    }
+
+    /**
+     * Forward propagation for a whole batch of input vectors
+     */
+    public double[][] forwardBatch(double[][] inputs) {
+        return forwardBatch(inputs, 0, inputs.length);
+    }
+
+    /**
+     * Weighted sum + bias for a single output neuron
+     */
+    private double weightedSum(int neuron, double[] inputs) {
+        int rowOffset = neuron * inputSize;
+        if (engine == InferenceEngine.VECTOR) {
+            return VectorKernels.weightedSum(weights, rowOffset, inputs, inputSize, biases[neuron]);
         }
+
+        double sum = biases[neuron];
+        for (int j = 0; j < inputSize; j++) {
+            sum += weights[rowOffset + j] * inputs[j];
+        }
+        return sum;
+    }
+
+    /**
+     * Apply the activation function resolved at construction
+     */
+    private double applyActivation(double value) {
+        return activation.apply(value);
+    }
+
+    /**
+     * Switch between the exact activation and its table-based approximation
+     */
+    public void setFastActivation(boolean fast) {
+        activation = fast ? activation.fast() : activation.precise();
     }
 
     // Getters
     public int getInputSize() { return inputSize; }
     public int getOutputSize() { return outputSize; }
     public String getActivationType() { return activationType; }
+    public Activation getActivation() { return activation; }
+
+    // Direct access to the parameter arrays for training and serialization
+    double[] getWeights() { return weights; }
+    double[] getBiases() { return biases; }
+    public InferenceEngine getEngine() { return engine; }
 }
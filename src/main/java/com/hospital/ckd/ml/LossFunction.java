@@ -0,0 +1,29 @@
+package com.hospital.ckd.ml;
+
+public class LossFunction {
+
+    // Keeps log() finite when the network is fully confident
+    private static final double EPSILON = 1e-12;
+
+    /**
+     * Binary cross-entropy loss for a sigmoid output
+     * Formula: -(t * log(p) + (1 - t) * log(1 - p))
+     */
+    public static double binaryCrossEntropy(double predicted, double target) {
+        double p = Math.min(1.0 - EPSILON, Math.max(EPSILON, predicted));
+        return -(target * Math.log(p) + (1.0 - target) * Math.log(1.0 - p));
+    }
+
+    /**
+     * Gradient of binary cross-entropy with respect to the output neuron's weighted sum
+     * For a sigmoid output the sigmoid derivative cancels out, leaving p - t.
+     */
+    public static double binaryCrossEntropyDelta(double predicted, double target, Activation outputActivation) {
+        if (outputActivation == Activation.SIGMOID || outputActivation == Activation.FAST_SIGMOID) {
+            return predicted - target;
+        }
+        double p = Math.min(1.0 - EPSILON, Math.max(EPSILON, predicted));
+        double lossGradient = (p - target) / (p * (1.0 - p));
+        return lossGradient * outputActivation.derivativeFromOutput(predicted);
+    }
+}
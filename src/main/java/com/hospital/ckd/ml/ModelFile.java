@@ -0,0 +1,224 @@
+package com.hospital.ckd.ml;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Versioned binary model file.
+ *
+ * Layout (all values little-endian):
+ * <pre>
+ *   int    magic "CKDM"
+ *   int    format version
+ *   int    network input size
+ *   int    layer count
+ *   per layer: int input size, int output size, int activation code, int reserved
+ *   int    input range count (0, or the input size), int reserved          (version 2+)
+ *   per input range: double min, double max                             (version 2+)
+ *   per layer: double[output * input] row-major weights, double[output] biases
+ *   long   CRC32 of every preceding byte
+ * </pre>
+ * The header is a multiple of 8 bytes, so the weight blocks are 8-byte aligned.
+ * The input ranges are the raw feature ranges used to normalize the training data;
+ * version 1 files have no range block and are still readable.
+ * Files are loaded through a read-only memory mapping, so no intermediate read
+ * buffers are needed and the weight blocks are bulk-copied straight from the page cache.
+ */
+public class ModelFile {
+    public static final int FORMAT_VERSION = 2;
+    private static final int MIN_READABLE_VERSION = 1;
+
+    private static final int MAGIC = 0x4D444B43; // "CKDM" in little-endian byte order
+    private static final int HEADER_SIZE = 16;
+    private static final int LAYER_HEADER_SIZE = 16;
+    private static final int CHECKSUM_SIZE = 8;
+    private static final int RANGE_HEADER_SIZE = 8;
+    private static final String[] ACTIVATION_CODES = {"linear", "sigmoid", "relu", "tanh"};
+
+    /**
+     * Write a network to a model file
+     * The file is written next to the target and moved into place, so readers never see a partial file.
+     */
+    public static void save(NeuralNetwork network, Path file) throws IOException {
+        List<Layer> layers = network.getLayers();
+        double[] mins = network.getInputMins();
+        double[] maxs = network.getInputMaxs();
+        int rangeCount = mins == null ? 0 : mins.length;
+        long size = HEADER_SIZE + (long) LAYER_HEADER_SIZE * layers.size() + RANGE_HEADER_SIZE
+                + 16L * rangeCount + CHECKSUM_SIZE;
+        for (Layer layer : layers) {
+            size += 8L * (layer.getWeights().length + layer.getBiases().length);
+        }
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Model is too large to save: " + size + " bytes");
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate((int) size).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC);
+        buffer.putInt(FORMAT_VERSION);
+        buffer.putInt(network.getInputSize());
+        buffer.putInt(layers.size());
+        for (Layer layer : layers) {
+            buffer.putInt(layer.getInputSize());
+            buffer.putInt(layer.getOutputSize());
+            buffer.putInt(activationCode(layer.getActivation()));
+            buffer.putInt(0);
+        }
+        buffer.putInt(rangeCount);
+        buffer.putInt(0);
+        for (int i = 0; i < rangeCount; i++) {
+            buffer.putDouble(mins[i]);
+            buffer.putDouble(maxs[i]);
+        }
+        for (Layer layer : layers) {
+            for (double weight : layer.getWeights()) {
+                buffer.putDouble(weight);
+            }
+            for (double bias : layer.getBiases()) {
+                buffer.putDouble(bias);
+            }
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, buffer.position());
+        buffer.putLong(crc.getValue());
+        buffer.flip();
+
+        Path absolute = file.toAbsolutePath();
+        Path temp = absolute.resolveSibling(absolute.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Load a network from a model file
+     * @throws ModelFormatException if the file is corrupt, truncated or has an unsupported version
+     */
+    public static NeuralNetwork load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE + CHECKSUM_SIZE) {
+                throw new ModelFormatException("Model file " + file + " is truncated (" + size + " bytes)");
+            }
+            if (size > Integer.MAX_VALUE) {
+                throw new ModelFormatException("Model file " + file + " is too large (" + size + " bytes)");
+            }
+
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            mapped.order(ByteOrder.LITTLE_ENDIAN);
+            return read(mapped, file);
+        }
+    }
+
+    private static NeuralNetwork read(ByteBuffer buffer, Path file) throws ModelFormatException {
+        int size = buffer.limit();
+        if (buffer.getInt(0) != MAGIC) {
+            throw new ModelFormatException(file + " is not a CKD model file");
+        }
+        int version = buffer.getInt(4);
+        if (version < MIN_READABLE_VERSION || version > FORMAT_VERSION) {
+            throw new ModelFormatException("Unsupported model format version " + version + " in " + file
+                    + " (expected " + MIN_READABLE_VERSION + " to " + FORMAT_VERSION + ")");
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(buffer.duplicate().position(0).limit(size - CHECKSUM_SIZE));
+        if (crc.getValue() != buffer.getLong(size - CHECKSUM_SIZE)) {
+            throw new ModelFormatException("Checksum mismatch in " + file + ", the model file is corrupt");
+        }
+
+        buffer.position(8);
+        int inputSize = buffer.getInt();
+        int layerCount = buffer.getInt();
+        if (layerCount <= 0 || HEADER_SIZE + (long) LAYER_HEADER_SIZE * layerCount + CHECKSUM_SIZE > size) {
+            throw new ModelFormatException("Invalid layer count " + layerCount + " in " + file);
+        }
+
+        int[][] shapes = new int[layerCount][];
+        String[] activations = new String[layerCount];
+        long expectedSize = HEADER_SIZE + (long) LAYER_HEADER_SIZE * layerCount + CHECKSUM_SIZE;
+        int previousSize = inputSize;
+        for (int i = 0; i < layerCount; i++) {
+            int in = buffer.getInt();
+            int out = buffer.getInt();
+            int code = buffer.getInt();
+            buffer.getInt(); // reserved
+            if (in != previousSize || out <= 0 || code < 0 || code >= ACTIVATION_CODES.length) {
+                throw new ModelFormatException("Invalid header for layer " + (i + 1) + " in " + file);
+            }
+            shapes[i] = new int[]{in, out};
+            activations[i] = ACTIVATION_CODES[code];
+            expectedSize += 8L * ((long) in * out + out);
+            previousSize = out;
+        }
+        double[] mins = null;
+        double[] maxs = null;
+        if (version >= 2) {
+            if (buffer.position() + RANGE_HEADER_SIZE > size - CHECKSUM_SIZE) {
+                throw new ModelFormatException("Model file " + file + " is missing its input range block");
+            }
+            int rangeCount = buffer.getInt();
+            buffer.getInt(); // reserved
+            if (rangeCount != 0 && rangeCount != inputSize) {
+                throw new ModelFormatException("Invalid input range count " + rangeCount + " in " + file);
+            }
+            expectedSize += RANGE_HEADER_SIZE + 16L * rangeCount;
+            if (rangeCount > 0 && expectedSize == size) {
+                mins = new double[rangeCount];
+                maxs = new double[rangeCount];
+                for (int i = 0; i < rangeCount; i++) {
+                    mins[i] = buffer.getDouble();
+                    maxs[i] = buffer.getDouble();
+                }
+            }
+        }
+        if (expectedSize != size) {
+            throw new ModelFormatException("Model file " + file + " has " + size + " bytes but its header describes " + expectedSize);
+        }
+
+        List<Layer> layers = new ArrayList<>(layerCount);
+        for (int i = 0; i < layerCount; i++) {
+            double[] weights = new double[shapes[i][0] * shapes[i][1]];
+            double[] biases = new double[shapes[i][1]];
+            readDoubles(buffer, weights);
+            readDoubles(buffer, biases);
+            layers.add(new Layer(shapes[i][0], shapes[i][1], activations[i], weights, biases));
+        }
+        NeuralNetwork network = new NeuralNetwork(layers);
+        if (mins != null) {
+            network.setInputRanges(mins, maxs);
+        }
+        return network;
+    }
+
+    private static void readDoubles(ByteBuffer buffer, double[] target) {
+        buffer.asDoubleBuffer().get(target);
+        buffer.position(buffer.position() + target.length * 8);
+    }
+
+    private static int activationCode(Activation activation) {
+        String name = activation == Activation.LINEAR ? "linear" : activation.getTypeName();
+        for (int i = 0; i < ACTIVATION_CODES.length; i++) {
+            if (ACTIVATION_CODES[i].equals(name)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Activation " + activation + " cannot be saved");
+    }
+}
@@ -0,0 +1,14 @@
+package com.hospital.ckd.ml;
+
+import java.io.IOException;
+
+/**
+ * Thrown when a model file is corrupt, truncated or written in an unsupported format version.
+ */
+public class ModelFormatException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    public ModelFormatException(String message) {
+        super(message);
+    }
+}
@@ -2,11 +2,15 @@ package com.hospital.ckd.ml;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 
-public class NeuralNetwork {
+public class NeuralNetwork implements Predictor {
     private final List<Layer> layers;
     private final int inputSize;
     private final int outputSize;
+    // Raw feature ranges the network was trained with, null when it uses the default ranges
+    private double[] inputMins;
+    private double[] inputMaxs;
 
     /**
      * Create a neural network for CKD risk prediction
@@ -21,6 +25,48 @@ public class NeuralNetwork {
         buildNetwork();
     }
 
+    /**
+     * Create a network with a custom architecture and randomly initialized weights
+     * @param inputSize Number of input features
+     * @param layerSizes Number of neurons in each layer, the last one being the output layer
+     * @param activationTypes Activation function of each layer ("sigmoid", "relu", "tanh")
+     * @param seed Seed for the weight initialization, for reproducible training runs
+     */
+    public NeuralNetwork(int inputSize, int[] layerSizes, String[] activationTypes, long seed) {
+        if (layerSizes.length == 0 || layerSizes.length != activationTypes.length) {
+            throw new IllegalArgumentException("Each layer needs exactly one activation type");
+        }
+        this.inputSize = inputSize;
+        this.outputSize = layerSizes[layerSizes.length - 1];
+        this.layers = new ArrayList<>();
+
+        Random random = new Random(seed);
+        int previousSize = inputSize;
+        for (int i = 0; i < layerSizes.length; i++) {
+            layers.add(new Layer(previousSize, layerSizes[i], activationTypes[i], random));
+            previousSize = layerSizes[i];
+        }
+    }
+
+    /**
+     * Create a network from already built layers (used when loading a saved model)
+     * @param layers Layers in forward order; each layer's input size must match the previous output size
+     */
+    public NeuralNetwork(List<Layer> layers) {
+        if (layers.isEmpty()) {
+            throw new IllegalArgumentException("A network needs at least one layer");
+        }
+        for (int i = 1; i < layers.size(); i++) {
+            if (layers.get(i).getInputSize() != layers.get(i - 1).getOutputSize()) {
+                throw new IllegalArgumentException("Layer " + (i + 1) + " expects " + layers.get(i).getInputSize()
+                        + " inputs but layer " + i + " produces " + layers.get(i - 1).getOutputSize());
+            }
+        }
+        this.inputSize = layers.get(0).getInputSize();
+        this.outputSize = layers.get(layers.size() - 1).getOutputSize();
+        this.layers = new ArrayList<>(layers);
+    }
+
     /**
      * Build the neural network architecture
      * This creates a simple feedforward network suitable for binary classification
@@ -61,6 +107,98 @@ public class NeuralNetwork {
         return currentOutput[0];
     }
 
+    /**
+     * Predict CKD risk without allocating, using the buffers of a reusable workspace
+     * @param inputs Patient medical parameters (preprocessed)
+     * @param workspace Workspace created by {@link #newWorkspace()}, not shared between threads
+     * @return CKD risk probability (0.0 to 1.0)
+     */
+    @Override
+    public double predictInto(double[] inputs, Workspace workspace) {
+        if (inputs.length != inputSize) {
+            throw new IllegalArgumentException("Input size must be " + inputSize + " but got " + inputs.length);
+        }
+
+        double[] currentOutput = inputs;
+        for (int i = 0; i < layers.size(); i++) {
+            double[] layerOutput = workspace.getLayerOutput(i);
+            layers.get(i).forwardInto(currentOutput, layerOutput);
+            currentOutput = layerOutput;
+        }
+
+        return currentOutput[0];
+    }
+
+    /**
+     * Create scratch buffers sized for this network's layers
+     */
+    @Override
+    public Workspace newWorkspace() {
+        int[] layerSizes = new int[layers.size()];
+        for (int i = 0; i < layers.size(); i++) {
+            layerSizes[i] = layers.get(i).getOutputSize();
+        }
+        return new Workspace(inputSize, layerSizes);
+    }
+
+    /**
+     * Predict CKD risk for a batch of patients
+     * Large batches are split into chunks and scored in parallel on the common fork-join pool.
+     * Each row produces exactly the same value as {@link #predict(double[])}.
+     *
+     * @param inputs Preprocessed patient parameters, one row per patient
+     * @return CKD risk probabilities, one per row
+     */
+    @Override
+    public double[] predictBatch(double[][] inputs) {
+        for (int i = 0; i < inputs.length; i++) {
+            if (inputs[i].length != inputSize) {
+                throw new IllegalArgumentException("Input size must be " + inputSize + " but got " + inputs[i].length + " at row " + i);
+            }
+        }
+
+        double[] results = new double[inputs.length];
+        ParallelRows.forEach(0, inputs.length, ParallelRows.BATCH_THRESHOLD,
+                (from, to) -> predictRange(inputs, from, to, results));
+        return results;
+    }
+
+    /**
+     * Forward propagate rows [from, to) through all layers and store the outputs
+     */
+    private void predictRange(double[][] inputs, int from, int to, double[] results) {
+        double[][] currentOutput = layers.get(0).forwardBatch(inputs, from, to);
+        for (int i = 1; i < layers.size(); i++) {
+            currentOutput = layers.get(i).forwardBatch(currentOutput);
+        }
+        for (int s = 0; s < currentOutput.length; s++) {
+            results[from + s] = currentOutput[s][0];
+        }
+    }
+
+    /**
+     * Enable or disable the fast table-based activations on every layer
+     * For the default 10 -> 8 -> 1 network fast mode changes probabilities by less than 2e-6.
+     * Call this before the network is shared between threads.
+     */
+    public void setFastActivations(boolean fast) {
+        for (Layer layer : layers) {
+            layer.setFastActivation(fast);
+        }
+    }
+
+    /**
+     * Record the raw feature ranges the inputs were normalized with during training
+     * They are stored in the model file so serving normalizes exactly like training did.
+     */
+    public void setInputRanges(double[] mins, double[] maxs) {
+        if (mins.length != inputSize || maxs.length != inputSize) {
+            throw new IllegalArgumentException("Input ranges must have " + inputSize + " entries");
+        }
+        this.inputMins = mins.clone();
+        this.inputMaxs = maxs.clone();
+    }
+
     /**
      * Get network summary information
      */
@@ -74,7 +212,9 @@ public class NeuralNetwork {
             summary.append("Layer ").append(i + 1).append(": ")
                    .append(layer.getInputSize()).append(" -> ")
                    .append(layer.getOutputSize()).append(" (")
-                   .append(layer.getActivationType()).append(")\n");
+                   .append(layer.getActivationType())
+                   .append(layer.getActivation().isFast() ? " (fast)" : "").append(", ")
+                   .append(layer.getEngine().name().toLowerCase()).append(" engine)\n");
         }
         
         summary.append("Output size: ").append(outputSize);
@@ -82,7 +222,10 @@ public class NeuralNetwork {
     }
 
     // Getters
+    @Override
     public int getInputSize() { return inputSize; }
     public int getOutputSize() { return outputSize; }
     public List<Layer> getLayers() { return layers; }
+    public double[] getInputMins() { return inputMins == null ? null : inputMins.clone(); }
+    public double[] getInputMaxs() { return inputMaxs == null ? null : inputMaxs.clone(); }
 }
@@ -0,0 +1,15 @@
+package com.hospital.ckd.ml;
+
+/**
+ * Updates a network's weights from accumulated gradients.
+ */
+public interface Optimizer {
+
+    /**
+     * Apply one update step
+     * @param network Network whose weights are updated in place
+     * @param gradients Gradients summed over the mini-batch
+     * @param batchSize Number of samples the gradients were summed over
+     */
+    void step(NeuralNetwork network, Gradients gradients, int batchSize);
+}
@@ -0,0 +1,122 @@
+package com.hospital.ckd.ml;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+
+/**
+ * Splits a row range across cores on the common fork-join pool.
+ *
+ * The range is halved until each piece holds at most {@code threshold} rows, and the callback
+ * runs once per piece. A range that is already small enough runs directly on the calling
+ * thread, so small batches pay no fork-join overhead.
+ */
+public final class ParallelRows {
+    // Predictor batches larger than this are split across cores
+    public static final int BATCH_THRESHOLD = 512;
+
+    /**
+     * Work on rows [from, to)
+     */
+    @FunctionalInterface
+    public interface RangeAction {
+        void run(int from, int to);
+    }
+
+    /**
+     * Partial result for rows [from, to)
+     */
+    @FunctionalInterface
+    public interface RangeFunction<T> {
+        T apply(int from, int to);
+    }
+
+    private ParallelRows() {
+    }
+
+    /**
+     * Run an action over rows [from, to) in pieces of at most threshold rows
+     */
+    public static void forEach(int from, int to, int threshold, RangeAction action) {
+        if (threshold <= 0) {
+            throw new IllegalArgumentException("Threshold must be positive but got " + threshold);
+        }
+        if (to - from <= threshold) {
+            action.run(from, to);
+        } else {
+            ForkJoinPool.commonPool().invoke(new RangeTask(from, to, threshold, action));
+        }
+    }
+
+    /**
+     * Compute a partial result per piece of at most threshold rows and merge them
+     * @param merge Combines the results of two adjacent pieces, left first
+     */
+    public static <T> T reduce(int from, int to, int threshold, RangeFunction<T> function, BinaryOperator<T> merge) {
+        if (threshold <= 0) {
+            throw new IllegalArgumentException("Threshold must be positive but got " + threshold);
+        }
+        if (to - from <= threshold) {
+            return function.apply(from, to);
+        }
+        return ForkJoinPool.commonPool().invoke(new ReduceTask<>(from, to, threshold, function, merge));
+    }
+
+    private static final class RangeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final int threshold;
+        private final RangeAction action;
+
+        RangeTask(int from, int to, int threshold, RangeAction action) {
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+            this.action = action;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= threshold) {
+                action.run(from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new RangeTask(from, mid, threshold, action),
+                      new RangeTask(mid, to, threshold, action));
+        }
+    }
+
+    private static final class ReduceTask<T> extends RecursiveTask<T> {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final int threshold;
+        private final RangeFunction<T> function;
+        private final BinaryOperator<T> merge;
+
+        ReduceTask(int from, int to, int threshold, RangeFunction<T> function, BinaryOperator<T> merge) {
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+            this.function = function;
+            this.merge = merge;
+        }
+
+        @Override
+        protected T compute() {
+            if (to - from <= threshold) {
+                return function.apply(from, to);
+            }
+            int mid = (from + to) >>> 1;
+            ReduceTask<T> right = new ReduceTask<>(mid, to, threshold, function, merge);
+            right.fork();
+            T left = new ReduceTask<>(from, mid, threshold, function, merge).compute();
+            return merge.apply(left, right.join());
+        }
+    }
+}
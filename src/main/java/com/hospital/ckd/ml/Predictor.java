@@ -0,0 +1,28 @@
+package com.hospital.ckd.ml;
+
+/**
+ * Something that turns preprocessed patient parameters into a CKD risk probability.
+ * Implemented by the double-precision {@link NeuralNetwork} and by its reduced-precision variants.
+ */
+public interface Predictor {
+
+    /**
+     * Number of input features expected per row
+     */
+    int getInputSize();
+
+    /**
+     * Predict one row without allocating, using scratch buffers from {@link #newWorkspace()}
+     */
+    double predictInto(double[] inputs, Workspace workspace);
+
+    /**
+     * Create scratch buffers for {@link #predictInto(double[], Workspace)}; one per thread
+     */
+    Workspace newWorkspace();
+
+    /**
+     * Predict a batch of rows, one probability per row
+     */
+    double[] predictBatch(double[][] inputs);
+}
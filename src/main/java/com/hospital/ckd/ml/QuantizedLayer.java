@@ -0,0 +1,133 @@
+package com.hospital.ckd.ml;
+
+/**
+ * Int8 version of a {@link Layer}, produced by post-training quantization.
+ *
+ * Each weight row (one output neuron) has its own scale and zero point, chosen so the
+ * row's range, widened to include 0, maps onto [-128, 127]. The layer input is quantized
+ * with one scale and zero point calibrated from the range observed on sample data.
+ * The weighted sum is computed as an integer dot product; the zero-point corrections
+ * are folded into per-row constants, so each neuron is dequantized exactly once before
+ * the bias and activation are applied.
+ */
+public class QuantizedLayer {
+    private static final int QMIN = -128;
+    private static final int QMAX = 127;
+
+    private final int inputSize;
+    private final int outputSize;
+    // Row-major int8 weights, same layout as Layer
+    private final byte[] weights;
+    private final int[] weightZeroPoints;
+    // Integer terms that only depend on the row: n * zw * zx - zx * sum(qw)
+    private final int[] rowConstants;
+    // Dequantization multiplier per row: weight scale * input scale
+    private final double[] rowScales;
+    private final double[] biases;
+    private final double inputScale;
+    private final double inverseInputScale;
+    private final int inputZeroPoint;
+    private final Activation activation;
+    private final InferenceEngine engine;
+
+    /**
+     * Quantize a trained layer
+     * @param layer Layer to quantize; its precise activation is kept
+     * @param inputMin Smallest layer input seen during calibration
+     * @param inputMax Largest layer input seen during calibration
+     */
+    QuantizedLayer(Layer layer, double inputMin, double inputMax) {
+        this.inputSize = layer.getInputSize();
+        this.outputSize = layer.getOutputSize();
+        this.activation = layer.getActivation();
+        this.engine = layer.getEngine();
+        this.biases = layer.getBiases().clone();
+
+        double low = Math.min(0.0, inputMin);
+        double high = Math.max(0.0, inputMax);
+        this.inputScale = scaleFor(low, high);
+        this.inputZeroPoint = zeroPointFor(low, inputScale);
+        this.inverseInputScale = 1.0 / inputScale;
+
+        double[] source = layer.getWeights();
+        this.weights = new byte[source.length];
+        this.weightZeroPoints = new int[outputSize];
+        this.rowConstants = new int[outputSize];
+        this.rowScales = new double[outputSize];
+        for (int i = 0; i < outputSize; i++) {
+            int rowOffset = i * inputSize;
+            double rowMin = 0.0;
+            double rowMax = 0.0;
+            for (int j = 0; j < inputSize; j++) {
+                rowMin = Math.min(rowMin, source[rowOffset + j]);
+                rowMax = Math.max(rowMax, source[rowOffset + j]);
+            }
+            double scale = scaleFor(rowMin, rowMax);
+            int zeroPoint = zeroPointFor(rowMin, scale);
+            int rowSum = 0;
+            for (int j = 0; j < inputSize; j++) {
+                int q = quantize(source[rowOffset + j], scale, zeroPoint);
+                weights[rowOffset + j] = (byte) q;
+                rowSum += q;
+            }
+            weightZeroPoints[i] = zeroPoint;
+            rowConstants[i] = inputSize * zeroPoint * inputZeroPoint - inputZeroPoint * rowSum;
+            rowScales[i] = scale * inputScale;
+        }
+    }
+
+    private static double scaleFor(double min, double max) {
+        double range = max - min;
+        return range > 0 ? range / (QMAX - QMIN) : 1.0;
+    }
+
+    private static int zeroPointFor(double min, double scale) {
+        long zeroPoint = Math.round(QMIN - min / scale);
+        return (int) Math.max(QMIN, Math.min(QMAX, zeroPoint));
+    }
+
+    private static int quantize(double value, double scale, int zeroPoint) {
+        long q = Math.round(value / scale) + zeroPoint;
+        return (int) Math.max(QMIN, Math.min(QMAX, q));
+    }
+
+    /**
+     * Forward pass: quantize the input into a scratch buffer, integer dot products, one dequantize per neuron
+     * @param inputs Input values
+     * @param quantizedInput Scratch buffer of length inputSize
+     * @param outputs Destination buffer of length outputSize
+     */
+    void forwardInto(double[] inputs, byte[] quantizedInput, double[] outputs) {
+        int inputSum = 0;
+        for (int j = 0; j < inputSize; j++) {
+            // Shift into [0, 255], clamp, then round half up with a cast since the value is non-negative
+            double shifted = inputs[j] * inverseInputScale + (inputZeroPoint - QMIN + 0.5);
+            int q = shifted <= 0 ? QMIN : shifted >= QMAX - QMIN ? QMAX : (int) shifted + QMIN;
+            quantizedInput[j] = (byte) q;
+            inputSum += q;
+        }
+
+        for (int i = 0; i < outputSize; i++) {
+            int accumulator = dotProduct(i * inputSize, quantizedInput) - weightZeroPoints[i] * inputSum + rowConstants[i];
+            outputs[i] = activation.apply(biases[i] + rowScales[i] * accumulator);
+        }
+    }
+
+    private int dotProduct(int rowOffset, byte[] quantizedInput) {
+        if (engine == InferenceEngine.VECTOR) {
+            return VectorKernels.dotProduct(weights, rowOffset, quantizedInput, inputSize);
+        }
+        int dot = 0;
+        for (int j = 0; j < inputSize; j++) {
+            dot += weights[rowOffset + j] * quantizedInput[j];
+        }
+        return dot;
+    }
+
+    // Getters
+    public int getInputSize() { return inputSize; }
+    public int getOutputSize() { return outputSize; }
+    public double getInputScale() { return inputScale; }
+    public int getInputZeroPoint() { return inputZeroPoint; }
+    public Activation getActivation() { return activation; }
+}
@@ -0,0 +1,119 @@
+package com.hospital.ckd.ml;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Int8 quantized copy of a {@link NeuralNetwork}.
+ *
+ * Built by {@link #quantize(NeuralNetwork, double[][])}: calibration rows are run through
+ * the double-precision network to find the input range of every layer, and each layer is
+ * then quantized with {@link QuantizedLayer}. The source network is not modified.
+ */
+public class QuantizedNetwork implements Predictor {
+
+    private final List<QuantizedLayer> layers;
+    private final int inputSize;
+    private final int calibrationRows;
+
+    private QuantizedNetwork(List<QuantizedLayer> layers, int calibrationRows) {
+        this.layers = layers;
+        this.inputSize = layers.get(0).getInputSize();
+        this.calibrationRows = calibrationRows;
+    }
+
+    /**
+     * Quantize a trained network
+     * @param network Double-precision network
+     * @param calibrationInputs Representative preprocessed inputs, e.g. from Preprocessor.normalize
+     */
+    public static QuantizedNetwork quantize(NeuralNetwork network, double[][] calibrationInputs) {
+        if (calibrationInputs.length == 0) {
+            throw new IllegalArgumentException("Quantization needs at least one calibration row");
+        }
+        List<QuantizedLayer> quantized = new ArrayList<>();
+        double[][] layerInputs = calibrationInputs;
+        for (Layer layer : network.getLayers()) {
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            for (double[] row : layerInputs) {
+                if (row.length != layer.getInputSize()) {
+                    throw new IllegalArgumentException("Calibration rows must have " + layer.getInputSize() + " values");
+                }
+                for (double value : row) {
+                    min = Math.min(min, value);
+                    max = Math.max(max, value);
+                }
+            }
+            quantized.add(new QuantizedLayer(layer, min, max));
+            layerInputs = layer.forwardBatch(layerInputs);
+        }
+        return new QuantizedNetwork(Collections.unmodifiableList(quantized), calibrationInputs.length);
+    }
+
+    @Override
+    public double predictInto(double[] inputs, Workspace workspace) {
+        if (inputs.length != inputSize) {
+            throw new IllegalArgumentException("Input size must be " + inputSize + " but got " + inputs.length);
+        }
+
+        double[] currentOutput = inputs;
+        for (int i = 0; i < layers.size(); i++) {
+            double[] layerOutput = workspace.getLayerOutput(i);
+            layers.get(i).forwardInto(currentOutput, workspace.getQuantizedInput(i), layerOutput);
+            currentOutput = layerOutput;
+        }
+        return currentOutput[0];
+    }
+
+    @Override
+    public Workspace newWorkspace() {
+        int[] layerSizes = new int[layers.size()];
+        int[] inputSizes = new int[layers.size()];
+        for (int i = 0; i < layers.size(); i++) {
+            layerSizes[i] = layers.get(i).getOutputSize();
+            inputSizes[i] = layers.get(i).getInputSize();
+        }
+        return new Workspace(inputSize, layerSizes, inputSizes);
+    }
+
+    /**
+     * Predict a batch; large batches are split across cores with fork-join
+     */
+    @Override
+    public double[] predictBatch(double[][] inputs) {
+        double[] results = new double[inputs.length];
+        ParallelRows.forEach(0, inputs.length, ParallelRows.BATCH_THRESHOLD,
+                (from, to) -> predictRange(inputs, from, to, results));
+        return results;
+    }
+
+    private void predictRange(double[][] inputs, int from, int to, double[] results) {
+        Workspace workspace = newWorkspace();
+        for (int i = from; i < to; i++) {
+            results[i] = predictInto(inputs[i], workspace);
+        }
+    }
+
+    /**
+     * Get network summary information
+     */
+    public String getNetworkSummary() {
+        StringBuilder summary = new StringBuilder();
+        summary.append("Int8 Quantized Network (calibrated on ").append(calibrationRows).append(" rows):\n");
+        for (int i = 0; i < layers.size(); i++) {
+            QuantizedLayer layer = layers.get(i);
+            summary.append("Layer ").append(i + 1).append(": ")
+                   .append(layer.getInputSize()).append(" -> ").append(layer.getOutputSize())
+                   .append(" (").append(layer.getActivation().getTypeName())
+                   .append(String.format(", input scale %.3g, zero point %d)%n", layer.getInputScale(), layer.getInputZeroPoint()));
+        }
+        return summary.toString().trim();
+    }
+
+    // Getters
+    @Override
+    public int getInputSize() { return inputSize; }
+    public List<QuantizedLayer> getLayers() { return layers; }
+}
@@ -0,0 +1,51 @@
+package com.hospital.ckd.ml;
+
+import java.util.List;
+
+/**
+ * Mini-batch stochastic gradient descent with optional momentum.
+ */
+public class SgdOptimizer implements Optimizer {
+    private final double learningRate;
+    private final double momentum;
+    private double[][] weightVelocity;
+    private double[][] biasVelocity;
+
+    public SgdOptimizer(double learningRate) {
+        this(learningRate, 0.0);
+    }
+
+    public SgdOptimizer(double learningRate, double momentum) {
+        if (learningRate <= 0 || momentum < 0 || momentum >= 1) {
+            throw new IllegalArgumentException("Learning rate must be positive and momentum in [0, 1)");
+        }
+        this.learningRate = learningRate;
+        this.momentum = momentum;
+    }
+
+    @Override
+    public void step(NeuralNetwork network, Gradients gradients, int batchSize) {
+        List<Layer> layers = network.getLayers();
+        if (weightVelocity == null) {
+            weightVelocity = new double[layers.size()][];
+            biasVelocity = new double[layers.size()][];
+            for (int l = 0; l < layers.size(); l++) {
+                weightVelocity[l] = new double[layers.get(l).getWeights().length];
+                biasVelocity[l] = new double[layers.get(l).getBiases().length];
+            }
+        }
+
+        double scale = learningRate / batchSize;
+        for (int l = 0; l < layers.size(); l++) {
+            update(layers.get(l).getWeights(), gradients.getWeightGradients(l), weightVelocity[l], scale);
+            update(layers.get(l).getBiases(), gradients.getBiasGradients(l), biasVelocity[l], scale);
+        }
+    }
+
+    private void update(double[] parameters, double[] gradients, double[] velocity, double scale) {
+        for (int i = 0; i < parameters.length; i++) {
+            velocity[i] = momentum * velocity[i] - scale * gradients[i];
+            parameters[i] += velocity[i];
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package com.hospital.ckd.ml;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Data-parallel mini-batch trainer using backpropagation and binary cross-entropy loss.
+ *
+ * Each mini-batch is split into one shard per thread. Every shard accumulates gradients
+ * into its own reusable buffers, the shards are then reduced into a single set of
+ * gradients and the optimizer applies one update. Per-epoch loss, time and throughput
+ * are printed and returned.
+ */
+public class Trainer {
+    private final NeuralNetwork network;
+    private final Optimizer optimizer;
+    private final int batchSize;
+    private final int threadCount;
+    private final long shuffleSeed;
+
+    /**
+     * @param network Network to train in place
+     * @param optimizer Optimizer applying the weight updates
+     * @param batchSize Samples per mini-batch
+     * @param threadCount Number of threads computing gradients in parallel
+     * @param shuffleSeed Seed for shuffling the samples each epoch
+     */
+    public Trainer(NeuralNetwork network, Optimizer optimizer, int batchSize, int threadCount, long shuffleSeed) {
+        if (batchSize <= 0 || threadCount <= 0) {
+            throw new IllegalArgumentException("Batch size and thread count must be positive");
+        }
+        if (network.getOutputSize() != 1) {
+            throw new IllegalArgumentException("Training requires a single output neuron but network has " + network.getOutputSize());
+        }
+        this.network = network;
+        this.optimizer = optimizer;
+        this.batchSize = batchSize;
+        this.threadCount = threadCount;
+        this.shuffleSeed = shuffleSeed;
+    }
+
+    /**
+     * Train the network for the given number of epochs
+     *
+     * @param inputs Normalized feature vectors, one row per sample
+     * @param labels Target values (0 = no CKD, 1 = CKD), one per sample
+     * @param epochs Number of passes over the data
+     * @return Statistics for each epoch
+     */
+    public List<EpochStats> train(double[][] inputs, double[] labels, int epochs) throws InterruptedException {
+        if (inputs.length != labels.length || inputs.length == 0) {
+            throw new IllegalArgumentException("Need the same non-zero number of inputs and labels but got "
+                    + inputs.length + " and " + labels.length);
+        }
+
+        int[] order = new int[inputs.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Random random = new Random(shuffleSeed);
+
+        List<Shard> shards = new ArrayList<>(threadCount);
+        for (int i = 0; i < threadCount; i++) {
+            shards.add(new Shard(inputs, labels, order));
+        }
+        Gradients total = new Gradients(network);
+        List<EpochStats> history = new ArrayList<>(epochs);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount, runnable -> {
+            Thread thread = new Thread(runnable, "ckd-trainer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            for (int epoch = 1; epoch <= epochs; epoch++) {
+                long start = System.nanoTime();
+                shuffle(order, random);
+
+                double lossSum = 0;
+                for (int batchStart = 0; batchStart < order.length; batchStart += batchSize) {
+                    int batchEnd = Math.min(batchStart + batchSize, order.length);
+                    lossSum += runBatch(executor, shards, total, batchStart, batchEnd);
+                    optimizer.step(network, total, batchEnd - batchStart);
+                }
+
+                EpochStats stats = new EpochStats(epoch, lossSum / order.length, System.nanoTime() - start, order.length);
+                history.add(stats);
+                System.out.println(stats);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return history;
+    }
+
+    /**
+     * Compute gradients for one mini-batch in parallel and reduce them into total
+     * @return Summed loss over the mini-batch
+     */
+    private double runBatch(ExecutorService executor, List<Shard> shards, Gradients total,
+                            int batchStart, int batchEnd) throws InterruptedException {
+        int count = batchEnd - batchStart;
+        int shardCount = Math.min(shards.size(), count);
+        int shardSize = (count + shardCount - 1) / shardCount;
+        for (int i = 0; i < shardCount; i++) {
+            int from = batchStart + i * shardSize;
+            shards.get(i).setRange(from, Math.min(from + shardSize, batchEnd));
+        }
+
+        total.clear();
+        double loss = 0;
+        if (shardCount == 1) {
+            loss = shards.get(0).call();
+            total.add(shards.get(0).gradients);
+            return loss;
+        }
+
+        try {
+            List<Future<Double>> futures = executor.invokeAll(shards.subList(0, shardCount));
+            for (int i = 0; i < shardCount; i++) {
+                loss += futures.get(i).get();
+                total.add(shards.get(i).gradients);
+            }
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Gradient computation failed: " + e.getCause().getMessage(), e.getCause());
+        }
+        return loss;
+    }
+
+    private static void shuffle(int[] order, Random random) {
+        for (int i = order.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = order[i];
+            order[i] = order[j];
+            order[j] = tmp;
+        }
+    }
+
+    /**
+     * Per-thread slice of a mini-batch with its own reusable activation, delta and gradient buffers
+     */
+    private class Shard implements Callable<Double> {
+        private final double[][] inputs;
+        private final double[] labels;
+        private final int[] order;
+        private final Gradients gradients;
+        private final double[][] activations;
+        private final double[][] deltas;
+        private int from;
+        private int to;
+
+        Shard(double[][] inputs, double[] labels, int[] order) {
+            this.inputs = inputs;
+            this.labels = labels;
+            this.order = order;
+            this.gradients = new Gradients(network);
+            List<Layer> layers = network.getLayers();
+            this.activations = new double[layers.size()][];
+            this.deltas = new double[layers.size()][];
+            for (int l = 0; l < layers.size(); l++) {
+                activations[l] = new double[layers.get(l).getOutputSize()];
+                deltas[l] = new double[layers.get(l).getOutputSize()];
+            }
+        }
+
+        void setRange(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public Double call() {
+            gradients.clear();
+            List<Layer> layers = network.getLayers();
+            int last = layers.size() - 1;
+            double loss = 0;
+
+            for (int s = from; s < to; s++) {
+                double[] input = inputs[order[s]];
+                double target = labels[order[s]];
+
+                // Forward pass, keeping every layer's output
+                double[] current = input;
+                for (int l = 0; l <= last; l++) {
+                    layers.get(l).forwardInto(current, activations[l]);
+                    current = activations[l];
+                }
+                double predicted = activations[last][0];
+                loss += LossFunction.binaryCrossEntropy(predicted, target);
+
+                // Backward pass
+                deltas[last][0] = LossFunction.binaryCrossEntropyDelta(predicted, target, layers.get(last).getActivation());
+                for (int l = last; l >= 0; l--) {
+                    Layer layer = layers.get(l);
+                    double[] layerInput = l == 0 ? input : activations[l - 1];
+                    double[] delta = deltas[l];
+                    double[] weightGradients = gradients.getWeightGradients(l);
+                    double[] biasGradients = gradients.getBiasGradients(l);
+                    int in = layer.getInputSize();
+
+                    for (int i = 0; i < layer.getOutputSize(); i++) {
+                        double d = delta[i];
+                        biasGradients[i] += d;
+                        int rowOffset = i * in;
+                        for (int j = 0; j < in; j++) {
+                            weightGradients[rowOffset + j] += d * layerInput[j];
+                        }
+                    }
+
+                    if (l > 0) {
+                        double[] weights = layer.getWeights();
+                        double[] previousDelta = deltas[l - 1];
+                        Activation previousActivation = layers.get(l - 1).getActivation();
+                        for (int j = 0; j < in; j++) {
+                            double sum = 0;
+                            for (int i = 0; i < layer.getOutputSize(); i++) {
+                                sum += weights[i * in + j] * delta[i];
+                            }
+                            previousDelta[j] = sum * previousActivation.derivativeFromOutput(layerInput[j]);
+                        }
+                    }
+                }
+            }
+            return loss;
+        }
+    }
+
+    /**
+     * Loss and timing of one training epoch
+     */
+    public static class EpochStats {
+        private final int epoch;
+        private final double averageLoss;
+        private final long elapsedNanos;
+        private final int samples;
+
+        EpochStats(int epoch, double averageLoss, long elapsedNanos, int samples) {
+            this.epoch = epoch;
+            this.averageLoss = averageLoss;
+            this.elapsedNanos = elapsedNanos;
+            this.samples = samples;
+        }
+
+        public int getEpoch() { return epoch; }
+        public double getAverageLoss() { return averageLoss; }
+        public long getElapsedNanos() { return elapsedNanos; }
+
+        public double getSamplesPerSecond() {
+            return samples / (elapsedNanos / 1e9);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Epoch %d: loss=%.5f, time=%.2f s, %.0f samples/s",
+                    epoch, averageLoss, elapsedNanos / 1e9, getSamplesPerSecond());
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.hospital.ckd.ml;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * SIMD kernels built on the Java Vector API.
+ * Only loaded when {@link InferenceEngine#isVectorAvailable()} is true.
+ */
+final class VectorKernels {
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Float> FLOAT_SPECIES = FloatVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Integer> INT_SPECIES = IntVector.SPECIES_PREFERRED;
+    // Bytes that widen to exactly one preferred int vector
+    private static final VectorSpecies<Byte> BYTE_SPECIES =
+            VectorSpecies.of(byte.class, VectorShape.forBitSize(INT_SPECIES.vectorBitSize() / 4));
+
+    private VectorKernels() {
+    }
+
+    static int laneCount() {
+        return SPECIES.length();
+    }
+
+    static int floatLaneCount() {
+        return FLOAT_SPECIES.length();
+    }
+
+    /**
+     * Weighted sum of one flat weight row with the input vector, plus bias
+     * Lane-wise products are accumulated with FMA and reduced once at the end.
+     */
+    static double weightedSum(double[] weights, int rowOffset, double[] inputs, int length, double bias) {
+        DoubleVector acc = DoubleVector.zero(SPECIES);
+        int upperBound = SPECIES.loopBound(length);
+        int j = 0;
+        for (; j < upperBound; j += SPECIES.length()) {
+            DoubleVector w = DoubleVector.fromArray(SPECIES, weights, rowOffset + j);
+            DoubleVector x = DoubleVector.fromArray(SPECIES, inputs, j);
+            acc = w.fma(x, acc);
+        }
+
+        double sum = bias + acc.reduceLanes(VectorOperators.ADD);
+        for (; j < length; j++) {
+            sum += weights[rowOffset + j] * inputs[j];
+        }
+        return sum;
+    }
+
+    /**
+     * Float32 weighted sum of one flat weight row with the input vector, plus bias
+     */
+    static float weightedSum(float[] weights, int rowOffset, float[] inputs, int length, float bias) {
+        FloatVector acc = FloatVector.zero(FLOAT_SPECIES);
+        int upperBound = FLOAT_SPECIES.loopBound(length);
+        int j = 0;
+        for (; j < upperBound; j += FLOAT_SPECIES.length()) {
+            FloatVector w = FloatVector.fromArray(FLOAT_SPECIES, weights, rowOffset + j);
+            FloatVector x = FloatVector.fromArray(FLOAT_SPECIES, inputs, j);
+            acc = w.fma(x, acc);
+        }
+
+        float sum = bias + acc.reduceLanes(VectorOperators.ADD);
+        for (; j < length; j++) {
+            sum += weights[rowOffset + j] * inputs[j];
+        }
+        return sum;
+    }
+
+    /**
+     * Apply a float32 activation to values[0, length) in place
+     * When the array is long enough the last vector also covers the padding past length, which
+     * is overwritten; only arrays too short for that take the masked path, which allocates in
+     * JDK 17. Every value goes through the same instructions either way.
+     */
+    static void activate(Activation activation, float[] values, int length) {
+        if (activation == Activation.LINEAR) {
+            return;
+        }
+        int lanes = FLOAT_SPECIES.length();
+        for (int j = 0; j < length; j += lanes) {
+            if (j + lanes <= values.length) {
+                activate(activation, FloatVector.fromArray(FLOAT_SPECIES, values, j)).intoArray(values, j);
+            } else {
+                VectorMask<Float> mask = FLOAT_SPECIES.indexInRange(j, length);
+                activate(activation, FloatVector.fromArray(FLOAT_SPECIES, values, j, mask)).intoArray(values, j, mask);
+            }
+        }
+    }
+
+    private static FloatVector activate(Activation activation, FloatVector x) {
+        switch (activation) {
+            case SIGMOID:
+            case FAST_SIGMOID:
+                // 1 / (1 + e^-x); e^-x overflows to infinity for very negative x, giving 0
+                x = x.neg().lanewise(VectorOperators.EXP).add(1.0f);
+                return FloatVector.broadcast(FLOAT_SPECIES, 1.0f).div(x);
+            case TANH:
+            case FAST_TANH:
+                return x.lanewise(VectorOperators.TANH);
+            case RELU:
+                return x.max(0.0f);
+            default:
+                return x; // Linear activation
+        }
+    }
+
+    /**
+     * Integer dot product of one flat int8 weight row with an int8 input vector
+     * Bytes are widened to ints before multiplying, so the sum is exact.
+     */
+    static int dotProduct(byte[] weights, int rowOffset, byte[] inputs, int length) {
+        IntVector acc = IntVector.zero(INT_SPECIES);
+        int upperBound = BYTE_SPECIES.loopBound(length);
+        int j = 0;
+        for (; j < upperBound; j += BYTE_SPECIES.length()) {
+            IntVector w = (IntVector) ByteVector.fromArray(BYTE_SPECIES, weights, rowOffset + j)
+                    .convertShape(VectorOperators.B2I, INT_SPECIES, 0);
+            IntVector x = (IntVector) ByteVector.fromArray(BYTE_SPECIES, inputs, j)
+                    .convertShape(VectorOperators.B2I, INT_SPECIES, 0);
+            acc = acc.add(w.mul(x));
+        }
+
+        int sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; j < length; j++) {
+            sum += weights[rowOffset + j] * inputs[j];
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,60 @@
+package com.hospital.ckd.ml;
+
+/**
+ * Reusable scratch buffers for allocation-free inference.
+ * A workspace is sized for one network and must only be used by one thread at a time.
+ */
+public class Workspace {
+    private final double[] input;
+    private final double[][] layerOutputs;
+    // Quantized copy of each layer's input, only present for int8 networks
+    private final byte[][] quantizedInputs;
+    // Float copies of the input and layer outputs, only present for float32 networks
+    private final float[] floatInput;
+    private final float[][] floatLayerOutputs;
+
+    Workspace(int inputSize, int[] layerSizes) {
+        this(inputSize, layerSizes, null);
+    }
+
+    Workspace(int inputSize, int[] layerSizes, int[] quantizedInputSizes) {
+        this(inputSize, layerSizes, quantizedInputSizes, false);
+    }
+
+    /**
+     * @param floatBuffers Also allocate float32 input and layer output buffers
+     */
+    Workspace(int inputSize, int[] layerSizes, int[] quantizedInputSizes, boolean floatBuffers) {
+        this.input = new double[inputSize];
+        this.layerOutputs = new double[layerSizes.length][];
+        for (int i = 0; i < layerSizes.length; i++) {
+            layerOutputs[i] = new double[layerSizes[i]];
+        }
+        this.quantizedInputs = quantizedInputSizes == null ? null : new byte[quantizedInputSizes.length][];
+        if (quantizedInputSizes != null) {
+            for (int i = 0; i < quantizedInputSizes.length; i++) {
+                quantizedInputs[i] = new byte[quantizedInputSizes[i]];
+            }
+        }
+        this.floatInput = floatBuffers ? new float[inputSize] : null;
+        this.floatLayerOutputs = floatBuffers ? new float[layerSizes.length][] : null;
+        if (floatBuffers) {
+            for (int i = 0; i < layerSizes.length; i++) {
+                floatLayerOutputs[i] = new float[FloatLayer.paddedLength(layerSizes[i])];
+            }
+        }
+    }
+
+    /**
+     * Input buffer that callers can fill with preprocessed patient parameters
+     */
+    public double[] getInput() { return input; }
+
+    double[] getLayerOutput(int layerIndex) { return layerOutputs[layerIndex]; }
+
+    byte[] getQuantizedInput(int layerIndex) { return quantizedInputs[layerIndex]; }
+
+    float[] getFloatInput() { return floatInput; }
+
+    float[] getFloatLayerOutput(int layerIndex) { return floatLayerOutputs[layerIndex]; }
+}
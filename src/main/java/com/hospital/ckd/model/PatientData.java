@@ -36,6 +36,21 @@ public class PatientData {
         };
     }
 
+    // Copy into a caller-provided array (length >= 10) without allocating
+    public double[] toArray(double[] dest) {
+        dest[0] = age;
+        dest[1] = bloodPressure;
+        dest[2] = bloodGlucoseRandom;
+        dest[3] = serumCreatinine;
+        dest[4] = hemoglobin;
+        dest[5] = albumin;
+        dest[6] = sugar;
+        dest[7] = sodium;
+        dest[8] = potassium;
+        dest[9] = packedCellVolume;
+        return dest;
+    }
+
     // Getters and setters
     public double getAge() { return age; }
     public void setAge(double age) { this.age = age; }
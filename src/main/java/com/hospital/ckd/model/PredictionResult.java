@@ -1,6 +1,10 @@
 package com.hospital.ckd.model;
 
 public class PredictionResult {
+    private static final String[] RISK_CATEGORIES = {
+        "Very Low Risk", "Low Risk", "Moderate Risk", "High Risk", "Very High Risk", "Critical Risk"
+    };
+
     private final double riskProbability;
     private final int riskPercentage;
     private final String riskCategory;
@@ -14,12 +18,32 @@ public class PredictionResult {
     }
 
     private String determineRiskCategory(int percentage) {
-        if (percentage <= 10) return "Very Low Risk";
-        else if (percentage <= 20) return "Low Risk";
-        else if (percentage <= 40) return "Moderate Risk";
-        else if (percentage <= 60) return "High Risk";
-        else if (percentage <= 80) return "Very High Risk";
-        else return "Critical Risk";
+        return RISK_CATEGORIES[categoryIndexOf(percentage)];
+    }
+
+    private static int categoryIndexOf(int percentage) {
+        if (percentage <= 10) return 0;
+        else if (percentage <= 20) return 1;
+        else if (percentage <= 40) return 2;
+        else if (percentage <= 60) return 3;
+        else if (percentage <= 80) return 4;
+        else return 5;
+    }
+
+    /**
+     * Index of the risk category a probability falls into, from 0 (very low) to 5 (critical)
+     * Lets callers compare categories without building a result.
+     */
+    public static int categoryIndex(double riskProbability) {
+        return categoryIndexOf((int) Math.round(riskProbability * 100));
+    }
+
+    public static String categoryName(int index) {
+        return RISK_CATEGORIES[index];
+    }
+
+    public static int getCategoryCount() {
+        return RISK_CATEGORIES.length;
     }
 
     private String generatePrecautions(int percentage) {
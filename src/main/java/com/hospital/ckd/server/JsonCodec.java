@@ -0,0 +1,347 @@
+package com.hospital.ckd.server;
+
+import com.hospital.ckd.model.PatientData;
+import com.hospital.ckd.model.PredictionResult;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Minimal hand-written JSON codec for the scoring API.
+ *
+ * Patient objects are parsed straight from the request bytes into {@link PatientData}:
+ * keys are matched byte-by-byte against the known field names and no reflection or
+ * intermediate tree is used. Unknown keys are skipped.
+ */
+public class JsonCodec {
+    private static final String[] FIELD_NAMES = {
+        "age", "bloodPressure", "bloodGlucoseRandom", "serumCreatinine", "hemoglobin",
+        "albumin", "sugar", "sodium", "potassium", "packedCellVolume"
+    };
+    private static final byte[][] FIELD_KEYS = new byte[FIELD_NAMES.length][];
+    // Deepest nesting of skipped arrays and objects; deeper input is rejected instead of overflowing the stack
+    static final int MAX_NESTING_DEPTH = 64;
+
+    static {
+        for (int i = 0; i < FIELD_NAMES.length; i++) {
+            FIELD_KEYS[i] = FIELD_NAMES[i].getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    private final byte[] json;
+    private int position;
+
+    private JsonCodec(byte[] json) {
+        this.json = json;
+    }
+
+    /**
+     * Parse a single patient object
+     * @throws IllegalArgumentException if the JSON is malformed or a field is missing
+     */
+    public static PatientData parsePatient(byte[] json) {
+        JsonCodec parser = new JsonCodec(json);
+        PatientData patient = parser.readPatient();
+        parser.expectEnd();
+        return patient;
+    }
+
+    /**
+     * Parse a batch: either a JSON array of patients or an object with a "patients" array
+     * @throws IllegalArgumentException if the JSON is malformed or a field is missing
+     */
+    public static List<PatientData> parsePatients(byte[] json) {
+        JsonCodec parser = new JsonCodec(json);
+        parser.skipWhitespace();
+        List<PatientData> patients;
+        if (parser.peek() == '[') {
+            patients = parser.readPatientArray();
+        } else {
+            patients = null;
+            parser.expect('{');
+            if (!parser.tryConsume('}')) {
+                do {
+                    if (parser.readKeyEquals("patients")) {
+                        patients = parser.readPatientArray();
+                    } else {
+                        parser.skipValue();
+                    }
+                } while (parser.tryConsume(','));
+                parser.expect('}');
+            }
+            if (patients == null) {
+                throw new IllegalArgumentException("Missing field: patients");
+            }
+        }
+        parser.expectEnd();
+        return patients;
+    }
+
+    /**
+     * Encode one prediction result as a JSON object
+     */
+    public static String encodeResult(PredictionResult result) {
+        StringBuilder out = new StringBuilder(512);
+        appendResult(out, result);
+        return out.toString();
+    }
+
+    /**
+     * Encode a batch of prediction results as {"results": [...]}
+     */
+    public static String encodeResults(List<PredictionResult> results) {
+        StringBuilder out = new StringBuilder(64 + results.size() * 400);
+        out.append("{\"results\":[");
+        for (int i = 0; i < results.size(); i++) {
+            if (i > 0) out.append(',');
+            appendResult(out, results.get(i));
+        }
+        return out.append("]}").toString();
+    }
+
+    /**
+     * Encode an error message as {"error": "..."}
+     */
+    public static String encodeError(String message) {
+        StringBuilder out = new StringBuilder(message.length() + 16);
+        out.append("{\"error\":");
+        appendString(out, message);
+        return out.append('}').toString();
+    }
+
+    private static void appendResult(StringBuilder out, PredictionResult result) {
+        out.append("{\"riskProbability\":").append(result.getRiskProbability())
+           .append(",\"riskPercentage\":").append(result.getRiskPercentage())
+           .append(",\"riskCategory\":");
+        appendString(out, result.getRiskCategory());
+        out.append(",\"precautions\":");
+        appendString(out, result.getPrecautions());
+        out.append('}');
+    }
+
+    static void appendString(StringBuilder out, String value) {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': out.append("\\\""); break;
+                case '\\': out.append("\\\\"); break;
+                case '\n': out.append("\\n"); break;
+                case '\r': out.append("\\r"); break;
+                case '\t': out.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+            }
+        }
+        out.append('"');
+    }
+
+    private List<PatientData> readPatientArray() {
+        List<PatientData> patients = new ArrayList<>();
+        expect('[');
+        if (tryConsume(']')) {
+            return patients;
+        }
+        do {
+            patients.add(readPatient());
+        } while (tryConsume(','));
+        expect(']');
+        return patients;
+    }
+
+    private PatientData readPatient() {
+        double[] values = new double[FIELD_NAMES.length];
+        boolean[] seen = new boolean[FIELD_NAMES.length];
+
+        expect('{');
+        if (!tryConsume('}')) {
+            do {
+                int field = readFieldKey();
+                if (field < 0) {
+                    skipValue();
+                } else {
+                    values[field] = readNumber();
+                    seen[field] = true;
+                }
+            } while (tryConsume(','));
+            expect('}');
+        }
+
+        for (int i = 0; i < seen.length; i++) {
+            if (!seen[i]) {
+                throw new IllegalArgumentException("Missing field: " + FIELD_NAMES[i]);
+            }
+        }
+        return new PatientData(values[0], values[1], values[2], values[3], values[4],
+                               values[5], values[6], values[7], values[8], values[9]);
+    }
+
+    /**
+     * Read an object key and the following colon
+     * @return Index into FIELD_NAMES, or -1 for an unknown key
+     */
+    private int readFieldKey() {
+        int start = readStringBounds();
+        int length = position - 1 - start;
+        expect(':');
+        for (int i = 0; i < FIELD_KEYS.length; i++) {
+            if (regionEquals(start, length, FIELD_KEYS[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private boolean readKeyEquals(String key) {
+        int start = readStringBounds();
+        int length = position - 1 - start;
+        expect(':');
+        return regionEquals(start, length, key.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private boolean regionEquals(int start, int length, byte[] key) {
+        if (length != key.length) {
+            return false;
+        }
+        for (int j = 0; j < length; j++) {
+            if (json[start + j] != key[j]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Skip over a string and return the offset of its first character (escapes are not decoded)
+     */
+    private int readStringBounds() {
+        expect('"');
+        int start = position;
+        while (position < json.length && json[position] != '"') {
+            if (json[position] == '\\') {
+                position++;
+            }
+            position++;
+        }
+        if (position >= json.length) {
+            throw error("Unterminated string");
+        }
+        position++;
+        return start;
+    }
+
+    private double readNumber() {
+        skipWhitespace();
+        int start = position;
+        while (position < json.length) {
+            byte b = json[position];
+            if ((b >= '0' && b <= '9') || b == '-' || b == '+' || b == '.' || b == 'e' || b == 'E') {
+                position++;
+            } else {
+                break;
+            }
+        }
+        if (start == position) {
+            throw error("Expected a number");
+        }
+        try {
+            return Double.parseDouble(new String(json, start, position - start, StandardCharsets.US_ASCII));
+        } catch (NumberFormatException e) {
+            throw error("Malformed number");
+        }
+    }
+
+    private void skipValue() {
+        skipValue(1);
+    }
+
+    private void skipValue(int depth) {
+        skipWhitespace();
+        byte b = peek();
+        if (b == '"') {
+            readStringBounds();
+        } else if (b == '{' || b == '[') {
+            if (depth > MAX_NESTING_DEPTH) {
+                throw error("Nesting deeper than " + MAX_NESTING_DEPTH + " levels");
+            }
+            skipContainer(depth);
+        } else if (b == 't' || b == 'f' || b == 'n') {
+            while (position < json.length && json[position] >= 'a' && json[position] <= 'z') {
+                position++;
+            }
+        } else {
+            readNumber();
+        }
+    }
+
+    private void skipContainer(int depth) {
+        if (tryConsume('{')) {
+            if (!tryConsume('}')) {
+                do {
+                    readStringBounds();
+                    expect(':');
+                    skipValue(depth + 1);
+                } while (tryConsume(','));
+                expect('}');
+            }
+        } else {
+            expect('[');
+            if (!tryConsume(']')) {
+                do {
+                    skipValue(depth + 1);
+                } while (tryConsume(','));
+                expect(']');
+            }
+        }
+    }
+
+    private void skipWhitespace() {
+        while (position < json.length) {
+            byte b = json[position];
+            if (b != ' ' && b != '\n' && b != '\r' && b != '\t') {
+                return;
+            }
+            position++;
+        }
+    }
+
+    private byte peek() {
+        if (position >= json.length) {
+            throw error("Unexpected end of input");
+        }
+        return json[position];
+    }
+
+    private void expect(char c) {
+        skipWhitespace();
+        if (peek() != c) {
+            throw error("Expected '" + c + "'");
+        }
+        position++;
+    }
+
+    private boolean tryConsume(char c) {
+        skipWhitespace();
+        if (position < json.length && json[position] == c) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    private void expectEnd() {
+        skipWhitespace();
+        if (position != json.length) {
+            throw error("Unexpected trailing content");
+        }
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException("Invalid JSON at offset " + position + ": " + message);
+    }
+}
@@ -0,0 +1,141 @@
+package com.hospital.ckd.server;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop load generator for {@link ScoringServer}.
+ *
+ * A fixed number of client threads send single-patient requests back to back for the
+ * given duration. Afterwards the achieved requests/sec, error count and latency
+ * percentiles are printed.
+ *
+ * Usage: LoadTestClient [url] [concurrency] [seconds]
+ */
+public class LoadTestClient {
+    private static final int MAX_SAMPLES_PER_THREAD = 1 << 16;
+
+    public static void main(String[] args) throws Exception {
+        String url = args.length > 0 ? args[0] : "http://localhost:8080/predict";
+        int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        URI uri = URI.create(url);
+
+        long[][] latencies = new long[concurrency][MAX_SAMPLES_PER_THREAD];
+        int[] sampleCounts = new int[concurrency];
+        AtomicLong completed = new AtomicLong();
+        AtomicLong errors = new AtomicLong();
+        CountDownLatch done = new CountDownLatch(concurrency);
+
+        // Warm up the server and the client's connection pool
+        warmUp(client, uri, 2, Math.min(concurrency, 8));
+
+        long start = System.nanoTime();
+        long deadline = start + seconds * 1_000_000_000L;
+        for (int t = 0; t < concurrency; t++) {
+            int threadIndex = t;
+            Thread thread = new Thread(() -> {
+                try {
+                    sampleCounts[threadIndex] = sendUntil(client, uri, deadline, new Random(threadIndex),
+                            latencies[threadIndex], completed, errors);
+                } finally {
+                    done.countDown();
+                }
+            }, "load-client-" + t);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        done.await();
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+
+        int totalSamples = 0;
+        for (int count : sampleCounts) totalSamples += count;
+        long[] all = new long[totalSamples];
+        int offset = 0;
+        for (int t = 0; t < concurrency; t++) {
+            System.arraycopy(latencies[t], 0, all, offset, sampleCounts[t]);
+            offset += sampleCounts[t];
+        }
+        Arrays.sort(all);
+
+        System.out.printf("Requests: %d, errors: %d, %.0f requests/s over %.1f s with %d clients%n",
+                completed.get(), errors.get(), completed.get() / elapsedSeconds, elapsedSeconds, concurrency);
+        if (all.length > 0) {
+            System.out.printf("Latency ms: p50=%.2f p90=%.2f p99=%.2f p999=%.2f max=%.2f%n",
+                    percentile(all, 0.50), percentile(all, 0.90), percentile(all, 0.99),
+                    percentile(all, 0.999), all[all.length - 1] / 1e6);
+        }
+    }
+
+    private static void warmUp(HttpClient client, URI uri, int seconds, int threads) throws InterruptedException {
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        AtomicLong completed = new AtomicLong();
+        AtomicLong errors = new AtomicLong();
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            int seed = t;
+            workers[t] = new Thread(() -> sendUntil(client, uri, deadline, new Random(seed), new long[0], completed, errors));
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+    }
+
+    /**
+     * Send requests back to back until the deadline
+     * @return Number of latency samples recorded
+     */
+    private static int sendUntil(HttpClient client, URI uri, long deadline, Random random, long[] samples,
+                                 AtomicLong completed, AtomicLong errors) {
+        int count = 0;
+        while (System.nanoTime() < deadline) {
+            HttpRequest request = HttpRequest.newBuilder(uri)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(randomPatient(random)))
+                    .build();
+            long sent = System.nanoTime();
+            try {
+                HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                if (response.statusCode() == 200) {
+                    completed.incrementAndGet();
+                } else {
+                    errors.incrementAndGet();
+                }
+            } catch (Exception e) {
+                errors.incrementAndGet();
+            }
+            if (count < samples.length) {
+                samples[count++] = System.nanoTime() - sent;
+            }
+        }
+        return count;
+    }
+
+    private static String randomPatient(Random random) {
+        return String.format(Locale.ROOT, "{\"age\":%d,\"bloodPressure\":%d,\"bloodGlucoseRandom\":%d,\"serumCreatinine\":%.1f,"
+                        + "\"hemoglobin\":%.1f,\"albumin\":%.1f,\"sugar\":%d,\"sodium\":%d,\"potassium\":%.1f,"
+                        + "\"packedCellVolume\":%d}",
+                20 + random.nextInt(70), 90 + random.nextInt(80), 70 + random.nextInt(200),
+                0.6 + random.nextDouble() * 5, 8 + random.nextDouble() * 8, 2 + random.nextDouble() * 3,
+                random.nextInt(5), 125 + random.nextInt(25), 3 + random.nextDouble() * 3, 25 + random.nextInt(25));
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        int index = (int) Math.min(sorted.length - 1, Math.round(quantile * (sorted.length - 1)));
+        return sorted[index] / 1e6;
+    }
+}
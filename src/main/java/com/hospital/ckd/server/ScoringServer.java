@@ -0,0 +1,211 @@
+package com.hospital.ckd.server;
+
+import com.hospital.ckd.model.PatientData;
+import com.hospital.ckd.model.PredictionResult;
+import com.hospital.ckd.service.ModelSnapshot;
+import com.hospital.ckd.service.ModelWatcher;
+import com.hospital.ckd.service.PredictionCache;
+import com.hospital.ckd.service.PredictionCoalescer;
+import com.hospital.ckd.service.PredictionService;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Headless HTTP front end for {@link PredictionService}, built on the JDK's embedded HTTP server.
+ *
+ * Endpoints:
+ * <pre>
+ *   POST /predict        one patient object        -> one result object
+ *   POST /predict/batch  array or {"patients": []} -> {"results": []}
+ *   GET  /health         service and model status
+ *   GET  /metrics        plain-text latency, throughput and shadow model snapshot
+ * </pre>
+ * Each request runs on its own virtual thread when the JVM supports them (Java 21+);
+ * older JVMs fall back to a bounded platform thread pool. With -Dckd.coalesce=true,
+ * concurrent /predict calls are merged into micro-batches by a {@link PredictionCoalescer}.
+ *
+ * Usage: ScoringServer [port] [modelDirectory]
+ */
+public class ScoringServer {
+    private static final int DEFAULT_PORT = 8080;
+    private static final int MAX_BODY_BYTES = 16 << 20;
+
+    private final PredictionService predictionService;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final PredictionCoalescer coalescer;
+
+    public ScoringServer(PredictionService predictionService, int port) throws IOException {
+        this(predictionService, port, null);
+    }
+
+    /**
+     * @param coalescer Optional micro-batching front end for /predict, or null to score each call directly
+     */
+    public ScoringServer(PredictionService predictionService, int port, PredictionCoalescer coalescer) throws IOException {
+        this.predictionService = predictionService;
+        this.coalescer = coalescer;
+        this.server = HttpServer.create(new InetSocketAddress(port), 1024);
+        this.executor = newRequestExecutor();
+        server.setExecutor(executor);
+        server.createContext("/predict", this::handlePredict);
+        server.createContext("/predict/batch", this::handleBatch);
+        server.createContext("/health", this::handleHealth);
+        server.createContext("/metrics", this::handleMetrics);
+    }
+
+    /**
+     * One virtual thread per request where available, otherwise a fixed pool of platform threads
+     */
+    static ExecutorService newRequestExecutor() {
+        try {
+            ExecutorService executor = (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            System.out.println("Serving requests on virtual threads");
+            return executor;
+        } catch (ReflectiveOperationException e) {
+            int threads = Runtime.getRuntime().availableProcessors() * 4;
+            System.out.println("Virtual threads unavailable, serving requests on " + threads + " platform threads");
+            return Executors.newFixedThreadPool(threads);
+        }
+    }
+
+    public void start() {
+        server.start();
+        System.out.println("CKD scoring server listening on port " + server.getAddress().getPort());
+    }
+
+    public void stop() {
+        server.stop(1);
+        if (coalescer != null) {
+            coalescer.close();
+        }
+        executor.shutdown();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private void handlePredict(HttpExchange exchange) throws IOException {
+        if (!requireMethod(exchange, "POST")) return;
+        try {
+            PatientData patient = JsonCodec.parsePatient(readBody(exchange));
+            PredictionResult result = coalescer != null
+                    ? coalescer.submit(patient).join()
+                    : predictionService.predictCKDRisk(patient);
+            respond(exchange, 200, JsonCodec.encodeResult(result));
+        } catch (IllegalArgumentException e) {
+            respond(exchange, 400, JsonCodec.encodeError(e.getMessage()));
+        } catch (CompletionException e) {
+            int status = e.getCause() instanceof IllegalArgumentException ? 400 : 500;
+            respond(exchange, status, JsonCodec.encodeError(e.getCause().getMessage()));
+        } catch (Exception e) {
+            respond(exchange, 500, JsonCodec.encodeError("Prediction failed: " + e.getMessage()));
+        }
+    }
+
+    private void handleBatch(HttpExchange exchange) throws IOException {
+        if (!requireMethod(exchange, "POST")) return;
+        try {
+            List<PatientData> patients = JsonCodec.parsePatients(readBody(exchange));
+            List<PredictionResult> results = predictionService.predictBatch(patients);
+            respond(exchange, 200, JsonCodec.encodeResults(results));
+        } catch (IllegalArgumentException e) {
+            respond(exchange, 400, JsonCodec.encodeError(e.getMessage()));
+        } catch (Exception e) {
+            respond(exchange, 500, JsonCodec.encodeError("Batch prediction failed: " + e.getMessage()));
+        }
+    }
+
+    private void handleHealth(HttpExchange exchange) throws IOException {
+        if (!requireMethod(exchange, "GET")) return;
+        boolean healthy = predictionService.isServiceHealthy();
+        ModelSnapshot model = predictionService.getActiveModel();
+        StringBuilder body = new StringBuilder(128);
+        body.append("{\"status\":\"").append(healthy ? "UP" : "DOWN").append("\",\"model\":");
+        JsonCodec.appendString(body, model.getVersion());
+        body.append(",\"generation\":").append(model.getGeneration()).append('}');
+        respond(exchange, healthy ? 200 : 503, body.toString());
+    }
+
+    private void handleMetrics(HttpExchange exchange) throws IOException {
+        if (!requireMethod(exchange, "GET")) return;
+        StringBuilder body = new StringBuilder(predictionService.getMetrics().getSnapshot());
+        if (coalescer != null) {
+            body.append("coalescer: ").append(coalescer.getStats()).append('\n');
+        }
+        body.append(predictionService.getShadowReport());
+        PredictionCache cache = predictionService.getCache();
+        if (cache != null) {
+            body.append("cache: ").append(cache).append('\n');
+        }
+        byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private boolean requireMethod(HttpExchange exchange, String method) throws IOException {
+        if (method.equals(exchange.getRequestMethod())) {
+            return true;
+        }
+        exchange.getResponseHeaders().set("Allow", method);
+        respond(exchange, 405, JsonCodec.encodeError("Method not allowed, use " + method));
+        return false;
+    }
+
+    private static byte[] readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            ByteArrayOutputStream body = new ByteArrayOutputStream(1024);
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                if (body.size() + read > MAX_BODY_BYTES) {
+                    throw new IllegalArgumentException("Request body exceeds " + MAX_BODY_BYTES + " bytes");
+                }
+                body.write(buffer, 0, read);
+            }
+            return body.toByteArray();
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        PredictionService service = PredictionService.getInstance();
+
+        if (args.length > 1) {
+            new ModelWatcher(service, Paths.get(args[1])).start();
+        }
+
+        PredictionCoalescer coalescer = Boolean.getBoolean("ckd.coalesce")
+                ? new PredictionCoalescer(service, 256, 500)
+                : null;
+        ScoringServer scoringServer = new ScoringServer(service, port, coalescer);
+        Runtime.getRuntime().addShutdownHook(new Thread(scoringServer::stop));
+        scoringServer.start();
+    }
+}
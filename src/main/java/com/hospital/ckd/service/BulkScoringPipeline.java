@@ -0,0 +1,357 @@
+package com.hospital.ckd.service;
+
+import com.hospital.ckd.data.CsvPatientReader;
+import com.hospital.ckd.data.FeatureSpec;
+import com.hospital.ckd.data.PatientChunk;
+import com.hospital.ckd.data.Preprocessor;
+import com.hospital.ckd.ml.Explanation;
+import com.hospital.ckd.ml.FeatureAttribution;
+import com.hospital.ckd.ml.NeuralNetwork;
+import com.hospital.ckd.ml.Workspace;
+import com.hospital.ckd.model.PatientData;
+import com.hospital.ckd.model.PredictionResult;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Headless streaming pipeline for scoring large CSV patient extracts.
+ *
+ * Stages run in parallel and are connected by bounded queues:
+ * one reader thread parses the memory-mapped file into pooled {@link PatientChunk}s,
+ * N scoring threads validate, normalize and predict each chunk, and one writer thread
+ * writes results in input order. Only a fixed pool of chunks ever exists, so memory use
+ * does not depend on the size of the file. With explanations enabled, every scored row also
+ * gets the Shapley value of each feature (see {@link FeatureAttribution}) and its strongest feature.
+ *
+ * Usage: BulkScoringPipeline &lt;input.csv&gt; &lt;output.csv&gt; [threads] [--explain]
+ */
+public class BulkScoringPipeline {
+    private static final int DEFAULT_CHUNK_ROWS = 4096;
+
+    private final NeuralNetwork neuralNetwork;
+    private final FeatureSpec featureSpec;
+    private final int workerCount;
+    private final int chunkRows;
+    private FeatureAttribution attribution;
+
+    public BulkScoringPipeline(NeuralNetwork neuralNetwork) {
+        this(neuralNetwork, Runtime.getRuntime().availableProcessors(), DEFAULT_CHUNK_ROWS);
+    }
+
+    /**
+     * @param neuralNetwork Network used for scoring (only read, never modified)
+     * @param workerCount Number of scoring threads
+     * @param chunkRows Rows per chunk handed between stages
+     */
+    public BulkScoringPipeline(NeuralNetwork neuralNetwork, int workerCount, int chunkRows) {
+        if (workerCount <= 0 || chunkRows <= 0) {
+            throw new IllegalArgumentException("Worker count and chunk size must be positive");
+        }
+        this.neuralNetwork = neuralNetwork;
+        this.featureSpec = Preprocessor.featureSpecFor(neuralNetwork.getInputMins(), neuralNetwork.getInputMaxs());
+        this.workerCount = workerCount;
+        this.chunkRows = chunkRows;
+    }
+
+    /**
+     * Add per-feature Shapley values to every scored row, relative to the given baseline patient
+     * @param baselinePatient Reference patient, or null to turn explanations off
+     */
+    public void setExplanations(PatientData baselinePatient) {
+        if (baselinePatient == null) {
+            attribution = null;
+            return;
+        }
+        double[] baseline = new double[Preprocessor.FEATURE_COUNT];
+        int validationError = featureSpec.prepare(baselinePatient, baseline);
+        if (validationError != FeatureSpec.OK) {
+            throw new IllegalArgumentException("Invalid baseline patient: " + featureSpec.describe(validationError));
+        }
+        attribution = new FeatureAttribution(neuralNetwork, baseline);
+    }
+
+    /**
+     * Score every row of the input file and write one result line per row
+     * Output columns: line, risk_probability, risk_percentage, risk_category, error
+     *
+     * @return Summary of the run
+     */
+    public Summary run(Path input, Path output) throws IOException, InterruptedException {
+        int poolSize = workerCount * 2 + 2;
+        BlockingQueue<PatientChunk> freeChunks = new ArrayBlockingQueue<>(poolSize);
+        BlockingQueue<PatientChunk> readQueue = new ArrayBlockingQueue<>(poolSize);
+        BlockingQueue<PatientChunk> scoredQueue = new ArrayBlockingQueue<>(poolSize);
+        for (int i = 0; i < poolSize; i++) {
+            freeChunks.add(new PatientChunk(chunkRows));
+        }
+        // Empty chunk with no rows tells the next stage that the input is exhausted
+        PatientChunk endOfInput = new PatientChunk(1);
+
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        long[] counts = new long[2];
+        long startTime = System.nanoTime();
+
+        List<Thread> threads = new ArrayList<>();
+        threads.add(new Thread(() -> runStage(failure, threads,
+                () -> readInput(input, freeChunks, readQueue, endOfInput)), "bulk-reader"));
+        for (int i = 0; i < workerCount; i++) {
+            threads.add(new Thread(() -> runStage(failure, threads,
+                    () -> scoreChunks(readQueue, scoredQueue, endOfInput)), "bulk-scorer-" + i));
+        }
+        Thread writer = new Thread(() -> runStage(failure, threads,
+                () -> writeResults(output, scoredQueue, freeChunks, endOfInput, counts)), "bulk-writer");
+        threads.add(writer);
+
+        for (Thread thread : threads) {
+            thread.setDaemon(true);
+            thread.start();
+        }
+        try {
+            writer.join();
+        } finally {
+            for (Thread thread : threads) {
+                thread.interrupt();
+            }
+        }
+
+        Throwable error = failure.get();
+        if (error instanceof IOException) {
+            throw (IOException) error;
+        }
+        if (error != null) {
+            throw new RuntimeException("Bulk scoring failed: " + error.getMessage(), error);
+        }
+
+        return new Summary(counts[0], counts[1], System.nanoTime() - startTime);
+    }
+
+    /**
+     * Reader stage: fill pooled chunks from the file
+     */
+    private void readInput(Path input, BlockingQueue<PatientChunk> freeChunks,
+                           BlockingQueue<PatientChunk> readQueue, PatientChunk endOfInput) throws Exception {
+        long sequence = 0;
+        try (CsvPatientReader reader = new CsvPatientReader(input)) {
+            while (true) {
+                PatientChunk chunk = freeChunks.take();
+                if (reader.readChunk(chunk) == 0) {
+                    break;
+                }
+                chunk.setSequence(sequence++);
+                readQueue.put(chunk);
+            }
+        }
+        endOfInput.setSequence(sequence);
+        for (int i = 0; i < workerCount; i++) {
+            readQueue.put(endOfInput);
+        }
+    }
+
+    /**
+     * Scoring stage: validate, normalize and predict every row of a chunk
+     */
+    private void scoreChunks(BlockingQueue<PatientChunk> readQueue, BlockingQueue<PatientChunk> scoredQueue,
+                             PatientChunk endOfInput) throws Exception {
+        Workspace workspace = neuralNetwork.newWorkspace();
+        double[] row = workspace.getInput();
+        FeatureAttribution explainer = attribution;
+        FeatureAttribution.Scratch explainScratch = explainer == null ? null : explainer.newScratch();
+        while (true) {
+            PatientChunk chunk = readQueue.take();
+            if (chunk == endOfInput) {
+                scoredQueue.put(endOfInput);
+                return;
+            }
+
+            double[] values = chunk.getValues();
+            double[] normalized = chunk.getNormalized();
+            double[] probabilities = chunk.getProbabilities();
+            for (int i = 0; i < chunk.getSize(); i++) {
+                if (chunk.getError(i) != null) {
+                    continue;
+                }
+                int offset = chunk.offsetOf(i);
+                int validationError = featureSpec.prepare(values, offset, normalized, offset);
+                if (validationError != FeatureSpec.OK) {
+                    chunk.setError(i, featureSpec.describe(validationError));
+                    continue;
+                }
+                System.arraycopy(normalized, offset, row, 0, row.length);
+                probabilities[i] = neuralNetwork.predictInto(row, workspace);
+                if (explainer != null) {
+                    Explanation explanation = explainer.explain(row, explainScratch);
+                    double[] attributions = chunk.getAttributions();
+                    for (int f = 0; f < Preprocessor.FEATURE_COUNT; f++) {
+                        attributions[offset + f] = explanation.getShapley(f);
+                    }
+                }
+            }
+            scoredQueue.put(chunk);
+        }
+    }
+
+    /**
+     * Writer stage: write chunks back in input order and return them to the pool
+     */
+    private void writeResults(Path output, BlockingQueue<PatientChunk> scoredQueue, BlockingQueue<PatientChunk> freeChunks,
+                              PatientChunk endOfInput, long[] counts) throws Exception {
+        Map<Long, PatientChunk> pending = new HashMap<>();
+        long nextSequence = 0;
+        int finishedWorkers = 0;
+        StringBuilder line = new StringBuilder(128);
+
+        try (Writer writer = new BufferedWriter(Files.newBufferedWriter(output, StandardCharsets.UTF_8), 1 << 16)) {
+            writer.write(header());
+            while (finishedWorkers < workerCount || nextSequence < endOfInput.getSequence()) {
+                PatientChunk chunk = scoredQueue.take();
+                if (chunk == endOfInput) {
+                    finishedWorkers++;
+                    continue;
+                }
+                pending.put(chunk.getSequence(), chunk);
+
+                PatientChunk next;
+                while ((next = pending.remove(nextSequence)) != null) {
+                    writeChunk(writer, next, line, counts);
+                    nextSequence++;
+                    freeChunks.put(next);
+                }
+            }
+        }
+    }
+
+    private String header() {
+        StringBuilder header = new StringBuilder("line,risk_probability,risk_percentage,risk_category,error");
+        if (attribution != null) {
+            for (int f = 0; f < Preprocessor.FEATURE_COUNT; f++) {
+                header.append(",shap_").append(FeatureSpec.getKey(f));
+            }
+            header.append(",top_feature");
+        }
+        return header.append('\n').toString();
+    }
+
+    private void writeChunk(Writer writer, PatientChunk chunk, StringBuilder line, long[] counts) throws IOException {
+        double[] probabilities = chunk.getProbabilities();
+        boolean explained = attribution != null;
+        for (int i = 0; i < chunk.getSize(); i++) {
+            line.setLength(0);
+            line.append(chunk.getLineNumber(i)).append(',');
+            String error = chunk.getError(i);
+            if (error == null) {
+                PredictionResult result = new PredictionResult(probabilities[i]);
+                line.append(probabilities[i]).append(',')
+                    .append(result.getRiskPercentage()).append(',')
+                    .append(result.getRiskCategory()).append(',');
+                if (explained) {
+                    appendAttributions(line, chunk.getAttributions(), chunk.offsetOf(i));
+                }
+                counts[0]++;
+            } else {
+                line.append(",,,\"").append(error).append('"');
+                if (explained) {
+                    for (int f = 0; f <= Preprocessor.FEATURE_COUNT; f++) {
+                        line.append(',');
+                    }
+                }
+                counts[1]++;
+            }
+            line.append('\n');
+            writer.append(line);
+        }
+    }
+
+    private static void appendAttributions(StringBuilder line, double[] attributions, int offset) {
+        int top = 0;
+        for (int f = 0; f < Preprocessor.FEATURE_COUNT; f++) {
+            double value = attributions[offset + f];
+            line.append(',').append((float) value);
+            if (Math.abs(value) > Math.abs(attributions[offset + top])) {
+                top = f;
+            }
+        }
+        line.append(',').append(FeatureSpec.getKey(top));
+    }
+
+    private interface Stage {
+        void run() throws Exception;
+    }
+
+    /**
+     * Run a stage, recording the first failure and stopping the other stages
+     */
+    private void runStage(AtomicReference<Throwable> failure, List<Thread> threads, Stage stage) {
+        try {
+            stage.run();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Throwable t) {
+            failure.compareAndSet(null, t);
+            // Unblock every other stage so run() can report the failure
+            for (Thread thread : threads) {
+                thread.interrupt();
+            }
+        }
+    }
+
+    /**
+     * Result counts and timing of a bulk run
+     */
+    public static class Summary {
+        private final long scoredRows;
+        private final long rejectedRows;
+        private final long elapsedNanos;
+
+        Summary(long scoredRows, long rejectedRows, long elapsedNanos) {
+            this.scoredRows = scoredRows;
+            this.rejectedRows = rejectedRows;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public long getScoredRows() { return scoredRows; }
+        public long getRejectedRows() { return rejectedRows; }
+        public long getElapsedNanos() { return elapsedNanos; }
+
+        public double getRowsPerSecond() {
+            return (scoredRows + rejectedRows) / (elapsedNanos / 1e9);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Scored %d rows, rejected %d rows in %.2f s (%.0f rows/s)",
+                    scoredRows, rejectedRows, elapsedNanos / 1e9, getRowsPerSecond());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: BulkScoringPipeline <input.csv> <output.csv> [threads] [--explain]");
+            System.exit(1);
+        }
+        boolean explain = args[args.length - 1].equals("--explain");
+        int threads = args.length > 2 && !args[2].equals("--explain")
+                ? Integer.parseInt(args[2])
+                : Runtime.getRuntime().availableProcessors();
+
+        NeuralNetwork network = PredictionService.getInstance().getActiveModel().getNetwork();
+        BulkScoringPipeline pipeline = new BulkScoringPipeline(network, threads, DEFAULT_CHUNK_ROWS);
+        if (explain) {
+            pipeline.setExplanations(PredictionService.REFERENCE_PATIENT);
+        }
+        Summary summary = pipeline.run(Paths.get(args[0]), Paths.get(args[1]));
+        System.out.println(summary);
+    }
+}
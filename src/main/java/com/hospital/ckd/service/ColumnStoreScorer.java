@@ -0,0 +1,188 @@
+package com.hospital.ckd.service;
+
+import com.hospital.ckd.data.CsvPatientReader;
+import com.hospital.ckd.data.FeatureSpec;
+import com.hospital.ckd.data.PatientChunk;
+import com.hospital.ckd.data.PatientColumnStore;
+import com.hospital.ckd.data.Preprocessor;
+import com.hospital.ckd.ml.FloatNetwork;
+import com.hospital.ckd.ml.ParallelRows;
+import com.hospital.ckd.ml.Predictor;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Scores every row of a {@link PatientColumnStore} in place.
+ *
+ * Rows are read through the store's cursor, validated and normalized into a reusable
+ * block of primitive rows, and scored with the predictor's batch path; no PatientData
+ * objects are created. Blocks are spread over the common fork-join pool. Rows that fail
+ * validation keep a NaN prediction. A {@link FloatNetwork} predictor is fed float32 columns
+ * directly, so a block's normalized inputs take half the memory and are scored column-wise.
+ *
+ * Usage: ColumnStoreScorer &lt;patients.csv&gt; [store.ckdc]
+ * Loads the CSV into an off-heap store (file-backed if a path is given), scores it and
+ * prints timings and heap usage.
+ */
+public class ColumnStoreScorer {
+    private static final int BLOCK_ROWS = 512;
+
+    private final Predictor predictor;
+    private final FeatureSpec featureSpec;
+    private final LongAdder scored = new LongAdder();
+    private final LongAdder invalid = new LongAdder();
+
+    public ColumnStoreScorer(Predictor predictor) {
+        this(predictor, Preprocessor.getFeatureSpec());
+    }
+
+    /**
+     * @param featureSpec Validation limits and normalization ranges the predictor expects
+     */
+    public ColumnStoreScorer(Predictor predictor, FeatureSpec featureSpec) {
+        this.predictor = predictor;
+        this.featureSpec = featureSpec;
+    }
+
+    /**
+     * Score rows [0, store.size()) and store the probabilities in the prediction column
+     * @return Number of rows scored
+     */
+    public long scoreAll(PatientColumnStore store) {
+        long before = scored.sum();
+        ParallelRows.forEach(0, store.size(), BLOCK_ROWS, (from, to) -> scoreBlock(store, from, to));
+        return scored.sum() - before;
+    }
+
+    private void scoreBlock(PatientColumnStore store, int from, int to) {
+        if (predictor instanceof FloatNetwork) {
+            scoreFloatBlock((FloatNetwork) predictor, store, from, to);
+            return;
+        }
+        double[][] rows = new double[to - from][Preprocessor.FEATURE_COUNT];
+        int[] rowIndexes = new int[to - from];
+        PatientColumnStore.Cursor cursor = store.cursor();
+
+        int valid = 0;
+        for (int row = from; row < to; row++) {
+            cursor.moveTo(row);
+            // Invalid rows leave garbage in rows[valid], which the next row overwrites
+            if (featureSpec.prepare(cursor, rows[valid], 0) != FeatureSpec.OK) {
+                cursor.setPrediction(Double.NaN);
+                invalid.increment();
+                continue;
+            }
+            rowIndexes[valid++] = row;
+        }
+        if (valid == 0) {
+            return;
+        }
+
+        double[] probabilities = predictor.predictBatch(valid == rows.length ? rows : Arrays.copyOf(rows, valid));
+        for (int i = 0; i < valid; i++) {
+            store.setPrediction(rowIndexes[i], probabilities[i]);
+        }
+        scored.add(valid);
+    }
+
+    /**
+     * Normalize valid rows into float32 columns and score them with the column kernel
+     */
+    private void scoreFloatBlock(FloatNetwork network, PatientColumnStore store, int from, int to) {
+        float[][] columns = new float[Preprocessor.FEATURE_COUNT][to - from];
+        double[] row = new double[Preprocessor.FEATURE_COUNT];
+        int[] rowIndexes = new int[to - from];
+        PatientColumnStore.Cursor cursor = store.cursor();
+
+        int valid = 0;
+        for (int index = from; index < to; index++) {
+            cursor.moveTo(index);
+            if (featureSpec.prepare(cursor, row, 0) != FeatureSpec.OK) {
+                cursor.setPrediction(Double.NaN);
+                invalid.increment();
+                continue;
+            }
+            for (int f = 0; f < row.length; f++) {
+                columns[f][valid] = (float) row[f];
+            }
+            rowIndexes[valid++] = index;
+        }
+        if (valid == 0) {
+            return;
+        }
+
+        double[] probabilities = new double[valid];
+        network.predictColumns(columns, 0, valid, network.newColumnBuffers(), probabilities, 0);
+        for (int i = 0; i < valid; i++) {
+            store.setPrediction(rowIndexes[i], probabilities[i]);
+        }
+        scored.add(valid);
+    }
+
+    // Getters
+    public long getScored() { return scored.sum(); }
+    public long getInvalid() { return invalid.sum(); }
+
+    /**
+     * Load a CSV file into a column store, using the reader's streaming chunks
+     */
+    public static int load(Path csv, PatientColumnStore store) throws IOException {
+        int loaded = 0;
+        PatientChunk chunk = new PatientChunk(4096);
+        try (CsvPatientReader reader = new CsvPatientReader(csv)) {
+            while (reader.readChunk(chunk) > 0) {
+                loaded += store.appendChunk(chunk);
+            }
+        }
+        return loaded;
+    }
+
+    private static long countLines(Path csv) throws IOException {
+        long lines = 0;
+        PatientChunk chunk = new PatientChunk(4096);
+        try (CsvPatientReader reader = new CsvPatientReader(csv)) {
+            int rows;
+            while ((rows = reader.readChunk(chunk)) > 0) {
+                lines += rows;
+            }
+        }
+        return lines;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: ColumnStoreScorer <patients.csv> [store.ckdc]");
+            System.exit(1);
+        }
+        Path csv = Paths.get(args[0]);
+        long rows = countLines(csv);
+        if (rows > PatientColumnStore.MAX_CAPACITY) {
+            throw new IllegalArgumentException(csv + " has more rows than a column store can hold");
+        }
+        int capacity = (int) Math.max(1, rows);
+
+        long start = System.nanoTime();
+        try (PatientColumnStore store = args.length > 1
+                ? PatientColumnStore.create(Paths.get(args[1]), capacity)
+                : PatientColumnStore.allocate(capacity)) {
+            int loaded = load(csv, store);
+            long loadedAt = System.nanoTime();
+
+            ModelSnapshot model = PredictionService.getInstance().getActiveModel();
+            ColumnStoreScorer scorer = new ColumnStoreScorer(model.getPredictor(), model.getFeatureSpec());
+            long count = scorer.scoreAll(store);
+            long scoredAt = System.nanoTime();
+
+            Runtime runtime = Runtime.getRuntime();
+            System.out.printf("Loaded %d rows in %.2f s; scored %d (%d invalid) in %.2f s (%.0f rows/s)%n",
+                    loaded, (loadedAt - start) / 1e9, count, scorer.getInvalid(), (scoredAt - loadedAt) / 1e9,
+                    count / ((scoredAt - loadedAt) / 1e9));
+            System.out.printf("Off-heap columns: %.1f MB, heap in use: %.1f MB%n",
+                    capacity * 12.0 * 8 / (1 << 20), (runtime.totalMemory() - runtime.freeMemory()) / (double) (1 << 20));
+        }
+    }
+}
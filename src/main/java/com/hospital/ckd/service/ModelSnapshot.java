@@ -0,0 +1,81 @@
+package com.hospital.ckd.service;
+
+import com.hospital.ckd.data.FeatureSpec;
+import com.hospital.ckd.data.Preprocessor;
+import com.hospital.ckd.ml.FeatureAttribution;
+import com.hospital.ckd.ml.InferenceMode;
+import com.hospital.ckd.ml.NeuralNetwork;
+import com.hospital.ckd.ml.Predictor;
+import com.hospital.ckd.ml.Workspace;
+import com.hospital.ckd.model.PatientData;
+
+/**
+ * Immutable view of the model currently used for predictions.
+ * A snapshot is fully built and warmed up before it is published, and it is never
+ * modified afterwards, so readers can use it without any locking.
+ * The feature spec is fixed when the snapshot is built: the model's own input ranges
+ * when its file stores them, otherwise the active {@link Preprocessor} spec.
+ */
+public final class ModelSnapshot {
+    private final NeuralNetwork network;
+    private final Predictor predictor;
+    private final InferenceMode mode;
+    private final FeatureSpec featureSpec;
+    private final String version;
+    private final long generation;
+    private final long loadedAtMillis;
+    private final ThreadLocal<Workspace> workspaces;
+    // Built on first use; a race only builds an identical second copy
+    private volatile FeatureAttribution attribution;
+
+    ModelSnapshot(NeuralNetwork network, String version, long generation) {
+        this(network, network, InferenceMode.DOUBLE, version, generation);
+    }
+
+    /**
+     * @param network Double-precision source network
+     * @param predictor What actually scores requests: the network itself or a reduced-precision copy
+     * @param mode Arithmetic used by the predictor
+     */
+    ModelSnapshot(NeuralNetwork network, Predictor predictor, InferenceMode mode, String version, long generation) {
+        this.network = network;
+        this.predictor = predictor;
+        this.mode = mode;
+        this.featureSpec = Preprocessor.featureSpecFor(network.getInputMins(), network.getInputMaxs());
+        this.version = version;
+        this.generation = generation;
+        this.loadedAtMillis = System.currentTimeMillis();
+        this.workspaces = ThreadLocal.withInitial(predictor::newWorkspace);
+    }
+
+    /**
+     * Per-thread scratch buffers sized for this snapshot's predictor
+     */
+    Workspace workspace() {
+        return workspaces.get();
+    }
+
+    /**
+     * Explainer for this snapshot's double-precision network, relative to the given baseline patient
+     * The first call fixes the baseline for the snapshot's lifetime.
+     */
+    FeatureAttribution attribution(PatientData baselinePatient) {
+        FeatureAttribution explainer = attribution;
+        if (explainer == null) {
+            double[] baseline = new double[Preprocessor.FEATURE_COUNT];
+            featureSpec.prepare(baselinePatient, baseline);
+            explainer = new FeatureAttribution(network, baseline);
+            attribution = explainer;
+        }
+        return explainer;
+    }
+
+    // Getters
+    public NeuralNetwork getNetwork() { return network; }
+    public Predictor getPredictor() { return predictor; }
+    public InferenceMode getMode() { return mode; }
+    public FeatureSpec getFeatureSpec() { return featureSpec; }
+    public String getVersion() { return version; }
+    public long getGeneration() { return generation; }
+    public long getLoadedAtMillis() { return loadedAtMillis; }
+}
@@ -0,0 +1,112 @@
+package com.hospital.ckd.service;
+
+import com.hospital.ckd.data.CsvPatientReader;
+import com.hospital.ckd.data.FeatureSpec;
+import com.hospital.ckd.data.PatientChunk;
+import com.hospital.ckd.data.Preprocessor;
+import com.hospital.ckd.ml.AdamOptimizer;
+import com.hospital.ckd.ml.ModelFile;
+import com.hospital.ckd.ml.NeuralNetwork;
+import com.hospital.ckd.ml.Trainer;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Headless job that trains a CKD network on a labelled CSV extract.
+ *
+ * Each row holds the ten clinical values followed by a 0/1 CKD label. Rows that fail
+ * validation are skipped. The architecture matches the default network (10 -> 8 -> 1, sigmoid).
+ *
+ * The trained network is written as a binary model file (see {@link ModelFile}) together
+ * with the feature ranges its inputs were normalized with, so serving normalizes the same way.
+ * Set -Dckd.features to train on ranges recomputed by {@link com.hospital.ckd.data.FeatureStatistics}.
+ *
+ * Usage: ModelTrainingJob &lt;train.csv&gt; &lt;model.ckdm&gt; [epochs] [batchSize] [threads]
+ */
+public class ModelTrainingJob {
+    private static final int[] LAYER_SIZES = {8, 1};
+    private static final String[] ACTIVATIONS = {"sigmoid", "sigmoid"};
+
+    /**
+     * Normalized training data loaded from a CSV file
+     */
+    static class TrainingData {
+        final double[][] inputs;
+        final double[] labels;
+        final long skippedRows;
+
+        TrainingData(double[][] inputs, double[] labels, long skippedRows) {
+            this.inputs = inputs;
+            this.labels = labels;
+            this.skippedRows = skippedRows;
+        }
+    }
+
+    /**
+     * Load and normalize all valid labelled rows of a CSV file with the active feature spec
+     */
+    static TrainingData load(Path file) throws IOException {
+        return load(file, Preprocessor.getFeatureSpec());
+    }
+
+    /**
+     * Load and normalize all valid labelled rows of a CSV file
+     */
+    static TrainingData load(Path file, FeatureSpec spec) throws IOException {
+        List<double[]> inputs = new ArrayList<>();
+        double[] labels = new double[4096];
+        long skipped = 0;
+
+        PatientChunk chunk = new PatientChunk(4096);
+        try (CsvPatientReader reader = new CsvPatientReader(file)) {
+            reader.setReadLabels(true);
+            while (reader.readChunk(chunk) > 0) {
+                for (int i = 0; i < chunk.getSize(); i++) {
+                    int offset = chunk.offsetOf(i);
+                    double[] normalized = new double[Preprocessor.FEATURE_COUNT];
+                    if (chunk.getError(i) != null
+                            || spec.prepare(chunk.getValues(), offset, normalized, 0) != FeatureSpec.OK) {
+                        skipped++;
+                        continue;
+                    }
+                    if (inputs.size() == labels.length) {
+                        labels = Arrays.copyOf(labels, labels.length * 2);
+                    }
+                    labels[inputs.size()] = chunk.getLabels()[i];
+                    inputs.add(normalized);
+                }
+            }
+        }
+
+        return new TrainingData(inputs.toArray(new double[0][]), Arrays.copyOf(labels, inputs.size()), skipped);
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: ModelTrainingJob <train.csv> <model.ckdm> [epochs] [batchSize] [threads]");
+            System.exit(1);
+        }
+        int epochs = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        int batchSize = args.length > 3 ? Integer.parseInt(args[3]) : 256;
+        int threads = args.length > 4 ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+
+        FeatureSpec spec = Preprocessor.getFeatureSpec();
+        TrainingData data = load(Paths.get(args[0]), spec);
+        System.out.println("Loaded " + data.inputs.length + " training rows (" + data.skippedRows + " skipped)");
+
+        NeuralNetwork network = new NeuralNetwork(Preprocessor.FEATURE_COUNT, LAYER_SIZES, ACTIVATIONS, 42L);
+        Trainer trainer = new Trainer(network, new AdamOptimizer(0.01), batchSize, threads, 42L);
+        trainer.train(data.inputs, data.labels, epochs);
+        network.setInputRanges(spec.getMins(), spec.getMaxs());
+
+        System.out.println(network.getNetworkSummary());
+
+        ModelFile.save(network, Paths.get(args[1]));
+        System.out.println("Model saved to " + args[1]);
+    }
+}
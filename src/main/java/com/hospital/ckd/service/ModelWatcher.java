@@ -0,0 +1,88 @@
+package com.hospital.ckd.service;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.FileTime;
+
+/**
+ * Watches a model directory and hot-swaps the prediction model whenever a
+ * model file (*.ckdm) is created or replaced there.
+ */
+public class ModelWatcher implements AutoCloseable {
+    private static final String MODEL_EXTENSION = ".ckdm";
+
+    private final PredictionService service;
+    private final Path directory;
+    private final WatchService watchService;
+    private final Thread thread;
+    // Last file version loaded, so the create + modify events of one copy trigger a single reload
+    private Path lastLoadedFile;
+    private FileTime lastLoadedTime;
+
+    public ModelWatcher(PredictionService service, Path directory) throws IOException {
+        this.service = service;
+        this.directory = directory;
+        this.watchService = FileSystems.getDefault().newWatchService();
+        directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        this.thread = new Thread(this::watch, "ckd-model-watcher");
+        this.thread.setDaemon(true);
+    }
+
+    /**
+     * Start watching in a background thread
+     */
+    public void start() {
+        thread.start();
+        System.out.println("Watching " + directory + " for model updates");
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        continue;
+                    }
+                    Path changed = directory.resolve((Path) event.context());
+                    if (changed.getFileName().toString().endsWith(MODEL_EXTENSION)) {
+                        reload(changed);
+                    }
+                }
+                if (!key.reset()) {
+                    System.err.println("Model directory " + directory + " is no longer accessible");
+                    return;
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Watcher closed
+        }
+    }
+
+    private void reload(Path modelFile) {
+        try {
+            FileTime modified = Files.getLastModifiedTime(modelFile);
+            if (modelFile.equals(lastLoadedFile) && modified.equals(lastLoadedTime)) {
+                return;
+            }
+            service.reloadModel(modelFile);
+            lastLoadedFile = modelFile;
+            lastLoadedTime = modified;
+        } catch (Exception e) {
+            System.err.println("Model reload from " + modelFile + " rejected: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        thread.interrupt();
+        watchService.close();
+    }
+}
@@ -0,0 +1,204 @@
+package com.hospital.ckd.service;
+
+import com.hospital.ckd.model.PredictionResult;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded, concurrent cache of prediction results keyed by quantized normalized inputs.
+ *
+ * Each normalized feature (in [0, 1]) is rounded to one of {@code quantizationLevels} steps and the
+ * ten 16-bit codes are packed into three longs, so a key is compact and compared exactly.
+ * Inputs that fall into the same quantization cell share one immutable {@link PredictionResult}.
+ *
+ * The cache is split into lock-striped LRU segments. Entries remember the model generation
+ * they were computed with and are ignored once a different model is active.
+ */
+public class PredictionCache {
+    private static final int SEGMENT_COUNT = 16;
+    private static final int MAX_QUANTIZATION_LEVELS = 0xFFFF;
+    private static final int MAX_FEATURES = 12;
+
+    private final Segment[] segments;
+    private final int quantizationLevels;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param maxEntries Maximum number of cached results across all segments
+     * @param quantizationLevels Steps per feature; inputs closer than 1 / quantizationLevels may share a result
+     */
+    public PredictionCache(int maxEntries, int quantizationLevels) {
+        if (maxEntries < SEGMENT_COUNT) {
+            throw new IllegalArgumentException("Cache needs room for at least " + SEGMENT_COUNT + " entries");
+        }
+        if (quantizationLevels <= 0 || quantizationLevels > MAX_QUANTIZATION_LEVELS) {
+            throw new IllegalArgumentException("Quantization levels must be between 1 and " + MAX_QUANTIZATION_LEVELS);
+        }
+        this.quantizationLevels = quantizationLevels;
+        this.segments = new Segment[SEGMENT_COUNT];
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            segments[i] = new Segment(maxEntries / SEGMENT_COUNT);
+        }
+    }
+
+    /**
+     * Build the cache key for a normalized input vector
+     */
+    public Key keyFor(double[] normalizedInputs) {
+        if (normalizedInputs.length > MAX_FEATURES) {
+            throw new IllegalArgumentException("Cache keys hold at most " + MAX_FEATURES + " features");
+        }
+        long first = 0;
+        long second = 0;
+        long third = 0;
+        for (int i = 0; i < normalizedInputs.length; i++) {
+            long code = Math.round(Math.max(0.0, Math.min(1.0, normalizedInputs[i])) * quantizationLevels);
+            long shifted = code << ((i & 3) * 16);
+            if (i < 4) {
+                first |= shifted;
+            } else if (i < 8) {
+                second |= shifted;
+            } else {
+                third |= shifted;
+            }
+        }
+        return new Key(first, second, third);
+    }
+
+    /**
+     * Look up a result computed by the given model generation
+     * @return The cached result, or null on a miss
+     */
+    public PredictionResult get(Key key, long generation) {
+        Entry entry = segmentFor(key).get(key);
+        if (entry != null && entry.generation == generation) {
+            hits.increment();
+            return entry.result;
+        }
+        misses.increment();
+        return null;
+    }
+
+    public void put(Key key, long generation, PredictionResult result) {
+        segmentFor(key).put(key, new Entry(result, generation));
+    }
+
+    /**
+     * Drop every entry (called when the active model changes)
+     */
+    public void clear() {
+        for (Segment segment : segments) {
+            segment.clearAll();
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.sizeLocked();
+        }
+        return size;
+    }
+
+    private Segment segmentFor(Key key) {
+        return segments[key.hash & (SEGMENT_COUNT - 1)];
+    }
+
+    // Statistics
+    public long getHits() { return hits.sum(); }
+    public long getMisses() { return misses.sum(); }
+    public long getEvictions() { return evictions.sum(); }
+    public int getQuantizationLevels() { return quantizationLevels; }
+
+    public double getHitRate() {
+        long total = getHits() + getMisses();
+        return total == 0 ? 0 : getHits() / (double) total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("entries=%d hits=%d misses=%d evictions=%d hitRate=%.3f",
+                size(), getHits(), getMisses(), getEvictions(), getHitRate());
+    }
+
+    /**
+     * Quantized input vector packed into three longs
+     */
+    public static final class Key {
+        private final long first;
+        private final long second;
+        private final long third;
+        private final int hash;
+
+        Key(long first, long second, long third) {
+            this.first = first;
+            this.second = second;
+            this.third = third;
+            long mixed = (first * 0x9E3779B97F4A7C15L) ^ (second * 0xC2B2AE3D27D4EB4FL) ^ (third * 0x165667B19E3779F9L);
+            this.hash = (int) (mixed ^ (mixed >>> 32));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return first == other.first && second == other.second && third == other.third;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static final class Entry {
+        final PredictionResult result;
+        final long generation;
+
+        Entry(PredictionResult result, long generation) {
+            this.result = result;
+            this.generation = generation;
+        }
+    }
+
+    /**
+     * One lock stripe: an access-ordered map that evicts its least recently used entry
+     */
+    private final class Segment {
+        private final LinkedHashMap<Key, Entry> entries;
+
+        Segment(int capacity) {
+            this.entries = new LinkedHashMap<>(capacity * 4 / 3 + 1, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                    if (size() > capacity) {
+                        evictions.increment();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+
+        synchronized Entry get(Key key) {
+            return entries.get(key);
+        }
+
+        synchronized void put(Key key, Entry entry) {
+            entries.put(key, entry);
+        }
+
+        synchronized void clearAll() {
+            entries.clear();
+        }
+
+        synchronized int sizeLocked() {
+            return entries.size();
+        }
+    }
+}
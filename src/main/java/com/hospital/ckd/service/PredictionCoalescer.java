@@ -0,0 +1,290 @@
+package com.hospital.ckd.service;
+
+import com.hospital.ckd.data.FeatureSpec;
+import com.hospital.ckd.data.Preprocessor;
+import com.hospital.ckd.metrics.PredictionMetrics;
+import com.hospital.ckd.model.PatientData;
+import com.hospital.ckd.model.PredictionResult;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects concurrent single-patient requests into micro-batches for one batched forward pass.
+ *
+ * A dispatcher thread takes the first waiting request and keeps collecting until the batch
+ * is full or the wait window has passed. The window adapts to the observed arrival rate:
+ * when fewer than one extra request is expected within the maximum wait, requests are
+ * dispatched immediately, so light traffic sees no added latency.
+ */
+public class PredictionCoalescer implements AutoCloseable {
+    // Weight of the newest arrival-rate sample in the moving average
+    private static final double RATE_SMOOTHING = 0.2;
+    private static final int SIZE_BUCKETS = 16;
+
+    private final PredictionService predictionService;
+    private final int maxBatchSize;
+    private final long maxWaitNanos;
+    private final BlockingQueue<Request> queue = new LinkedBlockingQueue<>();
+    private final Thread dispatcher;
+    private volatile boolean running = true;
+
+    // Arrivals per nanosecond, smoothed; only touched by the dispatcher thread
+    private double arrivalRate;
+    private volatile long currentWaitNanos;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder totalQueueWaitNanos = new LongAdder();
+    private final AtomicLong maxQueueWaitNanos = new AtomicLong();
+    private final AtomicLong maxBatch = new AtomicLong();
+    // Batch size histogram, bucket i counts sizes in [2^i, 2^(i+1))
+    private final AtomicLongArray batchSizeHistogram = new AtomicLongArray(SIZE_BUCKETS);
+
+    /**
+     * @param predictionService Service whose active model scores the batches
+     * @param maxBatchSize Largest number of requests scored together
+     * @param maxWaitMicros Longest time the first request of a batch waits for company
+     */
+    public PredictionCoalescer(PredictionService predictionService, int maxBatchSize, long maxWaitMicros) {
+        if (maxBatchSize <= 0 || maxWaitMicros < 0) {
+            throw new IllegalArgumentException("Batch size must be positive and wait time non-negative");
+        }
+        this.predictionService = predictionService;
+        this.maxBatchSize = maxBatchSize;
+        this.maxWaitNanos = TimeUnit.MICROSECONDS.toNanos(maxWaitMicros);
+        this.dispatcher = new Thread(this::dispatchLoop, "ckd-coalescer");
+        this.dispatcher.setDaemon(true);
+        this.dispatcher.start();
+    }
+
+    /**
+     * Queue one patient for scoring
+     * @return Future completed with the result, or exceptionally with IllegalArgumentException for invalid data
+     */
+    public CompletableFuture<PredictionResult> submit(PatientData patientData) {
+        CompletableFuture<PredictionResult> future = new CompletableFuture<>();
+        if (!running) {
+            future.completeExceptionally(new IllegalStateException("Coalescer is closed"));
+            return future;
+        }
+        Request request = new Request(patientData, future);
+        queue.add(request);
+        // close() may have run between the check and the add, after the dispatcher's final drain
+        if (!running && queue.remove(request)) {
+            future.completeExceptionally(new IllegalStateException("Coalescer is closed"));
+        }
+        return future;
+    }
+
+    private void dispatchLoop() {
+        List<Request> batch = new ArrayList<>(maxBatchSize);
+        long lastDispatch = System.nanoTime();
+        while (running) {
+            try {
+                Request first = queue.take();
+                batch.add(first);
+                queue.drainTo(batch, maxBatchSize - batch.size());
+
+                long waitNanos = adaptiveWait();
+                currentWaitNanos = waitNanos;
+                long deadline = first.enqueuedAt + waitNanos;
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    Request next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                    queue.drainTo(batch, maxBatchSize - batch.size());
+                }
+
+                long now = System.nanoTime();
+                updateArrivalRate(batch.size(), now - lastDispatch);
+                lastDispatch = now;
+                score(batch, now);
+            } catch (InterruptedException e) {
+                // Closed while collecting: fail what was already taken off the queue
+                fail(batch, new IllegalStateException("Coalescer is closed"));
+                break;
+            } catch (Throwable e) {
+                // Keep the dispatcher alive, or every queued future would hang
+                System.err.println("Failed to score batch of " + batch.size() + ": " + e);
+                fail(batch, e);
+            } finally {
+                batch.clear();
+            }
+        }
+
+        Request pending;
+        while ((pending = queue.poll()) != null) {
+            pending.future.completeExceptionally(new IllegalStateException("Coalescer is closed"));
+        }
+    }
+
+    /**
+     * Complete every request of a batch exceptionally; already completed ones are left as they are
+     */
+    private static void fail(List<Request> batch, Throwable cause) {
+        for (Request request : batch) {
+            request.future.completeExceptionally(cause);
+        }
+    }
+
+    /**
+     * Wait window for the next batch: long enough to fill it at the current arrival rate, but
+     * zero when fewer than one more request is expected within the maximum wait
+     */
+    private long adaptiveWait() {
+        double expectedArrivals = arrivalRate * maxWaitNanos;
+        if (expectedArrivals < 1.0) {
+            return 0;
+        }
+        double timeToFill = (maxBatchSize - 1) / arrivalRate;
+        return (long) Math.min(maxWaitNanos, timeToFill);
+    }
+
+    private void updateArrivalRate(int arrivals, long elapsedNanos) {
+        double sample = arrivals / (double) Math.max(1, elapsedNanos);
+        arrivalRate = arrivalRate == 0 ? sample : RATE_SMOOTHING * sample + (1 - RATE_SMOOTHING) * arrivalRate;
+    }
+
+    private void score(List<Request> batch, long dispatchTime) {
+        // Validate and normalize with the spec of the model that will score the batch
+        PredictionMetrics metrics = predictionService.getMetrics();
+        ModelSnapshot model = predictionService.getActiveModel();
+        FeatureSpec spec = model.getFeatureSpec();
+        List<Request> valid = new ArrayList<>(batch.size());
+        double[][] rows = new double[batch.size()][];
+        for (Request request : batch) {
+            long queueWait = dispatchTime - request.enqueuedAt;
+            totalQueueWaitNanos.add(queueWait);
+            maxQueueWaitNanos.accumulateAndGet(queueWait, Math::max);
+
+            double[] normalized = new double[Preprocessor.FEATURE_COUNT];
+            int validationError = spec.prepare(request.patientData, normalized);
+            if (validationError != FeatureSpec.OK) {
+                metrics.recordFailure();
+                request.future.completeExceptionally(
+                        new IllegalArgumentException("Data validation failed: " + spec.describe(validationError)));
+            } else {
+                rows[valid.size()] = normalized;
+                valid.add(request);
+            }
+        }
+        recordBatch(batch.size());
+        if (valid.isEmpty()) {
+            return;
+        }
+
+        double[][] normalizedInputs = valid.size() == rows.length ? rows : Arrays.copyOf(rows, valid.size());
+        double[] riskProbabilities = model.getPredictor().predictBatch(normalizedInputs);
+        PatientData[] patients = new PatientData[valid.size()];
+        for (int i = 0; i < valid.size(); i++) {
+            Request request = valid.get(i);
+            predictionService.audit(request.patientData, model, riskProbabilities[i]);
+            request.future.complete(new PredictionResult(riskProbabilities[i]));
+            patients[i] = request.patientData;
+        }
+        metrics.recordBatch(valid.size(), System.nanoTime() - dispatchTime);
+        predictionService.shadow(model, patients, normalizedInputs, riskProbabilities);
+    }
+
+    private void recordBatch(int size) {
+        requests.add(size);
+        batches.increment();
+        maxBatch.accumulateAndGet(size, Math::max);
+        int bucket = Math.min(SIZE_BUCKETS - 1, 31 - Integer.numberOfLeadingZeros(size));
+        batchSizeHistogram.incrementAndGet(bucket);
+    }
+
+    /**
+     * Snapshot of the batching and queue-wait statistics
+     */
+    public Stats getStats() {
+        long[] histogram = new long[SIZE_BUCKETS];
+        for (int i = 0; i < SIZE_BUCKETS; i++) {
+            histogram[i] = batchSizeHistogram.get(i);
+        }
+        return new Stats(requests.sum(), batches.sum(), maxBatch.get(), totalQueueWaitNanos.sum(),
+                maxQueueWaitNanos.get(), currentWaitNanos, histogram);
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        dispatcher.interrupt();
+    }
+
+    private static class Request {
+        final PatientData patientData;
+        final CompletableFuture<PredictionResult> future;
+        final long enqueuedAt = System.nanoTime();
+
+        Request(PatientData patientData, CompletableFuture<PredictionResult> future) {
+            this.patientData = patientData;
+            this.future = future;
+        }
+    }
+
+    /**
+     * Batch-size and queue-wait statistics
+     */
+    public static class Stats {
+        private final long requests;
+        private final long batches;
+        private final long maxBatchSize;
+        private final long totalQueueWaitNanos;
+        private final long maxQueueWaitNanos;
+        private final long currentWaitNanos;
+        private final long[] batchSizeHistogram;
+
+        Stats(long requests, long batches, long maxBatchSize, long totalQueueWaitNanos,
+              long maxQueueWaitNanos, long currentWaitNanos, long[] batchSizeHistogram) {
+            this.requests = requests;
+            this.batches = batches;
+            this.maxBatchSize = maxBatchSize;
+            this.totalQueueWaitNanos = totalQueueWaitNanos;
+            this.maxQueueWaitNanos = maxQueueWaitNanos;
+            this.currentWaitNanos = currentWaitNanos;
+            this.batchSizeHistogram = batchSizeHistogram;
+        }
+
+        public long getRequests() { return requests; }
+        public long getBatches() { return batches; }
+        public long getMaxBatchSize() { return maxBatchSize; }
+        public long getMaxQueueWaitNanos() { return maxQueueWaitNanos; }
+        public long getCurrentWaitNanos() { return currentWaitNanos; }
+
+        public double getAverageBatchSize() {
+            return batches == 0 ? 0 : requests / (double) batches;
+        }
+
+        public double getAverageQueueWaitNanos() {
+            return requests == 0 ? 0 : totalQueueWaitNanos / (double) requests;
+        }
+
+        /**
+         * Number of batches whose size fell in [2^i, 2^(i+1))
+         */
+        public long[] getBatchSizeHistogram() { return batchSizeHistogram.clone(); }
+
+        @Override
+        public String toString() {
+            return String.format("requests=%d batches=%d avgBatch=%.1f maxBatch=%d avgQueueWait=%.1fus maxQueueWait=%.1fus window=%.1fus",
+                    requests, batches, getAverageBatchSize(), maxBatchSize, getAverageQueueWaitNanos() / 1e3,
+                    maxQueueWaitNanos / 1e3, currentWaitNanos / 1e3);
+        }
+    }
+}
@@ -1,31 +1,612 @@
 package com.hospital.ckd.service;
 
+import com.hospital.ckd.audit.AuditLog;
+import com.hospital.ckd.data.FeatureSpec;
+import com.hospital.ckd.data.PatientChunk;
+import com.hospital.ckd.data.PatientColumnStore;
 import com.hospital.ckd.data.Preprocessor;
+import com.hospital.ckd.history.PatientHistoryStore;
+import com.hospital.ckd.metrics.PredictionMetrics;
+import com.hospital.ckd.metrics.PredictionMetrics.Stage;
+import com.hospital.ckd.metrics.SampledPredictionLogger;
+import com.hospital.ckd.ml.Explanation;
+import com.hospital.ckd.ml.InferenceMode;
+import com.hospital.ckd.ml.ModelFile;
 import com.hospital.ckd.ml.NeuralNetwork;
+import com.hospital.ckd.ml.Predictor;
+import com.hospital.ckd.ml.Workspace;
 import com.hospital.ckd.model.PatientData;
 import com.hospital.ckd.model.PredictionResult;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
 public class PredictionService {
-    private final NeuralNetwork neuralNetwork;
-    private static PredictionService instance;
+    private final AtomicReference<ModelSnapshot> activeModel;
+    private final AtomicReference<ModelSnapshot> previousModel = new AtomicReference<>();
+    private final AtomicLong generations = new AtomicLong();
+    private volatile PredictionCache cache;
+    private final PredictionMetrics metrics = new PredictionMetrics();
+    private final SampledPredictionLogger predictionLog;
+    private volatile AuditLog auditLog;
+    private volatile PatientHistoryStore history;
+    private volatile InferenceMode inferenceMode = InferenceMode.DOUBLE;
+    private volatile List<PatientData> calibrationPatients;
+    private volatile ShadowModel[] shadowModels = new ShadowModel[0];
+    private ShadowScorer shadowScorer;
+
+    // System property naming a binary model file to load instead of the built-in network
+    public static final String MODEL_PROPERTY = "ckd.model";
+
+    // System properties enabling the result cache: maximum entries and quantization steps per feature
+    public static final String CACHE_SIZE_PROPERTY = "ckd.cache.size";
+    public static final String CACHE_LEVELS_PROPERTY = "ckd.cache.levels";
+
+    // System property: log one in this many predictions to the console (1 = all, 0 = none)
+    public static final String LOG_SAMPLE_RATE_PROPERTY = "ckd.log.sampleRate";
+
+    // System property naming a directory for the durable prediction audit log
+    public static final String AUDIT_DIR_PROPERTY = "ckd.audit.dir";
+
+    // System property naming a directory for the per-patient visit history store
+    public static final String HISTORY_DIR_PROPERTY = "ckd.history.dir";
+
+    // System property selecting the arithmetic used for scoring ("double", "int8", "compiled" or "float32")
+    public static final String INFERENCE_MODE_PROPERTY = "ckd.inference.mode";
+
+    // System property: comma-separated model files to score in shadow beside the active model
+    public static final String SHADOW_MODELS_PROPERTY = "ckd.shadow.models";
+
+    // System properties sizing the shadow scoring pool: threads and queued requests before dropping
+    public static final String SHADOW_THREADS_PROPERTY = "ckd.shadow.threads";
+    public static final String SHADOW_QUEUE_PROPERTY = "ckd.shadow.queue";
+
+    // Synthetic patients used to calibrate quantized modes when no sample is supplied
+    static final int CALIBRATION_SAMPLES = 2000;
+
+    // Typical patient with unremarkable values; probes new models and anchors explanations
+    public static final PatientData REFERENCE_PATIENT = new PatientData(45, 120, 100, 1.0, 14.0, 4.0, 0, 140, 4.0, 40);
+
+    // Synthetic predictions run on a new model before it is published
+    private static final int WARM_UP_ITERATIONS = 5000;
+    // Synthetic batch scored repeatedly by warmUp() before the first real request
+    private static final int WARM_UP_BATCH_SIZE = 256;
+    private static final int WARM_UP_ROUNDS = 40;
 
     /**
      * Private constructor for singleton pattern
      */
     private PredictionService() {
-        this.neuralNetwork = new NeuralNetwork();
+        String mode = System.getProperty(INFERENCE_MODE_PROPERTY);
+        if (mode != null) {
+            inferenceMode = InferenceMode.fromName(mode);
+        }
+        String modelPath = System.getProperty(MODEL_PROPERTY);
+        ModelSnapshot snapshot = modelPath == null
+                ? newSnapshot(new NeuralNetwork(), "built-in")
+                : loadSnapshot(Paths.get(modelPath));
+        // The startup model passes the same checks as a reloaded one; a bad model stops startup
+        String failure = selfCheck(snapshot);
+        if (failure != null) {
+            throw new IllegalStateException("Model " + snapshot.getVersion() + " failed self-check: " + failure);
+        }
+        warmUp(snapshot.getPredictor());
+        this.activeModel = new AtomicReference<>(snapshot);
+        Integer cacheSize = Integer.getInteger(CACHE_SIZE_PROPERTY);
+        if (cacheSize != null) {
+            enableCache(cacheSize, Integer.getInteger(CACHE_LEVELS_PROPERTY, 10000));
+        }
+        this.predictionLog = new SampledPredictionLogger(Integer.getInteger(LOG_SAMPLE_RATE_PROPERTY, 1000));
+        metrics.attachLogger(predictionLog);
+        metrics.registerMBeans();
+        String auditDirectory = System.getProperty(AUDIT_DIR_PROPERTY);
+        if (auditDirectory != null) {
+            enableAuditLog(Paths.get(auditDirectory));
+        }
+        String historyDirectory = System.getProperty(HISTORY_DIR_PROPERTY);
+        if (historyDirectory != null) {
+            enableHistory(Paths.get(historyDirectory));
+        }
+        String shadowFiles = System.getProperty(SHADOW_MODELS_PROPERTY);
+        if (shadowFiles != null) {
+            for (String file : shadowFiles.split(",")) {
+                if (!file.trim().isEmpty()) {
+                    addShadowModel(Paths.get(file.trim()));
+                }
+            }
+        }
         System.out.println("CKD Prediction Service initialized");
-        System.out.println(neuralNetwork.getNetworkSummary());
+        System.out.println(snapshot.getNetwork().getNetworkSummary());
+        System.out.println("Inference mode: " + snapshot.getMode());
+    }
+
+    /**
+     * Lazy holder: the JVM initializes the instance once, and later calls read a final field without locking
+     */
+    private static class Holder {
+        static final PredictionService INSTANCE = new PredictionService();
     }
 
     /**
      * Get singleton instance of PredictionService
      */
-    public static synchronized PredictionService getInstance() {
-        if (instance == null) {
-            instance = new PredictionService();
+    public static PredictionService getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Load a model file and wrap it in a snapshot, without publishing it
+     */
+    private ModelSnapshot loadSnapshot(Path modelFile) {
+        return loadSnapshot(modelFile, inferenceMode);
+    }
+
+    private ModelSnapshot loadSnapshot(Path modelFile, InferenceMode mode) {
+        try {
+            NeuralNetwork network = ModelFile.load(modelFile);
+            System.out.println("Loaded model from " + modelFile);
+            return newSnapshot(network, modelFile.getFileName().toString(), mode);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to load model " + modelFile + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Wrap a network in a snapshot that scores with the current inference mode
+     */
+    private ModelSnapshot newSnapshot(NeuralNetwork network, String version) {
+        return newSnapshot(network, version, inferenceMode);
+    }
+
+    private ModelSnapshot newSnapshot(NeuralNetwork network, String version, InferenceMode mode) {
+        FeatureSpec spec = Preprocessor.featureSpecFor(network.getInputMins(), network.getInputMaxs());
+        Predictor predictor = mode.createPredictor(network, calibrationInputs(mode, spec));
+        return new ModelSnapshot(network, predictor, mode, version, generations.incrementAndGet());
+    }
+
+    /**
+     * Calibration sample normalized with the model's own ranges, or null when the mode needs none
+     */
+    private double[][] calibrationInputs(InferenceMode mode, FeatureSpec spec) {
+        if (!mode.needsCalibration()) {
+            return null;
+        }
+        List<PatientData> patients = calibrationPatients;
+        if (patients == null) {
+            patients = PredictorComparison.syntheticPatients(CALIBRATION_SAMPLES, 7L);
+            calibrationPatients = patients;
+        }
+        return PredictorComparison.normalizeAll(patients, spec);
+    }
+
+    /**
+     * Switch the arithmetic used for scoring and re-publish the active model in that mode
+     * Quantized modes are calibrated on synthetic patients spread over the normalization ranges.
+     */
+    public ModelSnapshot setInferenceMode(InferenceMode mode) {
+        return setInferenceMode(mode, null);
+    }
+
+    /**
+     * Switch the arithmetic used for scoring, calibrating quantized modes on the given patients
+     * @param calibrationPatients Representative patients, or null to keep the current calibration sample
+     */
+    public synchronized ModelSnapshot setInferenceMode(InferenceMode mode, List<PatientData> calibrationPatients) {
+        List<PatientData> previousCalibration = this.calibrationPatients;
+        if (calibrationPatients != null) {
+            if (calibrationPatients.isEmpty()) {
+                throw new IllegalArgumentException("Calibration needs at least one patient");
+            }
+            this.calibrationPatients = new ArrayList<>(calibrationPatients);
+        }
+        ModelSnapshot current = activeModel.get();
+        ModelSnapshot published;
+        try {
+            published = publish(newSnapshot(current.getNetwork(), current.getVersion(), mode));
+        } catch (RuntimeException e) {
+            // Keep the mode and calibration of the model that is still serving
+            this.calibrationPatients = previousCalibration;
+            throw e;
+        }
+        // Only a mode whose snapshot passed its self-check becomes the default for later reloads
+        inferenceMode = mode;
+        return published;
+    }
+
+    public InferenceMode getInferenceMode() {
+        return inferenceMode;
+    }
+
+    /**
+     * Load a new model, warm it up, self-check it and atomically swap it in
+     * In-flight predictions finish on the model they started with. If loading or the
+     * self-check fails, the current model stays active and an exception is thrown.
+     *
+     * @param modelFile Binary model file to load
+     * @return The snapshot that is now active
+     * @throws IllegalStateException if the new model cannot be loaded or fails its self-check
+     */
+    public ModelSnapshot reloadModel(Path modelFile) {
+        ModelSnapshot candidate = loadSnapshot(modelFile);
+        return publish(candidate);
+    }
+
+    /**
+     * Load a new model that scores in its own inference mode (for example FLOAT32 for a
+     * bulk-screening model) and swap it in; the service's default mode is unchanged
+     */
+    public ModelSnapshot reloadModel(Path modelFile, InferenceMode mode) {
+        return publish(loadSnapshot(modelFile, mode));
+    }
+
+    /**
+     * Swap in a network that is already in memory (for example one that was just trained)
+     */
+    public ModelSnapshot replaceModel(NeuralNetwork network, String version) {
+        return publish(newSnapshot(network, version));
+    }
+
+    /**
+     * Swap in an in-memory network that scores in its own inference mode
+     */
+    public ModelSnapshot replaceModel(NeuralNetwork network, String version, InferenceMode mode) {
+        return publish(newSnapshot(network, version, mode));
+    }
+
+    /**
+     * Switch back to the model that was active before the last successful swap
+     * @throws IllegalStateException if there is no previous model
+     */
+    public synchronized ModelSnapshot rollbackModel() {
+        ModelSnapshot previous = previousModel.getAndSet(null);
+        if (previous == null) {
+            throw new IllegalStateException("No previous model to roll back to");
+        }
+        previousModel.set(activeModel.getAndSet(previous));
+        clearCache();
+        System.out.println("Rolled back to model " + previous.getVersion());
+        return previous;
+    }
+
+    // Writers are serialized; readers only ever do a single atomic read of activeModel
+    private synchronized ModelSnapshot publish(ModelSnapshot candidate) {
+        String failure = selfCheck(candidate);
+        if (failure != null) {
+            throw new IllegalStateException("Model " + candidate.getVersion() + " failed self-check: " + failure
+                    + "; keeping model " + activeModel.get().getVersion());
+        }
+        warmUp(candidate.getPredictor());
+
+        previousModel.set(activeModel.getAndSet(candidate));
+        clearCache();
+        System.out.println("Activated model " + candidate.getVersion() + " (generation " + candidate.getGeneration()
+                + ", " + candidate.getMode() + ")");
+        return candidate;
+    }
+
+    /**
+     * Score a candidate model in shadow beside the active model, in the current inference mode
+     * @return The registered shadow, whose statistics start empty
+     */
+    public ShadowModel addShadowModel(String name, NeuralNetwork network) {
+        return addShadowModel(name, network, inferenceMode);
+    }
+
+    /**
+     * Score a candidate model in shadow beside the active model
+     * Requests are preprocessed once with the active model's feature spec; shadow models are
+     * scored afterwards on a separate bounded pool, so they never add latency to the primary.
+     *
+     * @throws IllegalArgumentException if a shadow with that name already exists
+     * @throws IllegalStateException if the model fails its self-check
+     */
+    public synchronized ShadowModel addShadowModel(String name, NeuralNetwork network, InferenceMode mode) {
+        for (ShadowModel shadow : shadowModels) {
+            if (shadow.getName().equals(name)) {
+                throw new IllegalArgumentException("Shadow model " + name + " already exists");
+            }
+        }
+        ModelSnapshot snapshot = newSnapshot(network, name, mode);
+        String failure = selfCheck(snapshot);
+        if (failure != null) {
+            throw new IllegalStateException("Shadow model " + name + " failed self-check: " + failure);
+        }
+        warmUp(snapshot.getPredictor());
+        if (shadowScorer == null) {
+            shadowScorer = new ShadowScorer(Integer.getInteger(SHADOW_THREADS_PROPERTY, 1),
+                    Integer.getInteger(SHADOW_QUEUE_PROPERTY, 4096));
+        }
+
+        ShadowModel shadow = new ShadowModel(name, snapshot);
+        ShadowModel[] updated = Arrays.copyOf(shadowModels, shadowModels.length + 1);
+        updated[updated.length - 1] = shadow;
+        shadowModels = updated;
+        System.out.println("Scoring model " + name + " in shadow (" + snapshot.getMode() + ")");
+        return shadow;
+    }
+
+    /**
+     * Load a model file and score it in shadow, named after the file
+     */
+    public ShadowModel addShadowModel(Path modelFile) {
+        try {
+            return addShadowModel(modelFile.getFileName().toString(), ModelFile.load(modelFile));
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to load shadow model " + modelFile + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Stop scoring a shadow model
+     * @return The removed shadow, or null if there is none with that name
+     */
+    public synchronized ShadowModel removeShadowModel(String name) {
+        ShadowModel[] current = shadowModels;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i].getName().equals(name)) {
+                ShadowModel[] updated = new ShadowModel[current.length - 1];
+                System.arraycopy(current, 0, updated, 0, i);
+                System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+                shadowModels = updated;
+                return current[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Make a shadow model the active model and stop shadowing it
+     * @throws IllegalArgumentException if there is no shadow with that name
+     */
+    public synchronized ModelSnapshot promoteShadowModel(String name) {
+        ShadowModel shadow = removeShadowModel(name);
+        if (shadow == null) {
+            throw new IllegalArgumentException("No shadow model named " + name);
+        }
+        ModelSnapshot promoted = shadow.getSnapshot();
+        return publish(newSnapshot(promoted.getNetwork(), promoted.getVersion()));
+    }
+
+    public List<ShadowModel> getShadowModels() {
+        return Arrays.asList(shadowModels.clone());
+    }
+
+    /**
+     * One line per shadow model with its disagreement statistics, or an empty string
+     */
+    public String getShadowReport() {
+        ShadowModel[] shadows = shadowModels;
+        if (shadows.length == 0) {
+            return "";
+        }
+        StringBuilder report = new StringBuilder();
+        for (ShadowModel shadow : shadows) {
+            report.append("shadow ").append(shadow).append('\n');
+        }
+        report.append("shadow queue: ").append(shadowScorer.getQueuedTasks())
+              .append(" pending, ").append(shadowScorer.getDroppedTasks()).append(" dropped\n");
+        return report.toString();
+    }
+
+    /**
+     * Hand inputs the active model has scored to the shadow models, if any
+     * The normalized rows must not be modified by the caller afterwards.
+     */
+    void shadow(ModelSnapshot model, PatientData[] patients, double[][] normalized, double[] probabilities) {
+        ShadowModel[] shadows = shadowModels;
+        if (shadows.length > 0) {
+            shadowScorer.submit(shadows, model.getFeatureSpec(), patients, normalized, probabilities);
+        }
+    }
+
+    /**
+     * Run synthetic predictions so the new model's code paths are compiled before it takes traffic
+     */
+    private static void warmUp(Predictor predictor) {
+        Workspace workspace = predictor.newWorkspace();
+        double[] input = workspace.getInput();
+        for (int i = 0; i < WARM_UP_ITERATIONS; i++) {
+            for (int j = 0; j < input.length; j++) {
+                input[j] = ((i + j) % 11) / 10.0;
+            }
+            predictor.predictInto(input, workspace);
+        }
+    }
+
+    /**
+     * Compile the whole scoring path of the active model ahead of the first real request
+     * Synthetic patients spread over the model's input ranges go through validation and
+     * normalization, NeuralNetwork.predict and the active predictor. Metrics, cache, audit log
+     * and shadow models are not touched.
+     */
+    public void warmUp() {
+        ModelSnapshot model = activeModel.get();
+        FeatureSpec spec = model.getFeatureSpec();
+        double[] raw = new double[Preprocessor.FEATURE_COUNT];
+        double[][] batch = new double[WARM_UP_BATCH_SIZE][Preprocessor.FEATURE_COUNT];
+        for (int i = 0; i < batch.length; i++) {
+            for (int j = 0; j < raw.length; j++) {
+                double fraction = ((i * 7 + j * 3) % 10) / 10.0;
+                raw[j] = spec.getMin(j) + fraction * (spec.getMax(j) - spec.getMin(j));
+            }
+            spec.prepare(raw, 0, batch[i], 0);
+        }
+        NeuralNetwork network = model.getNetwork();
+        Predictor predictor = model.getPredictor();
+        for (int round = 0; round < WARM_UP_ROUNDS; round++) {
+            double[] probabilities = predictor.predictBatch(batch);
+            for (int i = 0; i < batch.length; i++) {
+                network.predict(batch[i]);
+                new PredictionResult(probabilities[i]);
+            }
+        }
+        warmUp(predictor);
+    }
+
+    /**
+     * Check that a candidate network accepts our features and produces valid probabilities
+     * @return Failure description, or null if the model is usable
+     */
+    private static String selfCheck(ModelSnapshot candidate) {
+        NeuralNetwork network = candidate.getNetwork();
+        Predictor predictor = candidate.getPredictor();
+        if (network.getInputSize() != Preprocessor.FEATURE_COUNT) {
+            return "expects " + network.getInputSize() + " inputs instead of " + Preprocessor.FEATURE_COUNT;
+        }
+        if (network.getOutputSize() != 1) {
+            return "has " + network.getOutputSize() + " outputs instead of 1";
+        }
+        double[] sample = new double[Preprocessor.FEATURE_COUNT];
+        int sampleError = candidate.getFeatureSpec().prepare(REFERENCE_PATIENT, sample);
+        if (sampleError != FeatureSpec.OK) {
+            return "its feature ranges reject a typical patient: " + candidate.getFeatureSpec().describe(sampleError);
+        }
+        double[][] probes = {
+            sample,
+            new double[Preprocessor.FEATURE_COUNT],
+            filled(Preprocessor.FEATURE_COUNT, 1.0)
+        };
+        Workspace workspace = predictor.newWorkspace();
+        for (double[] probe : probes) {
+            double result = predictor.predictInto(probe, workspace);
+            if (!(result >= 0.0 && result <= 1.0)) {
+                return "produced probability " + result;
+            }
+        }
+        return null;
+    }
+
+    private static double[] filled(int length, double value) {
+        double[] values = new double[length];
+        Arrays.fill(values, value);
+        return values;
+    }
+
+    /**
+     * Enable the prediction result cache
+     * The cache is bypassed while an audit log is enabled.
+     * @param maxEntries Maximum number of cached results
+     * @param quantizationLevels Steps per normalized feature; inputs within 1 / quantizationLevels may share a result
+     */
+    public void enableCache(int maxEntries, int quantizationLevels) {
+        cache = new PredictionCache(maxEntries, quantizationLevels);
+    }
+
+    public void disableCache() {
+        cache = null;
+    }
+
+    /**
+     * Result cache, or null when caching is disabled
+     */
+    public PredictionCache getCache() {
+        return cache;
+    }
+
+    private void clearCache() {
+        PredictionCache resultCache = cache;
+        if (resultCache != null) {
+            resultCache.clear();
+        }
+    }
+
+    /**
+     * Record every subsequent prediction in an audit log in the given directory
+     * The log is flushed and closed when the JVM shuts down.
+     */
+    public synchronized void enableAuditLog(Path directory) {
+        if (auditLog != null) {
+            throw new IllegalStateException("Audit log already enabled in " + auditLog.getDirectory());
+        }
+        try {
+            AuditLog log = AuditLog.open(directory);
+            Runtime.getRuntime().addShutdownHook(new Thread(log::close, "ckd-audit-shutdown"));
+            auditLog = log;
+            System.out.println("Auditing predictions to " + directory);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to open audit log in " + directory + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Audit log, or null when auditing is disabled
+     */
+    public AuditLog getAuditLog() {
+        return auditLog;
+    }
+
+    /**
+     * Append one prediction to the audit log, if enabled
+     */
+    void audit(PatientData patientData, ModelSnapshot model, double riskProbability) {
+        AuditLog log = auditLog;
+        if (log != null) {
+            log.append(patientData, model.getVersion(), model.getGeneration(), riskProbability);
+        }
+    }
+
+    /**
+     * Append one prediction whose raw inputs sit in a flat buffer, if auditing is enabled
+     */
+    void audit(double[] values, int offset, ModelSnapshot model, double riskProbability) {
+        AuditLog log = auditLog;
+        if (log != null) {
+            log.append(values, offset, model.getVersion(), model.getGeneration(), riskProbability);
+        }
+    }
+
+    /**
+     * Keep a per-patient visit history in the given directory, for predictAndRecord
+     * The store is checkpointed and closed when the JVM shuts down.
+     */
+    public synchronized void enableHistory(Path directory) {
+        if (history != null) {
+            throw new IllegalStateException("Patient history already enabled in " + history.getDirectory());
+        }
+        try {
+            PatientHistoryStore store = PatientHistoryStore.open(directory);
+            Runtime.getRuntime().addShutdownHook(new Thread(store::close, "ckd-history-shutdown"));
+            history = store;
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to open patient history in " + directory + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Patient history store, or null when history is disabled
+     */
+    public PatientHistoryStore getHistory() {
+        return history;
+    }
+
+    /**
+     * Predict CKD risk for a patient and record the visit in the patient's history
+     * The patient's trend features are available from getHistory().trends(patientId) afterwards.
+     *
+     * @throws IllegalStateException if history is not enabled
+     * @throws IllegalArgumentException if patient data is invalid
+     */
+    public PredictionResult predictAndRecord(String patientId, PatientData patientData) {
+        PatientHistoryStore store = history;
+        if (store == null) {
+            throw new IllegalStateException("Patient history is not enabled (set -D" + HISTORY_DIR_PROPERTY + ")");
         }
-        return instance;
+        PredictionResult result = predictCKDRisk(patientData);
+        store.append(patientId, patientData, result.getRiskProbability());
+        return result;
+    }
+
+    /**
+     * Currently active model snapshot
+     */
+    public ModelSnapshot getActiveModel() {
+        return activeModel.get();
     }
 
     /**
@@ -36,42 +617,239 @@ public class PredictionService {
      * @throws IllegalArgumentException if patient data is invalid
      */
     public PredictionResult predictCKDRisk(PatientData patientData) {
-        // Validate input data
-        String validationError = Preprocessor.validateData(patientData);
-        if (validationError != null) {
-            throw new IllegalArgumentException("Data validation failed: " + validationError);
+        long start = System.nanoTime();
+
+        // Read the active model once so a concurrent swap cannot affect this prediction
+        ModelSnapshot model = activeModel.get();
+
+        // Per-thread scratch buffers keep the scoring path allocation-free
+        Workspace workspace = model.workspace();
+
+        // Validate and normalize in one pass; failures come back as a compact code
+        FeatureSpec spec = model.getFeatureSpec();
+        double[] normalizedInputs = workspace.getInput();
+        int validationError = spec.prepare(patientData, normalizedInputs);
+        long normalized = System.nanoTime();
+        metrics.record(Stage.PREPARE, normalized - start);
+        if (validationError != FeatureSpec.OK) {
+            metrics.recordFailure();
+            throw new IllegalArgumentException("Data validation failed: " + spec.describe(validationError));
         }
 
         try {
-            // Preprocess data (normalize for neural network)
-            double[] normalizedInputs = Preprocessor.normalize(patientData);
-
-            // Get prediction from neural network
-            double riskProbability = neuralNetwork.predict(normalizedInputs);
-
-            // Create and return result
-            PredictionResult result = new PredictionResult(riskProbability);
-            
-            // Log prediction for debugging
-            logPrediction(patientData, result);
-            
+            // Reuse a cached result for (near-)identical inputs when caching is enabled. Not while
+            // auditing: a cached probability may come from another input in the same cell, and
+            // the audit record must hold what the model returns for these exact inputs
+            PredictionCache resultCache = auditLog == null ? cache : null;
+            PredictionCache.Key cacheKey = null;
+            PredictionResult result = null;
+            if (resultCache != null) {
+                cacheKey = resultCache.keyFor(normalizedInputs);
+                result = resultCache.get(cacheKey, model.getGeneration());
+            }
+
+            if (result == null) {
+                // Get prediction from neural network
+                double riskProbability = model.getPredictor().predictInto(normalizedInputs, workspace);
+                long forwarded = System.nanoTime();
+                metrics.record(Stage.FORWARD, forwarded - normalized);
+
+                // Create result
+                result = new PredictionResult(riskProbability);
+                if (resultCache != null) {
+                    resultCache.put(cacheKey, model.getGeneration(), result);
+                }
+                metrics.record(Stage.RESULT, System.nanoTime() - forwarded);
+            }
+
+            audit(patientData, model, result.getRiskProbability());
+            metrics.recordPrediction(System.nanoTime() - start);
+
+            // Shadow models score a copy of the inputs later, on their own threads
+            if (shadowModels.length > 0) {
+                shadow(model, new PatientData[]{patientData}, new double[][]{normalizedInputs.clone()},
+                        new double[]{result.getRiskProbability()});
+            }
+
+            // Sampled, asynchronous log for debugging
+            predictionLog.log(patientData.getAge(), result);
+
             return result;
 
         } catch (Exception e) {
+            metrics.recordFailure();
             throw new RuntimeException("Prediction failed: " + e.getMessage(), e);
         }
     }
 
     /**
-     * Log prediction details for debugging and monitoring
+     * Score a patient for display only, such as a live preview while a form is being edited
+     * Unlike predictCKDRisk, the prediction is not audited, cached, counted in the metrics or
+     * sent to shadow models, since the inputs may be incomplete edits rather than a clinical request.
+     *
+     * @throws IllegalArgumentException if patient data is invalid
+     */
+    public PredictionResult previewCKDRisk(PatientData patientData) {
+        ModelSnapshot model = activeModel.get();
+        Workspace workspace = model.workspace();
+        FeatureSpec spec = model.getFeatureSpec();
+        double[] normalizedInputs = workspace.getInput();
+        int validationError = spec.prepare(patientData, normalizedInputs);
+        if (validationError != FeatureSpec.OK) {
+            throw new IllegalArgumentException("Data validation failed: " + spec.describe(validationError));
+        }
+        return new PredictionResult(model.getPredictor().predictInto(normalizedInputs, workspace));
+    }
+
+    /**
+     * Predict CKD risk for a list of patients in one batch
+     * All patients are validated first; the network then scores the whole list
+     * with a single batched forward pass.
+     *
+     * @param patients Patient medical data
+     * @return One PredictionResult per patient, in the same order
+     * @throws IllegalArgumentException if any patient's data is invalid
+     */
+    public List<PredictionResult> predictBatch(List<PatientData> patients) {
+        long start = System.nanoTime();
+        ModelSnapshot model = activeModel.get();
+        FeatureSpec spec = model.getFeatureSpec();
+        double[][] normalizedInputs = new double[patients.size()][];
+        for (int i = 0; i < patients.size(); i++) {
+            double[] normalized = new double[Preprocessor.FEATURE_COUNT];
+            int validationError = spec.prepare(patients.get(i), normalized);
+            if (validationError != FeatureSpec.OK) {
+                metrics.recordFailure();
+                throw new IllegalArgumentException("Data validation failed for patient " + (i + 1) + ": "
+                        + spec.describe(validationError));
+            }
+            normalizedInputs[i] = normalized;
+        }
+
+        try {
+            double[] riskProbabilities = model.getPredictor().predictBatch(normalizedInputs);
+
+            List<PredictionResult> results = new ArrayList<>(riskProbabilities.length);
+            for (int i = 0; i < riskProbabilities.length; i++) {
+                results.add(new PredictionResult(riskProbabilities[i]));
+                audit(patients.get(i), model, riskProbabilities[i]);
+            }
+
+            metrics.recordBatch(results.size(), System.nanoTime() - start);
+            shadow(model, patients.toArray(new PatientData[0]), normalizedInputs, riskProbabilities);
+            return results;
+
+        } catch (Exception e) {
+            metrics.recordFailure();
+            throw new RuntimeException("Batch prediction failed: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Explain which inputs drove a patient's risk, relative to a typical patient with unremarkable values
+     * Attributions come from the active model's double-precision network, whatever the inference mode.
+     *
+     * @throws IllegalArgumentException if patient data is invalid
+     */
+    public Explanation explain(PatientData patientData) {
+        ModelSnapshot model = activeModel.get();
+        return model.attribution(REFERENCE_PATIENT).explain(prepareOrThrow(model.getFeatureSpec(), patientData, 0));
+    }
+
+    /**
+     * Explain a list of patients in parallel
+     * @return One explanation per patient, in the same order
+     * @throws IllegalArgumentException if any patient's data is invalid
+     */
+    public List<Explanation> explainBatch(List<PatientData> patients) {
+        ModelSnapshot model = activeModel.get();
+        double[][] inputs = new double[patients.size()][];
+        for (int i = 0; i < inputs.length; i++) {
+            inputs[i] = prepareOrThrow(model.getFeatureSpec(), patients.get(i), i + 1);
+        }
+        return Arrays.asList(model.attribution(REFERENCE_PATIENT).explainBatch(inputs));
+    }
+
+    /**
+     * Validate and normalize one patient
+     * @param position One-based position in a batch for the error message, or 0 for a single patient
+     */
+    private static double[] prepareOrThrow(FeatureSpec spec, PatientData patientData, int position) {
+        double[] normalized = new double[Preprocessor.FEATURE_COUNT];
+        int validationError = spec.prepare(patientData, normalized);
+        if (validationError != FeatureSpec.OK) {
+            throw new IllegalArgumentException("Data validation failed" + (position > 0 ? " for patient " + position : "")
+                    + ": " + spec.describe(validationError));
+        }
+        return normalized;
+    }
+
+    /**
+     * Score every patient of an off-heap column store with the active model, in place
+     * Each scored row is audited once the whole store has been scored.
+     *
+     * @return Number of rows scored; rows that fail validation keep a NaN prediction
+     */
+    public long scoreColumns(PatientColumnStore store) {
+        long start = System.nanoTime();
+        ModelSnapshot model = activeModel.get();
+        long count = new ColumnStoreScorer(model.getPredictor(), model.getFeatureSpec()).scoreAll(store);
+        metrics.recordBatch(count, System.nanoTime() - start);
+        if (auditLog != null) {
+            double[] row = new double[Preprocessor.FEATURE_COUNT];
+            for (int i = 0; i < store.size(); i++) {
+                double probability = store.getPrediction(i);
+                if (!Double.isNaN(probability)) {
+                    store.copyRow(i, row, 0);
+                    audit(row, 0, model, probability);
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Validate, normalize and score every row of a parsed CSV chunk with the active model, in place
+     * Rows that fail validation get an error message instead of failing the whole chunk, and
+     * rows that already carry a parse error are skipped. Chunks may be scored concurrently.
+     *
+     * @return Number of rows scored
+     */
+    public int scoreChunk(PatientChunk chunk) {
+        long start = System.nanoTime();
+        ModelSnapshot model = activeModel.get();
+        FeatureSpec spec = model.getFeatureSpec();
+        Predictor predictor = model.getPredictor();
+        Workspace workspace = model.workspace();
+        double[] values = chunk.getValues();
+        double[] normalized = chunk.getNormalized();
+        double[] probabilities = chunk.getProbabilities();
+        double[] row = new double[Preprocessor.FEATURE_COUNT];
+        int scored = 0;
+        for (int i = 0; i < chunk.getSize(); i++) {
+            if (chunk.getError(i) != null) {
+                continue;
+            }
+            int offset = chunk.offsetOf(i);
+            int validationError = spec.prepare(values, offset, normalized, offset);
+            if (validationError != FeatureSpec.OK) {
+                chunk.setError(i, spec.describe(validationError));
+                continue;
+            }
+            System.arraycopy(normalized, offset, row, 0, row.length);
+            probabilities[i] = predictor.predictInto(row, workspace);
+            audit(values, offset, model, probabilities[i]);
+            scored++;
+        }
+        metrics.recordBatch(scored, System.nanoTime() - start);
+        return scored;
+    }
+
+    /**
+     * Latency and throughput metrics of this service
      */
-    private void logPrediction(PatientData patientData, PredictionResult result) {
-        System.out.println("=== CKD Risk Prediction ===");
-        System.out.printf("Patient Age: %.1f years%n", patientData.getAge());
-        System.out.printf("Risk Probability: %.3f%n", result.getRiskProbability());
-        System.out.printf("Risk Percentage: %d%%%n", result.getRiskPercentage());
-        System.out.printf("Risk Category: %s%n", result.getRiskCategory());
-        System.out.println("============================");
+    public PredictionMetrics getMetrics() {
+        return metrics;
     }
 
     /**
@@ -80,8 +858,12 @@ public class PredictionService {
     public boolean isServiceHealthy() {
         try {
             // Test with sample data
-            PatientData testData = new PatientData(45, 120, 100, 1.0, 14.0, 4.0, 0, 140, 4.0, 40);
-            double result = neuralNetwork.predict(Preprocessor.normalize(testData));
+            PatientData testData = REFERENCE_PATIENT;
+            ModelSnapshot model = activeModel.get();
+            Predictor predictor = model.getPredictor();
+            double[] input = new double[Preprocessor.FEATURE_COUNT];
+            model.getFeatureSpec().prepare(testData, input);
+            double result = predictor.predictInto(input, predictor.newWorkspace());
             return result >= 0.0 && result <= 1.0;
         } catch (Exception e) {
             System.err.println("Service health check failed: " + e.getMessage());
@@ -93,6 +875,8 @@ public class PredictionService {
      * Get neural network information
      */
     public String getModelInfo() {
-        return neuralNetwork.getNetworkSummary();
+        ModelSnapshot model = activeModel.get();
+        return "Model version: " + model.getVersion() + "\nInference mode: " + model.getMode() + "\n"
+                + model.getNetwork().getNetworkSummary();
     }
 }
@@ -0,0 +1,178 @@
+package com.hospital.ckd.service;
+
+import com.hospital.ckd.data.FeatureSpec;
+import com.hospital.ckd.data.Preprocessor;
+import com.hospital.ckd.ml.InferenceMode;
+import com.hospital.ckd.ml.ModelFile;
+import com.hospital.ckd.ml.NeuralNetwork;
+import com.hospital.ckd.ml.Predictor;
+import com.hospital.ckd.model.PatientData;
+import com.hospital.ckd.model.PredictionResult;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Accuracy report for reduced-precision inference modes.
+ *
+ * Scores the same inputs with a reference predictor (normally the double network) and a
+ * candidate, then reports the probability differences and how often the
+ * {@link PredictionResult} risk category changes.
+ *
+ * Usage: PredictorComparison [model.ckdm|built-in] [samples] [mode]
+ */
+public class PredictorComparison {
+    /**
+     * Patients with every parameter drawn uniformly from its normalization range
+     */
+    public static List<PatientData> syntheticPatients(int count, long seed) {
+        Random random = new Random(seed);
+        double[] values = new double[Preprocessor.FEATURE_COUNT];
+        List<PatientData> patients = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            for (int f = 0; f < values.length; f++) {
+                double min = Preprocessor.getMinValue(f);
+                values[f] = min + random.nextDouble() * (Preprocessor.getMaxValue(f) - min);
+            }
+            patients.add(new PatientData(values[0], values[1], values[2], values[3], values[4],
+                    values[5], values[6], values[7], values[8], values[9]));
+        }
+        return patients;
+    }
+
+    /**
+     * Normalize every patient with the active {@link Preprocessor} spec
+     */
+    public static double[][] normalizeAll(List<PatientData> patients) {
+        return normalizeAll(patients, Preprocessor.getFeatureSpec());
+    }
+
+    /**
+     * Normalize every patient with the given spec, without validating them
+     */
+    public static double[][] normalizeAll(List<PatientData> patients, FeatureSpec spec) {
+        double[][] inputs = new double[patients.size()][];
+        for (int i = 0; i < inputs.length; i++) {
+            double[] row = patients.get(i).toArray(new double[Preprocessor.FEATURE_COUNT]);
+            spec.normalize(row, 0, row, 0);
+            inputs[i] = row;
+        }
+        return inputs;
+    }
+
+    /**
+     * Score the inputs with both predictors and compare the results
+     */
+    public static Report compare(Predictor reference, Predictor candidate, double[][] inputs) {
+        double[] expected = reference.predictBatch(inputs);
+        double[] actual = candidate.predictBatch(inputs);
+        double[] deltas = new double[inputs.length];
+        int categoryCount = PredictionResult.getCategoryCount();
+        long[][] categories = new long[categoryCount][categoryCount];
+        double totalDelta = 0;
+        for (int i = 0; i < inputs.length; i++) {
+            deltas[i] = Math.abs(actual[i] - expected[i]);
+            totalDelta += deltas[i];
+            categories[PredictionResult.categoryIndex(expected[i])][PredictionResult.categoryIndex(actual[i])]++;
+        }
+        Arrays.sort(deltas);
+        return new Report(inputs.length, inputs.length == 0 ? 0 : totalDelta / inputs.length,
+                percentile(deltas, 0.99), inputs.length == 0 ? 0 : deltas[deltas.length - 1], categories);
+    }
+
+    private static double percentile(double[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[(int) Math.min(sorted.length - 1, Math.round(quantile * (sorted.length - 1)))];
+    }
+
+    public static void main(String[] args) throws IOException {
+        NeuralNetwork network = args.length > 0 && !args[0].equals("built-in")
+                ? ModelFile.load(Paths.get(args[0]))
+                : new NeuralNetwork();
+        int samples = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+        List<InferenceMode> modes = new ArrayList<>();
+        if (args.length > 2) {
+            modes.add(InferenceMode.fromName(args[2]));
+        } else {
+            for (InferenceMode mode : InferenceMode.values()) {
+                if (mode != InferenceMode.DOUBLE) {
+                    modes.add(mode);
+                }
+            }
+        }
+
+        double[][] calibration = normalizeAll(syntheticPatients(PredictionService.CALIBRATION_SAMPLES, 7L));
+        double[][] inputs = normalizeAll(syntheticPatients(samples, 42L));
+        for (InferenceMode mode : modes) {
+            Predictor candidate = mode.createPredictor(network, calibration);
+            System.out.println("=== " + mode + " vs DOUBLE on " + samples + " synthetic patients ===");
+            System.out.println(compare(network, candidate, inputs));
+        }
+    }
+
+    /**
+     * Probability differences and risk category agreement between two predictors
+     */
+    public static class Report {
+        private final int count;
+        private final double meanAbsDelta;
+        private final double p99AbsDelta;
+        private final double maxAbsDelta;
+        // categoryMatrix[reference][candidate]
+        private final long[][] categoryMatrix;
+
+        Report(int count, double meanAbsDelta, double p99AbsDelta, double maxAbsDelta, long[][] categoryMatrix) {
+            this.count = count;
+            this.meanAbsDelta = meanAbsDelta;
+            this.p99AbsDelta = p99AbsDelta;
+            this.maxAbsDelta = maxAbsDelta;
+            this.categoryMatrix = categoryMatrix;
+        }
+
+        public int getCount() { return count; }
+        public double getMeanAbsDelta() { return meanAbsDelta; }
+        public double getP99AbsDelta() { return p99AbsDelta; }
+        public double getMaxAbsDelta() { return maxAbsDelta; }
+
+        public long getCategoryChanges() {
+            long changes = 0;
+            for (int i = 0; i < categoryMatrix.length; i++) {
+                for (int j = 0; j < categoryMatrix.length; j++) {
+                    if (i != j) changes += categoryMatrix[i][j];
+                }
+            }
+            return changes;
+        }
+
+        public double getCategoryAgreement() {
+            return count == 0 ? 1.0 : 1.0 - getCategoryChanges() / (double) count;
+        }
+
+        public double getCategoryDisagreementRate() {
+            return 1.0 - getCategoryAgreement();
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder out = new StringBuilder();
+            out.append(String.format("Probability |delta|: mean=%.2e p99=%.2e max=%.2e%n", meanAbsDelta, p99AbsDelta, maxAbsDelta));
+            out.append(String.format("Risk category agreement: %.4f%% (%d of %d changed, disagreement rate %.2e)%n",
+                    getCategoryAgreement() * 100, getCategoryChanges(), count, getCategoryDisagreementRate()));
+            out.append("Category matrix (rows: reference, columns: candidate):\n");
+            for (int i = 0; i < categoryMatrix.length; i++) {
+                out.append(String.format("%-15s", PredictionResult.categoryName(i)));
+                for (int j = 0; j < categoryMatrix.length; j++) {
+                    out.append(String.format(" %9d", categoryMatrix[i][j]));
+                }
+                out.append('\n');
+            }
+            return out.toString().trim();
+        }
+    }
+}
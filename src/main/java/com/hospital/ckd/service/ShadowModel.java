@@ -0,0 +1,52 @@
+package com.hospital.ckd.service;
+
+import com.hospital.ckd.metrics.DisagreementStats;
+import com.hospital.ckd.metrics.LatencyHistogram;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A candidate model scored beside the primary model on live traffic.
+ *
+ * Shadow predictions are never returned to callers; they only feed the disagreement
+ * statistics used to decide whether the candidate can be promoted.
+ */
+public class ShadowModel {
+    private final String name;
+    private final ModelSnapshot snapshot;
+    private final DisagreementStats disagreement;
+    private final LatencyHistogram latency;
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    ShadowModel(String name, ModelSnapshot snapshot) {
+        this.name = name;
+        this.snapshot = snapshot;
+        this.disagreement = new DisagreementStats(name);
+        this.latency = new LatencyHistogram("shadow-" + name);
+    }
+
+    void recordDropped(long predictions) {
+        dropped.add(predictions);
+    }
+
+    void recordFailure() {
+        failures.increment();
+    }
+
+    @Override
+    public String toString() {
+        LatencyHistogram.Snapshot timing = latency.snapshot();
+        return String.format("%s (%s, %s): %s dropped=%d failures=%d forward p50=%.1fus p99=%.1fus",
+                name, snapshot.getVersion(), snapshot.getMode(), disagreement, dropped.sum(), failures.sum(),
+                timing.getP50Nanos() / 1e3, timing.getP99Nanos() / 1e3);
+    }
+
+    // Getters
+    public String getName() { return name; }
+    public ModelSnapshot getSnapshot() { return snapshot; }
+    public DisagreementStats getDisagreement() { return disagreement; }
+    public LatencyHistogram getLatency() { return latency; }
+    public long getDropped() { return dropped.sum(); }
+    public long getFailures() { return failures.sum(); }
+}
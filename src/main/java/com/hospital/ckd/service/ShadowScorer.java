@@ -0,0 +1,132 @@
+package com.hospital.ckd.service;
+
+import com.hospital.ckd.data.FeatureSpec;
+import com.hospital.ckd.data.Preprocessor;
+import com.hospital.ckd.ml.Workspace;
+import com.hospital.ckd.model.PatientData;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Scores shadow models off the request path.
+ *
+ * Requests hand over their already normalized inputs and the primary probabilities; a small
+ * pool of daemon threads scores every shadow model and records the disagreement. The work
+ * queue is bounded and full-queue submissions are dropped and counted instead of blocking,
+ * so shadow scoring can fall behind but never slows the primary model down.
+ */
+class ShadowScorer implements AutoCloseable {
+    private final ThreadPoolExecutor executor;
+    private final LongAdder droppedTasks = new LongAdder();
+
+    ShadowScorer(int threads, int queueCapacity) {
+        if (threads <= 0 || queueCapacity <= 0) {
+            throw new IllegalArgumentException("Shadow threads and queue capacity must be positive");
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "ckd-shadow-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                },
+                (runnable, pool) -> dropped(runnable));
+    }
+
+    /**
+     * Queue shadow scoring for inputs the primary model has already scored
+     * Never blocks: when the queue is full or the scorer is closed the work is dropped and counted.
+     *
+     * @param primarySpec Spec the inputs were normalized with
+     * @param patients Raw patients, used only by shadows whose feature ranges differ
+     * @param normalized Normalized inputs owned by the task from now on
+     * @param primaryProbabilities Probabilities returned by the primary model
+     */
+    void submit(ShadowModel[] shadows, FeatureSpec primarySpec, PatientData[] patients,
+                double[][] normalized, double[] primaryProbabilities) {
+        executor.execute(new ShadowTask(shadows, primarySpec, patients, normalized, primaryProbabilities));
+    }
+
+    private void dropped(Runnable task) {
+        droppedTasks.increment();
+        ((ShadowTask) task).drop();
+    }
+
+    long getDroppedTasks() {
+        return droppedTasks.sum();
+    }
+
+    int getQueuedTasks() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * Stop the workers; tasks still queued are dropped and counted
+     */
+    @Override
+    public void close() {
+        for (Runnable task : executor.shutdownNow()) {
+            dropped(task);
+        }
+    }
+
+    private static class ShadowTask implements Runnable {
+        private final ShadowModel[] shadows;
+        private final FeatureSpec primarySpec;
+        private final PatientData[] patients;
+        private final double[][] normalized;
+        private final double[] primaryProbabilities;
+
+        ShadowTask(ShadowModel[] shadows, FeatureSpec primarySpec, PatientData[] patients,
+                   double[][] normalized, double[] primaryProbabilities) {
+            this.shadows = shadows;
+            this.primarySpec = primarySpec;
+            this.patients = patients;
+            this.normalized = normalized;
+            this.primaryProbabilities = primaryProbabilities;
+        }
+
+        @Override
+        public void run() {
+            for (ShadowModel shadow : shadows) {
+                try {
+                    score(shadow);
+                } catch (RuntimeException e) {
+                    shadow.recordFailure();
+                }
+            }
+        }
+
+        private void score(ShadowModel shadow) {
+            ModelSnapshot snapshot = shadow.getSnapshot();
+            FeatureSpec spec = snapshot.getFeatureSpec();
+            boolean shared = spec.hasSameRanges(primarySpec);
+            Workspace workspace = snapshot.workspace();
+            double[] scratch = shared ? null : new double[Preprocessor.FEATURE_COUNT];
+            for (int i = 0; i < normalized.length; i++) {
+                double[] input = normalized[i];
+                if (!shared) {
+                    // The shadow was trained on other ranges: normalize the raw values its way
+                    spec.normalize(patients[i].toArray(scratch), 0, scratch, 0);
+                    input = scratch;
+                }
+                long start = System.nanoTime();
+                double probability = snapshot.getPredictor().predictInto(input, workspace);
+                shadow.getLatency().record(System.nanoTime() - start);
+                shadow.getDisagreement().record(primaryProbabilities[i], probability);
+            }
+        }
+
+        void drop() {
+            for (ShadowModel shadow : shadows) {
+                shadow.recordDropped(normalized.length);
+            }
+        }
+    }
+}
@@ -0,0 +1,356 @@
+package com.hospital.ckd.ui;
+
+import com.hospital.ckd.data.FeatureSpec;
+import com.hospital.ckd.data.Preprocessor;
+import com.hospital.ckd.model.PredictionResult;
+import javafx.beans.property.ReadOnlyStringWrapper;
+import javafx.concurrent.Task;
+import javafx.fxml.FXML;
+import javafx.fxml.Initializable;
+import javafx.scene.control.*;
+import javafx.scene.input.DragEvent;
+import javafx.scene.input.TransferMode;
+import javafx.scene.paint.Color;
+import javafx.stage.FileChooser;
+
+import java.io.File;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ResourceBundle;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+/**
+ * Controller of the bulk import tab.
+ *
+ * A CSV file (opened or dropped on the table) is scored by a {@link BulkImportService}. The table
+ * shows a {@link BulkResultList}, so only the visible rows are ever materialized. Sorting and
+ * the risk category filter compute a new row order on a background thread; a newer request
+ * cancels the one it supersedes, and the FX thread only swaps in the finished order.
+ */
+public class BulkImportController implements Initializable {
+    private static final String ALL_CATEGORIES = "All risk levels";
+    private static final String ERRORS_ONLY = "Errors";
+
+    @FXML private Button openButton;
+    @FXML private Button cancelButton;
+    @FXML private ProgressBar importProgress;
+    @FXML private Label importStatusLabel;
+    @FXML private ComboBox<String> categoryFilter;
+    @FXML private Label summaryLabel;
+    @FXML private TableView<BulkResults.Row> resultsTable;
+
+    private final BulkImportService importService = new BulkImportService();
+    private final BulkResultList rows = new BulkResultList();
+    // Sort key of every sortable column, by row index
+    private final Map<TableColumn<BulkResults.Row, ?>, SortKey> sortKeys = new HashMap<>();
+    private final ExecutorService viewExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ckd-ui-table-view");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private BulkResults results;
+    private Task<int[]> viewTask;
+    // Filter and sort order of the latest view request, to skip repeated requests
+    private String requestedView;
+
+    @Override
+    public void initialize(URL location, ResourceBundle resources) {
+        setupColumns();
+        resultsTable.setItems(rows);
+        resultsTable.setFixedCellSize(24);
+        resultsTable.setPlaceholder(new Label("Open or drop a CSV file of patients"));
+        resultsTable.setSortPolicy(table -> {
+            refreshView();
+            return true;
+        });
+        resultsTable.setOnDragOver(this::acceptFileDrag);
+        resultsTable.setOnDragDropped(this::dropFile);
+
+        categoryFilter.getItems().add(ALL_CATEGORIES);
+        for (int i = 0; i < PredictionResult.getCategoryCount(); i++) {
+            categoryFilter.getItems().add(PredictionResult.categoryName(i));
+        }
+        categoryFilter.getItems().add(ERRORS_ONLY);
+        categoryFilter.getSelectionModel().select(ALL_CATEGORIES);
+        categoryFilter.valueProperty().addListener((observable, oldValue, newValue) -> refreshView());
+
+        openButton.setOnAction(e -> chooseFile());
+        cancelButton.setOnAction(e -> importService.cancel());
+        cancelButton.disableProperty().bind(importService.runningProperty().not());
+        importProgress.progressProperty().bind(importService.progressProperty());
+        importProgress.visibleProperty().bind(importService.runningProperty());
+
+        importService.setOnRunning(e -> {
+            importStatusLabel.textProperty().bind(importService.messageProperty());
+            importStatusLabel.setTextFill(Color.BLUE);
+        });
+        importService.setOnSucceeded(e -> {
+            showStatus("Imported " + importService.getFile().getFileName(), Color.GREEN);
+            showResults(importService.getValue());
+        });
+        importService.setOnFailed(e -> {
+            Throwable error = importService.getException();
+            showStatus("Import failed: " + error.getMessage(), Color.RED);
+            error.printStackTrace();
+        });
+        importService.setOnCancelled(e -> showStatus("Import cancelled", Color.BLUE));
+    }
+
+    /**
+     * Create the table columns; every cell is formatted from the primitive columns on demand
+     */
+    private void setupColumns() {
+        addColumn("Line", row -> String.valueOf(row.getLineNumber()), BulkResults::getLineNumber);
+        addColumn("Risk", row -> Double.isNaN(row.getProbability()) ? ""
+                : String.format("%.1f%%", row.getProbability() * 100), BulkResults::getProbability);
+        addColumn("Category", row -> row.getCategory() == BulkResults.ERROR_CATEGORY ? ""
+                : PredictionResult.categoryName(row.getCategory()), BulkResults::getCategory);
+        for (int i = 0; i < Preprocessor.FEATURE_COUNT; i++) {
+            int feature = i;
+            addColumn(FeatureSpec.getName(feature), row -> formatValue(row.getValue(feature)),
+                    (source, row) -> source.getValue(row, feature));
+        }
+        TableColumn<BulkResults.Row, String> errorColumn = addColumn("Error",
+                row -> row.getError() == null ? "" : row.getError(), null);
+        errorColumn.setPrefWidth(260);
+    }
+
+    private TableColumn<BulkResults.Row, String> addColumn(String title, Function<BulkResults.Row, String> text,
+                                                           SortKey sortKey) {
+        TableColumn<BulkResults.Row, String> column = new TableColumn<>(title);
+        column.setCellValueFactory(cell -> new ReadOnlyStringWrapper(text.apply(cell.getValue())));
+        if (sortKey != null) {
+            sortKeys.put(column, sortKey);
+        } else {
+            column.setSortable(false);
+        }
+        resultsTable.getColumns().add(column);
+        return column;
+    }
+
+    private static String formatValue(double value) {
+        return value == Math.rint(value) ? String.valueOf((long) value) : String.valueOf(value);
+    }
+
+    private void chooseFile() {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Open patient list");
+        chooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("CSV files", "*.csv"),
+                new FileChooser.ExtensionFilter("All files", "*.*"));
+        File file = chooser.showOpenDialog(resultsTable.getScene().getWindow());
+        if (file != null) {
+            startImport(file);
+        }
+    }
+
+    private void acceptFileDrag(DragEvent event) {
+        if (event.getDragboard().hasFiles()) {
+            event.acceptTransferModes(TransferMode.COPY);
+        }
+        event.consume();
+    }
+
+    private void dropFile(DragEvent event) {
+        boolean accepted = event.getDragboard().hasFiles();
+        if (accepted) {
+            startImport(event.getDragboard().getFiles().get(0));
+        }
+        event.setDropCompleted(accepted);
+        event.consume();
+    }
+
+    /**
+     * Import a file, replacing the current results; a running import is cancelled
+     */
+    private void startImport(File file) {
+        cancelView();
+        results = null;
+        requestedView = null;
+        rows.setRows(null, new int[0]);
+        summaryLabel.setText("");
+        importService.setFile(file.toPath());
+        importService.restart();
+    }
+
+    private void showResults(BulkResults newResults) {
+        results = newResults;
+        requestedView = null;
+        summaryLabel.setText(newResults.toString());
+        refreshView();
+    }
+
+    /**
+     * Recompute the visible row order for the current filter and sort columns in the background
+     */
+    private void refreshView() {
+        if (results == null) {
+            return;
+        }
+        int category = selectedCategory();
+        List<SortKey> keys = new ArrayList<>();
+        List<Boolean> descending = new ArrayList<>();
+        StringBuilder view = new StringBuilder().append(category);
+        for (TableColumn<BulkResults.Row, ?> column : resultsTable.getSortOrder()) {
+            SortKey key = sortKeys.get(column);
+            if (key != null) {
+                boolean isDescending = column.getSortType() == TableColumn.SortType.DESCENDING;
+                keys.add(key);
+                descending.add(isDescending);
+                view.append(',').append(column.getText()).append(isDescending ? '-' : '+');
+            }
+        }
+        if (view.toString().equals(requestedView)) {
+            return;
+        }
+        requestedView = view.toString();
+
+        cancelView();
+        BulkResults source = results;
+        Task<int[]> task = new Task<>() {
+            @Override
+            protected int[] call() {
+                return computeOrder(source, category, keys, descending, this);
+            }
+        };
+        viewTask = task;
+        task.setOnSucceeded(e -> {
+            if (task == viewTask && source == results) {
+                rows.setRows(source, task.getValue());
+                showStatus(String.format("Showing %,d of %,d rows", rows.size(), source.size()), Color.GREEN);
+            }
+        });
+        task.setOnFailed(e -> {
+            if (task == viewTask && !(task.getException() instanceof CancellationException)) {
+                showStatus("Sorting failed: " + task.getException().getMessage(), Color.RED);
+            }
+        });
+        showStatus("Sorting...", Color.BLUE);
+        viewExecutor.execute(task);
+    }
+
+    private void cancelView() {
+        if (viewTask != null) {
+            viewTask.cancel();
+            viewTask = null;
+        }
+    }
+
+    /**
+     * Selected category index, {@link BulkResults#ERROR_CATEGORY} for errors, or
+     * {@link Integer#MIN_VALUE} for all rows
+     */
+    private int selectedCategory() {
+        int selected = categoryFilter.getSelectionModel().getSelectedIndex();
+        if (selected <= 0) {
+            return Integer.MIN_VALUE;
+        }
+        return selected > PredictionResult.getCategoryCount() ? BulkResults.ERROR_CATEGORY : selected - 1;
+    }
+
+    /**
+     * Row indexes of the matching rows, sorted by the given keys (stable, file order for ties)
+     */
+    private static int[] computeOrder(BulkResults source, int category, List<SortKey> keys,
+                                      List<Boolean> descending, Task<?> task) {
+        int[] matching = new int[source.size()];
+        int count = 0;
+        for (int row = 0; row < source.size(); row++) {
+            if (category == Integer.MIN_VALUE || source.getCategory(row) == category) {
+                matching[count++] = row;
+            }
+        }
+        if (keys.isEmpty()) {
+            return Arrays.copyOf(matching, count);
+        }
+
+        // Read the keys once into primitive arrays; the comparator then only indexes them
+        double[][] columns = new double[keys.size()][count];
+        for (int k = 0; k < keys.size(); k++) {
+            SortKey key = keys.get(k);
+            for (int i = 0; i < count; i++) {
+                columns[k][i] = key.valueOf(source, matching[i]);
+            }
+        }
+        boolean[] reversed = new boolean[keys.size()];
+        for (int k = 0; k < reversed.length; k++) {
+            reversed[k] = descending.get(k);
+        }
+        if (task.isCancelled()) {
+            throw new CancellationException();
+        }
+        int[] positions = new int[count];
+        for (int i = 0; i < count; i++) {
+            positions[i] = i;
+        }
+        mergeSort(positions, (x, y) -> {
+            for (int k = 0; k < columns.length; k++) {
+                int comparison = Double.compare(columns[k][x], columns[k][y]);
+                if (comparison != 0) {
+                    return reversed[k] ? -comparison : comparison;
+                }
+            }
+            return 0;
+        });
+        int[] sorted = new int[count];
+        for (int i = 0; i < count; i++) {
+            sorted[i] = matching[positions[i]];
+        }
+        return sorted;
+    }
+
+    /**
+     * Stable bottom-up merge sort of primitive positions, so sorting never boxes a row index
+     */
+    private static void mergeSort(int[] positions, PositionOrder order) {
+        int length = positions.length;
+        int[] source = positions;
+        int[] target = new int[length];
+        for (int width = 1; width < length; width <<= 1) {
+            for (int low = 0; low < length; low += width << 1) {
+                int middle = Math.min(low + width, length);
+                int high = Math.min(low + (width << 1), length);
+                int left = low;
+                int right = middle;
+                for (int out = low; out < high; out++) {
+                    if (left < middle && (right >= high || order.compare(source[left], source[right]) <= 0)) {
+                        target[out] = source[left++];
+                    } else {
+                        target[out] = source[right++];
+                    }
+                }
+            }
+            int[] swap = source;
+            source = target;
+            target = swap;
+        }
+        if (source != positions) {
+            System.arraycopy(source, 0, positions, 0, length);
+        }
+    }
+
+    private interface PositionOrder {
+        int compare(int x, int y);
+    }
+
+    /**
+     * Value a column is sorted by, read straight from the result columns
+     */
+    private interface SortKey {
+        double valueOf(BulkResults results, int row);
+    }
+
+    private void showStatus(String message, Color color) {
+        importStatusLabel.textProperty().unbind();
+        importStatusLabel.setText(message);
+        importStatusLabel.setTextFill(color);
+    }
+}
@@ -0,0 +1,123 @@
+package com.hospital.ckd.ui;
+
+import com.hospital.ckd.data.CsvPatientReader;
+import com.hospital.ckd.data.PatientChunk;
+import com.hospital.ckd.service.PredictionService;
+import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.SimpleObjectProperty;
+import javafx.concurrent.Service;
+import javafx.concurrent.Task;
+
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Background service that reads a patient CSV file and scores it in parallel chunks.
+ *
+ * The service thread parses the file chunk by chunk and hands each chunk to a pool of scoring
+ * threads ({@link PredictionService#scoreChunk(PatientChunk)}). Scored chunks are collected in
+ * file order into a {@link BulkResults}; only a few chunks are in flight at once and they are
+ * reused, so memory grows with the results only. Progress is reported in bytes read, and
+ * cancelling the service stops reading and abandons the chunks still being scored.
+ */
+public class BulkImportService extends Service<BulkResults> {
+    private static final int CHUNK_ROWS = 4096;
+    // Rough size of one CSV row, used to size the result columns up front
+    private static final int ESTIMATED_ROW_BYTES = 40;
+    // Cap on the up-front sizing; bigger files grow the columns as rows arrive
+    private static final int MAX_INITIAL_ROWS = 1 << 16;
+
+    private final ObjectProperty<Path> file = new SimpleObjectProperty<>(this, "file");
+    private final int workerCount;
+
+    public BulkImportService() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param workerCount Number of threads scoring chunks
+     */
+    public BulkImportService(int workerCount) {
+        if (workerCount <= 0) {
+            throw new IllegalArgumentException("Worker count must be positive");
+        }
+        this.workerCount = workerCount;
+    }
+
+    @Override
+    protected Task<BulkResults> createTask() {
+        Path path = getFile();
+        if (path == null) {
+            throw new IllegalStateException("No file selected");
+        }
+        return new ImportTask(path, workerCount);
+    }
+
+    /**
+     * One import run: reads on the service thread, scores on a private pool
+     */
+    private static class ImportTask extends Task<BulkResults> {
+        private final Path path;
+        private final int workerCount;
+
+        ImportTask(Path path, int workerCount) {
+            this.path = path;
+            this.workerCount = workerCount;
+        }
+
+        @Override
+        protected BulkResults call() throws Exception {
+            PredictionService predictionService = ModelWarmup.start().join();
+            ExecutorService scoringPool = Executors.newFixedThreadPool(workerCount, runnable -> {
+                Thread thread = new Thread(runnable, "ckd-bulk-import");
+                thread.setDaemon(true);
+                return thread;
+            });
+            Deque<Future<PatientChunk>> inFlight = new ArrayDeque<>();
+            Deque<PatientChunk> freeChunks = new ArrayDeque<>();
+            int maxInFlight = workerCount * 2;
+
+            try (CsvPatientReader reader = new CsvPatientReader(path)) {
+                BulkResults results = new BulkResults((int) Math.min(MAX_INITIAL_ROWS,
+                        reader.getFileSize() / ESTIMATED_ROW_BYTES));
+                while (!isCancelled()) {
+                    PatientChunk chunk = freeChunks.isEmpty() ? new PatientChunk(CHUNK_ROWS) : freeChunks.pop();
+                    if (reader.readChunk(chunk) == 0) {
+                        break;
+                    }
+                    inFlight.add(scoringPool.submit(() -> {
+                        predictionService.scoreChunk(chunk);
+                        return chunk;
+                    }));
+                    if (inFlight.size() >= maxInFlight) {
+                        collect(inFlight.poll().get(), results, freeChunks);
+                    }
+                    updateProgress(reader.getBytesRead(), reader.getFileSize());
+                    updateMessage(String.format("Scored %,d rows", results.size()));
+                }
+                while (!inFlight.isEmpty() && !isCancelled()) {
+                    collect(inFlight.poll().get(), results, freeChunks);
+                }
+                updateProgress(reader.getFileSize(), reader.getFileSize());
+                updateMessage(String.format("Scored %,d rows", results.size()));
+                return results;
+            } finally {
+                scoringPool.shutdownNow();
+            }
+        }
+
+        private static void collect(PatientChunk chunk, BulkResults results, Deque<PatientChunk> freeChunks) {
+            results.append(chunk);
+            freeChunks.push(chunk);
+        }
+    }
+
+    // Getters
+    public Path getFile() { return file.get(); }
+    public void setFile(Path path) { file.set(path); }
+    public ObjectProperty<Path> fileProperty() { return file; }
+}
@@ -0,0 +1,73 @@
+package com.hospital.ckd.ui;
+
+import javafx.collections.ObservableListBase;
+
+import java.util.AbstractList;
+import java.util.List;
+
+/**
+ * Read-only observable list over the rows of a {@link BulkResults}, in a given order.
+ *
+ * The list holds only the row order (the sorted and filtered row indexes); {@link #get(int)}
+ * creates the row view on demand, so a virtualized table materializes just the rows it shows.
+ * Sorting and filtering compute a new order in the background and swap it in with
+ * {@link #setRows(BulkResults, int[])}, which must be called on the FX thread.
+ */
+class BulkResultList extends ObservableListBase<BulkResults.Row> {
+    private BulkResults results;
+    private int[] order = new int[0];
+
+    @Override
+    public BulkResults.Row get(int index) {
+        return results.row(order[index]);
+    }
+
+    @Override
+    public int size() {
+        return order.length;
+    }
+
+    /**
+     * Show the given rows of a result set, replacing the current content
+     */
+    void setRows(BulkResults newResults, int[] newOrder) {
+        List<BulkResults.Row> removed = new OrderView(results, order);
+        results = newResults;
+        order = newOrder;
+        if (removed.isEmpty() && newOrder.length == 0) {
+            return;
+        }
+        beginChange();
+        if (removed.isEmpty()) {
+            nextAdd(0, newOrder.length);
+        } else if (newOrder.length == 0) {
+            nextRemove(0, removed);
+        } else {
+            nextReplace(0, newOrder.length, removed);
+        }
+        endChange();
+    }
+
+    /**
+     * Rows of a previous order, reported as removed without copying them
+     */
+    private static class OrderView extends AbstractList<BulkResults.Row> {
+        private final BulkResults results;
+        private final int[] order;
+
+        OrderView(BulkResults results, int[] order) {
+            this.results = results;
+            this.order = order;
+        }
+
+        @Override
+        public BulkResults.Row get(int index) {
+            return results.row(order[index]);
+        }
+
+        @Override
+        public int size() {
+            return order.length;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.hospital.ckd.ui;
+
+import com.hospital.ckd.data.PatientChunk;
+import com.hospital.ckd.data.Preprocessor;
+import com.hospital.ckd.model.PredictionResult;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Scored rows of a bulk import, kept in primitive columns.
+ *
+ * Rows are appended chunk by chunk while the file is scored and never change afterwards, so
+ * once the import has finished the table can read them on the FX thread while sorting and
+ * filtering run in the background. A {@link Row} is only a row index; the table creates one
+ * for each visible line, never for the whole file.
+ */
+public class BulkResults {
+    // Category of rows that could not be parsed or failed validation
+    public static final int ERROR_CATEGORY = -1;
+    // Most rows whose values still fit in one array
+    private static final int MAX_ROWS = (Integer.MAX_VALUE - 8) / Preprocessor.FEATURE_COUNT;
+
+    private long[] lineNumbers;
+    private double[] values;
+    private double[] probabilities;
+    private byte[] categories;
+    private final Map<Integer, String> errors = new HashMap<>();
+    private final int[] categoryCounts = new int[PredictionResult.getCategoryCount()];
+    private int size;
+
+    BulkResults(int initialCapacity) {
+        int capacity = Math.min(MAX_ROWS, Math.max(16, initialCapacity));
+        lineNumbers = new long[capacity];
+        values = new double[capacity * Preprocessor.FEATURE_COUNT];
+        probabilities = new double[capacity];
+        categories = new byte[capacity];
+    }
+
+    /**
+     * Append the rows of a scored chunk
+     */
+    void append(PatientChunk chunk) {
+        int count = chunk.getSize();
+        ensureCapacity((long) size + count);
+        System.arraycopy(chunk.getValues(), 0, values, size * Preprocessor.FEATURE_COUNT,
+                count * Preprocessor.FEATURE_COUNT);
+        double[] chunkProbabilities = chunk.getProbabilities();
+        for (int i = 0; i < count; i++) {
+            int row = size + i;
+            lineNumbers[row] = chunk.getLineNumber(i);
+            String error = chunk.getError(i);
+            if (error != null) {
+                errors.put(row, error);
+                probabilities[row] = Double.NaN;
+                categories[row] = ERROR_CATEGORY;
+            } else {
+                int category = PredictionResult.categoryIndex(chunkProbabilities[i]);
+                probabilities[row] = chunkProbabilities[i];
+                categories[row] = (byte) category;
+                categoryCounts[category]++;
+            }
+        }
+        size += count;
+    }
+
+    private void ensureCapacity(long required) {
+        if (required <= lineNumbers.length) {
+            return;
+        }
+        if (required > MAX_ROWS) {
+            throw new IllegalStateException(String.format("Bulk import is limited to %,d rows", MAX_ROWS));
+        }
+        int capacity = (int) Math.min(MAX_ROWS, Math.max(required, lineNumbers.length + (lineNumbers.length >> 1)));
+        lineNumbers = Arrays.copyOf(lineNumbers, capacity);
+        values = Arrays.copyOf(values, capacity * Preprocessor.FEATURE_COUNT);
+        probabilities = Arrays.copyOf(probabilities, capacity);
+        categories = Arrays.copyOf(categories, capacity);
+    }
+
+    /**
+     * Lightweight view of one row
+     */
+    public Row row(int index) {
+        return new Row(index);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Number of rows in a risk category, or of failed rows for {@link #ERROR_CATEGORY}
+     */
+    public int countCategory(int category) {
+        return category == ERROR_CATEGORY ? errors.size() : categoryCounts[category];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder summary = new StringBuilder(String.format("%,d rows", size));
+        for (int i = 0; i < categoryCounts.length; i++) {
+            summary.append(String.format(", %s %,d", PredictionResult.categoryName(i), categoryCounts[i]));
+        }
+        return summary.append(String.format(", errors %,d", errors.size())).toString();
+    }
+
+    // Getters
+    public long getLineNumber(int row) { return lineNumbers[row]; }
+    public double getValue(int row, int feature) { return values[row * Preprocessor.FEATURE_COUNT + feature]; }
+    public double getProbability(int row) { return probabilities[row]; }
+    public int getCategory(int row) { return categories[row]; }
+    public String getError(int row) { return errors.get(row); }
+
+    /**
+     * One row of the results, as shown by the table
+     */
+    public final class Row {
+        private final int index;
+
+        private Row(int index) {
+            this.index = index;
+        }
+
+        public int getIndex() { return index; }
+        public long getLineNumber() { return lineNumbers[index]; }
+        public double getValue(int feature) { return BulkResults.this.getValue(index, feature); }
+        public double getProbability() { return probabilities[index]; }
+        public int getCategory() { return categories[index]; }
+        public String getError() { return errors.get(index); }
+    }
+}
@@ -0,0 +1,14 @@
+package com.hospital.ckd.ui;
+
+/**
+ * Entry point for class-path launches (java -cp ... com.hospital.ckd.ui.Launcher).
+ *
+ * The java launcher refuses to start a JavaFX Application subclass directly unless JavaFX is on
+ * the module path; starting through a plain class avoids that check. Used by StartupBenchmark
+ * and the AppCDS profile, which need jars on the class path.
+ */
+public class Launcher {
+    public static void main(String[] args) {
+        MainApp.main(args);
+    }
+}
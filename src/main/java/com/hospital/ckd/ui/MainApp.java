@@ -1,38 +1,96 @@
 package com.hospital.ckd.ui;
 
+import com.hospital.ckd.service.PredictionService;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
 
+/**
+ * Desktop application entry point.
+ *
+ * The model is loaded and warmed up on a background thread ({@link ModelWarmup}) while the
+ * toolkit starts and the FXML is loaded, so the window appears without waiting for the model
+ * and the first prediction runs compiled code. Startup milestones are recorded by
+ * {@link StartupTimer}.
+ */
 public class MainApp extends Application {
+    private static final double DEFAULT_WIDTH = 1100;
+    private static final double DEFAULT_HEIGHT = 750;
+    private static final double MIN_WIDTH = 800;
+    private static final double MIN_HEIGHT = 600;
+
+    @Override
+    public void init() {
+        // No-op when main() has already started it
+        ModelWarmup.start();
+    }
 
     @Override
     public void start(Stage primaryStage) throws Exception {
         try {
-            // Load FXML file
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/main.fxml"));
+            // Load FXML file: single patient form and bulk import tabs
+            FXMLLoader loader = new FXMLLoader(getClass().getResource("/app.fxml"));
             Parent root = loader.load();
+            StartupTimer.mark(StartupTimer.FXML_LOADED);
 
             // Set up the scene
-            Scene scene = new Scene(root, 800, 700);
-            
+            Scene scene = new Scene(root, DEFAULT_WIDTH, DEFAULT_HEIGHT);
+            scene.addPostLayoutPulseListener(new Runnable() {
+                @Override
+                public void run() {
+                    scene.removePostLayoutPulseListener(this);
+                    StartupTimer.mark(StartupTimer.FIRST_FRAME);
+                    finishStartup();
+                }
+            });
+
             // Configure the primary stage
             primaryStage.setTitle("Hospital CKD Risk Prediction System");
             primaryStage.setScene(scene);
-            primaryStage.setResizable(false);
+            primaryStage.setMinWidth(MIN_WIDTH);
+            primaryStage.setMinHeight(MIN_HEIGHT);
             primaryStage.show();
 
             System.out.println("Hospital CKD Risk Prediction System started successfully");
 
+            if (StartupTimer.isReportEnabled()) {
+                scoreFirstPatient();
+            }
+
         } catch (Exception e) {
             System.err.println("Failed to start application: " + e.getMessage());
             e.printStackTrace();
         }
     }
 
+    /**
+     * Score the reference patient as soon as the model is ready, like a user who submits the
+     * form straight away; used to measure time to first prediction
+     */
+    private void scoreFirstPatient() {
+        ModelWarmup.start().thenAccept(service -> {
+            service.predictCKDRisk(PredictionService.REFERENCE_PATIENT);
+            StartupTimer.mark(StartupTimer.FIRST_PREDICTION);
+            Platform.runLater(this::finishStartup);
+        }).exceptionally(error -> {
+            System.err.println("First prediction failed: " + error.getMessage());
+            Platform.runLater(Platform::exit);
+            return null;
+        });
+    }
+
+    private void finishStartup() {
+        if (StartupTimer.reportIfComplete() && StartupTimer.isExitEnabled()) {
+            Platform.exit();
+        }
+    }
+
     public static void main(String[] args) {
+        StartupTimer.mark(StartupTimer.MAIN);
+        ModelWarmup.start();
         launch(args);
     }
 }
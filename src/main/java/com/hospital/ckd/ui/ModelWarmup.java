@@ -0,0 +1,49 @@
+package com.hospital.ckd.ui;
+
+import com.hospital.ckd.service.PredictionService;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Loads the prediction service and warms up its model on a background thread.
+ *
+ * MainApp starts it before the FXML is loaded, so loading the model and JIT-compiling the
+ * scoring path overlap with building the window. Controllers wait on {@link #start()} instead of
+ * constructing the service on the FX thread; the future completes once the warm-up and the
+ * health check have passed.
+ */
+public final class ModelWarmup {
+    private static CompletableFuture<PredictionService> ready;
+
+    private ModelWarmup() {
+    }
+
+    /**
+     * Start the warm-up on first call
+     * @return Future completed with the ready service, or exceptionally if it is not usable
+     */
+    public static synchronized CompletableFuture<PredictionService> start() {
+        if (ready == null) {
+            ready = new CompletableFuture<>();
+            Thread thread = new Thread(ModelWarmup::run, "ckd-model-warmup");
+            thread.setDaemon(true);
+            thread.start();
+        }
+        return ready;
+    }
+
+    private static void run() {
+        try {
+            PredictionService service = PredictionService.getInstance();
+            service.warmUp();
+            if (!service.isServiceHealthy()) {
+                throw new IllegalStateException("Prediction service is not available");
+            }
+            StartupTimer.mark(StartupTimer.MODEL_READY);
+            ready.complete(service);
+        } catch (RuntimeException | Error e) {
+            System.err.println("Model warm-up failed: " + e.getMessage());
+            ready.completeExceptionally(e);
+        }
+    }
+}
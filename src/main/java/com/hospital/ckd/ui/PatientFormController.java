@@ -3,15 +3,32 @@ package com.hospital.ckd.ui;
 import com.hospital.ckd.model.PatientData;
 import com.hospital.ckd.model.PredictionResult;
 import com.hospital.ckd.service.PredictionService;
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
+import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.scene.control.*;
 import javafx.scene.paint.Color;
+import javafx.util.Duration;
 
 import java.net.URL;
 import java.util.ResourceBundle;
-
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Controller of the patient form.
+ *
+ * Scoring never runs on the JavaFX application thread: every prediction is a {@link Task} on a
+ * single background thread, and a newer request cancels the one it supersedes. In live mode the
+ * form is re-scored shortly after the user stops typing; keystrokes that arrive while a
+ * prediction is in flight are coalesced into one follow-up prediction with the latest values.
+ */
 public class PatientFormController implements Initializable {
+    // Quiet period after the last keystroke before a live update is scored
+    private static final Duration LIVE_UPDATE_DELAY = Duration.millis(200);
 
     // Input fields
     @FXML private TextField ageField;
@@ -27,20 +44,29 @@ public class PatientFormController implements Initializable {
 
     // Action button
     @FXML private Button analyzeButton;
+    @FXML private CheckBox liveModeCheckBox;
 
     // Result display
     @FXML private Label riskPercentageLabel;
     @FXML private Label riskCategoryLabel;
+    @FXML private ProgressBar riskGauge;
     @FXML private TextArea precautionsArea;
     @FXML private Label statusLabel;
 
+    private final ExecutorService scoringExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ckd-ui-scoring");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Set once the health check has passed; only touched on the JavaFX application thread
     private PredictionService predictionService;
+    private Task<PredictionResult> currentTask;
+    private boolean liveUpdatePending;
+    private PauseTransition liveUpdateDelay;
 
     @Override
     public void initialize(URL location, ResourceBundle resources) {
-        // Initialize the prediction service
-        predictionService = PredictionService.getInstance();
-
         // Set up input field validation
         setupInputValidation();
 
@@ -50,13 +76,44 @@ public class PatientFormController implements Initializable {
         // Set button action
         analyzeButton.setOnAction(e -> analyzeCKDRisk());
 
-        // Check service health
-        if (!predictionService.isServiceHealthy()) {
-            showError("Prediction service is not available");
-        } else {
+        // Re-score after a short pause in typing while live mode is on
+        liveUpdateDelay = new PauseTransition(LIVE_UPDATE_DELAY);
+        liveUpdateDelay.setOnFinished(e -> scoreLive());
+        liveModeCheckBox.selectedProperty().addListener((observable, wasSelected, selected) -> {
+            if (selected) {
+                scheduleLiveUpdate();
+            } else {
+                liveUpdateDelay.stop();
+                liveUpdatePending = false;
+            }
+        });
+
+        // Enable analysis once the model has been loaded and warmed up
+        waitForModel();
+    }
+
+    /**
+     * Wait for the background model load and warm-up started by MainApp
+     * The form stays usable for typing; analysis is enabled once the model is ready.
+     */
+    private void waitForModel() {
+        analyzeButton.setDisable(true);
+        statusLabel.setText("Warming up prediction model...");
+        statusLabel.setTextFill(Color.ORANGE);
+
+        ModelWarmup.start().whenComplete((service, error) -> Platform.runLater(() -> {
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error;
+                showError(cause.getMessage());
+                return;
+            }
+            predictionService = service;
+            analyzeButton.setDisable(false);
             statusLabel.setText("System ready");
             statusLabel.setTextFill(Color.GREEN);
-        }
+            scheduleLiveUpdate();
+        }));
     }
 
     /**
@@ -73,6 +130,8 @@ public class PatientFormController implements Initializable {
                 // Allow only numeric input (including decimals)
                 if (!newValue.matches("\\d*\\.?\\d*")) {
                     field.setText(oldValue);
+                } else {
+                    scheduleLiveUpdate();
                 }
             });
         }
@@ -83,29 +142,117 @@ public class PatientFormController implements Initializable {
      */
     @FXML
     private void analyzeCKDRisk() {
+        if (predictionService == null) {
+            return;
+        }
+        liveUpdateDelay.stop();
+        liveUpdatePending = false;
         try {
             // Clear previous results
             clearResults();
             statusLabel.setText("Analyzing...");
             statusLabel.setTextFill(Color.BLUE);
 
-            // Validate and collect input data
-            PatientData patientData = collectPatientData();
+            // Validate and collect input data, then score in the background
+            startScoring(collectPatientData(), false);
 
-            // Perform prediction
-            PredictionResult result = predictionService.predictCKDRisk(patientData);
-
-            // Display results
-            displayResults(result);
+        } catch (IllegalArgumentException e) {
+            cancelScoring();
+            showError("Input Error: " + e.getMessage());
+        }
+    }
 
-            statusLabel.setText("Analysis completed");
-            statusLabel.setTextFill(Color.GREEN);
+    /**
+     * Restart the live update timer; each keystroke pushes the update back
+     */
+    private void scheduleLiveUpdate() {
+        if (liveModeCheckBox.isSelected() && predictionService != null) {
+            liveUpdateDelay.playFromStart();
+        }
+    }
 
+    /**
+     * Score the current field values for live mode
+     * While a prediction is still running this only marks an update as pending; it is scored
+     * with the latest values once the running prediction completes.
+     */
+    private void scoreLive() {
+        if (currentTask != null) {
+            liveUpdatePending = true;
+            return;
+        }
+        if (isAnyFieldEmpty()) {
+            clearResults();
+            statusLabel.setText("Live mode: fill in all fields");
+            statusLabel.setTextFill(Color.BLUE);
+            return;
+        }
+        try {
+            statusLabel.setText("Updating...");
+            statusLabel.setTextFill(Color.BLUE);
+            startScoring(collectPatientData(), true);
         } catch (IllegalArgumentException e) {
             showError("Input Error: " + e.getMessage());
-        } catch (Exception e) {
-            showError("Analysis failed: " + e.getMessage());
-            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Run one prediction in the background, cancelling the one it supersedes
+     * @param live True for a live-mode preview, which is scored without auditing
+     */
+    private void startScoring(PatientData patientData, boolean live) {
+        cancelScoring();
+        PredictionService service = predictionService;
+        Task<PredictionResult> task = new Task<>() {
+            @Override
+            protected PredictionResult call() {
+                // Live previews of partial edits are not clinical predictions; only Analyze is audited
+                return live ? service.previewCKDRisk(patientData) : service.predictCKDRisk(patientData);
+            }
+        };
+        currentTask = task;
+
+        // A task cancelled after finishing may still report success; only the current one is shown
+        task.setOnSucceeded(e -> {
+            if (task == currentTask) {
+                displayResults(task.getValue());
+                StartupTimer.mark(StartupTimer.FIRST_PREDICTION);
+                statusLabel.setText(live ? "Live analysis" : "Analysis completed");
+                statusLabel.setTextFill(Color.GREEN);
+            }
+            finishScoring(task);
+        });
+        task.setOnFailed(e -> {
+            if (task == currentTask) {
+                Throwable error = task.getException();
+                if (error instanceof IllegalArgumentException) {
+                    showError("Input Error: " + error.getMessage());
+                } else {
+                    showError("Analysis failed: " + error.getMessage());
+                    error.printStackTrace();
+                }
+            }
+            finishScoring(task);
+        });
+        task.setOnCancelled(e -> finishScoring(task));
+        scoringExecutor.execute(task);
+    }
+
+    private void cancelScoring() {
+        if (currentTask != null) {
+            currentTask.cancel();
+            currentTask = null;
+        }
+    }
+
+    private void finishScoring(Task<PredictionResult> task) {
+        if (task != currentTask) {
+            return;
+        }
+        currentTask = null;
+        if (liveUpdatePending) {
+            liveUpdatePending = false;
+            scoreLive();
         }
     }
 
@@ -161,6 +308,7 @@ public class PatientFormController implements Initializable {
     private void displayResults(PredictionResult result) {
         riskPercentageLabel.setText(result.getRiskPercentage() + "%");
         riskCategoryLabel.setText(result.getRiskCategory());
+        riskGauge.setProgress(result.getRiskProbability());
         precautionsArea.setText(result.getPrecautions());
 
         // Color code the risk category
@@ -178,6 +326,12 @@ public class PatientFormController implements Initializable {
         
         riskCategoryLabel.setTextFill(categoryColor);
         riskPercentageLabel.setTextFill(categoryColor);
+        riskGauge.setStyle("-fx-accent: " + toWebColor(categoryColor) + ";");
+    }
+
+    private static String toWebColor(Color color) {
+        return String.format("#%02x%02x%02x", Math.round(color.getRed() * 255),
+                Math.round(color.getGreen() * 255), Math.round(color.getBlue() * 255));
     }
 
     /**
@@ -186,6 +340,8 @@ public class PatientFormController implements Initializable {
     private void clearResults() {
         riskPercentageLabel.setText("--");
         riskCategoryLabel.setText("--");
+        riskGauge.setProgress(0);
+        riskGauge.setStyle("");
         precautionsArea.clear();
         riskPercentageLabel.setTextFill(Color.BLACK);
         riskCategoryLabel.setTextFill(Color.BLACK);
@@ -213,7 +369,11 @@ public class PatientFormController implements Initializable {
         for (TextField field : fields) {
             field.clear();
         }
-        
+
+        // Nothing left to score
+        liveUpdateDelay.stop();
+        liveUpdatePending = false;
+        cancelScoring();
         clearResults();
         statusLabel.setText("Form cleared");
         statusLabel.setTextFill(Color.BLUE);
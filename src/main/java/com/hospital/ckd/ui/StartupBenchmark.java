@@ -0,0 +1,113 @@
+package com.hospital.ckd.ui;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Startup time harness for the desktop application.
+ *
+ * Launches the application in fresh JVMs with the startup exit flag set, and measures each
+ * milestone from the moment the process was started: time to first frame and time to first
+ * prediction, with the FXML load and model warm-up in between. When an AppCDS archive is
+ * given, every run is repeated with the archive so both configurations can be compared.
+ *
+ * Usage: StartupBenchmark [runs] [archive.jsa]
+ */
+public class StartupBenchmark {
+    private static final String[] MILESTONES = {
+        StartupTimer.MAIN, StartupTimer.FXML_LOADED, StartupTimer.FIRST_FRAME,
+        StartupTimer.MODEL_READY, StartupTimer.FIRST_PREDICTION
+    };
+
+    /**
+     * Launch the application once and return the milliseconds from launch to each milestone
+     */
+    static Map<String, Long> launch(Path archive) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        if (archive != null) {
+            command.add("-XX:SharedArchiveFile=" + archive);
+        }
+        command.add("--add-modules");
+        command.add("jdk.incubator.vector");
+        command.add("-D" + StartupTimer.EXIT_PROPERTY + "=true");
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(Launcher.class.getName());
+
+        long launchedAt = System.currentTimeMillis();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        Map<String, Long> timings = new HashMap<>();
+        try (BufferedReader output = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = output.readLine()) != null) {
+                if (!line.startsWith(StartupTimer.REPORT_PREFIX + " ")) {
+                    continue;
+                }
+                for (String field : line.substring(StartupTimer.REPORT_PREFIX.length() + 1).split(" ")) {
+                    int separator = field.indexOf('=');
+                    timings.put(field.substring(0, separator),
+                            Long.parseLong(field.substring(separator + 1)) - launchedAt);
+                }
+            }
+        }
+        int exitCode = process.waitFor();
+        if (exitCode != 0 || timings.isEmpty()) {
+            throw new IllegalStateException("Application run failed with exit code " + exitCode
+                    + (timings.isEmpty() ? " and no startup report" : ""));
+        }
+        return timings;
+    }
+
+    /**
+     * Run the application several times and print the median and best time of every milestone
+     */
+    static void measure(String label, int runs, Path archive) throws IOException, InterruptedException {
+        Map<String, long[]> samples = new LinkedHashMap<>();
+        for (String milestone : MILESTONES) {
+            samples.put(milestone, new long[runs]);
+        }
+        for (int run = 0; run < runs; run++) {
+            Map<String, Long> timings = launch(archive);
+            for (String milestone : MILESTONES) {
+                samples.get(milestone)[run] = timings.getOrDefault(milestone, -1L);
+            }
+        }
+
+        System.out.printf("%s (%d runs, ms from process launch)%n", label, runs);
+        for (Map.Entry<String, long[]> entry : samples.entrySet()) {
+            long[] values = entry.getValue();
+            Arrays.sort(values);
+            System.out.printf("  %-18s median %6d  best %6d%n", entry.getKey(), values[values.length / 2], values[0]);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int runs = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        Path archive = args.length > 1 ? Paths.get(args[1]) : null;
+        if (runs <= 0) {
+            throw new IllegalArgumentException("Run count must be positive");
+        }
+
+        measure("Default class loading", runs, null);
+        if (archive != null) {
+            if (!Files.exists(archive)) {
+                System.err.println("AppCDS archive not found: " + archive + " (build it with mvn -Pappcds package)");
+                System.exit(1);
+            }
+            measure("AppCDS archive " + archive.getFileName(), runs, archive);
+        }
+    }
+}
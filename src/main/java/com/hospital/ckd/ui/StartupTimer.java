@@ -0,0 +1,81 @@
+package com.hospital.ckd.ui;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Wall-clock milestones of application startup.
+ *
+ * MainApp, the model warm-up and the patient form mark milestones as they happen; only the
+ * first mark of each milestone counts. With -Dckd.startup.report=true the timings are printed
+ * once the first frame is up and the first prediction is done, and with -Dckd.startup.exit=true
+ * the application then exits. {@link StartupBenchmark} and the AppCDS training run use both.
+ */
+public final class StartupTimer {
+    public static final String REPORT_PROPERTY = "ckd.startup.report";
+    public static final String EXIT_PROPERTY = "ckd.startup.exit";
+    // Prefix of the machine-readable report line parsed by StartupBenchmark
+    static final String REPORT_PREFIX = "STARTUP";
+
+    public static final String MAIN = "main";
+    public static final String FXML_LOADED = "fxml-loaded";
+    public static final String FIRST_FRAME = "first-frame";
+    public static final String MODEL_READY = "model-ready";
+    public static final String FIRST_PREDICTION = "first-prediction";
+
+    // Epoch milliseconds of each milestone, in the order they happened
+    private static final Map<String, Long> marks = new LinkedHashMap<>();
+    private static boolean reported;
+
+    private StartupTimer() {
+    }
+
+    /**
+     * Record a milestone if it has not been reached before
+     */
+    public static synchronized void mark(String milestone) {
+        marks.putIfAbsent(milestone, System.currentTimeMillis());
+    }
+
+    public static synchronized boolean isMarked(String milestone) {
+        return marks.containsKey(milestone);
+    }
+
+    public static boolean isReportEnabled() {
+        return Boolean.getBoolean(REPORT_PROPERTY) || isExitEnabled();
+    }
+
+    public static boolean isExitEnabled() {
+        return Boolean.getBoolean(EXIT_PROPERTY);
+    }
+
+    /**
+     * Print the report once both the first frame and the first prediction are marked
+     * @return True if startup is complete
+     */
+    public static synchronized boolean reportIfComplete() {
+        if (!marks.containsKey(FIRST_FRAME) || !marks.containsKey(FIRST_PREDICTION)) {
+            return false;
+        }
+        if (!reported && isReportEnabled()) {
+            reported = true;
+            System.out.print(report());
+        }
+        return true;
+    }
+
+    /**
+     * Milestones relative to JVM start, plus one machine-readable line of epoch milliseconds
+     */
+    public static synchronized String report() {
+        long jvmStart = ProcessHandle.current().info().startInstant().map(Instant::toEpochMilli).orElse(0L);
+        StringBuilder human = new StringBuilder("Startup timings (ms since JVM start):");
+        StringBuilder machine = new StringBuilder(REPORT_PREFIX);
+        for (Map.Entry<String, Long> mark : marks.entrySet()) {
+            human.append(' ').append(mark.getKey()).append('=').append(mark.getValue() - jvmStart);
+            machine.append(' ').append(mark.getKey()).append('=').append(mark.getValue());
+        }
+        return human.append(System.lineSeparator()).append(machine).append(System.lineSeparator()).toString();
+    }
+}
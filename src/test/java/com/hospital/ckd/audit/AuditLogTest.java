@@ -0,0 +1,98 @@
+package com.hospital.ckd.audit;
+
+import com.hospital.ckd.data.Preprocessor;
+import com.hospital.ckd.model.PatientData;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Records appended to the audit log must read back in order across segment rotations, and
+ * damaged records must be skipped and counted without losing their neighbours.
+ */
+class AuditLogTest {
+    private static final String VERSION = "v1";
+    private static final int RECORD_BYTES = AuditLogFormat.recordSize(Preprocessor.FEATURE_COUNT,
+            VERSION.getBytes(StandardCharsets.UTF_8).length);
+    // Smallest segment the log accepts, so a few dozen records rotate through several segments
+    private static final int SEGMENT_BYTES = AuditLogFormat.SEGMENT_HEADER_SIZE
+            + AuditLogFormat.recordSize(Preprocessor.FEATURE_COUNT, 1024);
+    private static final int RECORDS = 100;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void recordsRoundTripAcrossSegments() throws IOException {
+        long segmentsOpened = writeRecords();
+        assertTrue(segmentsOpened > 1, "Expected the log to rotate segments");
+
+        AuditLogReader reader = new AuditLogReader(directory);
+        List<Double> ages = new ArrayList<>();
+        long count = reader.forEach(record -> {
+            assertEquals(VERSION, record.getModelVersion());
+            assertEquals(7, record.getModelGeneration());
+            assertEquals(record.getInput(0) / RECORDS, record.getRiskProbability());
+            ages.add(record.getInput(0));
+        });
+
+        assertEquals(RECORDS, count);
+        assertEquals(0, reader.getCorruptRecords());
+        assertEquals(segmentsOpened, reader.getSegmentsRead());
+        for (int i = 0; i < RECORDS; i++) {
+            assertEquals(i, ages.get(i), "Record " + i);
+        }
+    }
+
+    @Test
+    void damagedRecordsAreSkippedAndCounted() throws IOException {
+        writeRecords();
+        List<Path> segments = new AuditLogReader(directory).segments();
+        try (FileChannel channel = FileChannel.open(segments.get(1), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            segment.order(ByteOrder.LITTLE_ENDIAN);
+            // Flip a bit of the first record's probability: its CRC no longer matches
+            int first = AuditLogFormat.SEGMENT_HEADER_SIZE;
+            segment.put(first + 24, (byte) (segment.get(first + 24) ^ 1));
+            // Shrink the second record's feature count and fix up its CRC: only the size check catches it
+            int second = first + RECORD_BYTES;
+            segment.putInt(second + AuditLogFormat.RECORD_HEADER_SIZE + 24, Preprocessor.FEATURE_COUNT - 1);
+            segment.putInt(second + 4, AuditLogFormat.checksum(segment, second, RECORD_BYTES));
+            segment.force();
+        }
+
+        AuditLogReader reader = new AuditLogReader(directory);
+        long count = reader.forEach(record -> assertEquals(Preprocessor.FEATURE_COUNT, record.getFeatureCount()));
+        assertEquals(RECORDS - 2, count);
+        assertEquals(2, reader.getCorruptRecords());
+        assertEquals(segments.size(), reader.getSegmentsRead());
+    }
+
+    /**
+     * Append RECORDS predictions, patient i having age i and risk i / RECORDS
+     * @return Number of segments the log opened
+     */
+    private long writeRecords() throws IOException {
+        try (AuditLog log = new AuditLog(directory, SEGMENT_BYTES, 16, 0)) {
+            for (int i = 0; i < RECORDS; i++) {
+                PatientData patient = new PatientData(i, 85, 140, 1.8, 11.5, 2, 1, 138, 4.6, 36);
+                log.append(patient, VERSION, 7, (double) i / RECORDS);
+            }
+            log.close();
+            assertEquals(RECORDS, log.getRecordsWritten());
+            return log.getSegmentsOpened();
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.hospital.ckd.history;
+
+import com.hospital.ckd.data.Preprocessor;
+import com.hospital.ckd.model.PatientData;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Reopening a store must rebuild the same index, whether it comes from the checkpoint, a
+ * partial replay or a full replay, and must survive a record torn by a crash.
+ */
+class PatientHistoryStoreTest {
+    private static final int SEGMENT_BYTES = 64 << 10;
+    private static final long DAY = 86_400_000L;
+    private static final long START = 1_700_000_000_000L;
+    private static final String PATIENT = "patient-1";
+    private static final int SERUM_CREATININE = 3;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void tornRecordAtTheTailIsZeroedAndOverwritten() throws IOException {
+        try (PatientHistoryStore store = open()) {
+            appendVisits(store, 3);
+        }
+        // A crash mid-append leaves a length with no valid payload behind the last record
+        int recordSize = HistoryFormat.recordSize(Preprocessor.FEATURE_COUNT,
+                PATIENT.getBytes(StandardCharsets.UTF_8).length);
+        long tail = HistoryFormat.SEGMENT_HEADER_SIZE + 3L * recordSize;
+        try (FileChannel segment = FileChannel.open(directory.resolve(HistoryFormat.segmentName(1)),
+                StandardOpenOption.WRITE)) {
+            ByteBuffer torn = ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN);
+            torn.putInt(recordSize).putInt(0x12345678).putLong(START);
+            torn.flip();
+            segment.write(torn, tail);
+        }
+
+        try (PatientHistoryStore store = open()) {
+            assertEquals(3, store.getRecordCount());
+            assertEquals(3, store.history(PATIENT).size());
+            assertTrue(store.getDiscardedBytes() > 0, "Torn record was not discarded");
+            store.append(PATIENT, START + 10 * DAY, patient(9.0), 0.9);
+        }
+
+        try (PatientHistoryStore store = open()) {
+            assertEquals(4, store.getRecordCount());
+            assertEquals(0, store.getDiscardedBytes());
+            assertEquals(9.0, store.latest(PATIENT).getValue(SERUM_CREATININE));
+        }
+    }
+
+    @Test
+    void reopenReplaysOnlyRecordsAfterTheCheckpoint() throws IOException {
+        PatientHistoryStore crashed = open();
+        appendVisits(crashed, 2);
+        crashed.checkpoint();
+        crashed.append(PATIENT, START + 2 * DAY, patient(3.0), 0.3);
+        crashed.append(PATIENT, START + 3 * DAY, patient(4.0), 0.4);
+        // Reopen without closing, as after a crash; the appended records are in the mapped segment
+        try (PatientHistoryStore store = open()) {
+            assertEquals(2, store.getRecoveredRecords());
+            assertEquals(4, store.getRecordCount());
+            assertTimestamps(store.history(PATIENT), 0, 1, 2, 3);
+            assertEquals(4, store.trends(PATIENT).getVisits());
+            assertEquals(0.4, store.trends(PATIENT).getLatestRisk());
+        }
+
+        try (PatientHistoryStore store = open()) {
+            assertEquals(0, store.getRecoveredRecords());
+            assertEquals(4, store.getRecordCount());
+        }
+    }
+
+    @Test
+    void damagedIndexFallsBackToFullReplay() throws IOException {
+        TrendFeatures expected;
+        try (PatientHistoryStore store = open()) {
+            appendVisits(store, 5);
+            expected = store.trends(PATIENT);
+        }
+        Path index = directory.resolve(HistoryFormat.INDEX_FILE);
+        byte[] bytes = Files.readAllBytes(index);
+        bytes[bytes.length / 2] ^= 0x40;
+        Files.write(index, bytes);
+
+        try (PatientHistoryStore store = open()) {
+            assertEquals(5, store.getRecoveredRecords());
+            assertEquals(5, store.getRecordCount());
+            assertTimestamps(store.history(PATIENT), 0, 1, 2, 3, 4);
+            assertSameTrend(expected, store.trends(PATIENT));
+        }
+    }
+
+    @Test
+    void backfilledVisitIsOrderedByTimestamp() throws IOException {
+        try (PatientHistoryStore store = open()) {
+            store.append(PATIENT, START, patient(1.0), 0.1);
+            store.append(PATIENT, START + 20 * DAY, patient(2.0), 0.3);
+            store.append(PATIENT, START + 10 * DAY, patient(1.5), 0.2);
+            assertBackfilledHistory(store);
+        }
+        try (PatientHistoryStore store = open()) {
+            assertEquals(0, store.getRecoveredRecords());
+            assertBackfilledHistory(store);
+        }
+        Files.delete(directory.resolve(HistoryFormat.INDEX_FILE));
+        try (PatientHistoryStore store = open()) {
+            assertEquals(3, store.getRecoveredRecords());
+            assertBackfilledHistory(store);
+        }
+    }
+
+    private static void assertBackfilledHistory(PatientHistoryStore store) {
+        assertEquals(3, store.getRecordCount());
+        assertTimestamps(store.history(PATIENT), 0, 10, 20);
+        assertEquals(1.5, store.get(PATIENT, START + 10 * DAY).getValue(SERUM_CREATININE));
+
+        TrendFeatures trend = store.trends(PATIENT);
+        assertEquals(START + 20 * DAY, trend.getLastVisit());
+        assertEquals(10.0, trend.getDaysSincePreviousVisit(), 1e-9);
+        assertEquals(0.1, trend.getRiskDelta(), 1e-12);
+        assertEquals(0.5, trend.getDelta(SERUM_CREATININE), 1e-12);
+        // 0.05 mg/dL per day
+        assertEquals(0.05 * 365.25, trend.getCreatinineSlopePerYear(), 1e-9);
+    }
+
+    private static void assertTimestamps(List<HistoryRecord> visits, long... days) {
+        assertEquals(days.length, visits.size());
+        for (int i = 0; i < days.length; i++) {
+            assertEquals(START + days[i] * DAY, visits.get(i).getTimestamp(), "Visit " + i);
+        }
+    }
+
+    private static void assertSameTrend(TrendFeatures expected, TrendFeatures actual) {
+        assertEquals(expected.getVisits(), actual.getVisits());
+        assertEquals(expected.getFirstVisit(), actual.getFirstVisit());
+        assertEquals(expected.getLastVisit(), actual.getLastVisit());
+        assertEquals(expected.getLatestRisk(), actual.getLatestRisk());
+        assertEquals(expected.getRiskDelta(), actual.getRiskDelta(), 1e-12);
+        assertEquals(expected.getRiskSlopePerYear(), actual.getRiskSlopePerYear(), 1e-9);
+        for (int i = 0; i < Preprocessor.FEATURE_COUNT; i++) {
+            assertEquals(expected.getSlopePerYear(i), actual.getSlopePerYear(i), 1e-9, "Slope of feature " + i);
+        }
+    }
+
+    /**
+     * One visit a day with creatinine rising from 1.0 and risk from 0.1
+     */
+    private static void appendVisits(PatientHistoryStore store, int count) {
+        for (int i = 0; i < count; i++) {
+            store.append(PATIENT, START + i * DAY, patient(1.0 + i), 0.1 * (i + 1));
+        }
+    }
+
+    private static PatientData patient(double serumCreatinine) {
+        return new PatientData(55, 85, 140, serumCreatinine, 11.5, 2, 1, 138, 4.6, 36);
+    }
+
+    private PatientHistoryStore open() throws IOException {
+        return new PatientHistoryStore(directory, SEGMENT_BYTES);
+    }
+}
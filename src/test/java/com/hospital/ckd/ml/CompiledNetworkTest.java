@@ -0,0 +1,66 @@
+package com.hospital.ckd.ml;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * The compiled kernel must produce exactly the same bits as the interpreter it was compiled from.
+ */
+class CompiledNetworkTest {
+    private static final int ROWS = 200;
+
+    @Test
+    void scalarLayersMatchInterpreter() {
+        NeuralNetwork network = new NeuralNetwork(3, new int[]{4, 1}, new String[]{"relu", "sigmoid"}, 42);
+        for (Layer layer : network.getLayers()) {
+            assertEquals(InferenceEngine.SCALAR, layer.getEngine());
+        }
+        assertCompiledMatchesInterpreter(network);
+    }
+
+    @Test
+    void vectorLayersWithTailMatchInterpreter() {
+        assumeTrue(InferenceEngine.isVectorAvailable(), "jdk.incubator.vector is not available");
+        int lanes = VectorKernels.laneCount();
+        // Neither width is a multiple of the lane count, so both layers end in a scalar tail
+        NeuralNetwork network = new NeuralNetwork(4 * lanes + 3, new int[]{2 * lanes + 1, 1},
+                new String[]{"tanh", "sigmoid"}, 42);
+        for (Layer layer : network.getLayers()) {
+            assertEquals(InferenceEngine.VECTOR, layer.getEngine());
+        }
+        assertCompiledMatchesInterpreter(network);
+    }
+
+    @Test
+    void networkTooLargeToCompileFallsBackToInterpreter() {
+        NeuralNetwork network = new NeuralNetwork(10, new int[]{256, 128, 1},
+                new String[]{"relu", "relu", "sigmoid"}, 42);
+        assertTrue(KernelCompiler.codeSize(network.getLayers()) > CompiledNetwork.MAX_CODE_BYTES);
+        assertSame(network, CompiledNetwork.compile(network));
+    }
+
+    private static void assertCompiledMatchesInterpreter(NeuralNetwork network) {
+        CompiledNetwork compiled = assertInstanceOf(CompiledNetwork.class, CompiledNetwork.compile(network));
+        Random random = new Random(7);
+        double[][] inputs = new double[ROWS][network.getInputSize()];
+        for (double[] row : inputs) {
+            for (int j = 0; j < row.length; j++) {
+                row[j] = random.nextDouble() * 2 - 1;
+            }
+        }
+
+        double[] batch = compiled.predictBatch(inputs);
+        for (int i = 0; i < ROWS; i++) {
+            long expected = Double.doubleToLongBits(network.predict(inputs[i]));
+            assertEquals(expected, Double.doubleToLongBits(compiled.predict(inputs[i])), "Row " + i);
+            assertEquals(expected, Double.doubleToLongBits(batch[i]), "Row " + i + " of the batch");
+        }
+    }
+}
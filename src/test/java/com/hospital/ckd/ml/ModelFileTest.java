@@ -0,0 +1,84 @@
+package com.hospital.ckd.ml;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * A saved model must load back unchanged, and a damaged or newer file must be refused with
+ * a ModelFormatException that says why.
+ */
+class ModelFileTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void saveAndLoadRoundTrip() throws IOException {
+        NeuralNetwork network = new NeuralNetwork(10, new int[]{16, 8, 1},
+                new String[]{"relu", "tanh", "sigmoid"}, 42);
+        double[] mins = new double[10];
+        double[] maxs = new double[10];
+        for (int i = 0; i < 10; i++) {
+            mins[i] = i;
+            maxs[i] = 10 * (i + 1);
+        }
+        network.setInputRanges(mins, maxs);
+
+        NeuralNetwork loaded = ModelFile.load(save(network));
+
+        assertEquals(network.getInputSize(), loaded.getInputSize());
+        assertArrayEquals(mins, loaded.getInputMins());
+        assertArrayEquals(maxs, loaded.getInputMaxs());
+        List<Layer> expected = network.getLayers();
+        List<Layer> actual = loaded.getLayers();
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getActivation(), actual.get(i).getActivation(), "Layer " + i);
+            assertArrayEquals(expected.get(i).getWeights(), actual.get(i).getWeights(), "Layer " + i);
+            assertArrayEquals(expected.get(i).getBiases(), actual.get(i).getBiases(), "Layer " + i);
+        }
+        double[] inputs = {0.1, 0.9, 0.5, 0.3, 0.7, 0.2, 0.0, 1.0, 0.4, 0.6};
+        assertEquals(network.predict(inputs), loaded.predict(inputs));
+    }
+
+    @Test
+    void flippedByteFailsTheChecksum() throws IOException {
+        Path file = save(new NeuralNetwork());
+        byte[] bytes = Files.readAllBytes(file);
+        // Inside the weight blocks, so the header still parses
+        bytes[bytes.length - 64] ^= 0x10;
+        Files.write(file, bytes);
+
+        ModelFormatException e = assertThrows(ModelFormatException.class, () -> ModelFile.load(file));
+        assertTrue(e.getMessage().contains("Checksum mismatch"), e.getMessage());
+    }
+
+    @Test
+    void newerFormatVersionIsRefused() throws IOException {
+        Path file = save(new NeuralNetwork());
+        byte[] bytes = Files.readAllBytes(file);
+        ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).putInt(4, ModelFile.FORMAT_VERSION + 1);
+        Files.write(file, bytes);
+
+        ModelFormatException e = assertThrows(ModelFormatException.class, () -> ModelFile.load(file));
+        assertTrue(e.getMessage().contains("Unsupported model format version " + (ModelFile.FORMAT_VERSION + 1)),
+                e.getMessage());
+    }
+
+    private Path save(NeuralNetwork network) throws IOException {
+        Path file = directory.resolve("model.ckdm");
+        ModelFile.save(network, file);
+        return file;
+    }
+}
@@ -0,0 +1,64 @@
+package com.hospital.ckd.ml;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Batched scoring must produce exactly the same bits as scoring each row on its own.
+ */
+class NeuralNetworkTest {
+    // Below the block size, not a multiple of it, at and just above the parallel threshold, and well above it
+    private static final int[] BATCH_SIZES = {
+            1,
+            Layer.BATCH_BLOCK_SIZE - 1,
+            3 * Layer.BATCH_BLOCK_SIZE + 7,
+            ParallelRows.BATCH_THRESHOLD,
+            ParallelRows.BATCH_THRESHOLD + 1,
+            5 * ParallelRows.BATCH_THRESHOLD + 13
+    };
+
+    @Test
+    void predictBatchMatchesPredictForDefaultNetwork() {
+        assertBatchMatchesPredict(new NeuralNetwork());
+    }
+
+    @Test
+    void predictBatchMatchesPredictForWideNetwork() {
+        // Wide enough for the vector engine when jdk.incubator.vector is present
+        NeuralNetwork network = new NeuralNetwork(10, new int[]{64, 32, 1},
+                new String[]{"relu", "tanh", "sigmoid"}, 42);
+        assertBatchMatchesPredict(network);
+    }
+
+    @Test
+    void predictBatchOfNoRowsIsEmpty() {
+        assertEquals(0, new NeuralNetwork().predictBatch(new double[0][]).length);
+    }
+
+    private static void assertBatchMatchesPredict(NeuralNetwork network) {
+        Random random = new Random(7);
+        for (int size : BATCH_SIZES) {
+            double[][] inputs = randomInputs(random, size, network.getInputSize());
+            double[] batch = network.predictBatch(inputs);
+            assertEquals(size, batch.length);
+            for (int i = 0; i < size; i++) {
+                double expected = network.predict(inputs[i]);
+                assertEquals(Double.doubleToLongBits(expected), Double.doubleToLongBits(batch[i]),
+                        "Row " + i + " of a batch of " + size);
+            }
+        }
+    }
+
+    private static double[][] randomInputs(Random random, int rows, int columns) {
+        double[][] inputs = new double[rows][columns];
+        for (double[] row : inputs) {
+            for (int j = 0; j < columns; j++) {
+                row[j] = random.nextDouble();
+            }
+        }
+        return inputs;
+    }
+}
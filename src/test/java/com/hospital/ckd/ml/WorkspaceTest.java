@@ -0,0 +1,94 @@
+package com.hospital.ckd.ml;
+
+import com.hospital.ckd.data.Preprocessor;
+import com.hospital.ckd.model.PatientData;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The steady-state scoring path (validate, normalizeInto, predictInto with a reused workspace)
+ * must not allocate once it is warmed up.
+ */
+class WorkspaceTest {
+    private static final int WARMUP_ITERATIONS = 50_000;
+    private static final int MEASURED_ITERATIONS = 10_000;
+    private static final int MEASURED_ROUNDS = 3;
+
+    private static final PatientData PATIENT = new PatientData(55, 85, 140, 1.8, 11.5, 2, 1, 138, 4.6, 36);
+
+    private static com.sun.management.ThreadMXBean threads;
+
+    @BeforeAll
+    static void enableAllocationCounting() {
+        threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assertTrue(threads.isThreadAllocatedMemorySupported(), "JVM cannot count thread allocations");
+        threads.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    @Test
+    void neuralNetworkScoringDoesNotAllocate() {
+        assertScoringDoesNotAllocate(new NeuralNetwork());
+    }
+
+    @Test
+    void wideNeuralNetworkScoringDoesNotAllocate() {
+        assertScoringDoesNotAllocate(new NeuralNetwork(10, new int[]{64, 32, 1},
+                new String[]{"relu", "tanh", "sigmoid"}, 42));
+    }
+
+    @Test
+    void quantizedNetworkScoringDoesNotAllocate() {
+        NeuralNetwork network = new NeuralNetwork();
+        double[][] calibration = new double[64][];
+        for (int i = 0; i < calibration.length; i++) {
+            calibration[i] = Preprocessor.normalize(PATIENT);
+        }
+        assertScoringDoesNotAllocate(QuantizedNetwork.quantize(network, calibration));
+    }
+
+    @Test
+    void floatNetworkScoringDoesNotAllocate() {
+        assertScoringDoesNotAllocate(FloatNetwork.convert(new NeuralNetwork()));
+    }
+
+    @Test
+    void compiledNetworkScoringDoesNotAllocate() {
+        assertScoringDoesNotAllocate(CompiledNetwork.compile(new NeuralNetwork()));
+    }
+
+    private static void assertScoringDoesNotAllocate(Predictor predictor) {
+        Workspace workspace = predictor.newWorkspace();
+        double[] scratch = new double[Preprocessor.FEATURE_COUNT];
+
+        double expected = score(predictor, workspace, scratch, WARMUP_ITERATIONS);
+
+        // A one-off allocation by the runtime (a late JIT deoptimization, for example) can land in
+        // any single window; an allocation per prediction shows up in every one of them
+        long allocated = Long.MAX_VALUE;
+        for (int round = 0; round < MEASURED_ROUNDS && allocated > 0; round++) {
+            long before = threads.getCurrentThreadAllocatedBytes();
+            double sum = score(predictor, workspace, scratch, MEASURED_ITERATIONS);
+            allocated = Math.min(allocated, threads.getCurrentThreadAllocatedBytes() - before);
+            // Use the results so the scoring loop cannot be optimized away
+            assertEquals(expected / WARMUP_ITERATIONS, sum / MEASURED_ITERATIONS, 1e-12);
+        }
+
+        assertEquals(0, allocated, "Bytes allocated by " + MEASURED_ITERATIONS + " predictions");
+    }
+
+    private static double score(Predictor predictor, Workspace workspace, double[] scratch, int iterations) {
+        double sum = 0;
+        for (int i = 0; i < iterations; i++) {
+            assertNull(Preprocessor.validateData(PATIENT, scratch));
+            double[] inputs = Preprocessor.normalizeInto(PATIENT, workspace.getInput());
+            sum += predictor.predictInto(inputs, workspace);
+        }
+        return sum;
+    }
+}
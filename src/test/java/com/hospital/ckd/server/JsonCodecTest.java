@@ -0,0 +1,63 @@
+package com.hospital.ckd.server;
+
+import com.hospital.ckd.model.PatientData;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JsonCodecTest {
+    private static final String PATIENT = "{\"age\":45,\"bloodPressure\":80,\"bloodGlucoseRandom\":120,"
+            + "\"serumCreatinine\":1.2,\"hemoglobin\":13.5,\"albumin\":1,\"sugar\":0,\"sodium\":140,"
+            + "\"potassium\":4.5,\"packedCellVolume\":40";
+
+    @Test
+    void parsesPatientAndSkipsUnknownKeys() {
+        PatientData patient = parse(PATIENT + ",\"notes\":{\"tags\":[1,[2,{\"a\":null}]],\"ok\":true}}");
+        assertEquals(45, patient.getAge());
+        assertEquals(4.5, patient.getPotassium());
+    }
+
+    @Test
+    void parsesBatchWrappedInObject() {
+        List<PatientData> patients = JsonCodec.parsePatients(
+                ("{\"meta\":[[]],\"patients\":[" + PATIENT + "}," + PATIENT + "}]}").getBytes(StandardCharsets.UTF_8));
+        assertEquals(2, patients.size());
+    }
+
+    @Test
+    void acceptsNestingUpToTheLimit() {
+        String value = "[".repeat(JsonCodec.MAX_NESTING_DEPTH) + "]".repeat(JsonCodec.MAX_NESTING_DEPTH);
+        assertEquals(45, parse(PATIENT + ",\"x\":" + value + "}").getAge());
+    }
+
+    @Test
+    void rejectsNestingPastTheLimit() {
+        String value = "[".repeat(JsonCodec.MAX_NESTING_DEPTH + 1) + "]".repeat(JsonCodec.MAX_NESTING_DEPTH + 1);
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> parse(PATIENT + ",\"x\":" + value + "}"));
+        assertTrue(e.getMessage().contains("Nesting"), e.getMessage());
+    }
+
+    @Test
+    void deeplyNestedBodyDoesNotOverflowTheStack() {
+        // 100k unclosed brackets used to recurse until StackOverflowError
+        String body = "{\"x\":" + "[".repeat(100_000);
+        assertThrows(IllegalArgumentException.class, () -> parse(body));
+        assertThrows(IllegalArgumentException.class,
+                () -> JsonCodec.parsePatients(("{\"x\":" + "{\"y\":".repeat(100_000)).getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void rejectsMissingField() {
+        assertThrows(IllegalArgumentException.class, () -> parse("{\"age\":45}"));
+    }
+
+    private static PatientData parse(String json) {
+        return JsonCodec.parsePatient(json.getBytes(StandardCharsets.UTF_8));
+    }
+}